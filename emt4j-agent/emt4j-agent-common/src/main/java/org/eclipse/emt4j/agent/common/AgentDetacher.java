@@ -0,0 +1,71 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import java.io.File;
+import java.lang.instrument.Instrumentation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detach the agent when the duration is over or the stop file is created,
+ * so that an assessment of a running service takes a bounded time.
+ */
+class AgentDetacher implements Runnable {
+
+    private static final long POLL_MILLIS = 1000;
+
+    private final Instrumentation inst;
+
+    private final long deadline;
+
+    private final File stopFile;
+
+    private AgentDetacher(Instrumentation inst, long deadline, File stopFile) {
+        this.inst = inst;
+        this.deadline = deadline;
+        this.stopFile = stopFile;
+    }
+
+    /**
+     * Start a daemon thread that waits for the stop condition, does nothing if neither duration nor stop file is set.
+     */
+    static void start(Instrumentation inst, AgentOption agentOption) {
+        if (agentOption.getDuration() == 0 && agentOption.getStopFile() == null) {
+            return;
+        }
+        long deadline = agentOption.getDuration() == 0 ? Long.MAX_VALUE
+                : System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(agentOption.getDuration());
+        File stopFile = agentOption.getStopFile() == null ? null : new File(agentOption.getStopFile());
+        Thread thread = new Thread(Constant.AGENT_THREAD_GROUP, new AgentDetacher(inst, deadline, stopFile), Constant.AGENT_DETACH_THREAD);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (System.currentTimeMillis() < deadline && (stopFile == null || !stopFile.exists())) {
+                Thread.sleep(Math.min(POLL_MILLIS, Math.max(1, deadline - System.currentTimeMillis())));
+            }
+            AgentInit.detach(inst);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -21,18 +21,22 @@ package org.eclipse.emt4j.agent.common;
 import org.eclipse.emt4j.agent.common.file.BinaryFileWriter;
 import org.eclipse.emt4j.agent.common.file.Recorder;
 import org.eclipse.emt4j.agent.common.file.ReportRecorder;
+import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerProvider;
 import org.eclipse.emt4j.agent.common.jdkdependent.GuessCallerInfo;
+import org.eclipse.emt4j.agent.common.jdkdependent.MetricsEventEmitter;
+import org.eclipse.emt4j.agent.common.jdkdependent.SeenCallsites;
 import org.eclipse.emt4j.common.*;
-import org.eclipse.emt4j.common.classanalyze.ClassInspectorInstance;
 import org.eclipse.emt4j.common.rule.InstanceRuleManager;
 import org.eclipse.emt4j.common.util.ClassURL;
+import org.eclipse.emt4j.common.util.JdkClassUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.security.ProtectionDomain;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provide public API to Agent's other part.
@@ -52,8 +56,21 @@ public class AgentFacade {
 
     private static CallerProvider callerProvider;
 
+    private static ClassSymbolExtractor classSymbolExtractor;
+
+    private static MetricsEventEmitter metricsEventEmitter;
+
     private static final int GUESS_CALLER_NUM = 3;
 
+    /**
+     * How long stopping waits in total for the background threads to finish the recorded dependencies.
+     */
+    private static final long STOP_WAIT_MILLIS = 30_000;
+
+    private static boolean stopped;
+
+    private static boolean shutdownHookAdded;
+
     /**
      * initialize all components of agent
      * <ul>
@@ -66,7 +83,10 @@ public class AgentFacade {
     static synchronized void init(String args, JdkDependConfig jdkDependConfig) throws IOException, IllegalAccessException, InstantiationException, ClassNotFoundException {
         parseArgs(args, jdkDependConfig.getFromVersion());
         initCallerProvider(jdkDependConfig.getCallerProviderClassName());
+        //the options of an agent attached again may select other rules
+        InstanceRuleManager.reset();
         initInstanceRules(jdkDependConfig.getRuleClasses());
+        CallbackSampler.setBudget(agentOption.getCallbackBudget());
         CheckConfig checkConfig = new CheckConfig();
         checkConfig.setCheckMode(Feature.DEFAULT);
         checkConfig.setFromVersion(agentOption.getFromVersion());
@@ -76,15 +96,57 @@ public class AgentFacade {
         //now agent only support arch independent check. so we set a default
         features.add(Feature.DEFAULT.getId());
 
-        recorder = new ReportRecorder(new BinaryFileWriter(getOutputFile(), agentOption.getFromVersion(), agentOption.getToVersion(), features));
+        recorder = new ReportRecorder(new BinaryFileWriter(getOutputFile(), agentOption.getFromVersion(), agentOption.getToVersion(), features,
+                agentOption.getWriteBatch(), agentOption.getFlushInterval()),
+                agentOption.getRecordThreads(), agentOption.getRecordQueueSize(), agentOption.getRecordOverflow());
         recorder.init();
         loadedJarRecorder = new LoadedJarRecorder(recorder);
+        classSymbolExtractor = new ClassSymbolExtractor(recorder, agentOption.getSymbolThreads(),
+                agentOption.getSymbolQueueSize(), agentOption.getSymbolOverflow());
         SystemClassLoaderIReference.init();
         ClassURL.registerUrlProtocolHandler();
+        initMetricsEventEmitter(jdkDependConfig.getMetricsEventEmitterClassName());
+        AgentMetricsReporter.start(agentOption.getMetricsInterval());
+        addShutdownHook();
+        stopped = false;
+    }
+
+    /**
+     * When the JVM exits, write the buffered results and the trailer of the output file,
+     * otherwise the report can only read the file until the last flushed result.
+     * The hook stops the running agent, so it's only added once though the agent may be attached again.
+     */
+    private static void addShutdownHook() {
+        if (shutdownHookAdded) {
+            return;
+        }
+        shutdownHookAdded = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(Constant.AGENT_THREAD_GROUP, () -> {
+            try {
+                stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, Constant.AGENT_SHUTDOWN_THREAD));
+    }
+
+    private static void initMetricsEventEmitter(String metricsEventEmitterClassName) {
+        if (metricsEventEmitterClassName == null) {
+            return;
+        }
+        try {
+            MetricsEventEmitter emitter = (MetricsEventEmitter) Class.forName(metricsEventEmitterClassName).newInstance();
+            emitter.start();
+            metricsEventEmitter = emitter;
+        } catch (Throwable e) {
+            //e.g. the jdk.jfr module is not in the runtime image
+            System.err.println("Cannot emit the events of the agent's overhead: " + e);
+        }
     }
 
     private static void initCallerProvider(String callerProviderClassName) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
         AgentFacade.callerProvider = (CallerProvider) Class.forName(callerProviderClassName).newInstance();
+        AgentFacade.callerProvider.setMaxStackDepth(agentOption.getMaxStackDepth());
     }
 
     private static void initInstanceRules(String[] classList) {
@@ -115,6 +177,45 @@ public class AgentFacade {
                     case "priority":
                         agentOption.setPriority(kv[1]);
                         break;
+                    case "symbolThreads":
+                        agentOption.setSymbolThreads(Integer.parseInt(kv[1]));
+                        break;
+                    case "symbolQueue":
+                        agentOption.setSymbolQueueSize(Integer.parseInt(kv[1]));
+                        break;
+                    case "symbolOverflow":
+                        agentOption.setSymbolOverflow(OverflowPolicy.of(kv[1]));
+                        break;
+                    case "stackDepth":
+                        agentOption.setMaxStackDepth(Integer.parseInt(kv[1]));
+                        break;
+                    case "recordThreads":
+                        agentOption.setRecordThreads(Integer.parseInt(kv[1]));
+                        break;
+                    case "recordQueue":
+                        agentOption.setRecordQueueSize(Integer.parseInt(kv[1]));
+                        break;
+                    case "recordOverflow":
+                        agentOption.setRecordOverflow(OverflowPolicy.of(kv[1]));
+                        break;
+                    case "callbackBudget":
+                        agentOption.setCallbackBudget(Double.parseDouble(kv[1]));
+                        break;
+                    case "metricsInterval":
+                        agentOption.setMetricsInterval(Long.parseLong(kv[1]));
+                        break;
+                    case "duration":
+                        agentOption.setDuration(Long.parseLong(kv[1]));
+                        break;
+                    case "stopFile":
+                        agentOption.setStopFile(kv[1]);
+                        break;
+                    case "writeBatch":
+                        agentOption.setWriteBatch(Integer.parseInt(kv[1]));
+                        break;
+                    case "flushInterval":
+                        agentOption.setFlushInterval(Long.parseLong(kv[1]));
+                        break;
                     default:
                         throw new RuntimeException("Illegal agent parameters for : [" + param + "]");
                 }
@@ -123,15 +224,64 @@ public class AgentFacade {
         agentOption.check();
     }
 
-    public static void record(Dependency dependency) {
+    /**
+     * @return false if the dependency is dropped
+     */
+    public static boolean record(Dependency dependency) {
+        long start = System.nanoTime();
         try {
-            recorder.record(dependency);
+            return recorder.record(dependency);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException(e);
+        } finally {
+            AgentMetrics.RECORD.record(System.nanoTime() - start);
         }
     }
 
+    /**
+     * Record the dependency that built from the caller info. If it's dropped, the callsite is no longer seen,
+     * so the next call from there is recorded again.
+     */
+    public static void record(CallerInfo callerInfo, Dependency dependency) {
+        if (!record(dependency) && callerInfo.getCallsite() != null) {
+            SeenCallsites.unmark(callerInfo.getCallsite());
+        }
+    }
+
+    /**
+     * Take a summary of the agent's overhead since it's started.
+     * The durations are in nanoseconds, the percentiles are the upper bounds of the histogram buckets.
+     */
+    public static Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        putHistogram(metrics, "transform", AgentMetrics.TRANSFORM);
+        putHistogram(metrics, "callback", AgentMetrics.CALLBACK);
+        putHistogram(metrics, "record", AgentMetrics.RECORD);
+        metrics.put("queueDepth", (long) recorder.getQueueDepth());
+        metrics.put("processed", recorder.getProcessed());
+        metrics.put("dropped", recorder.getDropped());
+        metrics.put("symbolDiscarded", classSymbolExtractor.getDiscarded());
+        metrics.put("callbackSkipped", CallbackSampler.getSkipped());
+        metrics.put("bytesWritten", recorder.getBytesWritten());
+        return metrics;
+    }
+
+    private static void putHistogram(Map<String, Long> metrics, String name, AgentMetrics.Histogram histogram) {
+        metrics.put(name + ".count", histogram.getCount());
+        metrics.put(name + ".totalNanos", histogram.getTotalNanos());
+        metrics.put(name + ".p50Nanos", histogram.getPercentileNanos(50));
+        metrics.put(name + ".p99Nanos", histogram.getPercentileNanos(99));
+        metrics.put(name + ".maxNanos", histogram.getMaxNanos());
+    }
+
+    /**
+     * Write a summary of the agent's overhead to the output file.
+     */
+    static void recordMetrics() throws InterruptedException {
+        recorder.record(DependencyBuilder.buildAgentMetrics(getMetrics()));
+    }
+
     public static void recordLoadJar(ProtectionDomain protectionDomain) throws InterruptedException {
         loadedJarRecorder.recordJar(protectionDomain);
     }
@@ -143,14 +293,68 @@ public class AgentFacade {
             dependency.setNonJdkCallerClass(callerInfo.get().getCallerClasses());
             dependency.setCurrClassBytecode(classContent);
             recorder.record(dependency);
+            //parsing the class is left to the background threads
+            classSymbolExtractor.extract(dependency, className, classContent);
+        }
+    }
 
-            dependency = dependency.clone();
-            dependency.setTarget(new DependTarget.Class(className, DependType.WHOLE_CLASS));
-            dependency.setClassSymbol(ClassInspectorInstance.getInstance().getSymbolInClass(classContent));
-            recorder.record(dependency);
+    /**
+     * Record the classes and jars that were loaded before the agent was attached.
+     * The callers of these class loadings are unknown, so only the non-JDK classes whose bytecode can be read are recorded.
+     * Their bytecode is read by the background threads of {@link ClassSymbolExtractor}.
+     */
+    static void recordLoadedClasses(Class[] loadedClasses) throws InterruptedException {
+        for (Class loadedClass : loadedClasses) {
+            String className = loadedClass.getName();
+            if (loadedClass.isArray() || loadedClass.isPrimitive() || loadedClass.getClassLoader() == null
+                    || className.startsWith(Constant.AGENT_PACKAGE) || className.startsWith(Constant.COMMON_PACKAGE)
+                    || JdkClassUtil.isJdkClass(className)) {
+                continue;
+            }
+            ProtectionDomain protectionDomain = loadedClass.getProtectionDomain();
+            if (protectionDomain != null && protectionDomain.getCodeSource() != null && protectionDomain.getCodeSource().getLocation() != null) {
+                recordLoadJar(protectionDomain);
+            }
+            classSymbolExtractor.extractLoaded(loadedClass, protectionDomain);
         }
     }
 
+    /**
+     * @return true if the agent is running, a stopped agent can be initialized again.
+     */
+    static synchronized boolean isInitialized() {
+        return recorder != null && !stopped;
+    }
+
+    /**
+     * Stop parsing the loaded classes, then check and write all recorded dependencies before closing the output file.
+     * The dependencies recorded after stopping are dropped, stopping again does nothing.
+     * The closed recorder is kept until the agent is initialized again, so a late callback drops its dependency.
+     * The other threads and the caches of the agent are released.
+     * All the waits share one deadline, so the shutdown hook doesn't delay the JVM exit by more than it.
+     */
+    static synchronized void stop() throws InterruptedException {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_WAIT_MILLIS);
+        AgentMetricsReporter.stop(deadlineNanos);
+        if (metricsEventEmitter != null) {
+            metricsEventEmitter.stop();
+            metricsEventEmitter = null;
+        }
+        classSymbolExtractor.close(deadlineNanos);
+        recordMetrics();
+        recorder.close(deadlineNanos);
+        SeenCallsites.clear();
+        CallbackSampler.reset();
+    }
+
+    static AgentOption getAgentOption() {
+        return agentOption;
+    }
+
     private static File getOutputFile() {
         if (agentOption.getOutputFile() != null) {
             verify(agentOption.getOutputFile());
@@ -18,17 +18,74 @@
  ********************************************************************************/
 package org.eclipse.emt4j.agent.common;
 
+import org.eclipse.emt4j.agent.common.methodvisitor.TransformerFactory;
+
 import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
 
 public class AgentInit {
-    public static void init(String agentArgs, Instrumentation inst, JdkDependConfig jdkDependConfig) {
+
+    private static InspectTransformer transformer;
+
+    public static boolean init(String agentArgs, Instrumentation inst, JdkDependConfig jdkDependConfig) {
+        if (AgentFacade.isInitialized()) {
+            System.err.println("The emt4j agent is already running");
+            return false;
+        }
         try {
             AgentFacade.init(agentArgs, jdkDependConfig);
             AgentFacade.record(DependencyBuilder.buildJvmOption(ManagementFactory.getRuntimeMXBean().getInputArguments()));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        inst.addTransformer(new InspectTransformer(), inst.isRetransformClassesSupported());
+        transformer = new InspectTransformer();
+        inst.addTransformer(transformer, inst.isRetransformClassesSupported());
+        AgentDetacher.start(inst, AgentFacade.getAgentOption());
+        return true;
+    }
+
+    /**
+     * Initialize the agent attached to a running JVM, then record the classes and jars loaded before attaching.
+     */
+    public static boolean attach(String agentArgs, Instrumentation inst, JdkDependConfig jdkDependConfig) {
+        if (!init(agentArgs, inst, jdkDependConfig)) {
+            return false;
+        }
+        try {
+            AgentFacade.recordLoadedClasses(inst.getAllLoadedClasses());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * Remove the transformer and restore the instrumented classes to their original bytecode,
+     * then write all recorded dependencies to the file. The agent can be attached again afterwards.
+     */
+    static synchronized void detach(Instrumentation inst) throws InterruptedException {
+        if (transformer == null) {
+            return;
+        }
+        inst.removeTransformer(transformer);
+        transformer = null;
+        if (inst.isRetransformClassesSupported()) {
+            List<Class> toRestoreClass = new ArrayList<>();
+            for (Class loadedClass : inst.getAllLoadedClasses()) {
+                if (TransformerFactory.needTransform(loadedClass.getName()) && inst.isModifiableClass(loadedClass)) {
+                    toRestoreClass.add(loadedClass);
+                }
+            }
+            try {
+                inst.retransformClasses(toRestoreClass.toArray(new Class[toRestoreClass.size()]));
+            } catch (UnmodifiableClassException e) {
+                e.printStackTrace();
+            }
+        }
+        AgentFacade.stop();
+        System.err.println("The emt4j agent is detached");
     }
 }
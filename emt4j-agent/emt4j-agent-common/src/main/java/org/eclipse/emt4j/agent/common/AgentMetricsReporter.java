@@ -0,0 +1,76 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write a summary of the agent's overhead to the output file periodically,
+ * so the file still tells the cost of the agent if the JVM dies before the agent stops.
+ */
+class AgentMetricsReporter implements Runnable {
+
+    private static Thread thread;
+
+    private final long intervalMillis;
+
+    private AgentMetricsReporter(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Start a daemon thread that writes a summary every interval, does nothing if the interval is 0.
+     */
+    static synchronized void start(long intervalSeconds) {
+        if (intervalSeconds == 0) {
+            return;
+        }
+        thread = new Thread(Constant.AGENT_THREAD_GROUP, new AgentMetricsReporter(TimeUnit.SECONDS.toMillis(intervalSeconds)), Constant.AGENT_METRICS_THREAD);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Interrupt the daemon thread and wait until it exits or the deadline of {@link System#nanoTime()} passes,
+     * does nothing if it's not started.
+     */
+    static synchronized void stop(long deadlineNanos) throws InterruptedException {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remainingMillis > 0) {
+            thread.join(remainingMillis);
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(intervalMillis);
+                AgentFacade.recordMetrics();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -55,6 +55,73 @@ public class AgentOption {
      */
     private Locale locale = Locale.ENGLISH;
 
+    /**
+     * The number of threads that extract the symbols of loaded classes
+     */
+    private int symbolThreads = 1;
+
+    /**
+     * The maximum number of loaded classes waiting for symbol extraction
+     */
+    private int symbolQueueSize = 1024;
+
+    /**
+     * What to do with a loaded class when the symbol extraction queue is full
+     */
+    private OverflowPolicy symbolOverflow = OverflowPolicy.CALLER;
+
+    /**
+     * The maximum number of frames kept in a captured stack trace, 0 means no limit
+     */
+    private int maxStackDepth = 64;
+
+    /**
+     * The number of threads that check the recorded dependencies with rules
+     */
+    private int recordThreads = 1;
+
+    /**
+     * The maximum number of recorded dependencies waiting for each rule thread
+     */
+    private int recordQueueSize = 8192;
+
+    /**
+     * What to do with a recorded dependency when the queue of its rule thread is full
+     */
+    private OverflowPolicy recordOverflow = OverflowPolicy.BLOCK;
+
+    /**
+     * The percentage of one CPU that each instrumented JDK method may spend capturing its seen callsites again,
+     * 0 means a callsite is only captured the first time
+     */
+    private double callbackBudget;
+
+    /**
+     * The number of seconds between two summaries of the agent's overhead written to the output file,
+     * 0 means only writing the summary when the agent stops
+     */
+    private long metricsInterval = 60;
+
+    /**
+     * The number of seconds after which the agent stops recording and detaches, 0 means no limit
+     */
+    private long duration;
+
+    /**
+     * When this file is created, the agent stops recording and detaches
+     */
+    private String stopFile;
+
+    /**
+     * The number of results buffered before they are flushed to the output file
+     */
+    private int writeBatch = 256;
+
+    /**
+     * The longest time in milliseconds that a written result stays in the buffer before it's flushed to the output file
+     */
+    private long flushInterval = 1000;
+
     public String getOutputFile() {
         return outputFile;
     }
@@ -95,9 +162,137 @@ public class AgentOption {
         this.priority = priority;
     }
 
+    public int getSymbolThreads() {
+        return symbolThreads;
+    }
+
+    public void setSymbolThreads(int symbolThreads) {
+        this.symbolThreads = symbolThreads;
+    }
+
+    public int getSymbolQueueSize() {
+        return symbolQueueSize;
+    }
+
+    public void setSymbolQueueSize(int symbolQueueSize) {
+        this.symbolQueueSize = symbolQueueSize;
+    }
+
+    public OverflowPolicy getSymbolOverflow() {
+        return symbolOverflow;
+    }
+
+    public void setSymbolOverflow(OverflowPolicy symbolOverflow) {
+        this.symbolOverflow = symbolOverflow;
+    }
+
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    public void setMaxStackDepth(int maxStackDepth) {
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    public int getRecordThreads() {
+        return recordThreads;
+    }
+
+    public void setRecordThreads(int recordThreads) {
+        this.recordThreads = recordThreads;
+    }
+
+    public int getRecordQueueSize() {
+        return recordQueueSize;
+    }
+
+    public void setRecordQueueSize(int recordQueueSize) {
+        this.recordQueueSize = recordQueueSize;
+    }
+
+    public OverflowPolicy getRecordOverflow() {
+        return recordOverflow;
+    }
+
+    public void setRecordOverflow(OverflowPolicy recordOverflow) {
+        this.recordOverflow = recordOverflow;
+    }
+
+    public double getCallbackBudget() {
+        return callbackBudget;
+    }
+
+    public void setCallbackBudget(double callbackBudget) {
+        this.callbackBudget = callbackBudget;
+    }
+
+    public long getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    public void setMetricsInterval(long metricsInterval) {
+        this.metricsInterval = metricsInterval;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public String getStopFile() {
+        return stopFile;
+    }
+
+    public void setStopFile(String stopFile) {
+        this.stopFile = stopFile;
+    }
+
+    public int getWriteBatch() {
+        return writeBatch;
+    }
+
+    public void setWriteBatch(int writeBatch) {
+        this.writeBatch = writeBatch;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
     public void check() {
         if (ConfRuleFacade.findWays(fromVersion, toVersion) == null) {
             throw new JdkMigrationException("Not support from " + fromVersion + " to " + toVersion);
         }
+        if (symbolThreads <= 0 || symbolQueueSize <= 0) {
+            throw new JdkMigrationException("symbolThreads and symbolQueue must be positive");
+        }
+        if (maxStackDepth < 0) {
+            throw new JdkMigrationException("stackDepth cannot be negative");
+        }
+        if (recordThreads <= 0 || recordQueueSize <= 0) {
+            throw new JdkMigrationException("recordThreads and recordQueue must be positive");
+        }
+        if (recordOverflow == OverflowPolicy.CALLER) {
+            throw new JdkMigrationException("recordOverflow cannot be caller");
+        }
+        if (callbackBudget < 0 || callbackBudget > 100) {
+            throw new JdkMigrationException("callbackBudget must be between 0 and 100");
+        }
+        if (metricsInterval < 0) {
+            throw new JdkMigrationException("metricsInterval cannot be negative");
+        }
+        if (duration < 0) {
+            throw new JdkMigrationException("duration cannot be negative");
+        }
+        if (writeBatch <= 0 || flushInterval <= 0) {
+            throw new JdkMigrationException("writeBatch and flushInterval must be positive");
+        }
     }
 }
@@ -0,0 +1,73 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Attach the agent to a running JVM with the local Attach API, so the JVM needn't restart with -javaagent.
+ * <pre>
+ * java -jar emt4j-agent-jdk8-xxx.jar &lt;pid&gt; to=11,file=jdk8to11.dat
+ * </pre>
+ * The Attach API is in tools.jar before JDK 9, so it's loaded by reflection from the JDK that runs the launcher.
+ */
+public class AttachLauncher {
+
+    private static final String VIRTUAL_MACHINE = "com.sun.tools.attach.VirtualMachine";
+
+    public static void main(String[] args) throws Throwable {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: java -jar <emt4j-agent-jar> <pid> [agent options]");
+            System.exit(1);
+        }
+        String agentPath = new File(AttachLauncher.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        Class<?> vmClass = loadVirtualMachineClass();
+        Object vm = invoke(vmClass.getMethod("attach", String.class), null, args[0]);
+        try {
+            invoke(vmClass.getMethod("loadAgent", String.class, String.class), vm, agentPath, args.length > 1 ? args[1] : null);
+        } finally {
+            invoke(vmClass.getMethod("detach"), vm);
+        }
+        System.out.println("The emt4j agent is attached to " + args[0]);
+    }
+
+    private static Class<?> loadVirtualMachineClass() throws Exception {
+        try {
+            return Class.forName(VIRTUAL_MACHINE);
+        } catch (ClassNotFoundException e) {
+            File toolsJar = new File(System.getProperty("java.home"), ".." + File.separator + "lib" + File.separator + "tools.jar");
+            if (!toolsJar.exists()) {
+                throw e;
+            }
+            return Class.forName(VIRTUAL_MACHINE, true, new URLClassLoader(new URL[]{toolsJar.toURI().toURL()}));
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
+import org.eclipse.emt4j.agent.common.jdkdependent.CallerProvider;
+import org.eclipse.emt4j.agent.common.jdkdependent.Callsite;
+import org.eclipse.emt4j.agent.common.jdkdependent.SeenCallsites;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limit the time a callback spends capturing the stack traces of the callsites it has already recorded,
+ * so that the overhead of a hot callback is predictable.
+ * <p>
+ * A call first identifies its callsite, which only walks the frames of the callee and the caller.
+ * The first occurrence of each callsite is always captured and recorded, it's not limited by the budget.
+ * The stack trace of a seen callsite is captured again within the budget, so the report shows more of the paths
+ * that reach it.
+ * </p>
+ * <p>
+ * Each target, i.e. the JDK method whose call triggers the callback, has its own budget, so a hot method doesn't
+ * starve the others of the same callback. Time is split into windows, at the start of each window a target
+ * <ul>
+ *     <li>adds the budget of a window to its credit of capture time</li>
+ *     <li>sets the probability of capturing to the allowed rate divided by the call rate observed in the last window,
+ *     the allowed rate is based on the measured cost of a capture</li>
+ * </ul>
+ * A call of a seen callsite is captured if it's sampled by the probability and the target has credit left,
+ * then the measured time of the capture is taken from the credit. So the captures spread over the whole window,
+ * and over time they never take more than the budget. If a capture costs more than the budget of a window,
+ * the credit goes below 0 and the target waits for the next windows to pay it back.
+ * </p>
+ * If the budget is 0, a seen callsite is never captured again.
+ */
+public class CallbackSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The assumed cost of a capture before any is measured.
+     */
+    private static final long INITIAL_WALK_NANOS = 2000;
+
+    /**
+     * The capture time each target may spend per second, 0 means the seen callsites are not captured.
+     */
+    private static volatile long budgetNanosPerSecond;
+
+    private static final LongAdder skipped = new LongAdder();
+
+    /**
+     * The samplers are static fields of the callbacks, they are reset when the agent stops.
+     */
+    private static final List<CallbackSampler> samplers = new CopyOnWriteArrayList<>();
+
+    private final Supplier<CallerProvider> callerProvider;
+
+    private final LongSupplier clock;
+
+    /**
+     * The budget of each target, the targets are the instrumented JDK methods so there are only a few of them.
+     */
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    public CallbackSampler() {
+        this(AgentFacade::getCallerProvider, System::nanoTime);
+    }
+
+    CallbackSampler(Supplier<CallerProvider> callerProvider, LongSupplier clock) {
+        this.callerProvider = callerProvider;
+        this.clock = clock;
+        samplers.add(this);
+    }
+
+    /**
+     * @param percent the percentage of one CPU that each target may spend capturing the seen callsites again
+     */
+    static void setBudget(double percent) {
+        budgetNanosPerSecond = (long) (TimeUnit.SECONDS.toNanos(1) * percent / 100);
+    }
+
+    /**
+     * Get the caller info the same as {@link CallerProvider#getNonJdkCallerInfo(int, Object)}
+     * with {@link Constant#FIRST_NON_AGENT_CALLER_INDEX}, but a seen callsite may be captured again if it's sampled.
+     * Only the caller info of a callsite that is not seen has the callsite, see {@link CallerInfo#getCallsite()}.
+     *
+     * @param key what the callback records at the callsite
+     * @return empty if the callsite is seen and not sampled
+     */
+    public Optional<CallerInfo> getNonJdkCallerInfo(Object key) {
+        long start = System.nanoTime();
+        CallerProvider provider = callerProvider.get();
+        try {
+            //one more frame for this method
+            if (budgetNanosPerSecond == 0) {
+                return provider.getNonJdkCallerInfo(Constant.FIRST_NON_AGENT_CALLER_INDEX + 1, key);
+            }
+            Optional<Callsite> callsite = provider.getCallsite(Constant.FIRST_NON_AGENT_CALLER_INDEX + 1, key);
+            if (!callsite.isPresent()) {
+                return Optional.empty();
+            }
+            if (SeenCallsites.firstSeen(callsite.get())) {
+                return provider.captureCallerInfo(Constant.FIRST_NON_AGENT_CALLER_INDEX + 1, callsite.get());
+            }
+            Budget budget = budgetOf(callsite.get());
+            long walkStart = clock.getAsLong();
+            if (!budget.tryAcquire(walkStart)) {
+                skipped.increment();
+                return Optional.empty();
+            }
+            try {
+                return provider.captureCallerInfo(Constant.FIRST_NON_AGENT_CALLER_INDEX + 1, null);
+            } finally {
+                budget.walked(clock.getAsLong() - walkStart);
+            }
+        } finally {
+            AgentMetrics.CALLBACK.record(System.nanoTime() - start);
+        }
+    }
+
+    private Budget budgetOf(Callsite callsite) {
+        String target = callsite.getCalleeClass() + '.' + callsite.getCalleeMethod();
+        Budget budget = budgets.get(target);
+        if (budget == null) {
+            budget = budgets.computeIfAbsent(target, (t) -> new Budget(clock.getAsLong()));
+        }
+        return budget;
+    }
+
+    /**
+     * @return the number of calls of all callbacks that are not captured because of the budget
+     */
+    static long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Forget the budgets of all samplers when the agent stops, a sampler starts over if the agent is attached again.
+     */
+    static void reset() {
+        budgetNanosPerSecond = 0;
+        skipped.reset();
+        for (CallbackSampler sampler : samplers) {
+            sampler.budgets.clear();
+        }
+    }
+
+    private static long budgetPerWindow() {
+        return budgetNanosPerSecond * WINDOW_NANOS / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * The credit of capture time and the sampling probability of a target.
+     */
+    private static class Budget {
+
+        private final AtomicLong windowStart;
+
+        private final AtomicLong creditNanos = new AtomicLong(budgetPerWindow());
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder walks = new LongAdder();
+
+        private final LongAdder walkNanos = new LongAdder();
+
+        private volatile double probability = 1;
+
+        private volatile long avgWalkNanos = INITIAL_WALK_NANOS;
+
+        Budget(long now) {
+            this.windowStart = new AtomicLong(now);
+        }
+
+        boolean tryAcquire(long now) {
+            long start = windowStart.get();
+            if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                nextWindow(now - start);
+            }
+            calls.increment();
+            if (probability < 1 && ThreadLocalRandom.current().nextDouble() >= probability) {
+                return false;
+            }
+            return creditNanos.get() > 0;
+        }
+
+        void walked(long elapsedNanos) {
+            walkNanos.add(elapsedNanos);
+            walks.increment();
+            creditNanos.addAndGet(-elapsedNanos);
+        }
+
+        /**
+         * Only the thread that starts the window gets here.
+         */
+        private void nextWindow(long elapsedNanos) {
+            long walkCount = walks.sumThenReset();
+            long walkTime = walkNanos.sumThenReset();
+            if (walkCount > 0) {
+                avgWalkNanos = Math.max(1, (avgWalkNanos * 7 + walkTime / walkCount) / 8);
+            }
+            long perWindow = budgetPerWindow();
+            double allowed = (double) perWindow / avgWalkNanos;
+            double observed = (double) calls.sumThenReset() * WINDOW_NANOS / Math.max(1, elapsedNanos);
+            probability = observed <= allowed ? 1 : allowed / observed;
+            //the unused credit is kept up to the cost of a capture, so a small budget still gets a capture now and then
+            long limit = Math.max(perWindow, avgWalkNanos);
+            creditNanos.getAndUpdate((credit) -> Math.min(credit + perWindow, limit));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import org.eclipse.emt4j.agent.common.file.Recorder;
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.classanalyze.ClassInspectorInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.ProtectionDomain;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extract the symbols of the loaded classes with background threads.
+ * Parsing a class is much more expensive than loading it, so the class loading thread only queues the bytecode.
+ * The queue is bounded, when it's full, the {@link OverflowPolicy} decides what happens to the class.
+ */
+class ClassSymbolExtractor {
+
+    private final Recorder recorder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong discarded = new AtomicLong();
+
+    ClassSymbolExtractor(Recorder recorder, int threads, int queueSize, OverflowPolicy overflowPolicy) {
+        this.recorder = recorder;
+        AtomicInteger threadNum = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), (r) -> {
+            Thread thread = new Thread(Constant.AGENT_THREAD_GROUP, r, Constant.AGENT_CLASS_SYMBOL_THREAD + "-" + threadNum.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, rejectedHandler(overflowPolicy));
+    }
+
+    /**
+     * Record the symbols of the class that loaded by <code>loadClass</code>.
+     *
+     * @param loadClass    the dependency that records the class loading
+     * @param className    the loaded class
+     * @param classContent the bytecode of the loaded class
+     */
+    void extract(Dependency loadClass, String className, byte[] classContent) {
+        Dependency dependency = loadClass.clone();
+        dependency.setTarget(new DependTarget.Class(className, DependType.WHOLE_CLASS));
+        executor.execute(() -> {
+            try {
+                dependency.setClassSymbol(ClassInspectorInstance.getInstance().getSymbolInClass(classContent));
+                recorder.record(dependency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Record the loading and the symbols of a class that was loaded before the agent was attached.
+     * Reading the bytecode from the class loader is left to the background threads too,
+     * the classes whose bytecode can't be read are not recorded.
+     *
+     * @param loadedClass      the loaded class
+     * @param protectionDomain the protection domain of the loaded class
+     */
+    void extractLoaded(Class<?> loadedClass, ProtectionDomain protectionDomain) {
+        executor.execute(() -> {
+            try {
+                byte[] classContent = readClassFile(loadedClass);
+                if (classContent == null) {
+                    return;
+                }
+                Dependency loadClass = DependencyBuilder.buildLoadClass(loadedClass.getName(), null, protectionDomain);
+                loadClass.setCurrClassBytecode(classContent);
+                recorder.record(loadClass);
+                Dependency dependency = loadClass.clone();
+                dependency.setTarget(new DependTarget.Class(loadedClass.getName(), DependType.WHOLE_CLASS));
+                dependency.setClassSymbol(ClassInspectorInstance.getInstance().getSymbolInClass(classContent));
+                recorder.record(dependency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private static byte[] readClassFile(Class<?> loadedClass) {
+        try (InputStream in = loadedClass.getClassLoader().getResourceAsStream(loadedClass.getName().replace('.', '/') + ".class")) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of classes that not parsed because the queue is full
+     */
+    long getDiscarded() {
+        return discarded.get();
+    }
+
+    /**
+     * Parse the queued classes until the deadline of {@link System#nanoTime()}, then stop the background threads.
+     * The classes extracted after closing are discarded.
+     */
+    void close(long deadlineNanos) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private RejectedExecutionHandler rejectedHandler(OverflowPolicy overflowPolicy) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                return (r, executor) -> {
+                    if (executor.isShutdown()) {
+                        discarded.incrementAndGet();
+                        return;
+                    }
+                    try {
+                        executor.getQueue().put(r);
+                    } catch (InterruptedException e) {
+                        discarded.incrementAndGet();
+                        Thread.currentThread().interrupt();
+                    }
+                };
+            case DISCARD:
+                return (r, executor) -> discarded.incrementAndGet();
+            case SAMPLE:
+                AtomicLong overflowed = new AtomicLong();
+                return (r, executor) -> {
+                    if (executor.isShutdown() || overflowed.incrementAndGet() % OverflowPolicy.SAMPLE_INTERVAL != 0) {
+                        discarded.incrementAndGet();
+                        return;
+                    }
+                    try {
+                        executor.getQueue().put(r);
+                    } catch (InterruptedException e) {
+                        discarded.incrementAndGet();
+                        Thread.currentThread().interrupt();
+                    }
+                };
+            case CALLER:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            default:
+                throw new IllegalArgumentException(overflowPolicy.name());
+        }
+    }
+}
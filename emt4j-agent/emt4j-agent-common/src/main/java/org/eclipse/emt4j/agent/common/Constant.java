@@ -27,4 +27,21 @@ public class Constant {
     public static final int FIRST_NON_AGENT_CALLER_INDEX = 4;
     public static final int CALLEE_INDEX = FIRST_NON_AGENT_CALLER_INDEX - 1;
     public static final String AGENT_REPORT_WRITE_THREAD = "AgentReportWriteThread";
+    public static final String AGENT_CLASS_SYMBOL_THREAD = "AgentClassSymbolThread";
+    public static final String AGENT_REPORT_RULE_THREAD = "AgentReportRuleThread";
+    public static final String AGENT_DETACH_THREAD = "AgentDetachThread";
+    public static final String AGENT_METRICS_THREAD = "AgentMetricsThread";
+    public static final String AGENT_SHUTDOWN_THREAD = "AgentShutdownThread";
+
+    /**
+     * All threads of the agent are created in this group, so they can be told apart without comparing names.
+     */
+    public static final ThreadGroup AGENT_THREAD_GROUP = new ThreadGroup("emt4j-agent");
+
+    /**
+     * The agent's own threads load and call the classes that the agent inspects, they must not be recorded.
+     */
+    public static boolean isAgentThread(Thread thread) {
+        return thread.getThreadGroup() == AGENT_THREAD_GROUP;
+    }
 }
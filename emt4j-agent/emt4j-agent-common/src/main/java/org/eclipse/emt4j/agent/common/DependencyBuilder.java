@@ -91,6 +91,10 @@ public class DependencyBuilder {
         return dependency;
     }
 
+    public static Dependency buildAgentMetrics(Map<String, Long> metrics) {
+        return new Dependency(null, new DependTarget.AgentMetrics(metrics), null, null);
+    }
+
     public static Dependency buildDeepReflection(CallerInfo callerInfo, String className, StackTraceElement[] stackTrace) {
         return new Dependency(ClassURL.create(callerInfo.getCallerClass().getName(), callerInfo.getCallerMethod()),
                 new DependTarget.Class(className, DependType.METHOD_TO_CLASS_DEEP_REFLECTION), stackTrace, getFile(callerInfo.getCallerClass()));
@@ -39,6 +39,7 @@ public class InspectTransformer implements ClassFileTransformer {
                 || className.equals("jdk/jfr/internal/instrument/ThrowableTracer")) {
             return null;
         }
+        long start = System.nanoTime();
         try {
             if (protectionDomain != null && protectionDomain.getCodeSource() != null && protectionDomain.getCodeSource().getLocation() != null) {
                 AgentFacade.recordLoadJar(protectionDomain);
@@ -54,6 +55,8 @@ public class InspectTransformer implements ClassFileTransformer {
         } catch (Throwable e) {
             e.printStackTrace();
             throw e;
+        } finally {
+            AgentMetrics.TRANSFORM.record(System.nanoTime() - start);
         }
 
         return null;
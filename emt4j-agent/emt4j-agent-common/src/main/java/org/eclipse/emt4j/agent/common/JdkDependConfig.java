@@ -34,6 +34,11 @@ public class JdkDependConfig {
      */
     private String callerProviderClassName;
 
+    /**
+     * The class name of the <code>MetricsEventEmitter</code>, null if the JDK has no event to emit
+     */
+    private String metricsEventEmitterClassName;
+
     private int fromVersion;
 
     /**
@@ -64,6 +69,14 @@ public class JdkDependConfig {
         this.callerProviderClassName = callerProviderClassName;
     }
 
+    public String getMetricsEventEmitterClassName() {
+        return metricsEventEmitterClassName;
+    }
+
+    public void setMetricsEventEmitterClassName(String metricsEventEmitterClassName) {
+        this.metricsEventEmitterClassName = metricsEventEmitterClassName;
+    }
+
     public int getFromVersion() {
         return fromVersion;
     }
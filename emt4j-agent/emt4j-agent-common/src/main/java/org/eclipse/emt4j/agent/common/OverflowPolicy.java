@@ -0,0 +1,58 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import org.eclipse.emt4j.common.JdkMigrationException;
+
+import java.util.Locale;
+
+/**
+ * What to do with a piece of work when the bounded queue of an agent background worker is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait until there is room in the queue.
+     */
+    BLOCK,
+
+    /**
+     * Drop the work and count it.
+     */
+    DISCARD,
+
+    /**
+     * Wait for one of every {@link #SAMPLE_INTERVAL} pieces of work that find the queue full, drop and count the others.
+     */
+    SAMPLE,
+
+    /**
+     * Do the work on the calling thread.
+     */
+    CALLER;
+
+    public static final int SAMPLE_INTERVAL = 16;
+
+    public static OverflowPolicy of(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new JdkMigrationException("Unknown overflow policy: " + name);
+        }
+    }
+}
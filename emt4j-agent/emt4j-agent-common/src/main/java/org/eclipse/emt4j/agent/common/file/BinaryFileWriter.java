@@ -22,35 +22,51 @@ import org.eclipse.emt4j.common.Dependency;
 import org.eclipse.emt4j.common.rule.ExecutableRule;
 import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
 import org.eclipse.emt4j.common.fileformat.BodyRecord;
-import org.eclipse.emt4j.common.fileformat.FixedHeader;
+import org.eclipse.emt4j.common.fileformat.RecordWriter;
 import org.eclipse.emt4j.common.fileformat.VariableHeader;
 
 import java.io.*;
 import java.lang.management.ManagementFactory;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Write the results in batches, they are flushed to the file when the batch is full or the oldest one is buffered
+ * for the flush interval, so the cost of a system call is shared by many results.
+ * Only the write thread calls it except {@link #getBytesWritten()}.
+ */
 public class BinaryFileWriter implements CheckResultFileWriter {
     private final File output;
     private final int fromVersion;
     private final int toVersion;
-    private ObjectOutputStream oos;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private RecordWriter writer;
     private List<String> features;
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private int pending;
+    private long firstPendingNanos;
 
-    public BinaryFileWriter(File output, int fromVersion, int toVersion, List<String> features) {
+    /**
+     * @param batchSize           the number of results buffered before flushing
+     * @param flushIntervalMillis the longest time a result is buffered before flushing
+     */
+    public BinaryFileWriter(File output, int fromVersion, int toVersion, List<String> features, int batchSize, long flushIntervalMillis) {
         this.output = output;
         this.fromVersion = fromVersion;
         this.toVersion = toVersion;
         this.features = features;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
     }
 
     @Override
     public void begin() throws IOException {
-        FileOutputStream fos = new FileOutputStream(output);
-        oos = new ObjectOutputStream(fos);
-        oos.writeObject(getFixHeader());
-        oos.writeObject(getVariableHeader());
-        oos.flush();
+        writer = RecordWriter.create(new CountingOutputStream(new FileOutputStream(output)));
+        writer.writeHeader(getVariableHeader());
+        writer.flush();
     }
 
     @Override
@@ -61,8 +77,21 @@ public class BinaryFileWriter implements CheckResultFileWriter {
         if (rule != null) {
             br.setFeature(rule.getConfRules().getFeature());
         }
-        oos.writeObject(br);
-        oos.flush();
+        writer.write(br);
+        if (pending++ == 0) {
+            firstPendingNanos = System.nanoTime();
+        }
+        if (pending >= batchSize || System.nanoTime() - firstPendingNanos >= flushIntervalNanos) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (pending > 0) {
+            writer.flush();
+            pending = 0;
+        }
     }
 
     private VariableHeader getVariableHeader() {
@@ -79,15 +108,31 @@ public class BinaryFileWriter implements CheckResultFileWriter {
         return String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments());
     }
 
-    private FixedHeader getFixHeader() {
-        FixedHeader fh = new FixedHeader();
-        fh.setMagic(FixedHeader.MAGIC);
-        fh.setVersion(FixedHeader.VERSION);
-        return fh;
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
     }
 
     @Override
     public void close() throws IOException {
-        oos.close();
+        writer.close();
+    }
+
+    private class CountingOutputStream extends FilterOutputStream {
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytesWritten.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytesWritten.addAndGet(len);
+        }
     }
 }
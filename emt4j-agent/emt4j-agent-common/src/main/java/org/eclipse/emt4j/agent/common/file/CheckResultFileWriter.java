@@ -34,11 +34,26 @@ public interface CheckResultFileWriter {
      */
     void begin() throws IOException;
 
+    /**
+     * The written results may be buffered, they are flushed to the file in batches.
+     */
     void write(Dependency dependency, ReportCheckResult checkResult, ExecutableRule rule) throws IOException;
 
     /**
-     * close writer.Now only when there occurs a exception,the <code>close</code> will be called.
-     * Normal case will not call <code>close</code>,so need flush file for each writing.
+     * Flush the buffered results to the file, called by the write thread when there is no result to write.
+     *
+     * @throws IOException if IO operation failed
+     */
+    void flush() throws IOException;
+
+    /**
+     * @return the number of bytes written to the file, can be called by any thread
+     */
+    long getBytesWritten();
+
+    /**
+     * Flush the buffered results and close the file, called when the recorder is closed or there occurs a exception.
+     * If the JVM is killed before closing, only the flushed results are in the file.
      *
      * @throws IOException if IO operation failed
      */
@@ -0,0 +1,111 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.file;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free queue for many producers and a single consumer.
+ * A producer claims a slot by moving the producer index forward, then publishes the element into the slot.
+ * The consumer takes the element and clears the slot before moving the consumer index forward,
+ * so a claimed slot is always empty.
+ *
+ * @param <E> the element type
+ */
+class MpscRingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Can be called by any thread.
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(E e) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() > mask) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        //a volatile write, so a consumer going to park either sees the element or is seen parking
+        slots.set((int) index & mask, e);
+        return true;
+    }
+
+    /**
+     * Can only be called by the consumer thread.
+     *
+     * @return null if the buffer is empty or the next element is claimed but not published yet
+     */
+    E poll() {
+        long index = consumerIndex.get();
+        int slot = (int) index & mask;
+        E e = slots.get(slot);
+        if (e == null) {
+            return null;
+        }
+        slots.lazySet(slot, null);
+        consumerIndex.lazySet(index + 1);
+        return e;
+    }
+
+    /**
+     * Can be called by any thread, the size may be out of date when it's returned.
+     */
+    int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+    }
+
+    /**
+     * Can only be called by the consumer thread.
+     */
+    boolean isEmpty() {
+        return slots.get((int) consumerIndex.get() & mask) == null;
+    }
+
+    /**
+     * Can only be called by the consumer thread.
+     *
+     * @return true if every claimed slot is consumed, unlike {@link #isEmpty()} a claimed but not published slot counts
+     */
+    boolean isDrained() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+}
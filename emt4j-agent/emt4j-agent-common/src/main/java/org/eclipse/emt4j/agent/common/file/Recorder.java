@@ -30,9 +30,10 @@ public interface Recorder {
      * Record the dependency
      *
      * @param dependency dependency
+     * @return false if the dependency is dropped
      * @throws InterruptedException if InterruptedException occurred
      */
-    void record(Dependency dependency) throws InterruptedException;
+    boolean record(Dependency dependency) throws InterruptedException;
 
     /**
      * initialize Recorder
@@ -41,4 +42,32 @@ public interface Recorder {
      * @throws IOException if IO operation failed
      */
     boolean init() throws IOException;
+
+    /**
+     * Stop accepting dependencies, then finish the accepted ones and release the resources.
+     *
+     * @param deadlineNanos the {@link System#nanoTime()} after which closing stops waiting for the accepted ones
+     * @throws InterruptedException if InterruptedException occurred
+     */
+    void close(long deadlineNanos) throws InterruptedException;
+
+    /**
+     * @return the number of dependencies that have been checked by the rules
+     */
+    long getProcessed();
+
+    /**
+     * @return the number of dependencies that are dropped without checking
+     */
+    long getDropped();
+
+    /**
+     * @return the number of dependencies and check results that are waiting in the queues
+     */
+    int getQueueDepth();
+
+    /**
+     * @return the number of bytes written to the file
+     */
+    long getBytesWritten();
 }
@@ -19,6 +19,7 @@
 package org.eclipse.emt4j.agent.common.file;
 
 import org.eclipse.emt4j.agent.common.Constant;
+import org.eclipse.emt4j.agent.common.OverflowPolicy;
 import org.eclipse.emt4j.common.DependType;
 import org.eclipse.emt4j.common.Dependency;
 import org.eclipse.emt4j.common.rule.ExecutableRule;
@@ -26,59 +27,162 @@ import org.eclipse.emt4j.common.rule.InstanceRuleManager;
 import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
 
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * <code>ReportRecorder</code> implement an asynchronous <code>Recorder</code>.
  * For each dependency,there one to man rules need execute,and some rules do some cost time work.
- * When call record method,<code>ReportRecorder</code> put in a queue,then a background daemon thread
- * take it,execute all rules,and write to file finally.
+ * When call record method,<code>ReportRecorder</code> put it in a bounded ring buffer,then background daemon
+ * rule threads take it and execute all rules,and a single write thread writes the failed results to file finally.
+ * Each rule thread has its own ring buffer,the application threads are spread over them.
+ * When a ring buffer is full, the {@link OverflowPolicy} decides what happens to the dependency.
  */
 public class ReportRecorder implements Recorder {
 
     /**
-     * a temporary buffer that needs to process dependency.
+     * Wait time of an application thread that blocks on a full ring buffer before trying again.
      */
-    private BlockingQueue<Dependency> writeBuffer;
+    private static final long BLOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
 
     /**
-     * main work thread
+     * An idle rule thread is woken up by the next dependency, this is only a safety net.
+     */
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * When the write thread has no result to write for this long, it flushes the buffered results.
+     */
+    private static final long IDLE_FLUSH_MILLIS = 100;
+
+    /**
+     * The total {@link WrittenKey#weight()} of the written dependencies that are remembered.
+     */
+    private static final int WRITTEN_CACHE_WEIGHT = 1 << 20;
+
+    /**
+     * Tells the write thread that no more result will be written.
+     */
+    private static final WriteRequest END_OF_WRITE = new WriteRequest(null, null, null);
+
+    private final RuleWorker[] ruleWorkers;
+
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * the failed check results waiting for the write thread.
+     */
+    private final BlockingQueue<WriteRequest> writeBuffer;
+
+    /**
+     * main write thread
      */
     private Thread writeThread;
 
     /**
      * Avoid duplicate dependency write more than one time.
+     * When it's full, the new dependencies are still written, but not remembered, so they may be written again.
+     */
+    private final Set<WrittenKey> alreadyWritten = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger alreadyWrittenWeight = new AtomicInteger();
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong overflowed = new AtomicLong();
+
+    /**
+     * set when the write thread exits, no more dependency will be accepted.
      */
-    private Set<Integer> alreadyWritten = new HashSet<>();
+    private volatile boolean closed;
+
+    /**
+     * set when the recorder is closed, no more dependency will be accepted, but the accepted ones are still checked and written.
+     */
+    private volatile boolean stopping;
 
     private CheckResultFileWriter checkResultFileWriter;
 
-    public ReportRecorder(CheckResultFileWriter writer) {
-        this.writeBuffer = new LinkedBlockingQueue<>();
+    /**
+     * @param writer         writes the failed check results
+     * @param threads        the number of rule threads
+     * @param queueSize      the capacity of the ring buffer of each rule thread
+     * @param overflowPolicy what to do when a ring buffer is full, <code>CALLER</code> is not supported
+     */
+    public ReportRecorder(CheckResultFileWriter writer, int threads, int queueSize, OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == OverflowPolicy.CALLER) {
+            throw new IllegalArgumentException(overflowPolicy.name());
+        }
         this.checkResultFileWriter = writer;
+        this.overflowPolicy = overflowPolicy;
+        this.writeBuffer = new ArrayBlockingQueue<>(queueSize);
+        this.ruleWorkers = new RuleWorker[threads];
+        for (int i = 0; i < threads; i++) {
+            ruleWorkers[i] = new RuleWorker(queueSize);
+        }
     }
 
     /**
-     * put in a queue, then a background thread will take it.
+     * put in a ring buffer, then a background thread will take it.
      *
      * @param dependency            dependency
+     * @return false if the dependency is dropped
      * @throws InterruptedException if InterruptedException occurred
      */
     @Override
-    public void record(Dependency dependency) throws InterruptedException {
-        if (dependency != null) {
-            writeBuffer.put(dependency);
+    public boolean record(Dependency dependency) throws InterruptedException {
+        if (dependency == null) {
+            return true;
+        }
+        RuleWorker worker = ruleWorkers[(int) (Thread.currentThread().getId() % ruleWorkers.length)];
+        //the rule thread doesn't exit while a producer may still offer, so an accepted dependency is never lost
+        worker.producers.incrementAndGet();
+        try {
+            return offer(worker, dependency);
+        } finally {
+            worker.producers.decrementAndGet();
+        }
+    }
+
+    private boolean offer(RuleWorker worker, Dependency dependency) {
+        if (closed || stopping) {
+            dropped.incrementAndGet();
+            return false;
         }
+        if (worker.buffer.offer(dependency)) {
+            worker.wakeUp();
+            return true;
+        }
+        if (overflowPolicy == OverflowPolicy.DISCARD
+                || (overflowPolicy == OverflowPolicy.SAMPLE && overflowed.incrementAndGet() % OverflowPolicy.SAMPLE_INTERVAL != 0)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        while (!worker.buffer.offer(dependency)) {
+            if (closed || stopping || Thread.currentThread().isInterrupted()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            worker.wakeUp();
+            LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+        }
+        worker.wakeUp();
+        return true;
     }
 
     /**
-     * Start a daemon thread, the thread will take each dependency from the queue,
+     * Start the daemon threads, the rule threads take each dependency from the ring buffers,
      * then provide dependency as a parameter to all rules.
-     * If the check failed, write the result to the file.
+     * If the check failed, the write thread write the result to the file.
      *
      * @return true if success
      * @throws IOException if IO operation failed
@@ -86,21 +190,25 @@ public class ReportRecorder implements Recorder {
     @Override
     public boolean init() throws IOException {
         checkResultFileWriter.begin();
-        writeThread = new Thread(() -> {
+        writeThread = new Thread(Constant.AGENT_THREAD_GROUP, () -> {
             try {
                 while (true) {
-                    Dependency dependency = writeBuffer.take();
-                    int hashCode = dependency.hashCode();
-                    if (alreadyWritten.contains(hashCode)) {
+                    WriteRequest request = writeBuffer.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                    if (request == null) {
+                        checkResultFileWriter.flush();
                         continue;
                     }
-                    publish(dependency);
-                    alreadyWritten.add(hashCode);
+                    if (request == END_OF_WRITE) {
+                        break;
+                    }
+                    checkResultFileWriter.write(request.dependency, request.checkResult, request.rule);
                 }
             } catch (Throwable e) {
                 System.err.println("Write report thread occur exception,so exit");
                 e.printStackTrace();
             } finally {
+                closed = true;
+                writeBuffer.clear();
                 try {
                     checkResultFileWriter.close();
                 } catch (Exception e) {
@@ -110,24 +218,109 @@ public class ReportRecorder implements Recorder {
         }, Constant.AGENT_REPORT_WRITE_THREAD);
         writeThread.setDaemon(true);
         writeThread.start();
+        for (int i = 0; i < ruleWorkers.length; i++) {
+            Thread ruleThread = new Thread(Constant.AGENT_THREAD_GROUP, ruleWorkers[i], Constant.AGENT_REPORT_RULE_THREAD + "-" + (i + 1));
+            ruleThread.setDaemon(true);
+            ruleWorkers[i].thread = ruleThread;
+            ruleThread.start();
+        }
         return true;
     }
 
-    private void publish(Dependency dependency) throws IOException {
+    /**
+     * Wait until the rule threads check all accepted dependencies and the write thread writes their results,
+     * then close the file. All of them share the deadline, the threads still running after it are left to the JVM exit.
+     */
+    @Override
+    public synchronized void close(long deadlineNanos) throws InterruptedException {
+        if (stopping) {
+            return;
+        }
+        stopping = true;
+        for (RuleWorker worker : ruleWorkers) {
+            LockSupport.unpark(worker.thread);
+            join(worker.thread, deadlineNanos);
+        }
+        while (!closed && !writeBuffer.offer(END_OF_WRITE, IDLE_WAIT_NANOS, TimeUnit.NANOSECONDS)) {
+            if (deadlineNanos - System.nanoTime() <= 0) {
+                return;
+            }
+        }
+        join(writeThread, deadlineNanos);
+    }
+
+    private static void join(Thread thread, long deadlineNanos) throws InterruptedException {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remainingMillis > 0) {
+            thread.join(remainingMillis);
+        }
+    }
+
+    @Override
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    @Override
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int depth = writeBuffer.size();
+        for (RuleWorker worker : ruleWorkers) {
+            depth += worker.buffer.size();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return checkResultFileWriter.getBytesWritten();
+    }
+
+    /**
+     * @return true if the dependency is not written before
+     */
+    private boolean markWritten(Dependency dependency) {
+        WrittenKey key = WrittenKey.of(dependency);
+        if (key == null) {
+            return true;
+        }
+        if (alreadyWritten.contains(key)) {
+            return false;
+        }
+        if (alreadyWrittenWeight.get() >= WRITTEN_CACHE_WEIGHT) {
+            return true;
+        }
+        if (alreadyWritten.add(key)) {
+            alreadyWrittenWeight.addAndGet(key.weight());
+            return true;
+        }
+        return false;
+    }
+
+    private void publish(Dependency dependency) throws InterruptedException {
         //Record dependency jars that later used by external tools,such jdeps
         if (dependency.getDependType() == DependType.CODE_SOURCE) {
-            checkResultFileWriter.write(dependency, null, null);
+            write(dependency, null, null);
+        }
+        //the agent's own overhead is not checked by rules
+        if (dependency.getDependType() == DependType.AGENT_METRICS) {
+            write(dependency, null, null);
+            return;
         }
-        List<ExecutableRule> ruleList = InstanceRuleManager.getRuleInstanceList();
+        List<ExecutableRule> ruleList = InstanceRuleManager.getCandidateRuleList(dependency);
         for (ExecutableRule rule : ruleList) {
             if (rule.shouldAccept(dependency)) {
                 ReportCheckResult checkResult = rule.execute(dependency);
                 if (!checkResult.isPass()) {
                     if (checkResult.getPropagated().isEmpty()) {
-                        checkResultFileWriter.write(dependency, checkResult, rule);
+                        write(dependency, checkResult, rule);
                     } else {
                         for (Dependency newDependency : checkResult.getPropagated()) {
-                            checkResultFileWriter.write(newDependency, checkResult, rule);
+                            write(newDependency, checkResult, rule);
                         }
                     }
                 }
@@ -139,18 +332,17 @@ public class ReportRecorder implements Recorder {
         }
     }
 
-    private void publishMore(List<Dependency> more) throws IOException {
-        List<ExecutableRule> ruleList = InstanceRuleManager.getRuleInstanceList();
+    private void publishMore(List<Dependency> more) throws InterruptedException {
         for (Dependency dependency : more) {
-            for (ExecutableRule rule : ruleList) {
+            for (ExecutableRule rule : InstanceRuleManager.getCandidateRuleList(dependency)) {
                 if (rule.shouldAccept(dependency)) {
                     ReportCheckResult checkResult = rule.execute(dependency);
                     if (!checkResult.isPass()) {
                         if (checkResult.getPropagated().isEmpty()) {
-                            checkResultFileWriter.write(dependency, checkResult, rule);
+                            write(dependency, checkResult, rule);
                         } else {
                             for (Dependency newDependency : checkResult.getPropagated()) {
-                                checkResultFileWriter.write(newDependency, checkResult, rule);
+                                write(newDependency, checkResult, rule);
                             }
                         }
                     }
@@ -158,4 +350,86 @@ public class ReportRecorder implements Recorder {
             }
         }
     }
-}
\ No newline at end of file
+
+    private void write(Dependency dependency, ReportCheckResult checkResult, ExecutableRule rule) throws InterruptedException {
+        write(new WriteRequest(dependency, checkResult, rule));
+    }
+
+    private void write(WriteRequest request) throws InterruptedException {
+        while (!closed && !writeBuffer.offer(request, IDLE_WAIT_NANOS, TimeUnit.NANOSECONDS)) {
+            //wait for the write thread
+        }
+    }
+
+    /**
+     * A rule thread and the ring buffer that only it consumes.
+     */
+    private class RuleWorker implements Runnable {
+
+        private final MpscRingBuffer<Dependency> buffer;
+
+        /**
+         * the application threads that are in {@link #record(Dependency)} for this ring buffer.
+         */
+        private final AtomicInteger producers = new AtomicInteger();
+
+        private volatile Thread thread;
+
+        private volatile boolean idle;
+
+        RuleWorker(int queueSize) {
+            this.buffer = new MpscRingBuffer<>(queueSize);
+        }
+
+        void wakeUp() {
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                Dependency dependency = buffer.poll();
+                if (dependency == null) {
+                    if (stopping) {
+                        //a producer that sees stopping drops its dependency, the others finish offering before leaving
+                        if (producers.get() == 0 && buffer.isDrained()) {
+                            return;
+                        }
+                        Thread.yield();
+                        continue;
+                    }
+                    idle = true;
+                    if (buffer.isEmpty()) {
+                        LockSupport.parkNanos(IDLE_WAIT_NANOS);
+                    }
+                    idle = false;
+                    continue;
+                }
+                processed.incrementAndGet();
+                try {
+                    if (markWritten(dependency)) {
+                        publish(dependency);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static class WriteRequest {
+        private final Dependency dependency;
+        private final ReportCheckResult checkResult;
+        private final ExecutableRule rule;
+
+        WriteRequest(Dependency dependency, ReportCheckResult checkResult, ExecutableRule rule) {
+            this.dependency = dependency;
+            this.checkResult = checkResult;
+            this.rule = rule;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.file;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.SourceInformation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An exact key of a dependency that has been written, two dependencies have the same key only if all
+ * the fields that are written or checked by the rules are equal.
+ * The classes are kept by name, so the key doesn't prevent them from being unloaded.
+ * The bytecode and class symbol are not part of the key, they are determined by the location of the class.
+ */
+final class WrittenKey {
+    private final String locationExternalForm;
+    private final DependTarget target;
+    private final String targetFilePath;
+    private final String callerClass;
+    private final String callerMethod;
+    private final String[] nonJdkCallerClass;
+    private final StackTraceElement[] stacktrace;
+    private final Map<String, String> context;
+    private final SourceInformation sourceInformation;
+    private final List<Integer> lines;
+    private final int hash;
+
+    private WrittenKey(Dependency dependency, Map<String, String> context) {
+        this.locationExternalForm = dependency.getLocationExternalForm();
+        this.target = dependency.getTarget();
+        this.targetFilePath = dependency.getTargetFilePath();
+        this.callerClass = nameOf(dependency.getCallerClass());
+        this.callerMethod = dependency.getCallerMethod();
+        this.nonJdkCallerClass = namesOf(dependency.getNonJdkCallerClass());
+        this.stacktrace = dependency.getStacktrace();
+        this.context = context;
+        this.sourceInformation = dependency.getSourceInformation();
+        this.lines = dependency.getLines();
+        int result = Objects.hash(locationExternalForm, target, targetFilePath, callerClass, callerMethod, context, sourceInformation, lines);
+        result = 31 * result + Arrays.hashCode(nonJdkCallerClass);
+        result = 31 * result + Arrays.hashCode(stacktrace);
+        this.hash = result;
+    }
+
+    /**
+     * @return null if the context of the dependency holds an object that can't be kept by name,
+     * such a dependency is always written.
+     */
+    static WrittenKey of(Dependency dependency) {
+        Map<String, String> context = null;
+        if (dependency.getContext() != null) {
+            context = new HashMap<>();
+            for (Map.Entry<String, Object> e : dependency.getContext().entrySet()) {
+                Object value = e.getValue();
+                //the prefix tells a string from a class of the same name
+                if (value == null) {
+                    context.put(e.getKey(), null);
+                } else if (value instanceof String) {
+                    context.put(e.getKey(), "S" + value);
+                } else if (value instanceof Class) {
+                    context.put(e.getKey(), "C" + ((Class<?>) value).getName());
+                } else {
+                    return null;
+                }
+            }
+        }
+        return new WrittenKey(dependency, context);
+    }
+
+    /**
+     * @return roughly how many objects the key keeps alive.
+     */
+    int weight() {
+        return 1 + (stacktrace == null ? 0 : stacktrace.length) + (nonJdkCallerClass == null ? 0 : nonJdkCallerClass.length);
+    }
+
+    private static String nameOf(Class<?> c) {
+        return c == null ? null : c.getName();
+    }
+
+    private static String[] namesOf(Class<?>[] classes) {
+        if (classes == null) {
+            return null;
+        }
+        String[] names = new String[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            names[i] = nameOf(classes[i]);
+        }
+        return names;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WrittenKey that = (WrittenKey) o;
+        return hash == that.hash && Objects.equals(locationExternalForm, that.locationExternalForm) && Objects.equals(target, that.target)
+                && Objects.equals(targetFilePath, that.targetFilePath) && Objects.equals(callerClass, that.callerClass)
+                && Objects.equals(callerMethod, that.callerMethod) && Arrays.equals(nonJdkCallerClass, that.nonJdkCallerClass)
+                && Arrays.equals(stacktrace, that.stacktrace) && Objects.equals(context, that.context)
+                && Objects.equals(sourceInformation, that.sourceInformation) && Objects.equals(lines, that.lines);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
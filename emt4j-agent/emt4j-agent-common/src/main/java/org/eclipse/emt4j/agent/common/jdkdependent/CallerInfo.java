@@ -27,6 +27,7 @@ public class CallerInfo {
     private StackTraceElement[] stacktrace;
     private String calleeClass;
     private String calleeMethod;
+    private Callsite callsite;
 
     public Class getCallerClass() {
         return callerClass;
@@ -67,4 +68,15 @@ public class CallerInfo {
     public void setCalleeMethod(String calleeMethod) {
         this.calleeMethod = calleeMethod;
     }
+
+    /**
+     * @return the callsite that marked as seen by this call, or null if it's not marked.
+     */
+    public Callsite getCallsite() {
+        return callsite;
+    }
+
+    public void setCallsite(Callsite callsite) {
+        this.callsite = callsite;
+    }
 }
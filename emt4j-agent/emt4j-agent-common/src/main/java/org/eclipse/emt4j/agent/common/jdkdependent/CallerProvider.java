@@ -34,19 +34,61 @@ public interface CallerProvider {
     Optional<GuessCallerInfo> guessCallers(int maxCallerNum);
 
     /**
-     * Get caller by depth
+     * Get the non-JDK caller by depth and fill its caller info in a single stack walk.
+     * The caller info includes the caller and callee method, the callee is the frame just before the caller.
      *
      * @param callerDepth
      * @return
      */
-    Optional<Class> getNonJdkCallerByDepth(int callerDepth);
+    default Optional<CallerInfo> getNonJdkCallerInfo(int callerDepth) {
+        //one more frame for this method
+        return getNonJdkCallerInfo(callerDepth + 1, null);
+    }
 
     /**
-     * fill caller info with all necessary information.include caller and callee method.
+     * The same as {@link #getNonJdkCallerInfo(int)}, but if the key is not null, return empty without
+     * capturing the stack trace when the callsite has been seen with the same key.
+     * See {@link SeenCallsites}.
      *
-     * @param callerClass
-     * @param from
+     * @param callerDepth
+     * @param key         what the callback records at the callsite, null means always capture
+     * @return
+     */
+    default Optional<CallerInfo> getNonJdkCallerInfo(int callerDepth, Object key) {
+        //one more frame for this method
+        if (key == null) {
+            return captureCallerInfo(callerDepth + 1, null);
+        }
+        Optional<Callsite> callsite = getCallsite(callerDepth + 1, key);
+        if (!callsite.isPresent() || !SeenCallsites.firstSeen(callsite.get())) {
+            return Optional.empty();
+        }
+        return captureCallerInfo(callerDepth + 1, callsite.get());
+    }
+
+    /**
+     * Identify the callsite of the non-JDK caller by depth without capturing the stack trace,
+     * it only walks the frames of the callee and the caller.
+     *
+     * @param callerDepth
+     * @param key         what the callback records at the callsite
+     * @return empty if the caller is a JDK class or the current thread is an agent thread
+     */
+    Optional<Callsite> getCallsite(int callerDepth, Object key);
+
+    /**
+     * Get the non-JDK caller by depth and capture its caller info, the same as {@link #getNonJdkCallerInfo(int)}.
+     *
+     * @param callerDepth
+     * @param callsite    the callsite set to the caller info, may be null
      * @return
      */
-    Optional<CallerInfo> getCallerInfo(Class callerClass, int from);
+    Optional<CallerInfo> captureCallerInfo(int callerDepth, Callsite callsite);
+
+    /**
+     * Limit the number of frames kept in the captured stack traces.
+     *
+     * @param maxStackDepth the maximum number of frames, 0 means no limit
+     */
+    void setMaxStackDepth(int maxStackDepth);
 }
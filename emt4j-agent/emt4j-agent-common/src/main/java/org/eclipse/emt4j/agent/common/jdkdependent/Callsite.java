@@ -0,0 +1,83 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.jdkdependent;
+
+import java.util.Objects;
+
+/**
+ * Where a callback is triggered: the caller frame, the callee that is called there,
+ * and a key given by the callback for what it records, e.g. the class that is reflected.
+ * <p>
+ * A callsite only keeps names, so the seen callsites never keep the classes or their class loaders alive.
+ * A class is identified by its name and the identity hash of its class loader.
+ * </p>
+ */
+public class Callsite {
+    private final String key;
+    private final String callerClass;
+    private final int callerLoader;
+    private final String callerMethod;
+
+    /**
+     * The bytecode index of the call if known, otherwise the line number.
+     */
+    private final int position;
+    private final String calleeClass;
+    private final String calleeMethod;
+
+    /**
+     * @param key what the callback records at the callsite, a class or an object whose string identifies it, e.g. a string.
+     */
+    public Callsite(Object key, Class callerClass, String callerMethod, int position, String calleeClass, String calleeMethod) {
+        this.key = key instanceof Class ? nameOf((Class) key) : String.valueOf(key);
+        this.callerClass = callerClass.getName();
+        this.callerLoader = System.identityHashCode(callerClass.getClassLoader());
+        this.callerMethod = callerMethod;
+        this.position = position;
+        this.calleeClass = calleeClass;
+        this.calleeMethod = calleeMethod;
+    }
+
+    public String getCalleeClass() {
+        return calleeClass;
+    }
+
+    public String getCalleeMethod() {
+        return calleeMethod;
+    }
+
+    private static String nameOf(Class c) {
+        return c.getName() + '@' + Integer.toHexString(System.identityHashCode(c.getClassLoader()));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Callsite that = (Callsite) o;
+        return position == that.position && callerLoader == that.callerLoader && Objects.equals(key, that.key)
+                && Objects.equals(callerClass, that.callerClass) && Objects.equals(callerMethod, that.callerMethod)
+                && Objects.equals(calleeClass, that.calleeClass) && Objects.equals(calleeMethod, that.calleeMethod);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, callerClass, callerLoader, callerMethod, position, calleeClass, calleeMethod);
+    }
+}
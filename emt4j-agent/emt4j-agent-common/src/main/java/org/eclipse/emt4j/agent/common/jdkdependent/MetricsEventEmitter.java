@@ -0,0 +1,36 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.jdkdependent;
+
+/**
+ * Emit the agent's overhead as events of the JDK, e.g. JFR events.
+ * Only the JDKs that support such events have an implementation.
+ */
+public interface MetricsEventEmitter {
+
+    /**
+     * Start emitting the events, it's called once when the agent starts.
+     */
+    void start();
+
+    /**
+     * Stop emitting the events, it's called once when the agent stops.
+     */
+    void stop();
+}
@@ -0,0 +1,66 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.jdkdependent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The callsites that have been recorded.
+ * A callsite always gets the same check result, so a callback that is triggered from a seen callsite
+ * can skip capturing the stack trace and recording it again.
+ * Only the first stack trace of each callsite is kept in the report.
+ */
+public class SeenCallsites {
+
+    /**
+     * When there are more callsites than this, the new ones are recorded each time as if they were not seen.
+     */
+    private static final int MAX_SIZE = 1 << 16;
+
+    private static final Set<Callsite> seen = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param callsite the callsite that triggers the callback
+     * @return true if the callsite has not been seen before and should be recorded
+     */
+    public static boolean firstSeen(Callsite callsite) {
+        if (seen.contains(callsite)) {
+            return false;
+        }
+        if (seen.size() >= MAX_SIZE) {
+            return true;
+        }
+        return seen.add(callsite);
+    }
+
+    /**
+     * Forget the callsite when its record is dropped, so the next call from there is recorded again.
+     */
+    public static void unmark(Callsite callsite) {
+        seen.remove(callsite);
+    }
+
+    /**
+     * Forget all callsites when the agent stops.
+     */
+    public static void clear() {
+        seen.clear();
+    }
+}
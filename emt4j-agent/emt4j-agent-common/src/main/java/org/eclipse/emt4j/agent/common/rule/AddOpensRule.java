@@ -120,6 +120,11 @@ public class AddOpensRule extends ExecutableRule {
         return DependType.METHOD_TO_CLASS_DEEP_REFLECTION == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD_TO_CLASS_DEEP_REFLECTION);
+    }
+
     public void setPackagesFile(String packagesFile) {
         this.packagesFile = packagesFile;
     }
@@ -29,6 +29,7 @@ import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 import org.eclipse.emt4j.common.util.ClassURL;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -63,6 +64,14 @@ public class AgentReferenceClassRule extends ReferenceClassRule {
                 || DependType.METHOD_TO_CLASS_DEEP_REFLECTION == dependency.getDependType();
     }
 
+    /**
+     * Non-JDK classes are needed for propagating, so cannot be restricted by the class packages.
+     */
+    @Override
+    public Collection<String> getTargetClassPrefixes() {
+        return null;
+    }
+
     private boolean shouldOmit(String normalized) {
         for (String classPrefix : omitClassPrefix) {
             if (normalized.startsWith(classPrefix)) {
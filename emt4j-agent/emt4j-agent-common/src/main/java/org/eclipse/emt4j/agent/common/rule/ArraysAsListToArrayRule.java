@@ -32,6 +32,8 @@ import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * <p>
@@ -72,4 +74,9 @@ public class ArraysAsListToArrayRule extends ExecutableRule {
     public boolean accept(Dependency dependency) {
         return DependType.METHOD == dependency.getDependType();
     }
+
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD);
+    }
 }
@@ -29,6 +29,9 @@ import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * java.util.Calendar.getFirstDayOfWeek may have problem if change default locale data to CLDR with some specific locale.
  */
@@ -55,4 +58,9 @@ public class CLDRCalendarFirstDayOfWeekRule extends ExecutableRule {
     public boolean accept(Dependency dependency) {
         return DependType.METHOD == dependency.getDependType();
     }
+
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD);
+    }
 }
@@ -26,6 +26,8 @@ import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -65,4 +67,9 @@ public class CLDRDateFormatRule extends ExecutableRule {
     public boolean accept(Dependency dependency) {
         return DependType.METHOD == dependency.getDependType();
     }
+
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD);
+    }
 }
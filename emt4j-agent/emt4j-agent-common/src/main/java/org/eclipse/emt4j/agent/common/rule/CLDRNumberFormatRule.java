@@ -29,6 +29,8 @@ import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.stream.Stream;
 
 /**
@@ -90,4 +92,9 @@ public class CLDRNumberFormatRule extends ExecutableRule {
     public boolean accept(Dependency dependency) {
         return DependType.METHOD == dependency.getDependType();
     }
+
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD);
+    }
 }
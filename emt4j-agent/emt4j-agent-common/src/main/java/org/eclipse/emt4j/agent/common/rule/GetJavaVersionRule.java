@@ -29,6 +29,9 @@ import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Java Version schema changed between JDK8 and JDK11.
  * Assume programmer use the System.getProperty with parameters : java.version" or  "java.specification.version" or "java.runtime.version"
@@ -55,4 +58,9 @@ public class GetJavaVersionRule extends ExecutableRule {
     public boolean accept(Dependency dependency) {
         return DependType.METHOD == dependency.getDependType();
     }
+
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD);
+    }
 }
@@ -29,6 +29,9 @@ import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * The following code will throw exception in JDK11,but not in JDK8
  * <pre>
@@ -60,4 +63,9 @@ public class PatternCompileRule extends ExecutableRule {
     public boolean accept(Dependency dependency) {
         return DependType.METHOD == dependency.getDependType();
     }
+
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD);
+    }
 }
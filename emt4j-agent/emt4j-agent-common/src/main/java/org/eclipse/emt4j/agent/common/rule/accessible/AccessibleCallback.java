@@ -21,6 +21,7 @@ package org.eclipse.emt4j.agent.common.rule.accessible;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.methodvisitor.BaseEnterCallback;
 import org.eclipse.emt4j.agent.common.AgentFacade;
+import org.eclipse.emt4j.agent.common.CallbackSampler;
 import org.eclipse.emt4j.agent.common.Constant;
 import org.eclipse.emt4j.agent.common.DependencyBuilder;
 import org.eclipse.emt4j.agent.common.InstrumentCodeCallback;
@@ -36,14 +37,16 @@ import static org.eclipse.emt4j.common.util.JdkClassUtil.isJdkClass;
 @InstrumentCodeCallback
 public class AccessibleCallback extends BaseEnterCallback {
 
+    private static final CallbackSampler SAMPLER = new CallbackSampler();
+
     public static void recordStaticAccessible(AccessibleObject[] array, boolean flag) {
         if (flag) {
-            Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-            if (callerClass.isPresent()) {
-                Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-                if (callerInfo.isPresent()) {
-                    for (AccessibleObject accessibleObject : array) {
-                        recordAccessible(accessibleObject, callerInfo.get());
+            for (AccessibleObject accessibleObject : array) {
+                Class<?> declaringClass = getDeepReflectionClass(accessibleObject);
+                if (declaringClass != null) {
+                    Optional<CallerInfo> callerInfo = SAMPLER.getNonJdkCallerInfo(declaringClass);
+                    if (callerInfo.isPresent()) {
+                        recordAccessible(declaringClass, callerInfo.get());
                     }
                 }
             }
@@ -52,50 +55,60 @@ public class AccessibleCallback extends BaseEnterCallback {
 
     public static void recordInstanceAccessible(AccessibleObject accessibleObject, boolean flag) {
         if (flag) {
-            Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-            if (callerClass.isPresent()) {
-                Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-                recordAccessible(accessibleObject, callerInfo.get());
+            Class<?> declaringClass = getDeepReflectionClass(accessibleObject);
+            if (declaringClass != null) {
+                Optional<CallerInfo> callerInfo = SAMPLER.getNonJdkCallerInfo(declaringClass);
+                if (callerInfo.isPresent()) {
+                    recordAccessible(declaringClass, callerInfo.get());
+                }
             }
         }
     }
 
-    private static void recordAccessible(AccessibleObject accessible, CallerInfo callerInfo) {
+    /**
+     * Test if access a non-public member of a JDK class before walking the stack.
+     *
+     * @return the declaring class of the member,or null if needn't record.
+     */
+    private static Class<?> getDeepReflectionClass(AccessibleObject accessible) {
         Class<?> declaringClass = null;
-        //Test if access a non-public field.
         if (accessible instanceof Executable) {
             declaringClass = ((Executable) accessible).getDeclaringClass();
             if (accessible instanceof Constructor) {
                 Constructor constructor = (Constructor) accessible;
                 if (Modifier.isPublic(constructor.getModifiers())) {
-                    return;
+                    return null;
                 }
             } else if (accessible instanceof Method) {
                 Method method = (Method) accessible;
                 if (Modifier.isPublic(method.getModifiers())) {
-                    return;
+                    return null;
                 }
             }
         } else if (accessible instanceof Field) {
             Field field = (Field) accessible;
             if (Modifier.isPublic(field.getModifiers())) {
-                return;
+                return null;
             }
             declaringClass = ((Field) accessible).getDeclaringClass();
         }
-        if (declaringClass != null && !declaringClass.isAnonymousClass() && !declaringClass.isSynthetic()) {
-            //we only pay attention to jdk class so that help generate --add-opens to JVM option.
-            if (isJdkClass(declaringClass.getName())) {
-                try {
-                    if (!callerInfo.getCallerClass().getName().startsWith(Constant.AGENT_PACKAGE)
-                            && !callerInfo.getCallerClass().getName().startsWith(Constant.COMMON_PACKAGE)) {
-                        AgentFacade.record(DependencyBuilder.buildDeepReflection(callerInfo,
-                                declaringClass.getName(), callerInfo.getStacktrace()));
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+        //we only pay attention to jdk class so that help generate --add-opens to JVM option.
+        if (declaringClass != null && !declaringClass.isAnonymousClass() && !declaringClass.isSynthetic()
+                && isJdkClass(declaringClass.getName())) {
+            return declaringClass;
+        }
+        return null;
+    }
+
+    private static void recordAccessible(Class<?> declaringClass, CallerInfo callerInfo) {
+        try {
+            if (!callerInfo.getCallerClass().getName().startsWith(Constant.AGENT_PACKAGE)
+                    && !callerInfo.getCallerClass().getName().startsWith(Constant.COMMON_PACKAGE)) {
+                AgentFacade.record(callerInfo, DependencyBuilder.buildDeepReflection(callerInfo,
+                        declaringClass.getName(), callerInfo.getStacktrace()));
             }
+        } catch (Exception e) {
+            e.printStackTrace();
         }
     }
 }
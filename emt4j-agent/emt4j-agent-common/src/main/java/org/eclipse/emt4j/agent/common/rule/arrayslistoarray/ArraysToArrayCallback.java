@@ -22,7 +22,7 @@ import org.eclipse.emt4j.agent.common.AgentFacade;
 import org.eclipse.emt4j.agent.common.InstrumentCodeCallback;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.methodvisitor.BaseEnterCallback;
-import org.eclipse.emt4j.agent.common.Constant;
+import org.eclipse.emt4j.agent.common.CallbackSampler;
 import org.eclipse.emt4j.agent.common.DependencyBuilder;
 
 
@@ -32,13 +32,13 @@ import static org.eclipse.emt4j.agent.common.DependencyBuilder.buildMethod;
 
 @InstrumentCodeCallback
 public class ArraysToArrayCallback extends BaseEnterCallback {
+
+    private static final CallbackSampler SAMPLER = new CallbackSampler();
+
     public static void enter() {
-        Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-        if (callerClass.isPresent()) {
-            Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-            if (callerInfo.isPresent()) {
-                AgentFacade.record(DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
-            }
+        Optional<CallerInfo> callerInfo = SAMPLER.getNonJdkCallerInfo(ArraysToArrayCallback.class);
+        if (callerInfo.isPresent()) {
+            AgentFacade.record(callerInfo.get(), DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
         }
     }
 }
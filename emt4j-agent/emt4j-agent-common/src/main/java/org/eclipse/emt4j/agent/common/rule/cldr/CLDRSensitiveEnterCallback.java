@@ -19,10 +19,10 @@
 package org.eclipse.emt4j.agent.common.rule.cldr;
 
 import org.eclipse.emt4j.agent.common.AgentFacade;
+import org.eclipse.emt4j.agent.common.CallbackSampler;
 import org.eclipse.emt4j.agent.common.InstrumentCodeCallback;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.methodvisitor.BaseEnterCallback;
-import org.eclipse.emt4j.agent.common.Constant;
 import org.eclipse.emt4j.agent.common.DependencyBuilder;
 
 import java.text.DateFormat;
@@ -42,15 +42,16 @@ public class CLDRSensitiveEnterCallback extends BaseEnterCallback {
     private static final SimpleDateFormat localFormat
             = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.DEFAULT, DateFormat.DEFAULT);
 
+    private static final CallbackSampler DATE_TIME_SAMPLER = new CallbackSampler();
+    private static final CallbackSampler FIRST_DAY_OF_WEEK_SAMPLER = new CallbackSampler();
+    private static final CallbackSampler NUMBER_FORMAT_SAMPLER = new CallbackSampler();
+
 
     public static void dateTimeEnter(SimpleDateFormat sdf) {
         if (isDefaultFormat(sdf)) {
-            Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-            if (callerClass.isPresent()) {
-                Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-                if (callerInfo.isPresent()) {
-                    AgentFacade.record(DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
-                }
+            Optional<CallerInfo> callerInfo = DATE_TIME_SAMPLER.getNonJdkCallerInfo(CLDRSensitiveEnterCallback.class);
+            if (callerInfo.isPresent()) {
+                AgentFacade.record(callerInfo.get(), DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
             }
         }
     }
@@ -61,24 +62,18 @@ public class CLDRSensitiveEnterCallback extends BaseEnterCallback {
     }
 
     public static void getDayOfFirstWeekEnter() {
-        Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-        if (callerClass.isPresent()) {
-            Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-            if (callerInfo.isPresent()) {
-                AgentFacade.record(DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
-            }
+        Optional<CallerInfo> callerInfo = FIRST_DAY_OF_WEEK_SAMPLER.getNonJdkCallerInfo(CLDRSensitiveEnterCallback.class);
+        if (callerInfo.isPresent()) {
+            AgentFacade.record(callerInfo.get(), DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
         }
     }
 
     public static void numberFormatEnter(DecimalFormat decimalFormat) {
         // when format with currency.the suffix and prefix not empty.
         if (decimalFormat != null && !(isEmpty(decimalFormat.getPositivePrefix()) && isEmpty(decimalFormat.getPositiveSuffix()))) {
-            Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-            if (callerClass.isPresent()) {
-                Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-                if (callerInfo.isPresent()) {
-                    AgentFacade.record(DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
-                }
+            Optional<CallerInfo> callerInfo = NUMBER_FORMAT_SAMPLER.getNonJdkCallerInfo(CLDRSensitiveEnterCallback.class);
+            if (callerInfo.isPresent()) {
+                AgentFacade.record(callerInfo.get(), DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
             }
         }
     }
@@ -22,7 +22,7 @@ import org.eclipse.emt4j.agent.common.AgentFacade;
 import org.eclipse.emt4j.agent.common.InstrumentCodeCallback;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.methodvisitor.BaseEnterCallback;
-import org.eclipse.emt4j.agent.common.Constant;
+import org.eclipse.emt4j.agent.common.CallbackSampler;
 
 import java.util.Collections;
 import java.util.Optional;
@@ -31,13 +31,13 @@ import static org.eclipse.emt4j.agent.common.DependencyBuilder.buildMethod;
 
 @InstrumentCodeCallback
 public class GetDeclareFieldCallback extends BaseEnterCallback {
+
+    private static final CallbackSampler SAMPLER = new CallbackSampler();
+
     public static void enter(Object thisObject) {
-        Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-        if (callerClass.isPresent()) {
-            Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-            if (callerInfo.isPresent()) {
-                AgentFacade.record(buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod(), Collections.singletonMap("thisObject", thisObject)));
-            }
+        Optional<CallerInfo> callerInfo = SAMPLER.getNonJdkCallerInfo(thisObject);
+        if (callerInfo.isPresent()) {
+            AgentFacade.record(callerInfo.get(), buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod(), Collections.singletonMap("thisObject", thisObject)));
         }
     }
 }
@@ -22,7 +22,7 @@ import org.eclipse.emt4j.agent.common.AgentFacade;
 import org.eclipse.emt4j.agent.common.InstrumentCodeCallback;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.methodvisitor.BaseEnterCallback;
-import org.eclipse.emt4j.agent.common.Constant;
+import org.eclipse.emt4j.agent.common.CallbackSampler;
 import org.eclipse.emt4j.agent.common.DependencyBuilder;
 
 import java.util.Optional;
@@ -31,6 +31,9 @@ import static org.eclipse.emt4j.agent.common.DependencyBuilder.buildMethod;
 
 @InstrumentCodeCallback
 public class GetJavaVersionCallback extends BaseEnterCallback {
+
+    private static final CallbackSampler SAMPLER = new CallbackSampler();
+
     private static final String[] ALL_PROPERTY_KEY = new String[]{
             "java.version", "java.specification.version", "java.runtime.version"
     };
@@ -41,15 +44,13 @@ public class GetJavaVersionCallback extends BaseEnterCallback {
         if (key != null && !key.isEmpty() && key.charAt(0) != 'j') {
             return;
         }
-        Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-        if (callerClass.isPresent() && isNotMySelf(callerClass.get())) {
-            Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-            if (callerInfo.isPresent()) {
-                for (String jdkVersionKey : ALL_PROPERTY_KEY) {
-                    if (jdkVersionKey.equals(key)) {
-                        AgentFacade.record(DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
-                    }
+        for (String jdkVersionKey : ALL_PROPERTY_KEY) {
+            if (jdkVersionKey.equals(key)) {
+                Optional<CallerInfo> callerInfo = SAMPLER.getNonJdkCallerInfo(key);
+                if (callerInfo.isPresent() && isNotMySelf(callerInfo.get().getCallerClass())) {
+                    AgentFacade.record(callerInfo.get(), DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
                 }
+                return;
             }
         }
     }
@@ -32,14 +32,13 @@ import static org.eclipse.emt4j.agent.common.DependencyBuilder.buildMethod;
 @InstrumentCodeCallback
 public class GetSystemClassLoaderCallback extends BaseEnterCallback {
 
+    private static final CallbackSampler SAMPLER = new CallbackSampler();
+
     public static void enter(ClassLoader classLoader) {
         if (classLoader != null && SystemClassLoaderIReference.isSystemClassLoader(classLoader)) {
-            Optional<Class> callerClass = AgentFacade.getCallerProvider().getNonJdkCallerByDepth(Constant.FIRST_NON_AGENT_CALLER_INDEX);
-            if (callerClass.isPresent()) {
-                Optional<CallerInfo> callerInfo = AgentFacade.getCallerProvider().getCallerInfo(callerClass.get(), Constant.CALLEE_INDEX);
-                if (callerInfo.isPresent()) {
-                    AgentFacade.record(DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
-                }
+            Optional<CallerInfo> callerInfo = SAMPLER.getNonJdkCallerInfo(GetSystemClassLoaderCallback.class);
+            if (callerInfo.isPresent()) {
+                AgentFacade.record(callerInfo.get(), DependencyBuilder.buildMethod(callerInfo.get(), callerInfo.get().getCalleeClass(), callerInfo.get().getCalleeMethod()));
             }
         }
     }
@@ -0,0 +1,112 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestAgentMetrics {
+
+    @Test
+    public void testEmpty() {
+        AgentMetrics.Histogram histogram = new AgentMetrics.Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotalNanos());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    public void testPercentiles() {
+        AgentMetrics.Histogram histogram = new AgentMetrics.Histogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(10);
+        }
+        histogram.record(5000);
+        assertEquals(100, histogram.getCount());
+        assertEquals(99 * 10 + 5000, histogram.getTotalNanos());
+        assertEquals(5000, histogram.getMaxNanos());
+        //10 is in the bucket [8, 16)
+        assertEquals(15, histogram.getPercentileNanos(50));
+        assertEquals(15, histogram.getPercentileNanos(99));
+        //the upper bound of [4096, 8192) is more than the max
+        assertEquals(5000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testBucketBounds() {
+        AgentMetrics.Histogram histogram = new AgentMetrics.Histogram();
+        histogram.record(0);
+        histogram.record(-5);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(100));
+
+        histogram = new AgentMetrics.Histogram();
+        histogram.record(16);
+        histogram.record(31);
+        assertEquals(31, histogram.getPercentileNanos(100));
+        histogram.record(32);
+        assertEquals(32, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testLongDurations() {
+        AgentMetrics.Histogram histogram = new AgentMetrics.Histogram();
+        histogram.record(1L << 50);
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(2, histogram.getCount());
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMaxNanos());
+        //the last bucket counts all longer durations, its percentile is the max
+        assertEquals(Long.MAX_VALUE / 2, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    public void testConcurrentRecord() throws InterruptedException {
+        AgentMetrics.Histogram histogram = new AgentMetrics.Histogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 10000; i++) {
+                    histogram.record(i * 4 + offset);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(40000 + 3, histogram.getMaxNanos());
+        long total = 0;
+        for (int t = 0; t < 4; t++) {
+            for (int i = 1; i <= 10000; i++) {
+                total += i * 4 + t;
+            }
+        }
+        assertEquals(total, histogram.getTotalNanos());
+    }
+}
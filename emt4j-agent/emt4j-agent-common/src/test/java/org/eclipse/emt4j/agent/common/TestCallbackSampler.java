@@ -0,0 +1,217 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
+import org.eclipse.emt4j.agent.common.jdkdependent.CallerProvider;
+import org.eclipse.emt4j.agent.common.jdkdependent.Callsite;
+import org.eclipse.emt4j.agent.common.jdkdependent.GuessCallerInfo;
+import org.eclipse.emt4j.agent.common.jdkdependent.SeenCallsites;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestCallbackSampler {
+
+    /**
+     * The time a capture takes on the test clock.
+     */
+    private static final long WALK_NANOS = 2000;
+
+    /**
+     * With this budget a target gets a single capture per window, 2000ns of 100ms.
+     */
+    private static final double ONE_PER_WINDOW = 0.002;
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final FakeCallerProvider provider = new FakeCallerProvider(clock);
+
+    private final CallbackSampler sampler = new CallbackSampler(() -> provider, clock::get);
+
+    @Before
+    public void setUp() {
+        CallbackSampler.reset();
+        SeenCallsites.clear();
+        CallbackSampler.setBudget(ONE_PER_WINDOW);
+    }
+
+    @After
+    public void tearDown() {
+        CallbackSampler.reset();
+        SeenCallsites.clear();
+    }
+
+    @Test
+    public void testFirstOccurrenceIsNotSampled() {
+        for (int position = 0; position < 1000; position++) {
+            Optional<CallerInfo> callerInfo = call("java.lang.String", position);
+            assertTrue("callsite " + position, callerInfo.isPresent());
+            assertNotNull(callerInfo.get().getCallsite());
+        }
+        assertEquals(1000, provider.captured);
+        assertEquals(0, CallbackSampler.getSkipped());
+    }
+
+    @Test
+    public void testSeenCallsiteIsSampled() {
+        assertTrue(call("java.lang.String", 1).isPresent());
+        Optional<CallerInfo> again = call("java.lang.String", 1);
+        assertTrue(again.isPresent());
+        //a dropped record of a seen callsite must not forget the callsite
+        assertNull(again.get().getCallsite());
+        for (int i = 0; i < 998; i++) {
+            assertTrue(!call("java.lang.String", 1).isPresent());
+        }
+        assertEquals(2, provider.captured);
+        assertEquals(998, CallbackSampler.getSkipped());
+    }
+
+    @Test
+    public void testUnseenCallsiteOfExhaustedTarget() {
+        call("java.lang.String", 1);
+        call("java.lang.String", 1);
+        assertTrue(!call("java.lang.String", 1).isPresent());
+        assertTrue(call("java.lang.String", 2).isPresent());
+        assertEquals(3, provider.captured);
+    }
+
+    @Test
+    public void testBudgetPerTarget() {
+        for (int i = 0; i < 1000; i++) {
+            call("java.lang.String", 1);
+        }
+        assertEquals(2, provider.captured);
+        assertTrue(call("java.util.Locale", 1).isPresent());
+        assertTrue(call("java.util.Locale", 1).isPresent());
+        assertTrue(!call("java.util.Locale", 1).isPresent());
+        assertEquals(4, provider.captured);
+    }
+
+    @Test
+    public void testTokensRefillEachWindow() {
+        call("java.lang.String", 1);
+        assertTrue(call("java.lang.String", 1).isPresent());
+        for (int window = 1; window <= 10; window++) {
+            clock.addAndGet(WINDOW_NANOS);
+            //within the budget, so the call is not dropped by the probability
+            assertTrue("window " + window, call("java.lang.String", 1).isPresent());
+        }
+        assertEquals(12, provider.captured);
+        assertEquals(0, CallbackSampler.getSkipped());
+    }
+
+    @Test
+    public void testBudgetSmallerThanCapture() {
+        //a capture costs the budget of 4 windows
+        CallbackSampler.setBudget(ONE_PER_WINDOW / 4);
+        call("java.lang.String", 1);
+        int windows = 40;
+        for (int window = 0; window < windows; window++) {
+            for (int i = 0; i < 10; i++) {
+                call("java.lang.String", 1);
+            }
+            clock.addAndGet(WINDOW_NANOS);
+        }
+        //the first capture of the seen callsite uses the credit of the first window
+        int seenCaptures = provider.captured - 1;
+        assertTrue("captured " + seenCaptures, seenCaptures >= 1 && seenCaptures <= 1 + windows / 4);
+    }
+
+    @Test
+    public void testNoBudget() {
+        CallbackSampler.setBudget(0);
+        for (int i = 0; i < 100; i++) {
+            call("java.lang.String", i % 10);
+        }
+        assertEquals(10, provider.captured);
+        assertEquals(0, CallbackSampler.getSkipped());
+    }
+
+    @Test
+    public void testReset() {
+        for (int i = 0; i < 10; i++) {
+            call("java.lang.String", 1);
+        }
+        assertTrue(CallbackSampler.getSkipped() > 0);
+        CallbackSampler.reset();
+        assertEquals(0, CallbackSampler.getSkipped());
+        CallbackSampler.setBudget(ONE_PER_WINDOW);
+        assertTrue(call("java.lang.String", 1).isPresent());
+    }
+
+    private Optional<CallerInfo> call(String calleeClass, int position) {
+        provider.calleeClass = calleeClass;
+        provider.position = position;
+        return sampler.getNonJdkCallerInfo(TestCallbackSampler.class);
+    }
+
+    /**
+     * The callsite is given by the test instead of the stack.
+     */
+    private static class FakeCallerProvider implements CallerProvider {
+        private final AtomicLong clock;
+        private String calleeClass;
+        private int position;
+        private int captured;
+
+        FakeCallerProvider(AtomicLong clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public Optional<Callsite> getCallsite(int callerDepth, Object key) {
+            return Optional.of(new Callsite(key, TestCallbackSampler.class, "call", position, calleeClass, "m"));
+        }
+
+        @Override
+        public Optional<CallerInfo> captureCallerInfo(int callerDepth, Callsite callsite) {
+            clock.addAndGet(WALK_NANOS);
+            captured++;
+            CallerInfo callerInfo = new CallerInfo();
+            callerInfo.setCallerClass(TestCallbackSampler.class);
+            callerInfo.setCallerMethod("call");
+            callerInfo.setCalleeClass(calleeClass);
+            callerInfo.setCalleeMethod("m");
+            callerInfo.setStacktrace(new StackTraceElement[0]);
+            callerInfo.setCallsite(callsite);
+            return Optional.of(callerInfo);
+        }
+
+        @Override
+        public Optional<GuessCallerInfo> guessCallers(int maxCallerNum) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void setMaxStackDepth(int maxStackDepth) {
+        }
+    }
+}
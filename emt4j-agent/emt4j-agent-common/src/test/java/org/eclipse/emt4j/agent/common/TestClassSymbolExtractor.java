@@ -0,0 +1,256 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common;
+
+import org.eclipse.emt4j.agent.common.file.Recorder;
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A single background thread is kept busy by the first class and the queue holds one more,
+ * so the next classes overflow.
+ */
+public class TestClassSymbolExtractor {
+
+    private static final long WAIT_MILLIS = 200;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final BlockingRecorder recorder = new BlockingRecorder(release);
+
+    private byte[] classContent;
+
+    private ClassSymbolExtractor extractor;
+
+    @Before
+    public void setUp() throws IOException {
+        classContent = readClass(TestClassSymbolExtractor.class);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        if (extractor != null) {
+            extractor.close(deadline());
+        }
+    }
+
+    @Test
+    public void testDiscard() throws InterruptedException {
+        fill(OverflowPolicy.DISCARD);
+        extract("Overflow1");
+        extract("Overflow2");
+        assertEquals(2, extractor.getDiscarded());
+        release.countDown();
+        extractor.close(deadline());
+        assertEquals(2, recorder.recorded.size());
+        assertFalse(recorder.recorded.contains("Overflow1"));
+    }
+
+    @Test
+    public void testCaller() throws InterruptedException {
+        fill(OverflowPolicy.CALLER);
+        extract("Overflow");
+        //the overflowed class is parsed by the calling thread without waiting
+        assertTrue(recorder.recorded.contains("Overflow"));
+        assertEquals(Thread.currentThread().getName(), recorder.threads.get(recorder.recorded.indexOf("Overflow")));
+        assertEquals(0, extractor.getDiscarded());
+        release.countDown();
+        extractor.close(deadline());
+        assertEquals(3, recorder.recorded.size());
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        fill(OverflowPolicy.BLOCK);
+        Thread caller = startExtract("Overflow");
+        caller.join(WAIT_MILLIS);
+        assertTrue("the caller waits for room in the queue", caller.isAlive());
+        release.countDown();
+        caller.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(caller.isAlive());
+        extractor.close(deadline());
+        assertEquals(0, extractor.getDiscarded());
+        assertEquals(3, recorder.recorded.size());
+        assertTrue(recorder.recorded.contains("Overflow"));
+    }
+
+    @Test
+    public void testSample() throws InterruptedException {
+        fill(OverflowPolicy.SAMPLE);
+        for (int i = 1; i < OverflowPolicy.SAMPLE_INTERVAL; i++) {
+            extract("Dropped" + i);
+        }
+        assertEquals(OverflowPolicy.SAMPLE_INTERVAL - 1, extractor.getDiscarded());
+        Thread caller = startExtract("Sampled");
+        caller.join(WAIT_MILLIS);
+        assertTrue("one of every interval overflows waits", caller.isAlive());
+        release.countDown();
+        caller.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(caller.isAlive());
+        extractor.close(deadline());
+        assertEquals(OverflowPolicy.SAMPLE_INTERVAL - 1, extractor.getDiscarded());
+        assertEquals(3, recorder.recorded.size());
+        assertTrue(recorder.recorded.contains("Sampled"));
+    }
+
+    @Test
+    public void testAfterClose() throws InterruptedException {
+        for (OverflowPolicy policy : new OverflowPolicy[]{OverflowPolicy.BLOCK, OverflowPolicy.DISCARD, OverflowPolicy.SAMPLE}) {
+            extractor = new ClassSymbolExtractor(recorder, 1, 1, policy);
+            extractor.close(deadline());
+            extract("Closed");
+            assertEquals(policy.name(), 1, extractor.getDiscarded());
+        }
+        assertFalse(recorder.recorded.contains("Closed"));
+    }
+
+    @Test
+    public void testSymbolsAreExtracted() throws InterruptedException {
+        release.countDown();
+        extractor = new ClassSymbolExtractor(recorder, 2, 16, OverflowPolicy.BLOCK);
+        extract("Parsed");
+        extractor.close(deadline());
+        assertEquals(1, recorder.dependencies.size());
+        Dependency dependency = recorder.dependencies.get(0);
+        assertEquals(DependType.WHOLE_CLASS, dependency.getDependType());
+        assertNotNull(dependency.getClassSymbol());
+    }
+
+    /**
+     * The first class blocks the background thread, the second one stays in the queue.
+     */
+    private void fill(OverflowPolicy policy) throws InterruptedException {
+        extractor = new ClassSymbolExtractor(recorder, 1, 1, policy);
+        extract("Busy");
+        assertTrue(recorder.blocked.await(10, TimeUnit.SECONDS));
+        extract("Queued");
+    }
+
+    @Test
+    public void testCloseStopsAtDeadline() throws InterruptedException {
+        fill(OverflowPolicy.BLOCK);
+        long start = System.nanoTime();
+        extractor.close(start + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("waited " + waitedMillis + "ms", waitedMillis < TimeUnit.SECONDS.toMillis(10));
+        assertFalse(recorder.recorded.contains("Queued"));
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    }
+
+    private void extract(String className) {
+        Dependency loadClass = new Dependency(null, new DependTarget.Class(className, DependType.CLASS), null, null);
+        extractor.extract(loadClass, className, classContent);
+    }
+
+    private Thread startExtract(String className) {
+        Thread thread = new Thread(() -> extract(className), "caller");
+        thread.start();
+        return thread;
+    }
+
+    private static byte[] readClass(Class<?> c) throws IOException {
+        try (InputStream in = c.getResourceAsStream("/" + c.getName().replace('.', '/') + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Blocks the first record until released.
+     */
+    private static class BlockingRecorder implements Recorder {
+        private final CountDownLatch release;
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final List<String> recorded = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+        private final List<Dependency> dependencies = new CopyOnWriteArrayList<>();
+
+        BlockingRecorder(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public boolean record(Dependency dependency) throws InterruptedException {
+            String className = dependency.getTarget().asClass().getClassName();
+            if ("Busy".equals(className)) {
+                blocked.countDown();
+                release.await();
+            }
+            threads.add(Thread.currentThread().getName());
+            recorded.add(className);
+            dependencies.add(dependency);
+            return true;
+        }
+
+        @Override
+        public boolean init() {
+            return true;
+        }
+
+        @Override
+        public void close(long deadlineNanos) {
+        }
+
+        @Override
+        public long getProcessed() {
+            return 0;
+        }
+
+        @Override
+        public long getDropped() {
+            return 0;
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return 0;
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.file;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.fileformat.IndexedRecordFile;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The results reach the file only when a batch is full, the oldest buffered one exceeds the flush interval,
+ * the writer is flushed or closed.
+ */
+public class TestBinaryFileWriter {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final long NEVER = Long.MAX_VALUE / 2;
+
+    @Test
+    public void testFlushWhenBatchIsFull() throws IOException {
+        File file = folder.newFile();
+        BinaryFileWriter writer = begin(file, 3, NEVER);
+        long headerBytes = file.length();
+        assertEquals(headerBytes, writer.getBytesWritten());
+
+        write(writer, 0);
+        write(writer, 1);
+        assertEquals(headerBytes, file.length());
+        write(writer, 2);
+        long firstBatch = file.length();
+        assertTrue(firstBatch > headerBytes);
+        assertEquals(firstBatch, writer.getBytesWritten());
+
+        write(writer, 3);
+        write(writer, 4);
+        assertEquals(firstBatch, file.length());
+        write(writer, 5);
+        assertTrue(file.length() > firstBatch);
+
+        writer.close();
+        assertRecords(file, 6);
+    }
+
+    @Test
+    public void testFlushWhenIntervalElapsed() throws Exception {
+        File file = folder.newFile();
+        long intervalMillis = 200;
+        BinaryFileWriter writer = begin(file, Integer.MAX_VALUE, intervalMillis);
+        long headerBytes = file.length();
+
+        write(writer, 0);
+        assertEquals(headerBytes, file.length());
+        Thread.sleep(intervalMillis * 2);
+        //the interval is checked when the next result is written
+        write(writer, 1);
+        long flushed = file.length();
+        assertTrue(flushed > headerBytes);
+
+        //the interval starts again from the first result buffered after flushing
+        write(writer, 2);
+        assertEquals(flushed, file.length());
+        Thread.sleep(intervalMillis * 2);
+        write(writer, 3);
+        assertTrue(file.length() > flushed);
+
+        writer.close();
+        assertRecords(file, 4);
+    }
+
+    @Test
+    public void testFlushAndClose() throws IOException {
+        File file = folder.newFile();
+        BinaryFileWriter writer = begin(file, Integer.MAX_VALUE, NEVER);
+        long headerBytes = file.length();
+
+        writer.flush();
+        assertEquals(headerBytes, file.length());
+        write(writer, 0);
+        assertEquals(headerBytes, file.length());
+        writer.flush();
+        long flushed = file.length();
+        assertTrue(flushed > headerBytes);
+
+        write(writer, 1);
+        assertEquals(flushed, file.length());
+        writer.close();
+        assertTrue(file.length() > flushed);
+        assertEquals(file.length(), writer.getBytesWritten());
+        assertRecords(file, 2);
+    }
+
+    private static BinaryFileWriter begin(File file, int batchSize, long flushIntervalMillis) throws IOException {
+        BinaryFileWriter writer = new BinaryFileWriter(file, 8, 11, Collections.singletonList("default"), batchSize, flushIntervalMillis);
+        writer.begin();
+        return writer;
+    }
+
+    private static void write(BinaryFileWriter writer, int i) throws IOException {
+        Dependency dependency = new Dependency(null, new DependTarget.Method("com.foo.Bar" + i, "run", "()V", DependType.METHOD), null, null);
+        ReportCheckResult checkResult = new ReportCheckResult(false);
+        checkResult.setResultCode("CODE_" + i);
+        writer.write(dependency, checkResult, null);
+    }
+
+    private static void assertRecords(File file, int expected) throws IOException {
+        try (IndexedRecordFile indexed = IndexedRecordFile.open(file)) {
+            assertEquals(expected, indexed.size());
+        }
+    }
+}
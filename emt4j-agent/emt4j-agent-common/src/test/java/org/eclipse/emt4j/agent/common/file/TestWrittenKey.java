@@ -0,0 +1,91 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.file;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestWrittenKey {
+
+    @Test
+    public void testHashCollision() {
+        // "Aa" and "BB" have the same hash code
+        Dependency aa = methodDependency("Aa");
+        Dependency bb = methodDependency("BB");
+        assertEquals(aa.hashCode(), bb.hashCode());
+        assertNotEquals(WrittenKey.of(aa), WrittenKey.of(bb));
+        assertEquals(WrittenKey.of(aa), WrittenKey.of(methodDependency("Aa")));
+    }
+
+    @Test
+    public void testCallerAndContext() {
+        Dependency dependency = methodDependency("a.B");
+        dependency.setCallerClass(TestWrittenKey.class);
+        dependency.setContext(Collections.singletonMap("thisObject", String.class));
+        Dependency same = methodDependency("a.B");
+        same.setCallerClass(TestWrittenKey.class);
+        same.setContext(Collections.singletonMap("thisObject", String.class));
+        assertEquals(WrittenKey.of(dependency), WrittenKey.of(same));
+
+        Dependency otherContext = methodDependency("a.B");
+        otherContext.setCallerClass(TestWrittenKey.class);
+        otherContext.setContext(Collections.singletonMap("thisObject", Integer.class));
+        assertNotEquals(WrittenKey.of(dependency), WrittenKey.of(otherContext));
+
+        // a class is different from a string of the same text
+        Dependency stringContext = methodDependency("a.B");
+        stringContext.setCallerClass(TestWrittenKey.class);
+        stringContext.setContext(Collections.singletonMap("thisObject", "class java.lang.String"));
+        assertNotEquals(WrittenKey.of(dependency), WrittenKey.of(stringContext));
+
+        Dependency otherCaller = methodDependency("a.B");
+        otherCaller.setCallerClass(String.class);
+        otherCaller.setContext(Collections.singletonMap("thisObject", String.class));
+        assertNotEquals(WrittenKey.of(dependency), WrittenKey.of(otherCaller));
+    }
+
+    @Test
+    public void testObjectInContextIsNotKept() {
+        Dependency dependency = methodDependency("a.B");
+        dependency.setContext(Collections.singletonMap("thisObject", new Object()));
+        assertNull(WrittenKey.of(dependency));
+    }
+
+    @Test
+    public void testStacktrace() {
+        Dependency dependency = methodDependency("a.B");
+        dependency.setStacktrace(new StackTraceElement[]{new StackTraceElement("a.C", "m", "C.java", 1)});
+        Dependency otherLine = methodDependency("a.B");
+        otherLine.setStacktrace(new StackTraceElement[]{new StackTraceElement("a.C", "m", "C.java", 2)});
+        assertNotEquals(WrittenKey.of(dependency), WrittenKey.of(otherLine));
+        assertEquals(2, WrittenKey.of(dependency).weight());
+    }
+
+    private static Dependency methodDependency(String className) {
+        return new Dependency(null, new DependTarget.Method(className, "m", "()V", DependType.METHOD), null, null);
+    }
+}
@@ -0,0 +1,122 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.common.jdkdependent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSeenCallsites {
+
+    @After
+    public void tearDown() {
+        SeenCallsites.clear();
+    }
+
+    @Test
+    public void testFirstSeen() {
+        Callsite callsite = callsite(String.class, 10);
+        assertTrue(SeenCallsites.firstSeen(callsite));
+        assertFalse(SeenCallsites.firstSeen(callsite));
+        assertFalse(SeenCallsites.firstSeen(callsite(String.class, 10)));
+        assertTrue(SeenCallsites.firstSeen(callsite(String.class, 11)));
+        assertTrue(SeenCallsites.firstSeen(callsite(Integer.class, 10)));
+        assertTrue(SeenCallsites.firstSeen(callsite("java.lang.String", 10)));
+    }
+
+    @Test
+    public void testUnmarkAndClear() {
+        Callsite callsite = callsite(String.class, 10);
+        assertTrue(SeenCallsites.firstSeen(callsite));
+        SeenCallsites.unmark(callsite);
+        assertTrue(SeenCallsites.firstSeen(callsite));
+        assertFalse(SeenCallsites.firstSeen(callsite));
+        SeenCallsites.clear();
+        assertTrue(SeenCallsites.firstSeen(callsite));
+    }
+
+    /**
+     * When full, a new callsite is always recorded but not remembered, the seen ones are still skipped.
+     */
+    @Test
+    public void testFull() throws Exception {
+        int maxSize = maxSize();
+        for (int i = 0; i < maxSize; i++) {
+            assertTrue(SeenCallsites.firstSeen(callsite(String.class, i)));
+        }
+        Callsite extra = callsite(String.class, maxSize);
+        assertTrue(SeenCallsites.firstSeen(extra));
+        assertTrue(SeenCallsites.firstSeen(extra));
+        assertFalse(SeenCallsites.firstSeen(callsite(String.class, 0)));
+    }
+
+    /**
+     * A callsite only keeps names, the classes of different class loaders are still told apart.
+     */
+    @Test
+    public void testClassLoaderOfKey() throws Exception {
+        Callsite appClass = callsite(TestSeenCallsites.class, 1);
+        Class<?> copy = new CopyingClassLoader().load(TestSeenCallsites.class);
+        assertEquals(appClass, callsite(TestSeenCallsites.class, 1));
+        assertNotEquals(appClass, callsite(copy, 1));
+        assertTrue(SeenCallsites.firstSeen(appClass));
+        assertTrue(SeenCallsites.firstSeen(callsite(copy, 1)));
+    }
+
+    private static Callsite callsite(Object key, int position) {
+        return new Callsite(key, TestSeenCallsites.class, "caller", position, "java.lang.Class", "forName");
+    }
+
+    private static int maxSize() throws Exception {
+        Field field = SeenCallsites.class.getDeclaredField("MAX_SIZE");
+        field.setAccessible(true);
+        return field.getInt(null);
+    }
+
+    /**
+     * Define a class again in another class loader.
+     */
+    private static class CopyingClassLoader extends ClassLoader {
+        CopyingClassLoader() {
+            super(TestSeenCallsites.class.getClassLoader());
+        }
+
+        Class<?> load(Class<?> c) throws Exception {
+            String resource = c.getName().replace('.', '/') + ".class";
+            try (InputStream in = getParent().getResourceAsStream(resource)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+                byte[] bytes = out.toByteArray();
+                return defineClass(c.getName(), bytes, 0, bytes.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.jdk11;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The overhead of the agent since it's started, see <code>AgentFacade#getMetrics</code>.
+ */
+@Name("org.eclipse.emt4j.AgentOverhead")
+@Label("EMT4J Agent Overhead")
+@Category("EMT4J")
+@Description("The cost of the EMT4J agent since it's started")
+@Period("10 s")
+@StackTrace(false)
+public class AgentOverheadEvent extends Event {
+
+    @Label("Transformed Classes")
+    long transformCount;
+
+    @Label("Transform Time")
+    @Timespan
+    long transformTime;
+
+    @Label("Transform P99")
+    @Timespan
+    long transformP99;
+
+    @Label("Transform Max")
+    @Timespan
+    long transformMax;
+
+    @Label("Callbacks")
+    long callbackCount;
+
+    @Label("Callback Time")
+    @Timespan
+    long callbackTime;
+
+    @Label("Callback P99")
+    @Timespan
+    long callbackP99;
+
+    @Label("Callback Max")
+    @Timespan
+    long callbackMax;
+
+    @Label("Records")
+    long recordCount;
+
+    @Label("Record Time")
+    @Timespan
+    long recordTime;
+
+    @Label("Record P99")
+    @Timespan
+    long recordP99;
+
+    @Label("Record Max")
+    @Timespan
+    long recordMax;
+
+    @Label("Queue Depth")
+    long queueDepth;
+
+    @Label("Dropped Records")
+    long dropped;
+
+    @Label("Discarded Classes")
+    @Description("Loaded classes whose symbols are not extracted because the queue is full")
+    long symbolDiscarded;
+
+    @Label("Skipped Callbacks")
+    @Description("Calls of seen callsites that are not captured because of the callback budget")
+    long callbackSkipped;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+}
@@ -21,14 +21,14 @@ package org.eclipse.emt4j.agent.jdk11;
 import org.eclipse.emt4j.agent.common.Constant;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerProvider;
+import org.eclipse.emt4j.agent.common.jdkdependent.Callsite;
 import org.eclipse.emt4j.agent.common.jdkdependent.GuessCallerInfo;
-import org.eclipse.emt4j.common.util.MutableInteger;
-import org.eclipse.emt4j.common.util.MutableObject;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.eclipse.emt4j.agent.common.Constant.*;
 import static org.eclipse.emt4j.common.util.JdkClassUtil.isJdkClass;
@@ -40,30 +40,42 @@ import static org.eclipse.emt4j.common.util.JdkClassUtil.isJdkClass;
  */
 public class Java11CallerProvider implements CallerProvider {
 
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    /**
+     * The maximum number of frames kept in a stack trace, 0 means no limit.
+     */
+    private volatile int maxStackDepth;
+
     @Override
     public Optional<GuessCallerInfo> guessCallers(int maxCallerNum) {
-        if (Constant.AGENT_REPORT_WRITE_THREAD.equals(Thread.currentThread().getName())) {
+        if (Constant.isAgentThread(Thread.currentThread())) {
             return Optional.empty();
         }
-        StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
         List<StackTraceElement> stackTrace = new ArrayList<>();
-        MutableInteger foundNum = new MutableInteger();
         Class[] callerClass = new Class[maxCallerNum];
-        walker.forEach((f) -> {
-            if (foundNum.getValue() < maxCallerNum) {
-                if (!f.getClassName().startsWith(AGENT_PACKAGE)
+        //stop walking once all callers are found and the stack trace is full
+        int foundNum = WALKER.walk((frames) -> {
+            int found = 0;
+            Iterator<StackWalker.StackFrame> iter = frames.iterator();
+            while (iter.hasNext() && (found < maxCallerNum || !isFull(stackTrace))) {
+                StackWalker.StackFrame f = iter.next();
+                if (found < maxCallerNum
+                        && !f.getClassName().startsWith(AGENT_PACKAGE)
                         && !f.getClassName().startsWith(COMMON_PACKAGE)
                         && !isJdkClass(f.getClassName())) {
-                    callerClass[foundNum.getValue()] = f.getDeclaringClass();
-                    foundNum.inc();
+                    callerClass[found++] = f.getDeclaringClass();
+                }
+                if (!isFull(stackTrace)) {
+                    stackTrace.add(f.toStackTraceElement());
                 }
             }
-            stackTrace.add(f.toStackTraceElement());
+            return found;
         });
-        if (foundNum.getValue() == 0) {
+        if (foundNum == 0) {
             return Optional.empty();
         } else {
-            GuessCallerInfo guessCallerInfo = new GuessCallerInfo(foundNum.getValue());
+            GuessCallerInfo guessCallerInfo = new GuessCallerInfo(foundNum);
             guessCallerInfo.setCallerClasses(callerClass);
             guessCallerInfo.setStacktrace(stackTrace.toArray(new StackTraceElement[stackTrace.size()]));
             return Optional.of(guessCallerInfo);
@@ -71,40 +83,81 @@ public class Java11CallerProvider implements CallerProvider {
     }
 
     @Override
-    public Optional<Class> getNonJdkCallerByDepth(int callerDepth) {
-        if (Constant.AGENT_REPORT_WRITE_THREAD.equals(Thread.currentThread().getName())) {
+    public Optional<Callsite> getCallsite(int callerDepth, Object key) {
+        if (Constant.isAgentThread(Thread.currentThread())) {
             return Optional.empty();
         }
 
-        StackWalker walker = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
-        MutableInteger counter = new MutableInteger();
-        MutableObject<Class> callerClass = new MutableObject<>();
-        walker.forEach((f) -> {
-            counter.inc();
-            if (counter.getValue() == callerDepth) {
-                callerClass.setValue(f.getDeclaringClass());
+        //only the callee and the caller frames are walked, no stack trace element is created
+        return WALKER.walk((frames) -> {
+            Iterator<StackWalker.StackFrame> iter = frames.skip(callerDepth - 2).limit(2).iterator();
+            if (!iter.hasNext()) {
+                return Optional.empty();
             }
+            StackWalker.StackFrame callee = iter.next();
+            if (!iter.hasNext()) {
+                return Optional.empty();
+            }
+            StackWalker.StackFrame caller = iter.next();
+            if (isJdkClass(caller.getClassName())) {
+                return Optional.empty();
+            }
+            return Optional.of(new Callsite(key, caller.getDeclaringClass(), caller.getMethodName(),
+                    caller.getByteCodeIndex(), callee.getClassName(), callee.getMethodName()));
         });
-        if (callerClass.getValue() == null || isJdkClass(callerClass.getValue().getName())) {
+    }
+
+    @Override
+    public Optional<CallerInfo> captureCallerInfo(int callerDepth, Callsite callsite) {
+        if (Constant.isAgentThread(Thread.currentThread())) {
             return Optional.empty();
         }
-        return Optional.of(callerClass.getValue());
+
+        int maxDepth = maxStackDepth;
+        return WALKER.walk((frames) -> {
+            Stream<StackWalker.StackFrame> needed = frames.skip(callerDepth - 2);
+            if (maxDepth > 0) {
+                //the caller is needed even if only the callee is kept
+                needed = needed.limit(Math.max(2, maxDepth));
+            }
+            Iterator<StackWalker.StackFrame> iter = needed.iterator();
+            if (!iter.hasNext()) {
+                return Optional.empty();
+            }
+            StackWalker.StackFrame callee = iter.next();
+            if (!iter.hasNext()) {
+                return Optional.empty();
+            }
+            StackWalker.StackFrame caller = iter.next();
+            if (isJdkClass(caller.getClassName())) {
+                return Optional.empty();
+            }
+
+            List<StackTraceElement> stackTrace = new ArrayList<>();
+            stackTrace.add(callee.toStackTraceElement());
+            if (!isFull(stackTrace)) {
+                stackTrace.add(caller.toStackTraceElement());
+            }
+            while (iter.hasNext() && !isFull(stackTrace)) {
+                stackTrace.add(iter.next().toStackTraceElement());
+            }
+            CallerInfo callerInfo = new CallerInfo();
+            callerInfo.setCallerClass(caller.getDeclaringClass());
+            callerInfo.setCallerMethod(caller.getMethodName());
+            callerInfo.setCalleeClass(callee.getClassName());
+            callerInfo.setCalleeMethod(callee.getMethodName());
+            callerInfo.setStacktrace(stackTrace.toArray(new StackTraceElement[stackTrace.size()]));
+            callerInfo.setCallsite(callsite);
+            return Optional.of(callerInfo);
+        });
     }
 
     @Override
-    public Optional<CallerInfo> getCallerInfo(Class callerClass, int from) {
-        StackTraceElement[] stacktrace = Thread.currentThread().getStackTrace();
-        for (StackTraceElement st : stacktrace) {
-            if (st.getClassName().equals(callerClass.getName())) {
-                CallerInfo callerInfo = new CallerInfo();
-                callerInfo.setCallerClass(callerClass);
-                callerInfo.setCallerMethod(st.getMethodName());
-                callerInfo.setCalleeClass(stacktrace[from].getClassName());
-                callerInfo.setCalleeMethod(stacktrace[from].getMethodName());
-                callerInfo.setStacktrace(Arrays.copyOfRange(stacktrace, from, stacktrace.length));
-                return Optional.of(callerInfo);
-            }
-        }
-        return Optional.empty();
+    public void setMaxStackDepth(int maxStackDepth) {
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    private boolean isFull(List<StackTraceElement> stackTrace) {
+        return maxStackDepth > 0 && stackTrace.size() >= maxStackDepth;
     }
 }
@@ -0,0 +1,73 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.agent.jdk11;
+
+import jdk.jfr.FlightRecorder;
+import org.eclipse.emt4j.agent.common.AgentFacade;
+import org.eclipse.emt4j.agent.common.jdkdependent.MetricsEventEmitter;
+
+import java.util.Map;
+
+/**
+ * JDK 11 and later emit the agent's overhead as a periodic JFR event, it costs nothing when no recording is running.
+ * The agent of JDK 17 uses it too.
+ */
+public class Java11MetricsEventEmitter implements MetricsEventEmitter {
+
+    /**
+     * The same hook is needed to remove the periodic event.
+     */
+    private final Runnable hook = Java11MetricsEventEmitter::emit;
+
+    @Override
+    public void start() {
+        FlightRecorder.addPeriodicEvent(AgentOverheadEvent.class, hook);
+    }
+
+    @Override
+    public void stop() {
+        FlightRecorder.removePeriodicEvent(hook);
+    }
+
+    private static void emit() {
+        AgentOverheadEvent event = new AgentOverheadEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        Map<String, Long> metrics = AgentFacade.getMetrics();
+        event.transformCount = metrics.get("transform.count");
+        event.transformTime = metrics.get("transform.totalNanos");
+        event.transformP99 = metrics.get("transform.p99Nanos");
+        event.transformMax = metrics.get("transform.maxNanos");
+        event.callbackCount = metrics.get("callback.count");
+        event.callbackTime = metrics.get("callback.totalNanos");
+        event.callbackP99 = metrics.get("callback.p99Nanos");
+        event.callbackMax = metrics.get("callback.maxNanos");
+        event.recordCount = metrics.get("record.count");
+        event.recordTime = metrics.get("record.totalNanos");
+        event.recordP99 = metrics.get("record.p99Nanos");
+        event.recordMax = metrics.get("record.maxNanos");
+        event.queueDepth = metrics.get("queueDepth");
+        event.dropped = metrics.get("dropped");
+        event.symbolDiscarded = metrics.get("symbolDiscarded");
+        event.callbackSkipped = metrics.get("callbackSkipped");
+        event.bytesWritten = metrics.get("bytesWritten");
+        event.commit();
+    }
+}
@@ -39,6 +39,17 @@ import static org.eclipse.emt4j.agent.common.Constant.COMMON_PACKAGE;
  */
 public class MainAgent {
     public static void premain(String args, Instrumentation instrumentation) {
+        start(args, instrumentation, "init");
+    }
+
+    /**
+     * Entry when the agent is attached to a running JVM
+     */
+    public static void agentmain(String args, Instrumentation instrumentation) {
+        start(args, instrumentation, "attach");
+    }
+
+    private static void start(String args, Instrumentation instrumentation, String initMethodName) {
         versionCheck();
         // add agent path to bootstrap so that we can modify jdk class
         String agentPath = null;
@@ -55,9 +66,12 @@ public class MainAgent {
             instrumentation.appendToBootstrapClassLoaderSearch(new JarFile(new File(agentPath)));
             JdkDependConfig jdkDependConfig = new JdkDependConfig(RULE_CLASS,
                     "org.eclipse.emt4j.agent.jdk11.Java11CallerProvider", 11, agentPath);
+            jdkDependConfig.setMetricsEventEmitterClassName("org.eclipse.emt4j.agent.jdk11.Java11MetricsEventEmitter");
             Class<?> agentInit = MainAgent.class.getClassLoader().loadClass(INIT_CLASS);
-            Method initMethod = agentInit.getMethod("init", String.class, Instrumentation.class, JdkDependConfig.class);
-            initMethod.invoke(null, args, instrumentation, jdkDependConfig);
+            Method initMethod = agentInit.getMethod(initMethodName, String.class, Instrumentation.class, JdkDependConfig.class);
+            if (!Boolean.TRUE.equals(initMethod.invoke(null, args, instrumentation, jdkDependConfig))) {
+                return;
+            }
 
             Class[] loadedClasses = instrumentation.getAllLoadedClasses();
             List<Class> toRetransformClass = new ArrayList<>();
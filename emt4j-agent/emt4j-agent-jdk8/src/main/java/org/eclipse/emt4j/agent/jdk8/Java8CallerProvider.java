@@ -21,10 +21,14 @@ package org.eclipse.emt4j.agent.jdk8;
 import org.eclipse.emt4j.agent.common.Constant;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerInfo;
 import org.eclipse.emt4j.agent.common.jdkdependent.CallerProvider;
+import org.eclipse.emt4j.agent.common.jdkdependent.Callsite;
 import org.eclipse.emt4j.agent.common.jdkdependent.GuessCallerInfo;
+import sun.misc.JavaLangAccess;
+import sun.misc.SharedSecrets;
 import sun.reflect.Reflection;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.eclipse.emt4j.agent.common.Constant.*;
@@ -34,25 +38,36 @@ import static org.eclipse.emt4j.common.util.JdkClassUtil.isJdkClass;
  * JDK 8 implementation of CallerProvider
  */
 public class Java8CallerProvider implements CallerProvider {
+    /**
+     * There is no StackWalker in JDK 8, the frames of a throwable are read one by one through
+     * <code>JavaLangAccess</code>, so only the frames needed are turned into <code>StackTraceElement</code>.
+     */
+    private static final JavaLangAccess JLA = SharedSecrets.getJavaLangAccess();
+
+    /**
+     * The maximum number of frames kept in a stack trace, 0 means no limit.
+     */
+    private volatile int maxStackDepth;
+
     @Override
     public Optional<GuessCallerInfo> guessCallers(int maxCallerNum) {
-        if (Constant.AGENT_REPORT_WRITE_THREAD.equals(Thread.currentThread().getName())) {
+        if (Constant.isAgentThread(Thread.currentThread())) {
             return Optional.empty();
         }
 
-        StackTraceElement[] stacktrace = Thread.currentThread().getStackTrace();
+        Throwable throwable = new Throwable();
+        int depth = JLA.getStackTraceDepth(throwable);
+        List<StackTraceElement> stacktrace = new ArrayList<>();
         int foundNum = 0;
         String[] callerClassName = new String[maxCallerNum];
-        for (int i = 0; i < stacktrace.length; i++) {
-            String cn = stacktrace[i].getClassName();
-            if (cn.startsWith(AGENT_PACKAGE) || cn.startsWith(COMMON_PACKAGE) || isJdkClass(cn)) {
-                continue;
-            } else {
-                if (foundNum < maxCallerNum) {
-                    callerClassName[foundNum++] = stacktrace[i].getClassName();
-                } else {
-                    break;
-                }
+        for (int i = 0; i < depth && (foundNum < maxCallerNum || !isFull(stacktrace.size())); i++) {
+            StackTraceElement element = JLA.getStackTraceElement(throwable, i);
+            if (!isFull(stacktrace.size())) {
+                stacktrace.add(element);
+            }
+            String cn = element.getClassName();
+            if (foundNum < maxCallerNum && !cn.startsWith(AGENT_PACKAGE) && !cn.startsWith(COMMON_PACKAGE) && !isJdkClass(cn)) {
+                callerClassName[foundNum++] = cn;
             }
         }
 
@@ -74,7 +89,7 @@ public class Java8CallerProvider implements CallerProvider {
                     }
                 }
             }
-            guessCallerInfo.setStacktrace(stacktrace);
+            guessCallerInfo.setStacktrace(stacktrace.toArray(new StackTraceElement[stacktrace.size()]));
             return Optional.of(guessCallerInfo);
         }
     }
@@ -89,8 +104,8 @@ public class Java8CallerProvider implements CallerProvider {
     }
 
     @Override
-    public Optional<Class> getNonJdkCallerByDepth(int callerDepth) {
-        if (Constant.AGENT_REPORT_WRITE_THREAD.equals(Thread.currentThread().getName())) {
+    public Optional<Callsite> getCallsite(int callerDepth, Object key) {
+        if (Constant.isAgentThread(Thread.currentThread())) {
             return Optional.empty();
         }
 
@@ -98,23 +113,68 @@ public class Java8CallerProvider implements CallerProvider {
         if (callerClass == null || isJdkClass(callerClass.getName())) {
             return Optional.empty();
         }
-        return Optional.of(callerClass);
+
+        //the first frame is this method, the same as the depth 1 of Reflection.getCallerClass
+        Throwable throwable = new Throwable();
+        int depth = JLA.getStackTraceDepth(throwable);
+        int from = callerDepth - 2;
+        //reflection frames are skipped by Reflection.getCallerClass,so find the caller by name
+        for (int i = from + 1; i < depth; i++) {
+            StackTraceElement st = JLA.getStackTraceElement(throwable, i);
+            if (st.getClassName().equals(callerClass.getName())) {
+                StackTraceElement callee = JLA.getStackTraceElement(throwable, from);
+                //there is no bytecode index in StackTraceElement, the line number is the nearest
+                return Optional.of(new Callsite(key, callerClass, st.getMethodName(), st.getLineNumber(),
+                        callee.getClassName(), callee.getMethodName()));
+            }
+        }
+        return Optional.empty();
     }
 
     @Override
-    public Optional<CallerInfo> getCallerInfo(Class callerClass, int from) {
-        StackTraceElement[] stacktrace = Thread.currentThread().getStackTrace();
-        for (StackTraceElement st : stacktrace) {
+    public Optional<CallerInfo> captureCallerInfo(int callerDepth, Callsite callsite) {
+        if (Constant.isAgentThread(Thread.currentThread())) {
+            return Optional.empty();
+        }
+
+        Class callerClass = Reflection.getCallerClass(callerDepth);
+        if (callerClass == null || isJdkClass(callerClass.getName())) {
+            return Optional.empty();
+        }
+
+        //the first frame is this method, the same as the depth 1 of Reflection.getCallerClass
+        Throwable throwable = new Throwable();
+        int depth = JLA.getStackTraceDepth(throwable);
+        int from = callerDepth - 2;
+        //reflection frames are skipped by Reflection.getCallerClass,so find the caller by name
+        for (int i = from + 1; i < depth; i++) {
+            StackTraceElement st = JLA.getStackTraceElement(throwable, i);
             if (st.getClassName().equals(callerClass.getName())) {
+                StackTraceElement callee = JLA.getStackTraceElement(throwable, from);
+                int end = maxStackDepth > 0 ? Math.min(depth, from + maxStackDepth) : depth;
+                StackTraceElement[] stacktrace = new StackTraceElement[end - from];
+                for (int j = 0; j < stacktrace.length; j++) {
+                    stacktrace[j] = from + j == i ? st : j == 0 ? callee : JLA.getStackTraceElement(throwable, from + j);
+                }
                 CallerInfo callerInfo = new CallerInfo();
                 callerInfo.setCallerClass(callerClass);
                 callerInfo.setCallerMethod(st.getMethodName());
-                callerInfo.setCalleeClass(stacktrace[from].getClassName());
-                callerInfo.setCalleeMethod(stacktrace[from].getMethodName());
-                callerInfo.setStacktrace(Arrays.copyOfRange(stacktrace, from, stacktrace.length));
+                callerInfo.setCalleeClass(stacktrace[0].getClassName());
+                callerInfo.setCalleeMethod(stacktrace[0].getMethodName());
+                callerInfo.setStacktrace(stacktrace);
+                callerInfo.setCallsite(callsite);
                 return Optional.of(callerInfo);
             }
         }
         return Optional.empty();
     }
+
+    @Override
+    public void setMaxStackDepth(int maxStackDepth) {
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    private boolean isFull(int size) {
+        return maxStackDepth > 0 && size >= maxStackDepth;
+    }
 }
@@ -40,6 +40,17 @@ import static org.eclipse.emt4j.agent.common.Constant.COMMON_PACKAGE;
  */
 public class MainAgent {
     public static void premain(String args, Instrumentation instrumentation) {
+        start(args, instrumentation, "init");
+    }
+
+    /**
+     * Entry when the agent is attached to a running JVM
+     */
+    public static void agentmain(String args, Instrumentation instrumentation) {
+        start(args, instrumentation, "attach");
+    }
+
+    private static void start(String args, Instrumentation instrumentation, String initMethodName) {
         versionCheck();
         // add agent path to bootstrap so that we can modify jdk class
         String agentPath = null;
@@ -57,8 +68,10 @@ public class MainAgent {
             JdkDependConfig jdkDependConfig = new JdkDependConfig(RULE_CLASS,
                     "org.eclipse.emt4j.agent.jdk8.Java8CallerProvider", 8, agentPath);
             Class<?> agentInit = MainAgent.class.getClassLoader().loadClass(Constant.INIT_CLASS);
-            Method initMethod = agentInit.getMethod("init", new Class[]{String.class, Instrumentation.class, JdkDependConfig.class});
-            initMethod.invoke(null, new Object[]{args, instrumentation, jdkDependConfig});
+            Method initMethod = agentInit.getMethod(initMethodName, new Class[]{String.class, Instrumentation.class, JdkDependConfig.class});
+            if (!Boolean.TRUE.equals(initMethod.invoke(null, new Object[]{args, instrumentation, jdkDependConfig}))) {
+                return;
+            }
 
             Class[] loadedClasses = instrumentation.getAllLoadedClasses();
             List<Class> toRetransformClass = new ArrayList<>();
@@ -18,19 +18,31 @@
  ********************************************************************************/
 package org.eclipse.emt4j.analysis;
 
+import org.eclipse.emt4j.analysis.analyzer.DependencyChecker;
 import org.eclipse.emt4j.analysis.common.util.Progress;
+import org.eclipse.emt4j.analysis.common.util.RecordKey;
 import org.eclipse.emt4j.analysis.source.DependencySource;
 import org.eclipse.emt4j.common.*;
 import org.eclipse.emt4j.common.rule.ExecutableRule;
 import org.eclipse.emt4j.common.rule.InstanceRuleManager;
+import org.eclipse.emt4j.common.rule.MvelExpressionCache;
 import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.eclipse.emt4j.common.staticanalysis.StaticAnalysisEntry;
+import org.eclipse.emt4j.common.staticanalysis.StaticAnalysisPreFilter;
 import org.eclipse.emt4j.common.util.ClassURL;
+import org.eclipse.emt4j.common.util.JarFilePool;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Pipeline abstract the process to
@@ -42,6 +54,9 @@ import java.util.concurrent.ConcurrentSkipListSet;
  * </ul>
  */
 public class AnalysisExecutor {
+    private static final Runnable NOTHING_TO_PUBLISH = () -> {
+    };
+
     private List<DependencySource> sourceList = new ArrayList<>();
     private AnalysisOutputConsumer analysisOutputConsumer;
 
@@ -81,9 +96,12 @@ public class AnalysisExecutor {
                 new String[]{"class", "source"},
                 checkConfig.getFromVersion(), checkConfig.getToVersion(), checkConfig.getPriority(),
                 checkConfig.getEnableRules(), checkConfig.getDisableRules());
+        StaticAnalysisEntry.setBatchSize(checkConfig.getStaticAnalysisBatchSize());
+        JarFilePool.setMaxOpen(checkConfig.getMaxOpenArchives());
         analysisOutputConsumer.onBegin(checkConfig, featureList);
 
-        Set<Integer> alreadyChecked = new ConcurrentSkipListSet<>();
+        DependencyDedupeSet alreadyChecked = new DependencyDedupeSet();
+        ExecutorService workerPool = createWorkerPool();
 
         sourceList.parallelStream().forEach(
                 source -> {
@@ -110,34 +128,9 @@ public class AnalysisExecutor {
                             }
                             return;
                         }
-                        source.parse((d) -> {
-                            try {
-                                int hashCode = d.hashCode();
-                                if (alreadyChecked.contains(hashCode) || !alreadyChecked.add(hashCode)) {
-                                    return;
-                                }
-                                for (ExecutableRule rule : InstanceRuleManager.getRuleInstanceList()) {
-                                    if (rule.shouldAccept(d)) {
-                                        ReportCheckResult checkResult = rule.execute(d);
-                                        if (!checkResult.isPass()) {
-                                            if (checkResult.getPropagated().isEmpty()) {
-                                                analysisOutputConsumer.onNewRecord(d, checkResult, rule, source.getInformation());
-                                            } else {
-                                                for (Dependency newDependency : checkResult.getPropagated()) {
-                                                    analysisOutputConsumer.onNewRecord(newDependency, checkResult, rule, source.getInformation());
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                                if (d.getDependType() == DependType.CODE_SOURCE || d.getDependType() == DependType.VM_OPTION) {
-                                    analysisOutputConsumer.onNewRecord(d, null, null, source.getInformation());
-                                }
-                            } catch (Throwable t) {
-                                System.err.println("Failed to analyze " + source.getFile().getName());
-                                t.printStackTrace();
-                            }
-                        }, null);
+                        SourceChecker sourceChecker = new SourceChecker(source, alreadyChecked, workerPool);
+                        source.parse(sourceChecker, null);
+                        sourceChecker.finish();
                         syncPrint("  Analyze " + source.getFile().getName() + " done");
                     } catch (Throwable t) {
                         System.err.println("Failed to analyze " + source.getFile().getName());
@@ -145,10 +138,174 @@ public class AnalysisExecutor {
                     }
                 }
         );
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+        log(MvelExpressionCache.getStatistics());
+        log(StaticAnalysisPreFilter.getStatistics());
         log("[End]Analysis");
         log("Done!");
     }
 
+    private ExecutorService createWorkerPool() {
+        int scanThreads = checkConfig.getScanThreads();
+        if (scanThreads <= 1) {
+            return null;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(scanThreads, (r) -> {
+            Thread t = new Thread(r, "emt4j-scan-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Check the dependencies of a single source.
+     * The rules are executed in the check phase, and the check results are written to the output consumer
+     * in the publish phase, so the output keeps the same order even if the classes are checked concurrently.
+     * If a check is deferred to the batch static analysis, it and all records after it are held until decided.
+     */
+    private class SourceChecker implements DependencyChecker {
+        private final DependencySource source;
+        private final DependencyDedupeSet alreadyChecked;
+        private final Executor workerPool;
+        private final Deque<DeferredPublish> deferredPublishes = new ArrayDeque<>();
+
+        SourceChecker(DependencySource source, DependencyDedupeSet alreadyChecked, Executor workerPool) {
+            this.source = source;
+            this.alreadyChecked = alreadyChecked;
+            this.workerPool = workerPool;
+        }
+
+        @Override
+        public Runnable check(Dependency d) {
+            RecordKey key = alreadyChecked.keyOf(d);
+            if (alreadyChecked.contains(key)) {
+                return NOTHING_TO_PUBLISH;
+            }
+            List<PendingRecord> records = new ArrayList<>();
+            try {
+                for (ExecutableRule rule : InstanceRuleManager.getCandidateRuleList(d)) {
+                    if (rule.shouldAccept(d)) {
+                        ReportCheckResult checkResult = rule.execute(d);
+                        if (!checkResult.isPass()) {
+                            if (checkResult.getPropagated().isEmpty()) {
+                                records.add(new PendingRecord(d, checkResult, rule));
+                            } else {
+                                for (Dependency newDependency : checkResult.getPropagated()) {
+                                    records.add(new PendingRecord(newDependency, checkResult, rule));
+                                }
+                            }
+                        }
+                    }
+                }
+                if (d.getDependType() == DependType.CODE_SOURCE || d.getDependType() == DependType.VM_OPTION) {
+                    records.add(new PendingRecord(d, null, null));
+                }
+            } catch (Throwable t) {
+                System.err.println("Failed to analyze " + source.getFile().getName());
+                t.printStackTrace();
+            }
+            return () -> publish(key, records);
+        }
+
+        private void publish(RecordKey key, List<PendingRecord> records) {
+            DeferredPublish deferredPublish = new DeferredPublish(key, records);
+            if (deferredPublishes.isEmpty() && deferredPublish.isDecided()) {
+                publishNow(key, records);
+            } else {
+                deferredPublishes.add(deferredPublish);
+                while (!deferredPublishes.isEmpty() && deferredPublishes.peekFirst().isDecided()) {
+                    DeferredPublish decided = deferredPublishes.pollFirst();
+                    publishNow(decided.key, decided.records);
+                }
+            }
+        }
+
+        /**
+         * Analyze the classes still in the batch, then publish all deferred records.
+         */
+        void finish() {
+            if (deferredPublishes.isEmpty()) {
+                return;
+            }
+            StaticAnalysisEntry.flush();
+            while (!deferredPublishes.isEmpty()) {
+                DeferredPublish deferredPublish = deferredPublishes.pollFirst();
+                publishNow(deferredPublish.key, deferredPublish.records);
+            }
+        }
+
+        private void publishNow(RecordKey key, List<PendingRecord> records) {
+            if (!alreadyChecked.add(key)) {
+                return;
+            }
+            try {
+                for (PendingRecord record : records) {
+                    if (record.checkResult != null && record.checkResult.getDeferredFailure() != null
+                            && !isDeferredFailure(record.checkResult.getDeferredFailure())) {
+                        continue;
+                    }
+                    analysisOutputConsumer.onNewRecord(record.dependency, record.checkResult, record.rule, source.getInformation());
+                }
+            } catch (Throwable t) {
+                System.err.println("Failed to analyze " + source.getFile().getName());
+                t.printStackTrace();
+            }
+        }
+
+        /**
+         * A failed static analysis keeps the record as a finding, the same as the analysis without batch.
+         */
+        private boolean isDeferredFailure(Future<Boolean> deferredFailure) throws InterruptedException {
+            try {
+                return deferredFailure.get();
+            } catch (ExecutionException e) {
+                System.err.println("Failed to analyze " + source.getFile().getName());
+                e.getCause().printStackTrace();
+                return true;
+            }
+        }
+
+        @Override
+        public Executor getWorkerPool() {
+            return workerPool;
+        }
+    }
+
+    private static class DeferredPublish {
+        private final RecordKey key;
+        private final List<PendingRecord> records;
+
+        DeferredPublish(RecordKey key, List<PendingRecord> records) {
+            this.key = key;
+            this.records = records;
+        }
+
+        boolean isDecided() {
+            for (PendingRecord record : records) {
+                if (record.checkResult != null && record.checkResult.getDeferredFailure() != null
+                        && !record.checkResult.getDeferredFailure().isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class PendingRecord {
+        private final Dependency dependency;
+        private final ReportCheckResult checkResult;
+        private final ExecutableRule rule;
+
+        PendingRecord(Dependency dependency, ReportCheckResult checkResult, ExecutableRule rule) {
+            this.dependency = dependency;
+            this.checkResult = checkResult;
+            this.rule = rule;
+        }
+    }
+
     private void syncPrint(String msg) {
         synchronized (this) {
             System.out.println(msg);
@@ -29,12 +29,13 @@ import org.eclipse.emt4j.common.CheckConfig;
 import org.eclipse.emt4j.common.Feature;
 import org.eclipse.emt4j.common.ReportConfig;
 import org.eclipse.emt4j.common.SourceInformation;
+import org.eclipse.emt4j.common.fileformat.RecordWriter;
 import org.eclipse.emt4j.common.util.FileUtil;
+import org.eclipse.emt4j.common.util.JarFilePool;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.util.*;
@@ -73,6 +74,9 @@ public class AnalysisMain {
         optionProcessor.addOption(Option.buildParamWithValueOption("-f", StringUtils::isNumeric, (v) -> checkConfig.setFromVersion(Integer.parseInt(v))));
         optionProcessor.addOption(Option.buildParamWithValueOption("-t", StringUtils::isNumeric, (v) -> checkConfig.setToVersion(Integer.parseInt(v))));
         optionProcessor.addOption(Option.buildParamWithValueOption("-priority", null, checkConfig::setPriority));
+        optionProcessor.addOption(Option.buildParamWithValueOption("-scan-threads", (v) -> StringUtils.isNumeric(v) && Integer.parseInt(v) > 0, (v) -> checkConfig.setScanThreads(Integer.parseInt(v))));
+        optionProcessor.addOption(Option.buildParamWithValueOption("-static-analysis-batch", (v) -> StringUtils.isNumeric(v) && Integer.parseInt(v) > 0, (v) -> checkConfig.setStaticAnalysisBatchSize(Integer.parseInt(v))));
+        optionProcessor.addOption(Option.buildParamWithValueOption("-max-open-archives", (v) -> StringUtils.isNumeric(v) && Integer.parseInt(v) > 0, (v) -> checkConfig.setMaxOpenArchives(Integer.parseInt(v))));
         optionProcessor.addOption(Option.buildParamWithValueOption("-enable-rules", null, checkConfig::setEnableRules));
         optionProcessor.addOption(Option.buildParamWithValueOption("-disable-rules", null, checkConfig::setDisableRules));
         optionProcessor.addOption(Option.buildParamWithValueOption("-scenario",
@@ -82,7 +86,7 @@ public class AnalysisMain {
                     featureList.add(Feature.getFeatureByCommandLineText(s.toLowerCase()));
                 }));
         optionProcessor.addOption(Option.buildParamWithValueOption("-p",
-                (v) -> "txt".equalsIgnoreCase(v) || "json".equalsIgnoreCase(v) || "html".equalsIgnoreCase(v), (v) -> reportConfig.setOutputFormat(v.toLowerCase())));
+                (v) -> "txt".equalsIgnoreCase(v) || "json".equalsIgnoreCase(v) || "ndjson".equalsIgnoreCase(v) || "html".equalsIgnoreCase(v), (v) -> reportConfig.setOutputFormat(v.toLowerCase())));
         optionProcessor.addOption(Option.buildParamWithValueOption("-j", (v) -> new File(v).exists()
                 && new File(v).isDirectory(), reportConfig::setTargetJdkHome));
         optionProcessor.addOption(Option.buildParamNoValueOption("-v", null, (v) -> {
@@ -125,7 +129,7 @@ public class AnalysisMain {
         if (analysisExecutor.hasSource()) {
             File tempFile = File.createTempFile(DEFAULT_FILE, ".dat");
             tempFile.deleteOnExit();
-            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(tempFile.toPath()))) {
+            try (RecordWriter out = RecordWriter.create(Files.newOutputStream(tempFile.toPath()))) {
                 analysisExecutor.setAnalysisOutputConsumer(new BinaryFileOutputConsumer(out));
                 analysisExecutor.execute(featureList, progress);
             }
@@ -246,13 +250,16 @@ public class AnalysisMain {
         String osName = System.getProperty("os.name");
         boolean windows = osName != null && osName.toLowerCase().contains("windows");
         String launcher = windows ? "analysis.bat" : "analysis.sh";
-        System.err.println("Usage:" + launcher + " [-f version] [-t version] [-priority p1|p2|p3] [-enable-rules code1,code2] [-disable-rules code1,code2] [-p txt] [-o outputfile] [-j target jdk home] [-e external tool home] [-v] [-features features] <files>");
+        System.err.println("Usage:" + launcher + " [-f version] [-t version] [-priority p1|p2|p3] [-enable-rules code1,code2] [-disable-rules code1,code2] [-scan-threads n] [-static-analysis-batch n] [-max-open-archives n] [-p txt] [-o outputfile] [-j target jdk home] [-e external tool home] [-v] [-features features] <files>");
         System.err.println("-f From which JDK version,default is 8");
         System.err.println("-t To which JDK version,default is 11");
         System.err.println("-priority Only enable rules with priority <= this value. e.g. p1");
         System.err.println("-enable-rules Only enable the given result-codes (comma-separated).");
         System.err.println("-disable-rules Disable the given result-codes (comma-separated).");
-        System.err.println("-p The report format.Can be TXT or JSON or HTML.Default is HTML");
+        System.err.println("-scan-threads How many threads are used to parse and check the classes of a single jar.Default is 1");
+        System.err.println("-static-analysis-batch How many classes are analyzed together in one static analysis session.Default is 1");
+        System.err.println("-max-open-archives How many jar files can be opened at the same time.Default is " + JarFilePool.DEFAULT_MAX_OPEN);
+        System.err.println("-p The report format.Can be TXT or JSON or NDJSON(one finding per line) or HTML.Default is HTML");
         System.err.println("-o Write analysis to output file. Default is " + DEFAULT_FILE);
         System.err.println("-j Target JDK home. Provide target jdk home can help to find more compatible problems.");
         System.err.println("-e The root directory of external tools.");
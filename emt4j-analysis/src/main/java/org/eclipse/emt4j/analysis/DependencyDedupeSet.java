@@ -0,0 +1,130 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.analysis;
+
+import org.eclipse.emt4j.analysis.common.util.RecordKey;
+import org.eclipse.emt4j.common.Dependency;
+
+/**
+ * A concurrent set of the dependencies that already checked.
+ * <p>
+ * A dependency is identified by an exact {@link RecordKey} of its type, target and where it comes from,
+ * so a distinct dependency is never dropped. The key only keeps the IDs of the strings,
+ * so the set doesn't keep the target, caller or stacktrace of each dependency alive.
+ * The bytecode and class symbol are not part of the key, they are determined by the location of the class.
+ * The keys are kept in striped open-addressing tables to avoid a node for each entry.
+ */
+class DependencyDedupeSet {
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final RecordKey.StringTable strings = new RecordKey.StringTable();
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    DependencyDedupeSet() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    RecordKey keyOf(Dependency dependency) {
+        return RecordKey.begin(strings)
+                .add(dependency.getDependType())
+                .add(dependency.getTarget())
+                .add(dependency.getLocationExternalForm())
+                .add(dependency.getTargetFilePath())
+                .add(dependency.getCallerMethod())
+                .addLines(dependency.getLines())
+                .add(dependency.getStacktrace())
+                .finish();
+    }
+
+    boolean contains(RecordKey key) {
+        return segmentFor(key).contains(key);
+    }
+
+    /**
+     * @return true if the key is not in the set before.
+     */
+    boolean add(RecordKey key) {
+        return segmentFor(key).add(key);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(RecordKey key) {
+        return segments[key.hashCode() >>> (32 - SEGMENT_BITS)];
+    }
+
+    private static class Segment {
+        private RecordKey[] table = new RecordKey[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized boolean contains(RecordKey key) {
+            return table[indexOf(table, key)] != null;
+        }
+
+        synchronized boolean add(RecordKey key) {
+            int index = indexOf(table, key);
+            if (table[index] != null) {
+                return false;
+            }
+            table[index] = key;
+            size++;
+            if (size * 3 >= table.length * 2) {
+                resize();
+            }
+            return true;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void resize() {
+            RecordKey[] newTable = new RecordKey[table.length * 2];
+            for (RecordKey key : table) {
+                if (key != null) {
+                    newTable[indexOf(newTable, key)] = key;
+                }
+            }
+            table = newTable;
+        }
+
+        /**
+         * Linear probing, return the slot of the key or the empty slot where it should be put.
+         */
+        private static int indexOf(RecordKey[] table, RecordKey key) {
+            int mask = table.length - 1;
+            int slot = key.hashCode() & mask;
+            while (table[slot] != null && !table[slot].equals(key)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.analyzer;
+
+import org.eclipse.emt4j.common.Dependency;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A dependency consumer that splits its work into two phases:
+ * <ul>
+ *     <li>check: run the rules against the dependency. It must be thread-safe.</li>
+ *     <li>publish: write out the result of the check. It is always called by the thread that reads the source.</li>
+ * </ul>
+ * With the split, the classes of a single jar can be checked concurrently by the worker pool,
+ * while the results are still published in the order the classes were read.
+ */
+public interface DependencyChecker extends Consumer<Dependency> {
+
+    /**
+     * Check the dependency, then return the action that publishes the result.
+     *
+     * @param dependency
+     * @return
+     */
+    Runnable check(Dependency dependency);
+
+    /**
+     * The pool used to check classes of a single jar concurrently.
+     *
+     * @return null means the classes are checked one by one by the reading thread.
+     */
+    Executor getWorkerPool();
+
+    @Override
+    default void accept(Dependency dependency) {
+        check(dependency).run();
+    }
+}
@@ -19,26 +19,30 @@
 package org.eclipse.emt4j.analysis.analyzer;
 
 import org.apache.commons.io.IOUtils;
-import org.eclipse.emt4j.analysis.common.util.ZipUtil;
 import org.eclipse.emt4j.common.DependTarget;
 import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.util.JarFilePool;
 
-import java.io.File;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URL;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * Analysis all classes in a given jar.
@@ -49,95 +53,103 @@ class JarAnalyzer extends ClassAnalyzer {
     public static final String SEPARATOR = "!/";
 
     public static void analyze(Path jarFilePath, Consumer<Dependency> consumer) throws IOException {
-        JarFile jarFile = new JarFile(jarFilePath.toFile());
-        Enumeration<JarEntry> entries = jarFile.entries();
-        boolean fatJar = false;
-        while (entries.hasMoreElements()) {
-            JarEntry jarEntry = entries.nextElement();
-            if (jarEntry.getName().endsWith(CLASS)) {
-                try (InputStream input = jarFile.getInputStream(jarEntry)) {
-                    byte[] classFileContent = IOUtils.toByteArray(input);
-                    processClass(classFileContent, new URL(jarFilePath.toUri().toURL() + SEPARATOR + jarEntry.getName()), jarFilePath.toFile().getAbsolutePath(), consumer, toClassName(jarEntry.getName()));
-                } catch (Exception e) {
-                    // we don't want an error interrupt the analysis process
-                    e.printStackTrace();
-                }
-            } else if (jarEntry.getName().endsWith(JAR)) {
-                fatJar = true;
-            }
-        }
-        consumer.accept(new Dependency(null, new DependTarget.Location(jarFilePath.toUri().toURL()), null, jarFilePath.toFile().getAbsolutePath()));
-
-        //if this jar is a fat jar.Unzip to temporary files,scan each jars recursively.
-        if (fatJar) {
-            File tmp = Files.createTempDirectory("emt4j-unzip").toFile();
+        try (JarFile jarFile = JarFilePool.open(jarFilePath.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            List<JarEntry> nestedJars = new ArrayList<>();
+            OrderedClassScanner scanner = new OrderedClassScanner(consumer);
             try {
-                ZipUtil.unzipTo(jarFilePath, tmp.toPath());
-                Path unzipPath = tmp.toPath();
-
-                try (Stream<Path> pathStream = Files.walk(unzipPath)) {
-                    List<Path> subJars = pathStream.filter((path -> path.getFileName().toString().endsWith(JAR))).collect(Collectors.toList());
-                    for (Path subJar : subJars) {
-                        analyze(jarFilePath, unzipPath, subJar, consumer);
+                while (entries.hasMoreElements()) {
+                    JarEntry jarEntry = entries.nextElement();
+                    if (jarEntry.getName().endsWith(CLASS)) {
+                        try (InputStream input = jarFile.getInputStream(jarEntry)) {
+                            byte[] classFileContent = IOUtils.toByteArray(input);
+                            scanner.scan(jarEntry.getName(), classFileContent, new URL(jarFilePath.toUri().toURL() + SEPARATOR + jarEntry.getName()), jarFilePath.toFile().getAbsolutePath(), toClassName(jarEntry.getName()));
+                        } catch (InterruptedIOException e) {
+                            throw e;
+                        } catch (Exception e) {
+                            // we don't want an error interrupt the analysis process
+                            e.printStackTrace();
+                        }
+                    } else if (jarEntry.getName().endsWith(JAR)) {
+                        nestedJars.add(jarEntry);
                     }
                 }
             } finally {
-                deleteFiles(tmp);
+                scanner.finish();
+            }
+            consumer.accept(new Dependency(null, new DependTarget.Location(jarFilePath.toUri().toURL()), null, jarFilePath.toFile().getAbsolutePath()));
+
+            //if this jar is a fat jar, read each nested jar from the stream of its entry,
+            //so the nested jars are scanned without unzipping the fat jar to the file system.
+            for (JarEntry nestedJar : nestedJars) {
+                analyzeNested(jarFilePath, jarFile, nestedJar, consumer);
             }
         }
     }
 
-    private static void analyze(Path parentJar, Path unzipTempDir, Path subJar, Consumer<Dependency> consumer) throws IOException {
-        Path relativePath = unzipTempDir.relativize(subJar);
-        URL location = new URL(parentJar.toUri().toURL().toExternalForm() + SEPARATOR + relativePath);
-        String targetFilePath = parentJar.toFile().getAbsolutePath() + SEPARATOR + relativePath;
+    private static void analyzeNested(Path parentJar, JarFile jarFile, JarEntry nestedJar, Consumer<Dependency> consumer) throws IOException {
+        String nestedJarName = nestedJar.getName();
+        URL location = new URL(parentJar.toUri().toURL().toExternalForm() + SEPARATOR + nestedJarName);
+        String targetFilePath = parentJar.toFile().getAbsolutePath() + SEPARATOR + nestedJarName;
 
-        try (JarFile jarFile = new JarFile(subJar.toFile())) {
-            Enumeration<JarEntry> entries = jarFile.entries();
-            while (entries.hasMoreElements()) {
-                JarEntry jarEntry = entries.nextElement();
-                if (jarEntry.getName().endsWith(CLASS)) {
-                    try (InputStream input = jarFile.getInputStream(jarEntry)) {
-                        byte[] classFileContent = IOUtils.toByteArray(input);
-                        processClass(classFileContent, new URL(location + SEPARATOR + jarEntry.getName()), targetFilePath, consumer, toClassName(jarEntry.getName()));
-                    } catch (Exception e) {
-                        // we don't want an error interrupt the analysis process
-                        System.err.println("Failed to analyze " + jarEntry.getName());
-                        e.printStackTrace();
+        OrderedClassScanner scanner = new OrderedClassScanner(consumer);
+        Set<String> scanned = new HashSet<>();
+        try {
+            try (InputStream input = jarFile.getInputStream(nestedJar);
+                 ZipInputStream nestedJarInput = new ZipInputStream(new BufferedInputStream(input))) {
+                ZipEntry entry;
+                while ((entry = nestedJarInput.getNextEntry()) != null) {
+                    if (!entry.isDirectory() && entry.getName().endsWith(CLASS) && scanned.add(entry.getName())) {
+                        scanNested(scanner, entry.getName(), nestedJarInput, location, targetFilePath);
                     }
                 }
+            } catch (ZipException e) {
+                //a STORED entry with a data descriptor cannot be read from a stream, because its size is unknown until
+                //its data is read, some shading tools write such entries. The nested jar is extracted to a temp file then.
+                analyzeExtracted(jarFile, nestedJar, scanner, scanned, location, targetFilePath);
             }
+        } finally {
+            scanner.finish();
         }
         consumer.accept(new Dependency(null, new DependTarget.Location(location), null, targetFilePath));
     }
 
-    private static void deleteFiles(File f) {
-        if (f.exists()) {
-            if (f.isFile()) {
-                try {
-                    Files.delete(f.toPath());
-                } catch (IOException e) {
-                    throw new Error("Clean up temporary file : " + f.getName() + " failed!", e);
-                }
-            } else if (f.isDirectory()) {
-                try {
-                    Files.walkFileTree(f.toPath(), new SimpleFileVisitor<Path>() {
-                        @Override
-                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                            Files.delete(file);
-                            return FileVisitResult.CONTINUE;
-                        }
-
-                        @Override
-                        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                            Files.delete(dir);
-                            return FileVisitResult.CONTINUE;
+    /**
+     * Scan the classes of the nested jar that not scanned yet by reading it as a zip file.
+     */
+    private static void analyzeExtracted(JarFile jarFile, JarEntry nestedJar, OrderedClassScanner scanner, Set<String> scanned,
+                                         URL location, String targetFilePath) throws IOException {
+        Path extracted = Files.createTempFile("emt4j-nested", JAR);
+        try {
+            try (InputStream input = jarFile.getInputStream(nestedJar)) {
+                Files.copy(input, extracted, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (ZipFile nestedZip = new ZipFile(extracted.toFile())) {
+                Enumeration<? extends ZipEntry> entries = nestedZip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(CLASS) && scanned.add(entry.getName())) {
+                        try (InputStream input = nestedZip.getInputStream(entry)) {
+                            scanNested(scanner, entry.getName(), input, location, targetFilePath);
                         }
-                    });
-                } catch (IOException e) {
-                    throw new Error("Clean up temporary directory: " + f.getName() + " failed!", e);
+                    }
                 }
             }
+        } finally {
+            Files.deleteIfExists(extracted);
+        }
+    }
+
+    private static void scanNested(OrderedClassScanner scanner, String entryName, InputStream input, URL location, String targetFilePath) throws IOException {
+        try {
+            byte[] classFileContent = IOUtils.toByteArray(input);
+            scanner.scan(entryName, classFileContent, new URL(location + SEPARATOR + entryName), targetFilePath, toClassName(entryName));
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (Exception e) {
+            // we don't want an error interrupt the analysis process
+            System.err.println("Failed to analyze " + entryName);
+            e.printStackTrace();
         }
     }
 }
@@ -0,0 +1,113 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.analyzer;
+
+import org.eclipse.emt4j.common.Dependency;
+
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Process the classes that read from a single jar.
+ * If the consumer is a {@link DependencyChecker} with a worker pool, the parsing and rule checking of each class
+ * are dispatched to the pool, and the results are published by the reading thread in the order of the classes.
+ * Otherwise, each class is processed immediately by the reading thread.
+ */
+class OrderedClassScanner {
+    /**
+     * How many classes can be dispatched but not published yet.
+     * It bounds the memory held by the bytecode and the results waiting to be published.
+     */
+    private static final int MAX_IN_FLIGHT = 256;
+
+    private final Consumer<Dependency> consumer;
+    private final DependencyChecker checker;
+    private final Executor workerPool;
+    private final Deque<PendingClass> inFlight = new ArrayDeque<>();
+
+    OrderedClassScanner(Consumer<Dependency> consumer) {
+        this.consumer = consumer;
+        if (consumer instanceof DependencyChecker && ((DependencyChecker) consumer).getWorkerPool() != null) {
+            this.checker = (DependencyChecker) consumer;
+            this.workerPool = checker.getWorkerPool();
+        } else {
+            this.checker = null;
+            this.workerPool = null;
+        }
+    }
+
+    void scan(String entryName, byte[] classFileContent, URL location, String targetFilePath, String className) throws InterruptedIOException {
+        if (workerPool == null) {
+            ClassAnalyzer.processClass(classFileContent, location, targetFilePath, consumer, className);
+            return;
+        }
+        CompletableFuture<List<Runnable>> future = CompletableFuture.supplyAsync(() -> {
+            List<Runnable> publishers = new ArrayList<>();
+            ClassAnalyzer.processClass(classFileContent, location, targetFilePath, (d) -> publishers.add(checker.check(d)), className);
+            return publishers;
+        }, workerPool);
+        inFlight.addLast(new PendingClass(entryName, future));
+        while (inFlight.size() >= MAX_IN_FLIGHT) {
+            publishFirst();
+        }
+    }
+
+    /**
+     * Wait for all dispatched classes, then publish their results.
+     */
+    void finish() throws InterruptedIOException {
+        while (!inFlight.isEmpty()) {
+            publishFirst();
+        }
+    }
+
+    private void publishFirst() throws InterruptedIOException {
+        PendingClass pending = inFlight.removeFirst();
+        try {
+            for (Runnable publisher : pending.future.get()) {
+                publisher.run();
+            }
+        } catch (ExecutionException e) {
+            // we don't want an error interrupt the analysis process
+            System.err.println("Failed to analyze " + pending.entryName);
+            e.getCause().printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted when waiting for the analysis of " + pending.entryName);
+        }
+    }
+
+    private static class PendingClass {
+        private final String entryName;
+        private final CompletableFuture<List<Runnable>> future;
+
+        private PendingClass(String entryName, CompletableFuture<List<Runnable>> future) {
+            this.entryName = entryName;
+            this.future = future;
+        }
+    }
+}
@@ -42,6 +42,12 @@ public class HtmlRendererWithAutofixReport extends HtmlRender {
         this.checkAreFixed = checkAreFixed;
     }
 
+    @Override
+    protected boolean isStreaming() {
+        // The fixed information is injected into the whole context.
+        return false;
+    }
+
     @Override
     protected VelocityContext prepareVelocityContext(Map<Feature, List<CheckResultContext>> resultMap) {
         VelocityContext context = super.prepareVelocityContext(resultMap);
@@ -23,6 +23,7 @@ import org.eclipse.emt4j.common.fileformat.VariableHeader;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Define interface that how to get the body record and header
@@ -30,5 +31,13 @@ import java.util.List;
 public interface ReportInputProvider {
     List<BodyRecord> getRecords() throws IOException, ClassNotFoundException;
 
+    /**
+     * Visit the records one by one. A provider that reads records from files should override it,
+     * so the records need not be held in memory all together.
+     */
+    default void forEachRecord(Consumer<BodyRecord> action) throws IOException, ClassNotFoundException {
+        getRecords().forEach(action);
+    }
+
     VariableHeader getHeader() throws IOException, ClassNotFoundException;
 }
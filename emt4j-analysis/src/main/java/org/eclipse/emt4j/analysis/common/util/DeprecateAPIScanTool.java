@@ -3,6 +3,7 @@ package org.eclipse.emt4j.analysis.common.util;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.util.JarFilePool;
 import org.objectweb.asm.*;
 
 import java.io.File;
@@ -60,17 +61,18 @@ public class DeprecateAPIScanTool {
     }
 
     public static void analyzeJar(Path jarFilePath, Consumer<byte[]> consumer) throws IOException {
-        JarFile jarFile = new JarFile(jarFilePath.toFile());
-        Enumeration<JarEntry> entries = jarFile.entries();
-        while (entries.hasMoreElements()) {
-            JarEntry jarEntry = entries.nextElement();
-            if (jarEntry.getName().endsWith(".class")) {
-                try (InputStream input = jarFile.getInputStream(jarEntry)) {
-                    byte[] classFileContent = IOUtils.toByteArray(input);
-                    consumer.accept(classFileContent);
-                } catch (Exception e) {
-                    // we don't want an error interrupt the analysis process
-                    e.printStackTrace();
+        try (JarFile jarFile = JarFilePool.open(jarFilePath.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry jarEntry = entries.nextElement();
+                if (jarEntry.getName().endsWith(".class")) {
+                    try (InputStream input = jarFile.getInputStream(jarEntry)) {
+                        byte[] classFileContent = IOUtils.toByteArray(input);
+                        consumer.accept(classFileContent);
+                    } catch (Exception e) {
+                        // we don't want an error interrupt the analysis process
+                        e.printStackTrace();
+                    }
                 }
             }
         }
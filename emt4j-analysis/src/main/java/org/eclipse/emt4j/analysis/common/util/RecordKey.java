@@ -0,0 +1,176 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.common.util;
+
+import org.eclipse.emt4j.common.DependTarget;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An exact key of the fields that identify a record.
+ * Each string is replaced by its ID in a {@link StringTable}, so a key only keeps an array of ints,
+ * and the strings shared by many records, such as the class names and the locations, are kept once.
+ * Two keys are equal only if all their fields are equal.
+ */
+public final class RecordKey {
+    private final int[] values;
+    private final int hash;
+
+    private RecordKey(int[] values) {
+        this.values = values;
+        // spread the bits, so the high bits can select a segment of a table
+        this.hash = Arrays.hashCode(values) * 0x9E3779B9;
+    }
+
+    /**
+     * @param strings the table of the string IDs, the keys compared with each other must use the same table.
+     * @return the builder of the current thread, reset for a new key.
+     */
+    public static Builder begin(StringTable strings) {
+        Builder builder = Builder.BUILDER.get();
+        builder.strings = strings;
+        builder.size = 0;
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RecordKey that = (RecordKey) o;
+        return hash == that.hash && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Give each distinct string an ID, it's thread-safe.
+     */
+    public static final class StringTable {
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private final AtomicInteger nextId = new AtomicInteger();
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.computeIfAbsent(value, (v) -> nextId.getAndIncrement());
+            }
+            return id;
+        }
+
+        public int size() {
+            return ids.size();
+        }
+    }
+
+    /**
+     * Arrays and lists are prefixed by their length, and null is different from an empty string or array,
+     * so different fields never give the same sequence of ints.
+     * A builder is reused by the calls of {@link #begin(StringTable)} on the same thread, it's not thread-safe.
+     */
+    public static final class Builder {
+        private static final ThreadLocal<Builder> BUILDER = ThreadLocal.withInitial(Builder::new);
+
+        private StringTable strings;
+        private int[] buffer = new int[32];
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(String value) {
+            return add(value == null ? -1 : strings.idOf(value));
+        }
+
+        public Builder add(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = value;
+            return this;
+        }
+
+        public Builder add(boolean value) {
+            return add(value ? 1 : 0);
+        }
+
+        public Builder add(Enum<?> value) {
+            return add(value == null ? -1 : value.ordinal());
+        }
+
+        public Builder add(DependTarget target) {
+            if (target == null) {
+                return add((String) null);
+            }
+            add(target.getClass().getName());
+            add(target.type());
+            if (target instanceof DependTarget.Method) {
+                DependTarget.Method method = target.asMethod();
+                return add(method.getClassName()).add(method.getMethodName()).add(method.getDesc());
+            }
+            return add(target.desc());
+        }
+
+        public Builder add(StackTraceElement[] stacktrace) {
+            if (stacktrace == null) {
+                return add(-1);
+            }
+            add(stacktrace.length);
+            for (StackTraceElement element : stacktrace) {
+                add(element.getClassName()).add(element.getMethodName()).add(element.getFileName()).add(element.getLineNumber());
+            }
+            return this;
+        }
+
+        public Builder add(String[] values) {
+            if (values == null) {
+                return add(-1);
+            }
+            add(values.length);
+            for (String value : values) {
+                add(value);
+            }
+            return this;
+        }
+
+        public Builder addLines(List<Integer> lines) {
+            if (lines == null) {
+                return add(-1);
+            }
+            add(lines.size());
+            for (Integer line : lines) {
+                add(line != null);
+                if (line != null) {
+                    add(line.intValue());
+                }
+            }
+            return this;
+        }
+
+        public RecordKey finish() {
+            return new RecordKey(Arrays.copyOf(buffer, size));
+        }
+    }
+}
@@ -25,34 +25,27 @@ import org.eclipse.emt4j.common.Feature;
 import org.eclipse.emt4j.common.rule.ExecutableRule;
 import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
 import org.eclipse.emt4j.common.fileformat.BodyRecord;
-import org.eclipse.emt4j.common.fileformat.FixedHeader;
+import org.eclipse.emt4j.common.fileformat.RecordWriter;
 import org.eclipse.emt4j.common.fileformat.VariableHeader;
 
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class BinaryFileOutputConsumer implements AnalysisOutputConsumer {
-    private ObjectOutputStream out;
+    private RecordWriter out;
 
-    public BinaryFileOutputConsumer(ObjectOutputStream out) {
+    /**
+     * @param out the writer is closed by the caller after the analysis.
+     */
+    public BinaryFileOutputConsumer(RecordWriter out) {
         this.out = out;
     }
 
     @Override
     public void onBegin(CheckConfig checkConfig, List<Feature> featureList) throws IOException {
-        out.writeObject(getFixHeader());
-        out.writeObject(getVariableHeader(checkConfig, featureList));
-        out.flush();
-    }
-
-    private FixedHeader getFixHeader() {
-        FixedHeader fh = new FixedHeader();
-        fh.setMagic(FixedHeader.MAGIC);
-        fh.setVersion(FixedHeader.VERSION);
-        return fh;
+        out.writeHeader(getVariableHeader(checkConfig, featureList));
     }
 
     private VariableHeader getVariableHeader(CheckConfig checkConfig, List<Feature> featureList) {
@@ -72,7 +65,6 @@ public class BinaryFileOutputConsumer implements AnalysisOutputConsumer {
         if (rule != null) {
             br.setFeature(rule.getConfRules().getFeature());
         }
-        out.writeObject(br);
-        out.flush();
+        out.write(br);
     }
 }
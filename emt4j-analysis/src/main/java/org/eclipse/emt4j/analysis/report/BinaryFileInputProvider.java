@@ -21,16 +21,34 @@ package org.eclipse.emt4j.analysis.report;
 import org.eclipse.emt4j.analysis.common.ReportInputProvider;
 import org.eclipse.emt4j.common.JdkMigrationException;
 import org.eclipse.emt4j.common.fileformat.BodyRecord;
-import org.eclipse.emt4j.common.fileformat.FixedHeader;
+import org.eclipse.emt4j.common.fileformat.IndexedRecordFile;
+import org.eclipse.emt4j.common.fileformat.RecordReader;
 import org.eclipse.emt4j.common.fileformat.VariableHeader;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
+/**
+ * Read the records from the files that written by analysis or agent.
+ * The records are streamed by {@link #forEachRecord(Consumer)}, the files of the compact format are memory-mapped
+ * and indexed by {@link IndexedRecordFile}, so even huge files need not be read into the heap.
+ * When there are several files, such as the outputs of the agent running on many instances of a service,
+ * the records of the same finding are merged with the number of occurrences by {@link RecordMerger}:
+ * the files are read concurrently to count the findings, then read again in order to stream the first occurrences,
+ * so only a small fixed-size entry of each distinct finding is held in memory, not the records.
+ * Only {@link #getRecords()} holds all records in memory.
+ */
 public class BinaryFileInputProvider implements ReportInputProvider {
     private VariableHeader vh;
-    private List<BodyRecord> recordList = new ArrayList<>();
+    private List<BodyRecord> recordList;
     private final List<File> files;
     private volatile boolean init = false;
 
@@ -39,17 +57,122 @@ public class BinaryFileInputProvider implements ReportInputProvider {
     }
 
     @Override
-    public List<BodyRecord> getRecords() throws IOException, ClassNotFoundException {
-        init();
+    public synchronized List<BodyRecord> getRecords() throws IOException, ClassNotFoundException {
+        if (recordList == null) {
+            List<BodyRecord> records = new ArrayList<>();
+            forEachRecord(records::add);
+            recordList = records;
+        }
         return recordList;
     }
 
+    @Override
+    public void forEachRecord(Consumer<BodyRecord> action) throws IOException, ClassNotFoundException {
+        init();
+        if (files.size() == 1) {
+            readFile(files.get(0), true, (br, position) -> action.accept(br));
+        } else {
+            merge(action);
+        }
+    }
+
+    private void merge(Consumer<BodyRecord> action) throws IOException, ClassNotFoundException {
+        RecordMerger merger = new RecordMerger();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()), (r) -> {
+            Thread t = new Thread(r, "emt4j-merge-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                int file = i;
+                futures.add(executor.submit(() -> {
+                    readFile(files.get(file), true, (br, position) -> merger.add(file, position, br));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof ClassNotFoundException) {
+                throw (ClassNotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading " + files);
+        } finally {
+            executor.shutdownNow();
+        }
+        RecordMerger.FirstOccurrences[] perFile = merger.firstOccurrences(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            RecordMerger.FirstOccurrences firstOccurrences = perFile[i];
+            if (firstOccurrences.isEmpty()) {
+                continue;
+            }
+            // the file is read the second time, it has been warned if incomplete.
+            readFile(files.get(i), false, (br, position) -> {
+                int occurrences = firstOccurrences.occurrencesAt(position);
+                if (occurrences > 0) {
+                    br.setOccurrences(occurrences);
+                    action.accept(br);
+                }
+            });
+        }
+    }
+
+    /**
+     * Read the records of a file, the action accepts a record and its position in the file.
+     */
+    private static void readFile(File inputFile, boolean warn, ObjIntConsumer<BodyRecord> action) throws IOException, ClassNotFoundException {
+        int position = 0;
+        if (IndexedRecordFile.isIndexable(inputFile)) {
+            try (IndexedRecordFile indexed = openIndexed(inputFile)) {
+                IndexedRecordFile.Cursor cursor = indexed.cursor();
+                BodyRecord br;
+                while ((br = cursor.read()) != null) {
+                    action.accept(br, position++);
+                }
+                if (warn && !indexed.isComplete()) {
+                    warnIncomplete(inputFile, position);
+                }
+            }
+        } else {
+            try (RecordReader reader = open(inputFile)) {
+                BodyRecord br;
+                while ((br = reader.read()) != null) {
+                    action.accept(br, position++);
+                }
+                if (warn && !reader.isComplete()) {
+                    warnIncomplete(inputFile, position);
+                }
+            }
+        }
+    }
+
+    /**
+     * The writer was not closed normally, e.g. the agent was killed with the JVM, so the records after the last flush are lost.
+     */
+    private static void warnIncomplete(File inputFile, int records) {
+        System.err.println("Warning: " + inputFile + " is incomplete or corrupted, only " + records + " records are read.");
+    }
+
     void init() throws IOException, ClassNotFoundException {
         if (!init) {
             synchronized (BinaryFileInputProvider.class) {
                 if (!init) {
                     try {
-                        readTmpFile(files);
+                        readHeaders(files);
                     } finally {
                         init = true;
                     }
@@ -64,32 +187,39 @@ public class BinaryFileInputProvider implements ReportInputProvider {
         return this.vh;
     }
 
-    private void readTmpFile(List<File> files) throws IOException, ClassNotFoundException {
+    private void readHeaders(List<File> files) throws IOException, ClassNotFoundException {
         for (int i = 0; i < files.size(); i++) {
             File inputFile = files.get(i);
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(inputFile))) {
-                FixedHeader fh = (FixedHeader) ois.readObject();
-                if (fh.getMagic() != FixedHeader.MAGIC || fh.getVersion() != FixedHeader.VERSION) {
-                    throw new JdkMigrationException("Not a valid file that you provided " + inputFile + ",it should generate by analysis or agent!");
-                }
-                VariableHeader vh = (VariableHeader) ois.readObject();
+            try (RecordReader reader = open(inputFile)) {
+                VariableHeader vh = reader.getVariableHeader();
                 if (this.vh != null) {
                     checkHeader(this.vh, vh, files.get(0), files.get(i));
                 } else {
                     this.vh = vh;
                 }
-
-                try {
-                    BodyRecord br = (BodyRecord) ois.readObject();
-                    while (br != null) {
-                        recordList.add(br);
-                        br = (BodyRecord) ois.readObject();
-                    }
-                } catch (EOFException e) {
-                }
             }
         }
+    }
 
+    private static IndexedRecordFile openIndexed(File inputFile) throws IOException {
+        try {
+            return IndexedRecordFile.open(inputFile);
+        } catch (StreamCorruptedException | EOFException e) {
+            throw new JdkMigrationException("Not a valid file that you provided " + inputFile + ",it should generate by analysis or agent!");
+        }
+    }
+
+    private static RecordReader open(File inputFile) throws IOException, ClassNotFoundException {
+        InputStream in = new FileInputStream(inputFile);
+        try {
+            return RecordReader.open(in);
+        } catch (StreamCorruptedException | EOFException e) {
+            in.close();
+            throw new JdkMigrationException("Not a valid file that you provided " + inputFile + ",it should generate by analysis or agent!");
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
     }
 
     private void checkHeader(VariableHeader a, VariableHeader b, File afile, File bfile) {
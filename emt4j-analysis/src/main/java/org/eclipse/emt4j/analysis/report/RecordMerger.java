@@ -0,0 +1,169 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.report;
+
+import org.eclipse.emt4j.analysis.common.util.RecordKey;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.SourceInformation;
+import org.eclipse.emt4j.common.fileformat.BodyRecord;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Merge the records that read from several input files, the files can be read concurrently.
+ * Two records describe the same finding if they have the same feature, the same dependency and the same check result.
+ * <p>
+ * The merge takes two passes. The first pass {@link #add(int, int, BodyRecord)} counts the occurrences of each finding
+ * and remembers where it first occurs, then the second pass reads the files again in order and keeps only the first occurrences,
+ * see {@link #firstOccurrences(int)}. So the records are never held in memory, only an exact {@link RecordKey},
+ * the position of the first occurrence and the number of occurrences of each distinct finding.
+ * The key keeps the IDs of the strings instead of the strings, and the strings shared by the findings are kept once.
+ */
+class RecordMerger {
+    private final RecordKey.StringTable strings = new RecordKey.StringTable();
+    private final ConcurrentHashMap<RecordKey, MergedRecord> merged = new ConcurrentHashMap<>();
+
+    /**
+     * @param file     the index of the input file that the record comes from.
+     * @param position the position of the record in the input file.
+     */
+    void add(int file, int position, BodyRecord record) {
+        merged.compute(keyOf(record), (k, m) -> {
+            if (m == null) {
+                return new MergedRecord(file, position, record.getOccurrences());
+            }
+            m.occurrences += record.getOccurrences();
+            // Keep the first one in the order of input files, so the result doesn't depend on which file is read faster.
+            if (file < m.file || (file == m.file && position < m.position)) {
+                m.file = file;
+                m.position = position;
+            }
+            return m;
+        });
+    }
+
+    int size() {
+        return merged.size();
+    }
+
+    /**
+     * Call it after all records are added.
+     *
+     * @return the first occurrences of the findings in each file.
+     */
+    FirstOccurrences[] firstOccurrences(int fileCount) {
+        List<List<MergedRecord>> perFile = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            perFile.add(new ArrayList<>());
+        }
+        for (MergedRecord m : merged.values()) {
+            perFile.get(m.file).add(m);
+        }
+        FirstOccurrences[] result = new FirstOccurrences[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            List<MergedRecord> list = perFile.get(i);
+            list.sort((a, b) -> Integer.compare(a.position, b.position));
+            int[] positions = new int[list.size()];
+            int[] occurrences = new int[list.size()];
+            for (int j = 0; j < positions.length; j++) {
+                positions[j] = list.get(j).position;
+                occurrences[j] = list.get(j).occurrences;
+            }
+            result[i] = new FirstOccurrences(positions, occurrences);
+        }
+        return result;
+    }
+
+    /**
+     * The positions of a file where a finding first occurs, the file must be read again in order.
+     */
+    static class FirstOccurrences {
+        private final int[] positions;
+        private final int[] occurrences;
+        private int next;
+
+        FirstOccurrences(int[] positions, int[] occurrences) {
+            this.positions = positions;
+            this.occurrences = occurrences;
+        }
+
+        /**
+         * @param position the position of the record that read, it must be larger than the last one.
+         * @return the number of occurrences of the finding if it first occurs at the position, or 0.
+         */
+        int occurrencesAt(int position) {
+            while (next < positions.length && positions[next] < position) {
+                next++;
+            }
+            return next < positions.length && positions[next] == position ? occurrences[next] : 0;
+        }
+
+        boolean isEmpty() {
+            return positions.length == 0;
+        }
+    }
+
+    private static class MergedRecord {
+        private int file;
+        private int position;
+        private int occurrences;
+
+        MergedRecord(int file, int position, int occurrences) {
+            this.file = file;
+            this.position = position;
+            this.occurrences = occurrences;
+        }
+    }
+
+    /**
+     * Only the fields that are written into the file take part, the other fields of the dependency are always null when read.
+     */
+    private RecordKey keyOf(BodyRecord record) {
+        RecordKey.Builder key = RecordKey.begin(strings).add(record.getFeature());
+        Dependency dependency = record.getDependency();
+        key.add(dependency != null);
+        if (dependency != null) {
+            key.add(dependency.getLocationExternalForm())
+                    .add(dependency.getTarget())
+                    .add(dependency.getTargetFilePath())
+                    .add(dependency.getCallerMethod())
+                    .add(dependency.getStacktrace())
+                    .addLines(dependency.getLines());
+            SourceInformation sourceInformation = dependency.getSourceInformation();
+            key.add(sourceInformation != null);
+            if (sourceInformation != null) {
+                key.add(sourceInformation.getIdentifier())
+                        .add(sourceInformation.isDependency())
+                        .add(sourceInformation.getExtras());
+            }
+        }
+        ReportCheckResult checkResult = record.getCheckResult();
+        key.add(checkResult != null);
+        if (checkResult != null) {
+            key.add(checkResult.isPass())
+                    .add(checkResult.getResultCode())
+                    .add(checkResult.getSubResultCode())
+                    .add(checkResult.getPriority());
+        }
+        return key.finish();
+    }
+}
@@ -59,6 +59,11 @@ public class ReportExecutor {
     private final ReportConfig reportConfig;
     private Render render;
 
+    /**
+     * The last summary of the agent's own overhead in the input, null if the input is not written by the agent.
+     */
+    private Map<String, Long> agentMetrics;
+
     public ReportExecutor(ReportConfig reportConfig) {
         this.reportConfig = reportConfig;
     }
@@ -67,74 +72,94 @@ public class ReportExecutor {
         ClassURL.registerUrlProtocolHandler();
         log("Reading checking result.");
         new Progress(parentProgress, "Read dependency records").printTitle();
-        List<BodyRecord> recordList = reportInputProvider.getRecords();
+        VariableHeader header = reportInputProvider.getHeader();
+        // The records are streamed from the input provider unless some external tool needs them as a list.
+        // Each way reads the input only once.
+        List<BodyRecord> recordList = null;
 
         if (!disableExternalTool) {
-            log("Prepare for invoking external tools.");
-            new Progress(parentProgress, "Prepare for external tools").printTitle();
-            ExternalToolParam etp = prepareExternalToolParam(recordList, reportInputProvider.getHeader());
-            String externalToolRoot = reportConfig.getExternalToolRoot();
-            if (externalToolRoot != null) {
-                Path root = Paths.get(externalToolRoot);
-                // Each directory in external tool root is the home of one external tool
-                List<URL> urls = new ArrayList<>();
-                try {
-                    Files.list(root).filter(p -> Files.isDirectory(p)).forEach(p -> {
-                        // Add jar files in each external tool' directory to URL list.
+            List<Tool> externalTools = loadExternalTools();
+            int externalToolSize = externalTools.size();
+            if (externalToolSize > 0) {
+                log("Prepare for invoking external tools.");
+                new Progress(parentProgress, "Prepare for external tools").printTitle();
+                recordList = new ArrayList<>();
+                ExternalToolParam etp = prepareExternalToolParam(reportInputProvider, header, recordList);
+                Progress runExternalProgress = new Progress(parentProgress, "There are " + externalToolSize + " external tools to run");
+                runExternalProgress.printTitle();
+                for (int i = 0; i < externalToolSize; i++) {
+                    Tool tool = externalTools.get(i);
+                    new Progress(parentProgress, "Run " + (i + 1) + "/" + externalToolSize + " external tool:" + tool.name()).printTitle();
+
+                    if (tool instanceof ModifyReportTool) {
+                        // ModifyReportTool can delete the existing records and add new ones.
                         try {
-                            Files.list(p).filter(f -> f.getFileName().toString().endsWith(".jar")).forEach(f -> {
-                                try {
-                                    urls.add(f.toUri().toURL());
-                                } catch (MalformedURLException e) {
-                                    log(e);
-                                }
-                            });
-                        } catch (IOException e) {
-                            log(e);
-                        }
-                    });
-                } catch (IOException e) {
-                    log(e);
-                }
-                if (!urls.isEmpty()) {
-                    URLClassLoader externalToolLoader = new URLClassLoader(urls.toArray(new URL[0]), this.getClass().getClassLoader());
-                    Iterator<Tool> toolIterator = ServiceLoader.load(Tool.class, externalToolLoader).iterator();
-                    List<Tool> externalTools = new ArrayList<>();
-                    while (toolIterator.hasNext()) {
-                        externalTools.add(toolIterator.next());
-                    }
-                    int externalToolSize = externalTools.size();
-                    if (externalToolSize > 0) {
-                        Progress runExternalProgress = new Progress(parentProgress, "There are " + externalToolSize + " external tools to run");
-                        runExternalProgress.printTitle();
-                        for (int i = 0; i < externalToolSize; i++) {
-                            Tool tool = externalTools.get(i);
-                            new Progress(parentProgress, "Run " + (i + 1) + "/" + externalToolSize + " external tool:" + tool.name()).printTitle();
-
-                            if (tool instanceof ModifyReportTool) {
-                                // ModifyReportTool can delete the existing records and add new ones.
-                                try {
-                                    recordList = ((ModifyReportTool) tool).run(recordList, etp, reportConfig, parentProgress);
-                                } catch (ExternalToolFailException e) {
-                                    new Progress(parentProgress, "Fail to run external tool:" + tool.name()).printTitle();
-                                    e.printStackTrace();
-                                }
-                            } else {
-                                // Other Tools only add new records.
-                                recordList.addAll(tool.analysis(etp, reportConfig, parentProgress));
-                            }
+                            recordList = ((ModifyReportTool) tool).run(recordList, etp, reportConfig, parentProgress);
+                        } catch (ExternalToolFailException e) {
+                            new Progress(parentProgress, "Fail to run external tool:" + tool.name()).printTitle();
+                            e.printStackTrace();
                         }
+                    } else {
+                        // Other Tools only add new records.
+                        recordList.addAll(tool.analysis(etp, reportConfig, parentProgress));
                     }
                 }
             }
         }
         this.render = createRender();
-        Map<Feature, List<CheckResultContext>> resultMap = prepare(recordList);
+        Map<Feature, List<CheckResultContext>> resultMap = new HashMap<>();
+        if (recordList != null) {
+            recordList.forEach((record) -> prepare(resultMap, record));
+        } else {
+            reportInputProvider.forEachRecord((record) -> {
+                collectAgentMetrics(record);
+                prepare(resultMap, record);
+            });
+        }
         // I think autofix should be an independent step, but it must be done after externel tools
         // changing result map. So I make autofix a sub phase of rendering.
         doAutofix(resultMap, parentProgress);
         new Progress(parentProgress, "Write result to report file").printTitle();
         render.doRender(resultMap);
+        if (agentMetrics != null) {
+            new Progress(parentProgress, "Agent overhead: " + agentMetrics).printTitle();
+        }
+    }
+
+    private List<Tool> loadExternalTools() {
+        List<Tool> externalTools = new ArrayList<>();
+        String externalToolRoot = reportConfig.getExternalToolRoot();
+        if (externalToolRoot != null) {
+            Path root = Paths.get(externalToolRoot);
+            // Each directory in external tool root is the home of one external tool
+            List<URL> urls = new ArrayList<>();
+            try {
+                Files.list(root).filter(p -> Files.isDirectory(p)).forEach(p -> {
+                    // Add jar files in each external tool' directory to URL list.
+                    try {
+                        Files.list(p).filter(f -> f.getFileName().toString().endsWith(".jar")).forEach(f -> {
+                            try {
+                                urls.add(f.toUri().toURL());
+                            } catch (MalformedURLException e) {
+                                log(e);
+                            }
+                        });
+                    } catch (IOException e) {
+                        log(e);
+                    }
+                });
+            } catch (IOException e) {
+                log(e);
+            }
+            if (!urls.isEmpty()) {
+                URLClassLoader externalToolLoader = new URLClassLoader(urls.toArray(new URL[0]), this.getClass().getClassLoader());
+                Iterator<Tool> toolIterator = ServiceLoader.load(Tool.class, externalToolLoader).iterator();
+                while (toolIterator.hasNext()) {
+                    externalTools.add(toolIterator.next());
+                }
+            }
+        }
+        return externalTools;
     }
 
     private static void doAutofix(Map<Feature, List<CheckResultContext>> resultMap, Progress progress) {
@@ -149,27 +174,36 @@ public class ReportExecutor {
         }
     }
 
-    private ExternalToolParam prepareExternalToolParam(List<BodyRecord> recordList, VariableHeader header) throws IOException, InterruptedException, URISyntaxException {
+    /**
+     * Read the code sources, the VM option and the agent metrics for the external tools,
+     * and collect the records with a check result into the list in the same pass.
+     * The BodyRecord without check result is only used by external tools, so it's skipped before generating the report.
+     */
+    private ExternalToolParam prepareExternalToolParam(ReportInputProvider reportInputProvider, VariableHeader header, List<BodyRecord> recordList) throws IOException, ClassNotFoundException, InterruptedException, URISyntaxException {
         ExternalToolParam etp = new ExternalToolParam();
         etp.setFromVersion(header.getFromVersion());
         etp.setToVersion(header.getToVersion());
         etp.setTargetJdkHome(getTargetJdkHome(header.getToVersion()));
         etp.setVmOption(header.getVmOption());
         etp.setFeatures(header.getFeatures());
-        Iterator<BodyRecord> iter = recordList.iterator();
-        while (iter.hasNext()) {
-            BodyRecord br = iter.next();
-            if (br.getCheckResult() == null) {
+        List<String> codeSources = new ArrayList<>();
+        reportInputProvider.forEachRecord((br) -> {
+            if (br.getCheckResult() != null) {
+                recordList.add(br);
+            } else {
                 if (br.getDependency().getDependType() == DependType.CODE_SOURCE) {
                     if (br.getDependency().getTarget().asLocation().getLocationExternalForm().startsWith("file:")) {
-                        addIfNotNull(etp.getClassesOrJars(), new File(new URL(br.getDependency().getTarget().asLocation().getLocationExternalForm()).toURI()));
+                        codeSources.add(br.getDependency().getTarget().asLocation().getLocationExternalForm());
                     }
                 } else if (br.getDependency().getDependType() == DependType.VM_OPTION) {
                     etp.setVmOption(br.getDependency().getTarget().asVMOption().getVmOption());
+                } else {
+                    collectAgentMetrics(br);
                 }
-                //this BodyRecord only used by external tools,so remove it before generate report
-                iter.remove();
             }
+        });
+        for (String codeSource : codeSources) {
+            addIfNotNull(etp.getClassesOrJars(), new File(new URL(codeSource).toURI()));
         }
         return etp;
     }
@@ -191,17 +225,21 @@ public class ReportExecutor {
         }
     }
 
-    private Map<Feature, List<CheckResultContext>> prepare(List<BodyRecord> recordList) {
-        Map<Feature, List<CheckResultContext>> resultMap = new HashMap<>();
-        for (BodyRecord record : recordList) {
-            if (null == record.getCheckResult()) {
-                continue;
-            }
-            Feature feature = record.getFeature();
-            CheckResultContext checkResultContext = new CheckResultContext(feature, record.getCheckResult(), record.getDependency());
-            resultMap.computeIfAbsent(feature, i -> new ArrayList<>()).add(checkResultContext);
+    private void collectAgentMetrics(BodyRecord record) {
+        if (record.getCheckResult() == null && record.getDependency() != null
+                && record.getDependency().getDependType() == DependType.AGENT_METRICS) {
+            agentMetrics = record.getDependency().getTarget().asAgentMetrics().getMetrics();
+        }
+    }
+
+    private static void prepare(Map<Feature, List<CheckResultContext>> resultMap, BodyRecord record) {
+        if (null == record.getCheckResult()) {
+            return;
         }
-        return resultMap;
+        Feature feature = record.getFeature();
+        CheckResultContext checkResultContext = new CheckResultContext(feature, record.getCheckResult(), record.getDependency());
+        checkResultContext.setOccurrences(record.getOccurrences());
+        resultMap.computeIfAbsent(feature, i -> new ArrayList<>()).add(checkResultContext);
     }
 
     private Render createRender() {
@@ -211,6 +249,8 @@ public class ReportExecutor {
             return new AutofixReportRenderer(reportConfig);
         } else if ("json".equals(format)) {
             return new JsonRender(reportConfig);
+        } else if ("ndjson".equals(format)) {
+            return new NdjsonRender(reportConfig);
         } else if ("txt".equals(format)) {
             return new TxtRender(reportConfig);
         } else if ("html".equals(format)) {
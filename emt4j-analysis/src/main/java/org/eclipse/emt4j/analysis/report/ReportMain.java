@@ -43,7 +43,7 @@ public class ReportMain {
         OptionProcessor optionProcessor = new OptionProcessor(args);
         optionProcessor.addOption(Option.buildParamWithValueOption("-i", (v) -> new File(v).exists(), (v) -> reportConfig.getInputFiles().add(new File(v))));
         optionProcessor.addOption(Option.buildParamWithValueOption("-f",
-                (v) -> "txt".equalsIgnoreCase(v) || "json".equalsIgnoreCase(v) || "html".equalsIgnoreCase(v), (v) -> reportConfig.setOutputFormat(v.toLowerCase())));
+                (v) -> "txt".equalsIgnoreCase(v) || "json".equalsIgnoreCase(v) || "ndjson".equalsIgnoreCase(v) || "html".equalsIgnoreCase(v), (v) -> reportConfig.setOutputFormat(v.toLowerCase())));
         optionProcessor.addOption(Option.buildParamWithValueOption("-o", null, reportConfig::setOutputFile));
         optionProcessor.addOption(Option.buildParamWithValueOption("-t", (v) -> new File(v).exists()
                         && new File(v).isDirectory(), reportConfig::setTargetJdkHome));
@@ -78,6 +78,8 @@ public class ReportMain {
                 config.setOutputFormat("txt");
             } else if (lowerCase.endsWith(".json")) {
                 config.setOutputFormat("json");
+            } else if (lowerCase.endsWith(".ndjson")) {
+                config.setOutputFormat("ndjson");
             } else if (lowerCase.endsWith(".html")) {
                 config.setOutputFormat("html");
             }
@@ -88,9 +90,9 @@ public class ReportMain {
         if (option != null) {
             System.err.println(option + " is invalid!");
         }
-        System.err.println("Usage:report.sh -i input file1 -i input file2  [-f txt|json|html] [-o output file] [-l language] [-t target jdk home] [-v]");
+        System.err.println("Usage:report.sh -i input file1 -i input file2  [-f txt|json|ndjson|html] [-o output file] [-l language] [-t target jdk home] [-v]");
         System.err.println("-i input-file. The input file is the output of analysis or agent.");
-        System.err.println("-f txt or json or html(default).");
+        System.err.println("-f txt or json or ndjson or html(default).");
         System.err.println("-o Write report to output file instead of default " + DEFAULT_REPORT_FILE + "." + DEFAULT_FORMAT);
         System.err.println("-t target jdk home.Provide target jdk home can help to find more compatible problems.");
         System.err.println("-v Show verbose information.");
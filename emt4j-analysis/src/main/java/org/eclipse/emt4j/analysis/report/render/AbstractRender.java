@@ -117,7 +117,7 @@ public abstract class AbstractRender implements Render {
         }
     }
 
-    private SubResultDetail buildSubResultCode(String mainResultCode, String subResultCode, I18nResourceUnit resourceUnit, List<CheckResultContext> checkResultContextList, String i18nBase) {
+    protected SubResultDetail buildSubResultCode(String mainResultCode, String subResultCode, I18nResourceUnit resourceUnit, List<CheckResultContext> checkResultContextList, String i18nBase) {
         resourceUnit.render(checkResultContextList);
         SubResultDetail subResultDetail = new SubResultDetail();
         subResultDetail.setSubResultCode(subResultCode);
@@ -20,9 +20,6 @@ package org.eclipse.emt4j.analysis.report.render;
 
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
-import org.apache.velocity.runtime.RuntimeConstants;
-import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 import org.eclipse.emt4j.common.CheckResultContext;
 import org.eclipse.emt4j.common.Feature;
 import org.eclipse.emt4j.common.ReportConfig;
@@ -36,6 +33,16 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class HtmlRender extends VelocityTemplateRender {
+    /**
+     * The issue contexts of a detail beyond this number are put in pages that are shown on demand,
+     * so the browser needn't lay out all of them when opening a large report.
+     */
+    static final int PAGE_SIZE = 100;
+
+    private static final String HEAD_TEMPLATE = "html-report-head.vm";
+    private static final String SECTION_TEMPLATE = "html-report-section.vm";
+    private static final String TAIL_TEMPLATE = "html-report-tail.vm";
+
     private final String DIR_OTHERS = "Others";
 
     public HtmlRender(ReportConfig config) {
@@ -44,133 +51,183 @@ public class HtmlRender extends VelocityTemplateRender {
 
     @Override
     public void render(Map<Feature, List<CheckResultContext>> resultMap) throws IOException {
-        VelocityEngine velocityEngine = new VelocityEngine();
-        velocityEngine.setProperty(RuntimeConstants.RESOURCE_LOADERS, "classpath");
-        velocityEngine.setProperty("resource.loader.classpath.class", ClasspathResourceLoader.class.getName());
-        VelocityContext context = prepareVelocityContext(resultMap);
-
         File output = new File(config.getOutputFile()).getAbsoluteFile();
         if (!output.getParentFile().exists()) {
             Files.createDirectories(output.getParentFile().toPath().toAbsolutePath());
         }
-        try (OutputStream out = new FileOutputStream(config.getOutputFile())) {
-            Template template = velocityEngine.getTemplate(getTemplate());
-            final Writer writer = new OutputStreamWriter(out, "UTF-8");
-            template.merge(context, writer);
-            writer.flush();
+        if (isStreaming()) {
+            renderStreaming(resultMap, output);
+        } else {
+            VelocityContext context = prepareVelocityContext(resultMap);
+            try (Writer writer = VelocityTemplates.newWriter(new FileOutputStream(output))) {
+                VelocityTemplates.get(getTemplate()).merge(context, writer);
+            }
+        }
+    }
+
+    /**
+     * Whether to render target by target, a subclass that needs the whole context by overriding
+     * {@link #prepareVelocityContext(Map)} should return false.
+     */
+    protected boolean isStreaming() {
+        return true;
+    }
+
+    /**
+     * The section of each target is written to a spool file as soon as it's built, so only the table of contents
+     * is held in memory. Then the head with the table of contents, the spooled sections and the tail are written to the output.
+     */
+    private void renderStreaming(Map<Feature, List<CheckResultContext>> resultMap, File output) throws IOException {
+        VelocityContext context = prepareCommonContext();
+        List<CategorizedContent> ccs = new ArrayList<>();
+        File spool = File.createTempFile(output.getName(), ".tmp", output.getParentFile());
+        try {
+            try (Writer writer = VelocityTemplates.newWriter(new FileOutputStream(spool))) {
+                Template section = VelocityTemplates.get(SECTION_TEMPLATE);
+                for (CheckResultContextHolder holder : classifyByIdentifier(resultMap)) {
+                    for (CategorizedResult cr : toCategorizedResult(holder)) {
+                        cr.setId(ccs.size() + 1);
+                        ccs.add(toCategorizedContent(cr));
+                        context.put("subdata", cr);
+                        context.put("sectionIndex", ccs.size() - 1);
+                        section.merge(context, writer);
+                    }
+                }
+            }
+            context.remove("subdata");
+            context.remove("sectionIndex");
+
+            try (OutputStream out = new FileOutputStream(output);
+                 Writer writer = VelocityTemplates.newWriter(out)) {
+                if (ccs.isEmpty()) {
+                    context.put("data", Collections.emptyList());
+                    VelocityTemplates.get(getTemplate()).merge(context, writer);
+                    return;
+                }
+                context.put("content", ccs);
+                context.put("total", getTotal(ccs));
+                VelocityTemplates.get(HEAD_TEMPLATE).merge(context, writer);
+                writer.flush();
+                Files.copy(spool.toPath(), out);
+                VelocityTemplates.get(TAIL_TEMPLATE).merge(context, writer);
+            }
+        } finally {
+            Files.deleteIfExists(spool.toPath());
         }
     }
 
     protected VelocityContext prepareVelocityContext(Map<Feature, List<CheckResultContext>> resultMap) {
-        VelocityContext context = new VelocityContext();
-        List<CategorizedResult> categorizedResultList = toCategorizedResult(resultMap);
-        context.put("title", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "html.title"));
+        VelocityContext context = prepareCommonContext();
+        List<CategorizedResult> categorizedResultList = new ArrayList<>();
+        for (CheckResultContextHolder holder : classifyByIdentifier(resultMap)) {
+            categorizedResultList.addAll(toCategorizedResult(holder));
+        }
+        List<CategorizedContent> ccs = new ArrayList<>();
+        for (int i = 0; i < categorizedResultList.size(); i++) {
+            categorizedResultList.get(i).setId(i + 1);
+            ccs.add(toCategorizedContent(categorizedResultList.get(i)));
+        }
         context.put("data", categorizedResultList);
-        List<CategorizedContent> ccs = getCategorizedContents(categorizedResultList);
         context.put("content", ccs);
+        context.put("total", getTotal(ccs));
+        return context;
+    }
+
+    private VelocityContext prepareCommonContext() {
+        VelocityContext context = new VelocityContext();
+        context.put("title", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "html.title"));
         context.put("noIssue", reportResourceAccessor.getNoIssueResource(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT)));
         context.put("contentTitle", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "content.title"));
         context.put("detailTitle", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "detail.title"));
         context.put("backToContent", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "back.to.content"));
+        context.put("priority", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "issue.priority"));
+        context.put("count", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "issue.count"));
+        context.put("showMore", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "show.more"));
+        context.put("pageSize", PAGE_SIZE);
+        return context;
+    }
+
+    private String getTotal(List<CategorizedContent> ccs) {
         int total = 0;
         for (CategorizedContent cc : ccs) {
             total += cc.getTotal();
         }
-        context.put("total",
-                String.format(
-                        reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), getIssueFoundTotalKey()),
-                        total,
-                        total > 1 ? "s" : ""));
-
-        context.put("priority", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "issue.priority"));
-        context.put("count", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "issue.count"));
-
-        return context;
+        return String.format(
+                reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), getIssueFoundTotalKey()),
+                total,
+                total > 1 ? "s" : "");
     }
 
-    private List<CategorizedContent> getCategorizedContents(List<CategorizedResult> categorizedResultList) {
-        List<CategorizedContent> ccs = new ArrayList<>();
-        for (CategorizedResult cr : categorizedResultList) {
-            CategorizedContent cc = new CategorizedContent(cr.desc);
-            cc.setId(cr.getId());
-            for (ResultDetail detail : cr.getResultDetailList()) {
-                Content content = new Content(detail.getTitle(), detail.getAnchorId());
-                content.setPriority(detail.priority);
-                content.setTotal(detail.getContext().size());
-                cc.addSubContent(content);
-            }
-            cc.addTotal(cr.getProblemCount());
-            if (cr.getExtras() != null) {
-                for (String extra : cr.getExtras()) {
-                    cc.addDescription(extra);
-                }
+    private CategorizedContent toCategorizedContent(CategorizedResult cr) {
+        CategorizedContent cc = new CategorizedContent(cr.desc);
+        cc.setId(cr.getId());
+        for (ResultDetail detail : cr.getResultDetailList()) {
+            Content content = new Content(detail.getTitle(), detail.getAnchorId());
+            content.setPriority(detail.priority);
+            content.setTotal(detail.getContext().size());
+            cc.addSubContent(content);
+        }
+        cc.addTotal(cr.getProblemCount());
+        if (cr.getExtras() != null) {
+            for (String extra : cr.getExtras()) {
+                cc.addDescription(extra);
             }
-            cc.addDescription(
-                    String.format(
-                            reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT),
-                                    getIssueFoundKey()),
-                            cc.getTotal(),
-                            cc.getTotal() > 1 ? "s" : ""));
-            ccs.add(cc);
         }
-        return ccs;
+        cc.addDescription(
+                String.format(
+                        reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT),
+                                getIssueFoundKey()),
+                        cc.getTotal(),
+                        cc.getTotal() > 1 ? "s" : ""));
+        return cc;
     }
 
-    private List<CategorizedResult> toCategorizedResult(Map<Feature, List<CheckResultContext>> resultMap) {
+    private List<CategorizedResult> toCategorizedResult(CheckResultContextHolder holder) {
         List<CategorizedResult> list = new ArrayList<>();
-        Collection<CheckResultContextHolder> holders = classifyByIdentifier(resultMap);
-        if (holders.isEmpty()) {
-            return list;
-        }
-        holders.forEach(holder -> {
-            Map<Feature, List<CheckResultContext>> tmp = new HashMap<>();
-            tmp.put(holder.feature, holder.contexts);
-            CategorizedCheckResult categorizedCheckResult = categorize(tmp);
-            if (!categorizedCheckResult.noResult()) {
-                for (Feature feature : categorizedCheckResult.getFeatures()) {
-                    int detailId = 0;
-                    CategorizedResult cr = new CategorizedResult();
-                    cr.setProblemCount(getJavaAndDependencyProblemCount(tmp));
-                    cr.desc = holder.sourceInformation.getIdentifier();
-                    cr.setExtras(holder.sourceInformation.getExtras());
-                    cr.anchorId = "cr-anchor" + holder.sourceInformation.getIdentifier().hashCode();
-                    String i18nBase = ConfRuleFacade.getFeatureI18nBase(feature);
-                    for (TreeMap<String, TreeMap<String, List<CheckResultContext>>> map : categorizedCheckResult.getResult().get(feature)) {
-                        Iterator<Map.Entry<String, TreeMap<String, List<CheckResultContext>>>> iter = map.entrySet().iterator();
-                        while (iter.hasNext()) {
-                            Map.Entry<String, TreeMap<String, List<CheckResultContext>>> entry = iter.next();
-                            Iterator<Map.Entry<String, List<CheckResultContext>>> subIter = entry.getValue().entrySet().iterator();
-                            while (subIter.hasNext()) {
-                                Map.Entry<String, List<CheckResultContext>> subEntry = subIter.next();
-                                I18nResourceUnit resourceUnit = reportResourceAccessor.getResourceUnit(entry.getKey(), subEntry.getKey(), i18nBase);
-                                resourceUnit.render(subEntry.getValue());
-                                ResultDetail rd = new ResultDetail();
-                                detailId++;
-                                rd.detailId = detailId;
-                                rd.mainResultCode = entry.getKey();
-                                rd.subResultCode = subEntry.getKey();
-                                rd.title = resourceUnit.getTitle();
-                                rd.descriptionTitle = resourceUnit.getDescriptionTitle();
-                                rd.description = resourceUnit.getDescription();
-                                rd.solutionTitle = resourceUnit.getSolutionTitle();
-                                rd.solution.addAll(resourceUnit.getSolutionSet());
-                                rd.contextTitle = resourceUnit.getIssueContextTitle();
-                                rd.context.addAll(resourceUnit.getIssueContextList());
-                                rd.anchorId = "rd-anchor" + cr.anchorId + "-" + rd.detailId;
-                                if (subEntry.getValue() != null && !subEntry.getValue().isEmpty()) {
-                                    //for a given resultCode+subResultCode,the priority is same.
-                                    rd.priority = subEntry.getValue().get(0).getReportCheckResult().getPriority();
-                                }
-                                cr.resultDetailList.add(rd);
+        Map<Feature, List<CheckResultContext>> tmp = new HashMap<>();
+        tmp.put(holder.feature, holder.contexts);
+        CategorizedCheckResult categorizedCheckResult = categorize(tmp);
+        if (!categorizedCheckResult.noResult()) {
+            for (Feature feature : categorizedCheckResult.getFeatures()) {
+                int detailId = 0;
+                CategorizedResult cr = new CategorizedResult();
+                cr.setProblemCount(getJavaAndDependencyProblemCount(tmp));
+                cr.desc = holder.sourceInformation.getIdentifier();
+                cr.setExtras(holder.sourceInformation.getExtras());
+                cr.anchorId = "cr-anchor" + holder.sourceInformation.getIdentifier().hashCode();
+                String i18nBase = ConfRuleFacade.getFeatureI18nBase(feature);
+                for (TreeMap<String, TreeMap<String, List<CheckResultContext>>> map : categorizedCheckResult.getResult().get(feature)) {
+                    Iterator<Map.Entry<String, TreeMap<String, List<CheckResultContext>>>> iter = map.entrySet().iterator();
+                    while (iter.hasNext()) {
+                        Map.Entry<String, TreeMap<String, List<CheckResultContext>>> entry = iter.next();
+                        Iterator<Map.Entry<String, List<CheckResultContext>>> subIter = entry.getValue().entrySet().iterator();
+                        while (subIter.hasNext()) {
+                            Map.Entry<String, List<CheckResultContext>> subEntry = subIter.next();
+                            I18nResourceUnit resourceUnit = reportResourceAccessor.getResourceUnit(entry.getKey(), subEntry.getKey(), i18nBase);
+                            resourceUnit.render(subEntry.getValue());
+                            ResultDetail rd = new ResultDetail();
+                            detailId++;
+                            rd.detailId = detailId;
+                            rd.mainResultCode = entry.getKey();
+                            rd.subResultCode = subEntry.getKey();
+                            rd.title = resourceUnit.getTitle();
+                            rd.descriptionTitle = resourceUnit.getDescriptionTitle();
+                            rd.description = resourceUnit.getDescription();
+                            rd.solutionTitle = resourceUnit.getSolutionTitle();
+                            rd.solution.addAll(resourceUnit.getSolutionSet());
+                            rd.contextTitle = resourceUnit.getIssueContextTitle();
+                            rd.context.addAll(resourceUnit.getIssueContextList());
+                            rd.anchorId = "rd-anchor" + cr.anchorId + "-" + rd.detailId;
+                            if (subEntry.getValue() != null && !subEntry.getValue().isEmpty()) {
+                                //for a given resultCode+subResultCode,the priority is same.
+                                rd.priority = subEntry.getValue().get(0).getReportCheckResult().getPriority();
                             }
+                            cr.resultDetailList.add(rd);
                         }
                     }
-                    list.add(cr);
                 }
+                list.add(cr);
             }
-        });
-        for (int i = 0; i < list.size(); i++) {
-            list.get(i).setId(i + 1);
         }
         return list;
     }
@@ -20,20 +20,31 @@ package org.eclipse.emt4j.analysis.report.render;
 
 import org.eclipse.emt4j.common.CheckResultContext;
 import org.eclipse.emt4j.common.Feature;
-import org.eclipse.emt4j.common.JsonReport;
 import org.eclipse.emt4j.common.ReportConfig;
+import org.eclipse.emt4j.common.SubResultDetail;
+import org.eclipse.emt4j.common.i18n.I18nResourceUnit;
 import org.eclipse.emt4j.common.rule.ConfRuleFacade;
-import org.apache.commons.io.IOUtils;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.BufferedWriter;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
+/**
+ * Write the report in the form of {@link org.eclipse.emt4j.common.JsonReport}.
+ * The report is written incrementally, only the detail of one sub result code is built at a time.
+ */
 public class JsonRender extends AbstractRender implements Render {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
 
     public JsonRender(ReportConfig config) {
         super(config);
@@ -41,17 +52,69 @@ public class JsonRender extends AbstractRender implements Render {
 
     @Override
     public void render(Map<Feature, List<CheckResultContext>> resultMap) throws IOException {
-        CategorizedCheckResult categorizedCheckResult = categorize(resultMap);
-        JsonReport jsonReport = new JsonReport();
+        Gson gson = new Gson();
+        try (Writer out = newWriter();
+             JsonWriter writer = gson.newJsonWriter(out)) {
+            writer.beginObject();
+            writer.name("resultDetailList").beginArray();
+            for (Map.Entry<String, List<SubResult>> entry : groupByMainResultCode(categorize(resultMap)).entrySet()) {
+                writer.beginObject();
+                writer.name("mainResultCode").value(entry.getKey());
+                writer.name("subResultDetailList").beginArray();
+                for (SubResult subResult : entry.getValue()) {
+                    gson.toJson(buildSubResultCode(subResult.mainResultCode, subResult.subResultCode,
+                                    getResourceUnit(subResult), subResult.contexts, subResult.i18nBase),
+                            SubResultDetail.class, writer);
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+    }
+
+    protected Writer newWriter() throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(config.getOutputFile()), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+
+    protected I18nResourceUnit getResourceUnit(SubResult subResult) {
+        return reportResourceAccessor.getResourceUnit(subResult.mainResultCode, subResult.subResultCode, subResult.i18nBase);
+    }
+
+    /**
+     * Group the sub results of all features and priorities by main result code, the same as {@link #convert},
+     * but only the references of the check results are kept.
+     */
+    protected static Map<String, List<SubResult>> groupByMainResultCode(CategorizedCheckResult categorizedCheckResult) {
+        Map<String, List<SubResult>> grouped = new LinkedHashMap<>();
         for (Feature feature : categorizedCheckResult.getFeatures()) {
             String i18nBase = ConfRuleFacade.getFeatureI18nBase(feature);
             for (TreeMap<String, TreeMap<String, List<CheckResultContext>>> map : categorizedCheckResult.getResult().get(feature)) {
-                convert(map, jsonReport.getResultDetailList(), i18nBase);
+                for (Map.Entry<String, TreeMap<String, List<CheckResultContext>>> entry : map.entrySet()) {
+                    List<SubResult> subResults = grouped.computeIfAbsent(entry.getKey(), _k -> new ArrayList<>());
+                    for (Map.Entry<String, List<CheckResultContext>> subEntry : entry.getValue().entrySet()) {
+                        subResults.add(new SubResult(feature, i18nBase, entry.getKey(), subEntry.getKey(), subEntry.getValue()));
+                    }
+                }
             }
         }
+        return grouped;
+    }
+
+    protected static class SubResult {
+        final Feature feature;
+        final String i18nBase;
+        final String mainResultCode;
+        final String subResultCode;
+        final List<CheckResultContext> contexts;
 
-        try (OutputStream out = new FileOutputStream(config.getOutputFile())) {
-            IOUtils.write(new Gson().toJson(jsonReport), out, "utf-8");
+        SubResult(Feature feature, String i18nBase, String mainResultCode, String subResultCode, List<CheckResultContext> contexts) {
+            this.feature = feature;
+            this.i18nBase = i18nBase;
+            this.mainResultCode = mainResultCode;
+            this.subResultCode = subResultCode;
+            this.contexts = contexts;
         }
     }
 }
@@ -0,0 +1,83 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.report.render;
+
+import org.eclipse.emt4j.common.CheckResultContext;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.IssueContext;
+import org.eclipse.emt4j.common.ReportConfig;
+import org.eclipse.emt4j.common.i18n.I18nResourceUnit;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the report as newline delimited JSON, each line is a finding that can be processed alone.
+ * A line looks like:
+ * <pre>
+ * {"feature":"default","mainResultCode":"REMOVE_CLASS","subResultCode":"","priority":"p1","briefDesc":"...","contextDesc":["..."],"stackTrace":["..."]}
+ * </pre>
+ */
+public class NdjsonRender extends JsonRender {
+
+    public NdjsonRender(ReportConfig config) {
+        super(config);
+    }
+
+    @Override
+    public void render(Map<Feature, List<CheckResultContext>> resultMap) throws IOException {
+        try (Writer out = newWriter()) {
+            JsonWriter writer = new JsonWriter(out);
+            // Lenient so that more than one top-level value can be written.
+            writer.setLenient(true);
+            for (List<SubResult> subResults : groupByMainResultCode(categorize(resultMap)).values()) {
+                for (SubResult subResult : subResults) {
+                    I18nResourceUnit resourceUnit = getResourceUnit(subResult);
+                    resourceUnit.render(subResult.contexts);
+                    //for a given resultCode+subResultCode,the priority is same.
+                    String priority = subResult.contexts.isEmpty() ? null : subResult.contexts.get(0).getReportCheckResult().getPriority();
+                    for (IssueContext issueContext : resourceUnit.getIssueContextList()) {
+                        writer.beginObject();
+                        writer.name("feature").value(subResult.feature.getId());
+                        writer.name("mainResultCode").value(subResult.mainResultCode);
+                        writer.name("subResultCode").value(subResult.subResultCode);
+                        writer.name("priority").value(priority);
+                        writer.name("briefDesc").value(resourceUnit.getTitle());
+                        writeStrings(writer.name("contextDesc"), issueContext.getContextDesc());
+                        writeStrings(writer.name("stackTrace"), issueContext.getStackTrace());
+                        writer.endObject();
+                        out.write('\n');
+                    }
+                }
+            }
+            writer.flush();
+        }
+    }
+
+    private static void writeStrings(JsonWriter writer, List<String> strings) throws IOException {
+        writer.beginArray();
+        for (String s : strings) {
+            writer.value(s);
+        }
+        writer.endArray();
+    }
+}
@@ -25,9 +25,6 @@ import org.eclipse.emt4j.common.i18n.I18nResourceUnit;
 import org.eclipse.emt4j.common.rule.ConfRuleFacade;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
-import org.apache.velocity.runtime.RuntimeConstants;
-import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 
 import java.io.*;
 import java.util.*;
@@ -39,23 +36,29 @@ public abstract class VelocityTemplateRender extends AbstractRender implements R
 
     @Override
     public void render(Map<Feature, List<CheckResultContext>> resultMap) throws IOException {
-        VelocityEngine velocityEngine = new VelocityEngine();
-        velocityEngine.setProperty(RuntimeConstants.RESOURCE_LOADERS, "classpath");
-        velocityEngine.setProperty("resource.loader.classpath.class", ClasspathResourceLoader.class.getName());
         VelocityContext context = new VelocityContext();
-        List<FeatureResult> featureResultList = toFeatureResult(resultMap);
-        context.put("data", featureResultList);
-        context.put("content", getContent(featureResultList));
         context.put("noIssue", reportResourceAccessor.getNoIssueResource(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT)));
         context.put("contentTitle", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "content.title"));
         context.put("detailTitle", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "detail.title"));
         context.put("backToContent", reportResourceAccessor.getString(ConfRuleFacade.getFeatureI18nBase(Feature.DEFAULT), "back.to.content"));
 
-        try (OutputStream out = new FileOutputStream(config.getOutputFile())) {
-            Template template = velocityEngine.getTemplate(getTemplate());
-            final Writer writer = new OutputStreamWriter(out, "UTF-8");
-            template.merge(context, writer);
-            writer.flush();
+        Template template = VelocityTemplates.get(getTemplate());
+        try (Writer writer = VelocityTemplates.newWriter(new FileOutputStream(config.getOutputFile()))) {
+            CategorizedCheckResult categorizedCheckResult = categorize(resultMap);
+            if (categorizedCheckResult.noResult()) {
+                context.put("data", Collections.emptyList());
+                context.put("content", Collections.emptyList());
+                template.merge(context, writer);
+                return;
+            }
+            // Render feature by feature, so only the details of one feature are held in memory.
+            int featureId = 0;
+            for (Feature feature : categorizedCheckResult.getFeatures()) {
+                List<FeatureResult> featureResultList = Collections.singletonList(toFeatureResult(categorizedCheckResult, feature, ++featureId));
+                context.put("data", featureResultList);
+                context.put("content", getContent(featureResultList));
+                template.merge(context, writer);
+            }
         }
     }
 
@@ -69,50 +72,39 @@ public abstract class VelocityTemplateRender extends AbstractRender implements R
         return contents;
     }
 
-    private List<FeatureResult> toFeatureResult(Map<Feature, List<CheckResultContext>> resultMap) {
-        List<FeatureResult> list = new ArrayList<>();
-        CategorizedCheckResult categorizedCheckResult = categorize(resultMap);
-        if (categorizedCheckResult.noResult()) {
-            return list;
-        }
-
-        int featureId = 0;
-        for (Feature feature : categorizedCheckResult.getFeatures()) {
-            featureId++;
-            int detailId = 0;
-            FeatureResult fr = new FeatureResult();
-            fr.featureDesc = reportResourceAccessor.getCheckResultForFeature(ConfRuleFacade.getFeatureI18nBase(feature));
-            fr.featureId = featureId;
-            String i18nBase = ConfRuleFacade.getFeatureI18nBase(feature);
-            for (TreeMap<String, TreeMap<String, List<CheckResultContext>>> map : categorizedCheckResult.getResult().get(feature)) {
-                Iterator<Map.Entry<String, TreeMap<String, List<CheckResultContext>>>> iter = map.entrySet().iterator();
-                while (iter.hasNext()) {
-                    Map.Entry<String, TreeMap<String, List<CheckResultContext>>> entry = iter.next();
-                    Iterator<Map.Entry<String, List<CheckResultContext>>> subIter = entry.getValue().entrySet().iterator();
-                    while (subIter.hasNext()) {
-                        Map.Entry<String, List<CheckResultContext>> subEntry = subIter.next();
-                        I18nResourceUnit resourceUnit = reportResourceAccessor.getResourceUnit(entry.getKey(), subEntry.getKey(), i18nBase);
-                        resourceUnit.render(subEntry.getValue());
-                        ResultDetail rd = new ResultDetail();
-                        detailId++;
-                        rd.detailId = detailId;
-                        rd.mainResultCode = entry.getKey();
-                        rd.subResultCode = subEntry.getKey();
-                        rd.title = resourceUnit.getTitle();
-                        rd.descriptionTitle = resourceUnit.getDescriptionTitle();
-                        rd.description = resourceUnit.getDescription();
-                        rd.solutionTitle = resourceUnit.getSolutionTitle();
-                        rd.solution.addAll(resourceUnit.getSolutionSet());
-                        rd.contextTitle = resourceUnit.getIssueContextTitle();
-                        rd.context.addAll(resourceUnit.getIssueContextList());
-                        rd.anchorId = fr.featureId + "-" + rd.detailId;
-                        fr.resultDetailList.add(rd);
-                    }
+    private FeatureResult toFeatureResult(CategorizedCheckResult categorizedCheckResult, Feature feature, int featureId) {
+        int detailId = 0;
+        FeatureResult fr = new FeatureResult();
+        fr.featureDesc = reportResourceAccessor.getCheckResultForFeature(ConfRuleFacade.getFeatureI18nBase(feature));
+        fr.featureId = featureId;
+        String i18nBase = ConfRuleFacade.getFeatureI18nBase(feature);
+        for (TreeMap<String, TreeMap<String, List<CheckResultContext>>> map : categorizedCheckResult.getResult().get(feature)) {
+            Iterator<Map.Entry<String, TreeMap<String, List<CheckResultContext>>>> iter = map.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<String, TreeMap<String, List<CheckResultContext>>> entry = iter.next();
+                Iterator<Map.Entry<String, List<CheckResultContext>>> subIter = entry.getValue().entrySet().iterator();
+                while (subIter.hasNext()) {
+                    Map.Entry<String, List<CheckResultContext>> subEntry = subIter.next();
+                    I18nResourceUnit resourceUnit = reportResourceAccessor.getResourceUnit(entry.getKey(), subEntry.getKey(), i18nBase);
+                    resourceUnit.render(subEntry.getValue());
+                    ResultDetail rd = new ResultDetail();
+                    detailId++;
+                    rd.detailId = detailId;
+                    rd.mainResultCode = entry.getKey();
+                    rd.subResultCode = subEntry.getKey();
+                    rd.title = resourceUnit.getTitle();
+                    rd.descriptionTitle = resourceUnit.getDescriptionTitle();
+                    rd.description = resourceUnit.getDescription();
+                    rd.solutionTitle = resourceUnit.getSolutionTitle();
+                    rd.solution.addAll(resourceUnit.getSolutionSet());
+                    rd.contextTitle = resourceUnit.getIssueContextTitle();
+                    rd.context.addAll(resourceUnit.getIssueContextList());
+                    rd.anchorId = fr.featureId + "-" + rd.detailId;
+                    fr.resultDetailList.add(rd);
                 }
             }
-            list.add(fr);
         }
-        return list;
+        return fr;
     }
 
     abstract String getTemplate();
@@ -0,0 +1,63 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.report.render;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The velocity engine that shared by all renders.
+ * The engine is initialized once per process, and the templates are parsed once then cached by the engine.
+ */
+final class VelocityTemplates {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private VelocityTemplates() {
+    }
+
+    private static class Holder {
+        private static final VelocityEngine ENGINE = createEngine();
+
+        private static VelocityEngine createEngine() {
+            VelocityEngine velocityEngine = new VelocityEngine();
+            velocityEngine.setProperty(RuntimeConstants.RESOURCE_LOADERS, "classpath");
+            velocityEngine.setProperty("resource.loader.classpath.class", ClasspathResourceLoader.class.getName());
+            velocityEngine.setProperty("resource.loader.classpath.cache", true);
+            velocityEngine.init();
+            return velocityEngine;
+        }
+    }
+
+    static Template get(String name) {
+        return Holder.ENGINE.getTemplate(name);
+    }
+
+    static Writer newWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,98 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.emt4j.analysis.common.util.Progress;
+import org.eclipse.emt4j.analysis.out.MemoryHolderOutputConsumer;
+import org.eclipse.emt4j.analysis.source.SingleJarSource;
+import org.eclipse.emt4j.common.CheckConfig;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.SourceInformation;
+import org.eclipse.emt4j.common.fileformat.BodyRecord;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestAnalysisExecutor {
+
+    @Test
+    public void testParallelScanKeepOrder() throws Exception {
+        File jarFile = createJar();
+        try {
+            List<String> sequential = analyze(jarFile, 1, 1);
+            List<String> parallel = analyze(jarFile, 4, 1);
+            assertFalse(sequential.isEmpty());
+            assertEquals(sequential, parallel);
+        } finally {
+            jarFile.delete();
+        }
+    }
+
+    @Test
+    public void testStaticAnalysisBatchSameResult() throws Exception {
+        File jarFile = createJar();
+        try {
+            List<String> single = analyze(jarFile, 1, 1);
+            assertEquals(single, analyze(jarFile, 1, 16));
+            assertEquals(single, analyze(jarFile, 4, 16));
+        } finally {
+            jarFile.delete();
+        }
+    }
+
+    private List<String> analyze(File jarFile, int scanThreads, int staticAnalysisBatchSize) throws Exception {
+        CheckConfig checkConfig = new CheckConfig();
+        checkConfig.setScanThreads(scanThreads);
+        checkConfig.setStaticAnalysisBatchSize(staticAnalysisBatchSize);
+        MemoryHolderOutputConsumer outputConsumer = new MemoryHolderOutputConsumer();
+        AnalysisExecutor analysisExecutor = new AnalysisExecutor(checkConfig);
+        analysisExecutor.setAnalysisOutputConsumer(outputConsumer);
+        SingleJarSource source = new SingleJarSource(jarFile);
+        source.setInformation(new SourceInformation());
+        analysisExecutor.add(source);
+        analysisExecutor.execute(Collections.singletonList(Feature.DEFAULT), new Progress(0, 1, "Test"));
+
+        List<String> records = new ArrayList<>();
+        for (BodyRecord record : outputConsumer.getInputProvider().getRecords()) {
+            records.add(record.getDependency().getTarget().desc() + "|" + record.getDependency().getLocationExternalForm()
+                    + "|" + (record.getCheckResult() == null ? null : record.getCheckResult().getResultCode()));
+        }
+        return records;
+    }
+
+    private File createJar() throws IOException {
+        File jarFile = File.createTempFile("commons-lang-2.6", ".jar");
+        try (InputStream inputStream = TestAnalysisExecutor.class.getResourceAsStream("/commons-lang-2.6.testfile");
+             OutputStream outputStream = new FileOutputStream(jarFile)) {
+            IOUtils.copy(inputStream, outputStream);
+        }
+        return jarFile;
+    }
+}
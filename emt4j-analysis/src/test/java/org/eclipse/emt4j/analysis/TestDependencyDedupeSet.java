@@ -0,0 +1,135 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.analysis;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestDependencyDedupeSet {
+
+    @Test
+    public void testHashCollision() throws Exception {
+        // "Aa" and "BB" have the same hash code
+        Dependency aa = classDependency("Aa", 1);
+        Dependency bb = classDependency("BB", 1);
+        assertEquals(aa.hashCode(), bb.hashCode());
+
+        DependencyDedupeSet set = new DependencyDedupeSet();
+        assertTrue(set.add(set.keyOf(aa)));
+        assertTrue(set.add(set.keyOf(bb)));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void testDuplicate() throws Exception {
+        DependencyDedupeSet set = new DependencyDedupeSet();
+        assertTrue(set.add(set.keyOf(classDependency("a.B", 1))));
+        assertTrue(set.contains(set.keyOf(classDependency("a.B", 1))));
+        assertFalse(set.add(set.keyOf(classDependency("a.B", 1))));
+        assertFalse(set.contains(set.keyOf(classDependency("a.B", 2))));
+        assertTrue(set.add(set.keyOf(classDependency("a.B", 2))));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void testStacktraceAndTargetKind() throws Exception {
+        DependencyDedupeSet set = new DependencyDedupeSet();
+        Dependency dependency = classDependency("a.B", 1);
+        dependency.setStacktrace(new StackTraceElement[]{new StackTraceElement("a.C", "m", "C.java", 1)});
+        assertTrue(set.add(set.keyOf(dependency)));
+        Dependency otherStack = classDependency("a.B", 1);
+        otherStack.setStacktrace(new StackTraceElement[]{new StackTraceElement("a.C", "m", "C.java", 2)});
+        assertTrue(set.add(set.keyOf(otherStack)));
+        Dependency location = new Dependency(new URL("file:/tmp/test.jar"),
+                new DependTarget.Location("a.B", DependType.CLASS), null, "/tmp/test.jar");
+        location.setLines(Arrays.asList(1));
+        assertTrue(set.add(set.keyOf(location)));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testEveryFieldIsPartOfKey() throws Exception {
+        DependencyDedupeSet set = new DependencyDedupeSet();
+        assertTrue(set.add(set.keyOf(classDependency("a.B", 1))));
+        Dependency caller = classDependency("a.B", 1);
+        caller.setCallerMethod("a.C.m");
+        assertTrue(set.add(set.keyOf(caller)));
+        Dependency noLines = classDependency("a.B", 1);
+        noLines.setLines(null);
+        assertTrue(set.add(set.keyOf(noLines)));
+        Dependency emptyLines = classDependency("a.B", 1);
+        emptyLines.setLines(Collections.emptyList());
+        assertTrue(set.add(set.keyOf(emptyLines)));
+        Dependency nullLine = classDependency("a.B", 1);
+        nullLine.setLines(Arrays.asList((Integer) null));
+        assertTrue(set.add(set.keyOf(nullLine)));
+        Dependency otherFile = new Dependency(new URL("file:/tmp/test.jar"),
+                new DependTarget.Class("a.B", DependType.CLASS), null, "/tmp/other.jar");
+        otherFile.setLines(Arrays.asList(1));
+        assertTrue(set.add(set.keyOf(otherFile)));
+        Dependency method = new Dependency(new URL("file:/tmp/test.jar"),
+                new DependTarget.Method("a.B", "m", "()V", DependType.METHOD), null, "/tmp/test.jar");
+        method.setLines(Arrays.asList(1));
+        assertTrue(set.add(set.keyOf(method)));
+        assertEquals(7, set.size());
+
+        Dependency sameCaller = classDependency("a.B", 1);
+        sameCaller.setCallerMethod("a.C.m");
+        assertFalse(set.add(set.keyOf(sameCaller)));
+        assertEquals(7, set.size());
+    }
+
+    @Test
+    public void testConcurrentAdd() {
+        DependencyDedupeSet set = new DependencyDedupeSet();
+        AtomicInteger added = new AtomicInteger();
+        int count = 100_000;
+        IntStream.range(0, count * 2).parallel().forEach(i -> {
+            try {
+                if (set.add(set.keyOf(classDependency("a.C" + (i % count), 1)))) {
+                    added.incrementAndGet();
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertEquals(count, added.get());
+        assertEquals(count, set.size());
+    }
+
+    private static Dependency classDependency(String className, int line) throws Exception {
+        Dependency dependency = new Dependency(new URL("file:/tmp/test.jar"),
+                new DependTarget.Class(className, DependType.CLASS), null, "/tmp/test.jar");
+        dependency.setLines(Arrays.asList(line));
+        return dependency;
+    }
+}
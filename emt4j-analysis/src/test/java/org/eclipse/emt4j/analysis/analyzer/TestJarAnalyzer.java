@@ -0,0 +1,193 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.analyzer;
+
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestJarAnalyzer {
+
+    @Test
+    public void testNestedJar() throws IOException {
+        File fatJar = File.createTempFile("fat", ".jar");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(fatJar))) {
+                putEntry(out, "a/Outer.class", createClass("a/Outer"));
+                putEntry(out, "BOOT-INF/lib/inner.jar", createJar("b/Inner"));
+            }
+
+            List<Dependency> dependencies = new ArrayList<>();
+            JarAnalyzer.analyze(fatJar.toPath(), dependencies::add);
+
+            String fatJarUrl = fatJar.toURI().toURL().toExternalForm();
+            List<String> wholeClasses = new ArrayList<>();
+            List<String> codeSources = new ArrayList<>();
+            for (Dependency dependency : dependencies) {
+                if (dependency.getDependType() == DependType.WHOLE_CLASS) {
+                    wholeClasses.add(dependency.getLocationExternalForm() + "|" + dependency.getTargetFilePath());
+                } else if (dependency.getDependType() == DependType.CODE_SOURCE) {
+                    codeSources.add(dependency.getTarget().asLocation().getLocationExternalForm());
+                }
+            }
+            assertTrue(wholeClasses.contains(fatJarUrl + "!/a/Outer.class|" + fatJar.getAbsolutePath()));
+            assertTrue(wholeClasses.contains(fatJarUrl + "!/BOOT-INF/lib/inner.jar!/b/Inner.class|"
+                    + fatJar.getAbsolutePath() + "!/BOOT-INF/lib/inner.jar"));
+            assertTrue(codeSources.contains(fatJarUrl));
+            assertTrue(codeSources.contains(fatJarUrl + "!/BOOT-INF/lib/inner.jar"));
+        } finally {
+            fatJar.delete();
+        }
+    }
+
+    @Test
+    public void testNestedJarWithStoredDataDescriptor() throws IOException {
+        File fatJar = File.createTempFile("fat", ".jar");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(fatJar))) {
+                putEntry(out, "BOOT-INF/lib/shaded.jar", createStoredJarWithDataDescriptor(
+                        new String[]{"b/First", "b/Second"}));
+            }
+
+            List<Dependency> dependencies = new ArrayList<>();
+            JarAnalyzer.analyze(fatJar.toPath(), dependencies::add);
+
+            String nestedUrl = fatJar.toURI().toURL().toExternalForm() + "!/BOOT-INF/lib/shaded.jar";
+            List<String> wholeClasses = new ArrayList<>();
+            for (Dependency dependency : dependencies) {
+                if (dependency.getDependType() == DependType.WHOLE_CLASS) {
+                    wholeClasses.add(dependency.getLocationExternalForm());
+                }
+            }
+            assertEquals(Arrays.asList(nestedUrl + "!/b/First.class", nestedUrl + "!/b/Second.class"), wholeClasses);
+        } finally {
+            fatJar.delete();
+        }
+    }
+
+    /**
+     * ZipOutputStream never writes a data descriptor for a STORED entry, so the jar is written by hand.
+     */
+    private static byte[] createStoredJarWithDataDescriptor(String[] internalNames) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bos);
+        ByteArrayOutputStream central = new ByteArrayOutputStream();
+        DataOutputStream centralOut = new DataOutputStream(central);
+        for (String internalName : internalNames) {
+            byte[] name = (internalName + ".class").getBytes(StandardCharsets.UTF_8);
+            byte[] content = createClass(internalName);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            int offset = out.size();
+            // local file header: the sizes and the crc are only in the data descriptor after the data
+            writeIntLE(out, 0x04034b50);
+            writeShortLE(out, 10);
+            writeShortLE(out, 0x08);
+            writeShortLE(out, ZipEntry.STORED);
+            writeIntLE(out, 0);
+            writeIntLE(out, 0);
+            writeIntLE(out, 0);
+            writeIntLE(out, 0);
+            writeShortLE(out, name.length);
+            writeShortLE(out, 0);
+            out.write(name);
+            out.write(content);
+            writeIntLE(out, 0x08074b50);
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, content.length);
+            writeIntLE(out, content.length);
+
+            writeIntLE(centralOut, 0x02014b50);
+            writeShortLE(centralOut, 10);
+            writeShortLE(centralOut, 10);
+            writeShortLE(centralOut, 0x08);
+            writeShortLE(centralOut, ZipEntry.STORED);
+            writeIntLE(centralOut, 0);
+            writeIntLE(centralOut, (int) crc.getValue());
+            writeIntLE(centralOut, content.length);
+            writeIntLE(centralOut, content.length);
+            writeShortLE(centralOut, name.length);
+            writeShortLE(centralOut, 0);
+            writeShortLE(centralOut, 0);
+            writeShortLE(centralOut, 0);
+            writeShortLE(centralOut, 0);
+            writeIntLE(centralOut, 0);
+            writeIntLE(centralOut, offset);
+            centralOut.write(name);
+        }
+        int centralOffset = out.size();
+        out.write(central.toByteArray());
+        writeIntLE(out, 0x06054b50);
+        writeShortLE(out, 0);
+        writeShortLE(out, 0);
+        writeShortLE(out, internalNames.length);
+        writeShortLE(out, internalNames.length);
+        writeIntLE(out, central.size());
+        writeIntLE(out, centralOffset);
+        writeShortLE(out, 0);
+        return bos.toByteArray();
+    }
+
+    private static void writeShortLE(DataOutputStream out, int value) throws IOException {
+        out.writeShort(Short.reverseBytes((short) value));
+    }
+
+    private static void writeIntLE(DataOutputStream out, int value) throws IOException {
+        out.writeInt(Integer.reverseBytes(value));
+    }
+
+    private static byte[] createJar(String internalName) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bos)) {
+            putEntry(out, internalName + ".class", createClass(internalName));
+        }
+        return bos.toByteArray();
+    }
+
+    private static void putEntry(ZipOutputStream out, String name, byte[] content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static byte[] createClass(String internalName) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
@@ -0,0 +1,138 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.report;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.fileformat.BodyRecord;
+import org.eclipse.emt4j.common.fileformat.FixedHeader;
+import org.eclipse.emt4j.common.fileformat.RecordWriter;
+import org.eclipse.emt4j.common.fileformat.VariableHeader;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestBinaryFileInputProvider {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMergeFiles() throws Exception {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            // Each host finds the common problems 0..9 and a problem of its own, the legacy format is also merged.
+            List<BodyRecord> records = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                records.add(record("CODE_" + j, "com.foo.Bar"));
+            }
+            records.add(record("CODE_0", "com.host.Host" + i));
+            files.add(write(i % 2 == 0 ? FixedHeader.VERSION_COMPACT : FixedHeader.VERSION_SERIALIZED, records));
+        }
+
+        List<BodyRecord> merged = new ArrayList<>();
+        new BinaryFileInputProvider(files).forEachRecord(merged::add);
+        assertEquals(16, merged.size());
+        for (int j = 0; j < 10; j++) {
+            assertEquals("CODE_" + j, merged.get(j).getCheckResult().getResultCode());
+            assertEquals(6, merged.get(j).getOccurrences());
+        }
+        for (int i = 0; i < 6; i++) {
+            assertEquals("com.host.Host" + i, merged.get(10 + i).getDependency().getTarget().asMethod().getClassName());
+            assertEquals(1, merged.get(10 + i).getOccurrences());
+        }
+    }
+
+    @Test
+    public void testFindingsDifferInOneFieldAreKept() throws Exception {
+        List<BodyRecord> records = new ArrayList<>();
+        records.add(record("CODE_0", "com.foo.Bar"));
+        BodyRecord subResultCode = record("CODE_0", "com.foo.Bar");
+        subResultCode.getCheckResult().setSubResultCode("SUB");
+        records.add(subResultCode);
+        BodyRecord priority = record("CODE_0", "com.foo.Bar");
+        priority.getCheckResult().setPriority("p2");
+        records.add(priority);
+        BodyRecord caller = record("CODE_0", "com.foo.Bar");
+        caller.getDependency().setCallerMethod("com.foo.Caller.run");
+        records.add(caller);
+        BodyRecord feature = record("CODE_0", "com.foo.Bar");
+        feature.setFeature(Feature.JDK_ONLY);
+        records.add(feature);
+        File first = write(FixedHeader.VERSION_COMPACT, records);
+        File second = write(FixedHeader.VERSION_COMPACT, records);
+
+        List<BodyRecord> merged = new ArrayList<>();
+        new BinaryFileInputProvider(Arrays.asList(first, second)).forEachRecord(merged::add);
+        assertEquals(records.size(), merged.size());
+        for (BodyRecord record : merged) {
+            assertEquals(2, record.getOccurrences());
+        }
+    }
+
+    @Test
+    public void testSingleFileIsNotMerged() throws Exception {
+        File file = write(FixedHeader.VERSION_COMPACT, Arrays.asList(record("CODE_0", "com.foo.Bar"), record("CODE_0", "com.foo.Bar")));
+        List<BodyRecord> records = new ArrayList<>();
+        new BinaryFileInputProvider(Collections.singletonList(file)).forEachRecord(records::add);
+        assertEquals(2, records.size());
+        assertEquals(1, records.get(0).getOccurrences());
+    }
+
+    private File write(int version, List<BodyRecord> records) throws IOException {
+        File file = folder.newFile();
+        VariableHeader vh = new VariableHeader();
+        vh.setFromVersion(8);
+        vh.setToVersion(17);
+        vh.setFeatures(Collections.singletonList(Feature.DEFAULT.getId()));
+        try (OutputStream out = Files.newOutputStream(file.toPath());
+             RecordWriter writer = RecordWriter.create(out, version)) {
+            writer.writeHeader(vh);
+            for (BodyRecord record : records) {
+                writer.write(record);
+            }
+        }
+        return file;
+    }
+
+    private static BodyRecord record(String resultCode, String className) {
+        Dependency dependency = new Dependency(null, new DependTarget.Method(className, "run", "()V", DependType.METHOD), null, null);
+        ReportCheckResult checkResult = new ReportCheckResult(false);
+        checkResult.setResultCode(resultCode);
+        checkResult.setPriority("p1");
+        BodyRecord record = new BodyRecord();
+        record.setDependency(dependency);
+        record.setCheckResult(checkResult);
+        record.setFeature(Feature.DEFAULT);
+        return record;
+    }
+}
@@ -0,0 +1,109 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.report.render;
+
+import org.eclipse.emt4j.common.CheckResultContext;
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.ReportConfig;
+import org.eclipse.emt4j.common.SourceInformation;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestHtmlRender {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStreamingIsSameAsWhole() throws Exception {
+        List<CheckResultContext> contexts = new ArrayList<>();
+        for (int i = 0; i < HtmlRender.PAGE_SIZE * 2 + 10; i++) {
+            contexts.add(context("app", "com.app.Removed" + i));
+        }
+        for (int i = 0; i < 3; i++) {
+            contexts.add(context("lib", "com.lib.Removed" + i));
+        }
+        Map<Feature, List<CheckResultContext>> resultMap = new HashMap<>();
+        resultMap.put(Feature.DEFAULT, contexts);
+
+        String streaming = render(resultMap, true);
+        String whole = render(resultMap, false);
+        assertEquals(whole, streaming);
+        assertTrue(streaming.contains("com.app.Removed0"));
+        assertTrue(streaming.contains("com.lib.Removed2"));
+        assertEquals(2, count(streaming, "<template class=\"page\">"));
+        assertEquals(count(streaming, "<template class=\"page\">"), count(streaming, "</template>"));
+        assertEquals(1, count(streaming, "onclick=\"showMore(this)\""));
+    }
+
+    @Test
+    public void testNoIssue() throws Exception {
+        Map<Feature, List<CheckResultContext>> resultMap = Collections.emptyMap();
+        assertEquals(render(resultMap, false), render(resultMap, true));
+        assertFalse(render(resultMap, true).contains("<html>"));
+    }
+
+    private String render(Map<Feature, List<CheckResultContext>> resultMap, boolean streaming) throws Exception {
+        File output = new File(folder.getRoot(), (streaming ? "streaming" : "whole") + ".html");
+        ReportConfig config = new ReportConfig();
+        config.setOutputFile(output.getPath());
+        new HtmlRender(config) {
+            @Override
+            protected boolean isStreaming() {
+                return streaming;
+            }
+        }.render(resultMap);
+        assertEquals("The spool file should be deleted", 1, folder.getRoot().list((d, n) -> n.startsWith(output.getName())).length);
+        return new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static CheckResultContext context(String identifier, String className) {
+        Dependency dependency = new Dependency(null, new DependTarget.Class(className, DependType.CLASS), null, null);
+        SourceInformation sourceInformation = new SourceInformation();
+        sourceInformation.setIdentifier(identifier);
+        dependency.setSourceInformation(sourceInformation);
+        ReportCheckResult checkResult = new ReportCheckResult(false);
+        checkResult.setResultCode("REMOVE_CLASS");
+        checkResult.setPriority("p1");
+        return new CheckResultContext(Feature.DEFAULT, checkResult, dependency);
+    }
+
+    private static int count(String s, String sub) {
+        int count = 0;
+        for (int i = s.indexOf(sub); i >= 0; i = s.indexOf(sub, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,120 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.analysis.report.render;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.eclipse.emt4j.common.CheckResultContext;
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.JsonReport;
+import org.eclipse.emt4j.common.ReportConfig;
+import org.eclipse.emt4j.common.rule.ConfRuleFacade;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class TestJsonRender {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameAsWholeModel() throws Exception {
+        Map<Feature, List<CheckResultContext>> resultMap = resultMap();
+        File output = folder.newFile("report.json");
+        JsonRender render = new JsonRender(config(output));
+        render.render(resultMap);
+
+        // The report model that built as a whole.
+        CategorizedCheckResult categorizedCheckResult = render.categorize(resultMap);
+        JsonReport jsonReport = new JsonReport();
+        for (Feature feature : categorizedCheckResult.getFeatures()) {
+            for (TreeMap<String, TreeMap<String, List<CheckResultContext>>> map : categorizedCheckResult.getResult().get(feature)) {
+                render.convert(map, jsonReport.getResultDetailList(), ConfRuleFacade.getFeatureI18nBase(feature));
+            }
+        }
+        assertEquals(new Gson().toJson(jsonReport), read(output));
+    }
+
+    @Test
+    public void testNdjson() throws Exception {
+        File output = folder.newFile("report.ndjson");
+        new NdjsonRender(config(output)).render(resultMap());
+        String[] lines = read(output).split("\n");
+        // Each target is a finding since there is no stack trace to merge them.
+        assertEquals(7, lines.length);
+        int p1 = 0;
+        for (String line : lines) {
+            JsonObject finding = JsonParser.parseString(line).getAsJsonObject();
+            assertNotNull(finding.get("mainResultCode").getAsString());
+            assertEquals(1, finding.getAsJsonArray("contextDesc").size());
+            if ("p1".equals(finding.get("priority").getAsString())) {
+                p1++;
+            }
+        }
+        assertEquals(5, p1);
+    }
+
+    private static ReportConfig config(File output) {
+        ReportConfig config = new ReportConfig();
+        config.setOutputFile(output.getPath());
+        return config;
+    }
+
+    private static Map<Feature, List<CheckResultContext>> resultMap() {
+        Map<Feature, List<CheckResultContext>> resultMap = new HashMap<>();
+        List<CheckResultContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            contexts.add(context(Feature.DEFAULT, "REMOVE_CLASS", "p1", "com.foo.Removed<" + i + ">"));
+        }
+        contexts.add(context(Feature.DEFAULT, "REMOVE_CLASS", "p2", "com.foo.Removed"));
+        contexts.add(context(Feature.DEFAULT, "REMOVED_API", "p1", "com.foo.Api"));
+        contexts.add(context(Feature.DEFAULT, "REMOVE_CLASS", "p1", "com.bar.Removed"));
+        contexts.add(context(Feature.DEFAULT, "REMOVE_CLASS", "p3", "com.bar.Other"));
+        resultMap.put(Feature.DEFAULT, contexts);
+        return resultMap;
+    }
+
+    private static CheckResultContext context(Feature feature, String resultCode, String priority, String className) {
+        Dependency dependency = new Dependency(null, new DependTarget.Class(className, DependType.CLASS), null, null);
+        ReportCheckResult checkResult = new ReportCheckResult(false);
+        checkResult.setResultCode(resultCode);
+        checkResult.setPriority(priority);
+        return new CheckResultContext(feature, checkResult, dependency);
+    }
+
+    private static String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
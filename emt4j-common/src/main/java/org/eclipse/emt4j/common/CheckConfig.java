@@ -18,6 +18,8 @@
  ********************************************************************************/
 package org.eclipse.emt4j.common;
 
+import org.eclipse.emt4j.common.util.JarFilePool;
+
 public class CheckConfig {
 
     private boolean verbose = false;
@@ -39,6 +41,23 @@ public class CheckConfig {
 
     private String disableRules;
 
+    /**
+     * how many threads are used to parse and check the classes of a single jar.
+     * 1 means the classes are processed one by one by the thread that reads the jar.
+     */
+    private int scanThreads = 1;
+
+    /**
+     * how many classes are loaded into a single Soot scene for the static analysis.
+     * 1 means each class is analyzed in its own scene as soon as it's checked.
+     */
+    private int staticAnalysisBatchSize = 1;
+
+    /**
+     * how many archives can be opened at the same time during the analysis.
+     */
+    private int maxOpenArchives = JarFilePool.DEFAULT_MAX_OPEN;
+
     public int getToVersion() {
         return toVersion;
     }
@@ -71,6 +90,9 @@ public class CheckConfig {
         this.priority = from.priority;
         this.enableRules = from.enableRules;
         this.disableRules = from.disableRules;
+        this.scanThreads = from.scanThreads;
+        this.staticAnalysisBatchSize = from.staticAnalysisBatchSize;
+        this.maxOpenArchives = from.maxOpenArchives;
     }
 
     public boolean isVerbose() {
@@ -104,4 +126,28 @@ public class CheckConfig {
     public void setDisableRules(String disableRules) {
         this.disableRules = disableRules;
     }
+
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setScanThreads(int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    public int getStaticAnalysisBatchSize() {
+        return staticAnalysisBatchSize;
+    }
+
+    public void setStaticAnalysisBatchSize(int staticAnalysisBatchSize) {
+        this.staticAnalysisBatchSize = staticAnalysisBatchSize;
+    }
+
+    public int getMaxOpenArchives() {
+        return maxOpenArchives;
+    }
+
+    public void setMaxOpenArchives(int maxOpenArchives) {
+        this.maxOpenArchives = maxOpenArchives;
+    }
 }
@@ -28,6 +28,8 @@ public class CheckResultContext {
 
     private Dependency dependency;
 
+    private int occurrences = 1;
+
     public ReportCheckResult getReportCheckResult() {
         return reportCheckResult;
     }
@@ -44,6 +46,14 @@ public class CheckResultContext {
         this.dependency = dependency;
     }
 
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
     public Feature getFeature() {
         return feature;
     }
@@ -35,6 +35,11 @@ public class ClassSymbol {
     private Map<String, Set<String>> invokeMap;
     private String className; // Internal class name
 
+    // internal names, descriptors and string literals referenced anywhere in the class
+    private Set<String> internalNameSet;
+    private Set<String> descriptorSet;
+    private Set<String> stringLiteralSet;
+
     public String getClassName() {
         return className;
     }
@@ -74,4 +79,28 @@ public class ClassSymbol {
     public void setConstantPoolSet(Set<String> constantPoolSet) {
         this.constantPoolSet = constantPoolSet;
     }
+
+    public Set<String> getInternalNameSet() {
+        return internalNameSet;
+    }
+
+    public void setInternalNameSet(Set<String> internalNameSet) {
+        this.internalNameSet = internalNameSet;
+    }
+
+    public Set<String> getDescriptorSet() {
+        return descriptorSet;
+    }
+
+    public void setDescriptorSet(Set<String> descriptorSet) {
+        this.descriptorSet = descriptorSet;
+    }
+
+    public Set<String> getStringLiteralSet() {
+        return stringLiteralSet;
+    }
+
+    public void setStringLiteralSet(Set<String> stringLiteralSet) {
+        this.stringLiteralSet = stringLiteralSet;
+    }
 }
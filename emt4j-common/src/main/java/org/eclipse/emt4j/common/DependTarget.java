@@ -22,6 +22,8 @@ import org.eclipse.emt4j.common.util.ClassUtil;
 
 import java.io.Serializable;
 import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public abstract class DependTarget implements Serializable {
 
@@ -47,6 +49,10 @@ public abstract class DependTarget implements Serializable {
         return (VMOption) this;
     }
 
+    public AgentMetrics asAgentMetrics() {
+        return (AgentMetrics) this;
+    }
+
     public DependType type() {
         return type;
     }
@@ -125,6 +131,11 @@ public abstract class DependTarget implements Serializable {
             this.locationExternalForm = location.toExternalForm();
         }
 
+        public Location(String locationExternalForm, DependType dependType) {
+            super(dependType);
+            this.locationExternalForm = locationExternalForm;
+        }
+
         public String getLocationExternalForm() {
             return locationExternalForm;
         }
@@ -215,4 +226,40 @@ public abstract class DependTarget implements Serializable {
             return vmOption;
         }
     }
+
+    /**
+     * A summary of the agent's own overhead, the metrics are kept in the order they were put.
+     */
+    public static class AgentMetrics extends DependTarget {
+        private final LinkedHashMap<String, Long> metrics;
+
+        public AgentMetrics(Map<String, Long> metrics) {
+            super(DependType.AGENT_METRICS);
+            this.metrics = new LinkedHashMap<>(metrics);
+        }
+
+        public Map<String, Long> getMetrics() {
+            return metrics;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            AgentMetrics that = (AgentMetrics) o;
+
+            return metrics.equals(that.metrics);
+        }
+
+        @Override
+        public int hashCode() {
+            return metrics.hashCode();
+        }
+
+        @Override
+        public String desc() {
+            return metrics.toString();
+        }
+    }
 }
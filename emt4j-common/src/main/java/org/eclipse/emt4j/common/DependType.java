@@ -47,5 +47,10 @@ public enum DependType {
     /**
      * A specific class reference.Contains the symbols of the class
      */
-    WHOLE_CLASS;
+    WHOLE_CLASS,
+
+    /**
+     * The overhead of the agent itself, not a dependency to check
+     */
+    AGENT_METRICS;
 }
@@ -70,6 +70,10 @@ public class Dependency implements Serializable, Cloneable {
         return locationExternalForm;
     }
 
+    public void setLocationExternalForm(String locationExternalForm) {
+        this.locationExternalForm = locationExternalForm;
+    }
+
     public void setTarget(DependTarget target) {
         this.target = target;
     }
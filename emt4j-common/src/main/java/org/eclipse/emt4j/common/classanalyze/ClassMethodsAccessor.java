@@ -40,7 +40,8 @@ public interface ClassMethodsAccessor {
     void visitGivenMethodList(Class targetClass, List<String> methodNameList, MethodVisitor methodVisitor);
 
     /**
-     * Get all reference classes in targetClass
+     * Get all reference classes in targetClass.
+     * The result is cached with the class, so it cannot be modified.
      *
      * @param targetClass
      * @return
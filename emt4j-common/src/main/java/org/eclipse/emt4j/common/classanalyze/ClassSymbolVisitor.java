@@ -0,0 +1,436 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.classanalyze;
+
+import org.eclipse.emt4j.common.ClassSymbol;
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.objectweb.asm.*;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.util.*;
+
+import static org.objectweb.asm.Opcodes.ASM9;
+
+/**
+ * Collect all symbols that rules need from a class in one pass of <code>ClassReader.accept</code>.
+ * <p>
+ * The types, called methods with their lines and constant pool strings are recorded from method bodies
+ * as before. Besides those, the internal names, descriptors and string literals referenced anywhere in the class
+ * are recorded, so {@link PackageUsageScanner} can match them without reading the bytecode again.
+ */
+class ClassSymbolVisitor extends ClassVisitor {
+
+    private final Set<String> typeSet = new HashSet<>();
+    private final Set<DependTarget.Method> callMethodSet = new HashSet<>();
+    private final Map<DependTarget.Method, List<Integer>> callMethodToLines = new HashMap<>();
+    private final Set<String> constantPoolSet = new HashSet<>();
+
+    private final Set<String> internalNameSet = new HashSet<>();
+    private final Set<String> descriptorSet = new HashSet<>();
+    private final Set<String> stringLiteralSet = new HashSet<>();
+
+    private final SymbolMethodVisitor methodVisitor = new SymbolMethodVisitor();
+    private final SignatureVisitor signatureVisitor = new SignatureVisitor(ASM9) {
+        @Override
+        public void visitClassType(String name) {
+            addInternalName(name);
+        }
+    };
+
+    private String className;
+
+    ClassSymbolVisitor() {
+        super(ASM9);
+    }
+
+    /**
+     * Parse the bytecode and return all symbols of the class.
+     *
+     * @param bytecode content of a class file
+     * @return symbols of the class, the class name is in internal form.
+     */
+    static ClassSymbol read(byte[] bytecode) {
+        ClassSymbolVisitor visitor = new ClassSymbolVisitor();
+        visitor.accept(bytecode);
+        return visitor.toClassSymbol(visitor.className);
+    }
+
+    void accept(byte[] bytecode) {
+        new ClassReader(bytecode).accept(this, 0);
+    }
+
+    ClassSymbol toClassSymbol(String className) {
+        ClassSymbol classSymbol = new ClassSymbol();
+        classSymbol.setCallMethodSet(callMethodSet);
+        classSymbol.setCallMethodToLines(callMethodToLines);
+        classSymbol.setConstantPoolSet(constantPoolSet);
+        classSymbol.setTypeSet(typeSet);
+        classSymbol.setInternalNameSet(internalNameSet);
+        classSymbol.setDescriptorSet(descriptorSet);
+        classSymbol.setStringLiteralSet(stringLiteralSet);
+        classSymbol.setClassName(className);
+        return classSymbol;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        className = name;
+        addInternalName(name);
+        addInternalName(superName);
+        if (interfaces != null) {
+            for (String itf : interfaces) {
+                addInternalName(itf);
+            }
+        }
+        addSignature(signature);
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+        addDescriptor(descriptor);
+        return null;
+    }
+
+    @Override
+    public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+        addDescriptor(descriptor);
+        return null;
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+        addDescriptor(descriptor);
+        if (value instanceof String) {
+            addStringLiteral((String) value);
+        } else if (value instanceof Type) {
+            addDescriptor(((Type) value).getDescriptor());
+        }
+        addSignature(signature);
+        return new FieldVisitor(ASM9) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return null;
+            }
+
+            @Override
+            public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        addDescriptor(descriptor);
+        addSignature(signature);
+        if (exceptions != null) {
+            for (String ex : exceptions) {
+                addInternalName(ex);
+            }
+        }
+        return methodVisitor;
+    }
+
+    @Override
+    public RecordComponentVisitor visitRecordComponent(String name, String descriptor, String signature) {
+        addDescriptor(descriptor);
+        addSignature(signature);
+        return new RecordComponentVisitor(ASM9) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return null;
+            }
+
+            @Override
+            public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+                addDescriptor(descriptor);
+                return null;
+            }
+        };
+    }
+
+    private void addInternalName(String internalName) {
+        if (internalName != null && !internalName.isEmpty()) {
+            internalNameSet.add(internalName);
+        }
+    }
+
+    private void addDescriptor(String descriptor) {
+        if (descriptor != null && !descriptor.isEmpty()) {
+            descriptorSet.add(descriptor);
+        }
+    }
+
+    private void addStringLiteral(String text) {
+        if (text != null && !text.isEmpty()) {
+            stringLiteralSet.add(text);
+        }
+    }
+
+    private void addSignature(String signature) {
+        if (signature == null || signature.isEmpty()) {
+            return;
+        }
+        try {
+            new SignatureReader(signature).accept(signatureVisitor);
+        } catch (Throwable ignored) {
+        }
+    }
+
+    private void addConstant(Object value) {
+        if (value instanceof String) {
+            addStringLiteral((String) value);
+        } else if (value instanceof Type) {
+            addDescriptor(((Type) value).getDescriptor());
+        } else if (value instanceof Handle) {
+            addHandle((Handle) value);
+        }
+    }
+
+    private void addHandle(Handle handle) {
+        addInternalName(handle.getOwner());
+        addDescriptor(handle.getDesc());
+    }
+
+    /**
+     * Only one instance for a class, so the current line is kept across methods just as the symbol
+     * collecting always did.
+     */
+    private class SymbolMethodVisitor extends MethodVisitor {
+
+        private int currentLine;
+
+        SymbolMethodVisitor() {
+            super(ASM9);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            addDescriptor(descriptor);
+            add(parseInternalForms(descriptor));
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            addDescriptor(descriptor);
+            add(descriptor);
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+            addDescriptor(descriptor);
+            add(descriptor);
+            return null;
+        }
+
+        @Override
+        public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+            if (numLocal > 0 && local != null) {
+                for (Object o : local) {
+                    if (o instanceof String) {
+                        addLocalAndStack((String) o);
+                    }
+                }
+            }
+            if (numStack > 0 && stack != null) {
+                for (Object o : stack) {
+                    if (o instanceof String) {
+                        addLocalAndStack((String) o);
+                    }
+                }
+            }
+        }
+
+        private void addLocalAndStack(String o) {
+            if (o.length() > 1) {
+                if ((o.charAt(0) == '[' || o.charAt(0) == 'L') && o.charAt(o.length() - 1) == ';') {
+                    add(parseInternalForms(o));
+                } else {
+                    add(normalize(o));
+                }
+            }
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            addInternalName(type);
+            add(normalize(type));
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            addInternalName(owner);
+            addDescriptor(descriptor);
+            add(normalize(owner));
+            add(parseInternalForms(descriptor));
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            addInternalName(owner);
+            addDescriptor(descriptor);
+            add(normalize(owner));
+            add(parseMethodDescriptor(descriptor));
+            //Not taking descriptor as a part of a method is deliberate.
+            //in agent, we need intercept some JDK methods, when the method was called,it will call
+            //out callback methods.In the callback methods, get the descriptor of the intercepted method is difficult.
+            //Also, we can pass the descriptor as a parameter to the callback method,but it lead core dump at C2.
+            //So we use the stack trace to get the intercepted method,but in stack trace we only get method name.
+            //For simply,we omit the descriptor of method all in jdk migration tool.
+            //Omit the descriptor have no problem for functional.
+            DependTarget.Method dependTarget = new DependTarget.Method(normalize(owner), name, descriptor, DependType.METHOD);
+            callMethodSet.add(dependTarget);
+            callMethodToLines.computeIfAbsent(dependTarget, i -> new ArrayList<>()).add(currentLine);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            addDescriptor(descriptor);
+            if (bootstrapMethodHandle != null) {
+                addHandle(bootstrapMethodHandle);
+            }
+            if (bootstrapMethodArguments != null) {
+                for (Object arg : bootstrapMethodArguments) {
+                    addConstant(arg);
+                }
+            }
+        }
+
+        @Override
+        public void visitLineNumber(int line, Label start) {
+            currentLine = line;
+        }
+
+        @Override
+        public void visitTryCatchBlock(Label start, Label end, Label handler, String type) {
+            addInternalName(type);
+        }
+
+        /**
+         * For array type, the dimension can > 2, but considering the normal case,
+         * we only process the dimension <= 2.
+         *
+         * @param value
+         */
+        @Override
+        public void visitLdcInsn(Object value) {
+            addConstant(value);
+            if (value instanceof String) {
+                add((String) value);
+                constantPoolSet.add((String) value);
+            } else if (value instanceof Type) {
+                Type type = (Type) value;
+                int sort = type.getSort();
+                if (sort == Type.OBJECT) {
+                    add(type.getClassName());
+                    constantPoolSet.add(type.getClassName());
+                } else if (sort == Type.ARRAY) {
+                    Type elementType = type.getElementType();
+                    if (elementType.getSort() == Type.OBJECT) {
+                        add(elementType.getClassName());
+                        constantPoolSet.add(elementType.getClassName());
+                    } else if (elementType.getSort() == Type.ARRAY) {
+                        Type elementElementType = elementType.getElementType();
+                        if (elementElementType.getSort() == Type.OBJECT) {
+                            add(elementElementType.getClassName());
+                            constantPoolSet.add(elementElementType.getClassName());
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            addDescriptor(descriptor);
+            add(parseInternalForms(descriptor));
+        }
+
+        @Override
+        public void visitLocalVariable(String name, String descriptor, String signature, Label start, Label end, int index) {
+            addDescriptor(descriptor);
+            addSignature(signature);
+            add(parseInternalForms(descriptor));
+        }
+
+        private void add(String maybeClass) {
+            if (maybeClass != null) {
+                typeSet.add(maybeClass);
+            }
+        }
+
+        private void add(List<String> classNames) {
+            for (String className : classNames) {
+                add(className);
+            }
+        }
+    }
+
+    private static String normalize(String internal) {
+        if (null != internal) {
+            return internal.replace('/', '.');
+        } else {
+            return null;
+        }
+    }
+
+    private static List<String> parseMethodDescriptor(String descriptor) {
+        String paramPart = descriptor.substring(descriptor.indexOf('(') + 1, descriptor.indexOf(')'));
+        String returnPart = descriptor.substring(descriptor.indexOf(')') + 1);
+        List<String> classNames = new ArrayList<>();
+        classNames.addAll(parseInternalForms(paramPart));
+        if (!"V".equals(returnPart)) {
+            classNames.addAll(parseInternalForms(returnPart));
+        }
+        return classNames;
+    }
+
+    private static List<String> parseInternalForms(String internalForm) {
+        List<String> classNames = new ArrayList<>();
+        boolean findingClass = false;
+        int classStart = 0;
+        for (int i = 0; i < internalForm.length(); i++) {
+            char c = internalForm.charAt(i);
+            if (findingClass) {
+                if (c == ';') {
+                    classNames.add(normalize(internalForm.substring(classStart, i)));
+                    findingClass = false;
+                }
+            } else {
+                if (c == 'B' || c == 'C' || c == 'D' || c == 'F' || c ==
+                        'I' || c == 'J' || c == 'S' || c == 'Z' || c == '[') {
+                    continue;
+                } else if (c == 'L') {
+                    findingClass = true;
+                    classStart = i + 1;
+                } else {
+                    throw new RuntimeException("Unknown descriptor: " + internalForm);
+                }
+            }
+        }
+        return classNames;
+    }
+}
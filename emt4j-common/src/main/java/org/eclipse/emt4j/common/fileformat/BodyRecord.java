@@ -40,6 +40,12 @@ public class BodyRecord implements Serializable {
     ReportCheckResult checkResult;
     Feature feature;
 
+    /**
+     * How many times the same finding is found besides this one, when records of several files are merged.
+     * It's not written to files, and it's private and transient so the serialization form is unchanged.
+     */
+    private transient int duplicates;
+
     public Dependency getDependency() {
         return dependency;
     }
@@ -63,4 +69,15 @@ public class BodyRecord implements Serializable {
     public void setFeature(Feature feature) {
         this.feature = feature;
     }
+
+    /**
+     * @return the number of the merged records that describe the same finding, at least 1.
+     */
+    public int getOccurrences() {
+        return duplicates + 1;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.duplicates = occurrences - 1;
+    }
 }
@@ -0,0 +1,499 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.fileformat;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.SourceInformation;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.eclipse.emt4j.common.fileformat.CompactRecordEncoder.*;
+
+/**
+ * Decode the frames that written by {@link CompactRecordEncoder}.
+ * The frames must be decoded in the order they are written, because the string table is built along the way.
+ * A decoder is not thread-safe.
+ */
+public class CompactRecordDecoder {
+    private static final DependType[] DEPEND_TYPES = DependType.values();
+
+    private final List<String> stringTable;
+    private final boolean completeTable;
+
+    public CompactRecordDecoder() {
+        this.stringTable = new ArrayList<>();
+        this.completeTable = false;
+    }
+
+    /**
+     * Create a decoder with the string table that built by decoding all frames of a file,
+     * such a decoder can decode the frames of that file in any order.
+     */
+    CompactRecordDecoder(List<String> completeTable) {
+        this.stringTable = completeTable;
+        this.completeTable = true;
+    }
+
+    List<String> getStringTable() {
+        return stringTable;
+    }
+
+    /**
+     * Read the magic and the version after the magic.
+     *
+     * @return the version, or -1 if it's not a file of the compact format.
+     */
+    public static int readFixedHeader(InputStream in) throws IOException {
+        if (readInt(in) != FixedHeader.MAGIC) {
+            return -1;
+        }
+        return readInt(in);
+    }
+
+    /**
+     * Read the length of the next frame.
+     *
+     * @return the length, or -1 if there is no more frame.
+     * @throws EOFException if the stream ends in the middle of the length.
+     */
+    public static int readFrameLength(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return -1;
+        }
+        int value = b & 0x7F;
+        int shift = 7;
+        while ((b & 0x80) != 0) {
+            b = in.read();
+            if (b == -1) {
+                throw new EOFException("Truncated frame length");
+            }
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    /**
+     * Check the trailer that follows the zero length written by {@link CompactRecordEncoder#writeTrailer(java.io.OutputStream)}.
+     *
+     * @param trailer  the remaining bytes of the file after the zero length
+     * @param records  the number of records that read before the trailer
+     * @param checksum the CRC32 of all payloads that read before the trailer
+     * @return true if the trailer is complete, it matches the frames and nothing follows it.
+     */
+    static boolean checkTrailer(ByteBuffer trailer, long records, long checksum) {
+        try {
+            return readVarLong(trailer) == records && trailer.getInt() == (int) checksum && !trailer.hasRemaining();
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    public VariableHeader decodeVariableHeader(ByteBuffer frame) throws IOException {
+        VariableHeader vh = new VariableHeader();
+        vh.setFromVersion(readVarint(frame));
+        vh.setToVersion(readVarint(frame));
+        vh.setVmOption(readString(frame));
+        long date = readVarLong(frame);
+        vh.setDate(date == 0 ? null : new Date(date - 1));
+        vh.setFeatures(readStrings(frame));
+        return vh;
+    }
+
+    public BodyRecord decodeRecord(ByteBuffer frame) throws IOException {
+        BodyRecord record = new BodyRecord();
+        int flags = frame.get();
+        String feature = readString(frame);
+        if (feature != null) {
+            record.setFeature(Feature.valueOf(feature));
+        }
+        if ((flags & HAS_DEPENDENCY) != 0) {
+            record.setDependency(readDependency(frame));
+        }
+        if ((flags & HAS_CHECK_RESULT) != 0) {
+            record.setCheckResult(readCheckResult(frame));
+        }
+        return record;
+    }
+
+    /**
+     * Read only the strings of a record to grow the string table, the other fields are skipped without being decoded.
+     *
+     * @return the feature of the record.
+     */
+    public Feature skipRecord(ByteBuffer frame) throws IOException {
+        int flags = frame.get();
+        String feature = readString(frame);
+        if ((flags & HAS_DEPENDENCY) != 0) {
+            skipDependency(frame);
+        }
+        if ((flags & HAS_CHECK_RESULT) != 0) {
+            skipCheckResult(frame);
+        }
+        return feature == null ? null : Feature.valueOf(feature);
+    }
+
+    private void skipDependency(ByteBuffer frame) throws IOException {
+        skipStrings(frame, 1);
+        skipTarget(frame);
+        skipStrings(frame, 2);
+        int stacktraceLength = readVarint(frame);
+        for (int i = 0; i < stacktraceLength - 1; i++) {
+            skipStrings(frame, 3);
+            readVarint(frame);
+        }
+        if (frame.get() != 0) {
+            skipStrings(frame, 1);
+            frame.get();
+            int extrasLength = readVarint(frame);
+            skipStrings(frame, extrasLength - 1);
+        }
+        int linesLength = readVarint(frame);
+        for (int i = 0; i < linesLength - 1; i++) {
+            readVarint(frame);
+        }
+    }
+
+    private void skipTarget(ByteBuffer frame) throws IOException {
+        int kind = frame.get();
+        switch (kind) {
+            case TARGET_NULL:
+                return;
+            case TARGET_METHOD:
+                readVarint(frame);
+                skipStrings(frame, 3);
+                return;
+            case TARGET_LOCATION:
+            case TARGET_CLASS:
+                readVarint(frame);
+                skipStrings(frame, 1);
+                return;
+            case TARGET_VM_OPTION:
+                skipStrings(frame, 1);
+                return;
+            case TARGET_AGENT_METRICS: {
+                int size = readVarint(frame);
+                for (int i = 0; i < size; i++) {
+                    skipStrings(frame, 1);
+                    readVarLong(frame);
+                }
+                return;
+            }
+            default:
+                throw new StreamCorruptedException("Unknown depend target: " + kind);
+        }
+    }
+
+    private void skipCheckResult(ByteBuffer frame) throws IOException {
+        frame.get();
+        skipStrings(frame, 3);
+        int contextSize = readVarint(frame);
+        for (int i = 0; i < contextSize - 1; i++) {
+            skipStrings(frame, 1);
+            skipValue(frame);
+        }
+    }
+
+    private void skipValue(ByteBuffer frame) throws IOException {
+        int kind = frame.get();
+        switch (kind) {
+            case VALUE_NULL:
+                return;
+            case VALUE_STRING:
+                skipStrings(frame, 1);
+                return;
+            case VALUE_STRING_LIST:
+            case VALUE_STRING_SET:
+                skipStrings(frame, readVarint(frame));
+                return;
+            case VALUE_INTEGER:
+                readVarint(frame);
+                return;
+            case VALUE_BOOLEAN:
+                frame.get();
+                return;
+            case VALUE_SERIALIZED:
+                skipBytes(frame, readVarint(frame));
+                return;
+            default:
+                throw new StreamCorruptedException("Unknown value kind: " + kind);
+        }
+    }
+
+    /**
+     * Only the new strings are decoded, since they are added to the string table.
+     */
+    private void skipStrings(ByteBuffer frame, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            int tag = readVarint(frame);
+            if (tag == STRING_NEW && !completeTable) {
+                byte[] bytes = new byte[readVarint(frame)];
+                frame.get(bytes);
+                stringTable.add(new String(bytes, StandardCharsets.UTF_8));
+            } else if (tag == STRING_NEW || tag == STRING_LITERAL) {
+                skipBytes(frame, readVarint(frame));
+            } else if (tag >= STRING_REF_BASE && tag - STRING_REF_BASE >= stringTable.size()) {
+                throw new StreamCorruptedException("Unknown string index: " + (tag - STRING_REF_BASE));
+            }
+        }
+    }
+
+    private static void skipBytes(ByteBuffer frame, int length) {
+        if (length > frame.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        // Call position(int) of Buffer, since the override of ByteBuffer doesn't exist in Java 8.
+        ((Buffer) frame).position(frame.position() + length);
+    }
+
+    private Dependency readDependency(ByteBuffer frame) throws IOException {
+        Dependency dependency = new Dependency();
+        dependency.setLocationExternalForm(readString(frame));
+        dependency.setTarget(readTarget(frame));
+        dependency.setTargetFilePath(readString(frame));
+        dependency.setCallerMethod(readString(frame));
+
+        int stacktraceLength = readVarint(frame);
+        if (stacktraceLength > 0) {
+            StackTraceElement[] stacktrace = new StackTraceElement[stacktraceLength - 1];
+            for (int i = 0; i < stacktrace.length; i++) {
+                String className = readString(frame);
+                String methodName = readString(frame);
+                String fileName = readString(frame);
+                stacktrace[i] = new StackTraceElement(className, methodName, fileName, readSignedVarint(frame));
+            }
+            dependency.setStacktrace(stacktrace);
+        }
+
+        if (frame.get() != 0) {
+            SourceInformation sourceInformation = new SourceInformation();
+            sourceInformation.setIdentifier(readString(frame));
+            sourceInformation.setDependency(frame.get() != 0);
+            int extrasLength = readVarint(frame);
+            if (extrasLength > 0) {
+                String[] extras = new String[extrasLength - 1];
+                for (int i = 0; i < extras.length; i++) {
+                    extras[i] = readString(frame);
+                }
+                sourceInformation.setExtras(extras);
+            }
+            dependency.setSourceInformation(sourceInformation);
+        }
+
+        int linesLength = readVarint(frame);
+        if (linesLength > 0) {
+            List<Integer> lines = new ArrayList<>(linesLength - 1);
+            for (int i = 0; i < linesLength - 1; i++) {
+                lines.add(readSignedVarint(frame));
+            }
+            dependency.setLines(lines);
+        }
+        return dependency;
+    }
+
+    private DependTarget readTarget(ByteBuffer frame) throws IOException {
+        int kind = frame.get();
+        switch (kind) {
+            case TARGET_NULL:
+                return null;
+            case TARGET_METHOD: {
+                DependType type = DEPEND_TYPES[readVarint(frame)];
+                String className = readString(frame);
+                String methodName = readString(frame);
+                return new DependTarget.Method(className, methodName, readString(frame), type);
+            }
+            case TARGET_LOCATION: {
+                DependType type = DEPEND_TYPES[readVarint(frame)];
+                return new DependTarget.Location(readString(frame), type);
+            }
+            case TARGET_CLASS: {
+                DependType type = DEPEND_TYPES[readVarint(frame)];
+                return new DependTarget.Class(readString(frame), type);
+            }
+            case TARGET_VM_OPTION:
+                return new DependTarget.VMOption(readString(frame));
+            case TARGET_AGENT_METRICS: {
+                int size = readVarint(frame);
+                Map<String, Long> metrics = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String name = readString(frame);
+                    metrics.put(name, readVarLong(frame));
+                }
+                return new DependTarget.AgentMetrics(metrics);
+            }
+            default:
+                throw new StreamCorruptedException("Unknown depend target: " + kind);
+        }
+    }
+
+    private ReportCheckResult readCheckResult(ByteBuffer frame) throws IOException {
+        ReportCheckResult checkResult = new ReportCheckResult(frame.get() != 0);
+        checkResult.setResultCode(readString(frame));
+        checkResult.setSubResultCode(readString(frame));
+        checkResult.setPriority(readString(frame));
+        int contextSize = readVarint(frame);
+        if (contextSize > 0) {
+            Map<String, Object> context = new HashMap<>();
+            for (int i = 0; i < contextSize - 1; i++) {
+                String key = readString(frame);
+                context.put(key, readValue(frame));
+            }
+            checkResult.setContext(context);
+        }
+        return checkResult;
+    }
+
+    private Object readValue(ByteBuffer frame) throws IOException {
+        int kind = frame.get();
+        switch (kind) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return readString(frame);
+            case VALUE_STRING_LIST: {
+                int size = readVarint(frame);
+                List<String> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readString(frame));
+                }
+                return list;
+            }
+            case VALUE_STRING_SET: {
+                int size = readVarint(frame);
+                Set<String> set = new LinkedHashSet<>();
+                for (int i = 0; i < size; i++) {
+                    set.add(readString(frame));
+                }
+                return set;
+            }
+            case VALUE_INTEGER:
+                return readSignedVarint(frame);
+            case VALUE_BOOLEAN:
+                return frame.get() != 0;
+            case VALUE_SERIALIZED: {
+                byte[] bytes = new byte[readVarint(frame)];
+                frame.get(bytes);
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return ois.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(e);
+                }
+            }
+            default:
+                throw new StreamCorruptedException("Unknown value kind: " + kind);
+        }
+    }
+
+    private List<String> readStrings(ByteBuffer frame) throws IOException {
+        int size = readVarint(frame);
+        if (size == 0) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            strings.add(readString(frame));
+        }
+        return strings;
+    }
+
+    private String readString(ByteBuffer frame) throws IOException {
+        int tag = readVarint(frame);
+        if (tag == STRING_NULL) {
+            return null;
+        }
+        if (tag >= STRING_REF_BASE) {
+            int index = tag - STRING_REF_BASE;
+            if (index >= stringTable.size()) {
+                throw new StreamCorruptedException("Unknown string index: " + index);
+            }
+            return stringTable.get(index);
+        }
+        byte[] bytes = new byte[readVarint(frame)];
+        frame.get(bytes);
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        if (tag == STRING_NEW && !completeTable) {
+            stringTable.add(s);
+        }
+        return s;
+    }
+
+    private static int readSignedVarint(ByteBuffer frame) {
+        int value = readVarint(frame);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int readVarint(ByteBuffer frame) {
+        int b = frame.get();
+        int value = b & 0x7F;
+        int shift = 7;
+        while ((b & 0x80) != 0) {
+            b = frame.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static long readVarLong(ByteBuffer frame) {
+        long b = frame.get();
+        long value = b & 0x7F;
+        int shift = 7;
+        while ((b & 0x80) != 0) {
+            b = frame.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = in.read();
+            if (b == -1) {
+                return -1;
+            }
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+}
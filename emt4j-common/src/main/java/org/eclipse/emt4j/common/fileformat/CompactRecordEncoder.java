@@ -0,0 +1,350 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.fileformat;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.SourceInformation;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Encode the header and records of the compact format.
+ * <p>
+ * After the magic and the version, the file is a sequence of frames, each frame is the length of its payload
+ * as a varint followed by the payload. The first frame is the variable header, each of the others is a record.
+ * A payload is never empty, so a zero length marks the trailer that written when closing: the number of records
+ * as a varint and the CRC32 of all payloads as an int. A file without a valid trailer was not closed normally,
+ * such as the agent was killed, its complete frames can still be read.
+ * <p>
+ * The strings are interned in a string table that shared by all frames of a file: the first occurrence of a string
+ * is written literally and assigned the next index, later occurrences only write the index.
+ * The table is bounded by {@link #MAX_STRING_TABLE_SIZE}, strings that are not interned are always written literally,
+ * so the memory of both the encoder and the decoder is bounded.
+ * An encoder is not thread-safe.
+ */
+public class CompactRecordEncoder {
+    public static final int MAX_STRING_TABLE_SIZE = 1 << 16;
+
+    static final int STRING_NULL = 0;
+    static final int STRING_NEW = 1;
+    static final int STRING_LITERAL = 2;
+    static final int STRING_REF_BASE = 3;
+
+    static final int TARGET_NULL = 0;
+    static final int TARGET_METHOD = 1;
+    static final int TARGET_LOCATION = 2;
+    static final int TARGET_CLASS = 3;
+    static final int TARGET_VM_OPTION = 4;
+    static final int TARGET_AGENT_METRICS = 5;
+
+    static final int VALUE_NULL = 0;
+    static final int VALUE_STRING = 1;
+    static final int VALUE_STRING_LIST = 2;
+    static final int VALUE_STRING_SET = 3;
+    static final int VALUE_INTEGER = 4;
+    static final int VALUE_BOOLEAN = 5;
+    static final int VALUE_SERIALIZED = 6;
+
+    static final int HAS_DEPENDENCY = 1;
+    static final int HAS_CHECK_RESULT = 1 << 1;
+
+    static final int TRAILER_MARKER = 0;
+
+    private final Map<String, Integer> stringTable = new HashMap<>();
+    private final List<String> internedStrings = new ArrayList<>();
+    /**
+     * The buffer is reused by all frames, so it only grows to the size of the largest frame.
+     */
+    private final Payload payload = new Payload();
+    private final CRC32 checksum = new CRC32();
+    private long records;
+
+    /**
+     * Write the magic and the version of the compact format.
+     */
+    public void writeFixedHeader(OutputStream out) throws IOException {
+        writeInt(out, FixedHeader.MAGIC);
+        writeInt(out, FixedHeader.VERSION_COMPACT);
+    }
+
+    public void writeVariableHeader(OutputStream out, VariableHeader vh) throws IOException {
+        payload.reset();
+        writeVarint(payload, vh.getFromVersion());
+        writeVarint(payload, vh.getToVersion());
+        writeString(vh.getVmOption());
+        writeVarLong(payload, vh.getDate() == null ? 0 : vh.getDate().getTime() + 1);
+        writeStrings(vh.getFeatures());
+        writeFrame(out);
+    }
+
+    public void writeRecord(OutputStream out, BodyRecord record) throws IOException {
+        payload.reset();
+        int internedBefore = internedStrings.size();
+        try {
+            encodeRecord(record);
+        } catch (IOException | RuntimeException e) {
+            // the record is dropped, so are the strings interned by it.
+            while (internedStrings.size() > internedBefore) {
+                stringTable.remove(internedStrings.remove(internedStrings.size() - 1));
+            }
+            throw e;
+        }
+        writeFrame(out);
+        records++;
+    }
+
+    /**
+     * Write the trailer after the last record, no frame can be written after it.
+     */
+    public void writeTrailer(OutputStream out) throws IOException {
+        writeVarint(out, TRAILER_MARKER);
+        writeVarLong(out, records);
+        writeInt(out, (int) checksum.getValue());
+    }
+
+    private void encodeRecord(BodyRecord record) throws IOException {
+        int flags = (record.getDependency() != null ? HAS_DEPENDENCY : 0)
+                | (record.getCheckResult() != null ? HAS_CHECK_RESULT : 0);
+        payload.write(flags);
+        writeString(record.getFeature() == null ? null : record.getFeature().name());
+        if (record.getDependency() != null) {
+            writeDependency(record.getDependency());
+        }
+        if (record.getCheckResult() != null) {
+            writeCheckResult(record.getCheckResult());
+        }
+    }
+
+    private void writeFrame(OutputStream out) throws IOException {
+        writeVarint(out, payload.size());
+        payload.writeTo(out);
+        payload.update(checksum);
+    }
+
+    private void writeDependency(Dependency dependency) throws IOException {
+        writeString(dependency.getLocationExternalForm());
+        writeTarget(dependency.getTarget());
+        writeString(dependency.getTargetFilePath());
+        writeString(dependency.getCallerMethod());
+
+        StackTraceElement[] stacktrace = dependency.getStacktrace();
+        writeVarint(payload, stacktrace == null ? 0 : stacktrace.length + 1);
+        if (stacktrace != null) {
+            for (StackTraceElement element : stacktrace) {
+                writeString(element.getClassName());
+                writeString(element.getMethodName());
+                writeString(element.getFileName());
+                writeSignedVarint(element.getLineNumber());
+            }
+        }
+
+        SourceInformation sourceInformation = dependency.getSourceInformation();
+        payload.write(sourceInformation == null ? 0 : 1);
+        if (sourceInformation != null) {
+            writeString(sourceInformation.getIdentifier());
+            payload.write(sourceInformation.isDependency() ? 1 : 0);
+            String[] extras = sourceInformation.getExtras();
+            writeVarint(payload, extras == null ? 0 : extras.length + 1);
+            if (extras != null) {
+                for (String extra : extras) {
+                    writeString(extra);
+                }
+            }
+        }
+
+        List<Integer> lines = dependency.getLines();
+        writeVarint(payload, lines == null ? 0 : lines.size() + 1);
+        if (lines != null) {
+            for (Integer line : lines) {
+                writeSignedVarint(line);
+            }
+        }
+    }
+
+    private void writeTarget(DependTarget target) throws IOException {
+        if (target == null) {
+            payload.write(TARGET_NULL);
+        } else if (target instanceof DependTarget.Method) {
+            DependTarget.Method method = target.asMethod();
+            payload.write(TARGET_METHOD);
+            writeVarint(payload, target.type().ordinal());
+            writeString(method.getClassName());
+            writeString(method.getMethodName());
+            writeString(method.getDesc());
+        } else if (target instanceof DependTarget.Location) {
+            payload.write(TARGET_LOCATION);
+            writeVarint(payload, target.type().ordinal());
+            writeString(target.asLocation().getLocationExternalForm());
+        } else if (target instanceof DependTarget.Class) {
+            payload.write(TARGET_CLASS);
+            writeVarint(payload, target.type().ordinal());
+            writeString(target.asClass().getClassName());
+        } else if (target instanceof DependTarget.VMOption) {
+            payload.write(TARGET_VM_OPTION);
+            writeString(target.asVMOption().getVmOption());
+        } else if (target instanceof DependTarget.AgentMetrics) {
+            payload.write(TARGET_AGENT_METRICS);
+            Map<String, Long> metrics = target.asAgentMetrics().getMetrics();
+            writeVarint(payload, metrics.size());
+            for (Map.Entry<String, Long> entry : metrics.entrySet()) {
+                writeString(entry.getKey());
+                writeVarLong(payload, entry.getValue());
+            }
+        } else {
+            throw new IOException("Unknown depend target: " + target.getClass().getName());
+        }
+    }
+
+    private void writeCheckResult(ReportCheckResult checkResult) throws IOException {
+        payload.write(checkResult.isPass() ? 1 : 0);
+        writeString(checkResult.getResultCode());
+        writeString(checkResult.getSubResultCode());
+        writeString(checkResult.getPriority());
+        Map<String, Object> context = checkResult.getContext();
+        writeVarint(payload, context == null ? 0 : context.size() + 1);
+        if (context != null) {
+            for (Map.Entry<String, Object> entry : context.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            payload.write(VALUE_NULL);
+        } else if (value instanceof String) {
+            payload.write(VALUE_STRING);
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            payload.write(VALUE_INTEGER);
+            writeSignedVarint((Integer) value);
+        } else if (value instanceof Boolean) {
+            payload.write(VALUE_BOOLEAN);
+            payload.write((Boolean) value ? 1 : 0);
+        } else if ((value instanceof List || value instanceof Set) && allStrings((Collection<?>) value)) {
+            payload.write(value instanceof List ? VALUE_STRING_LIST : VALUE_STRING_SET);
+            writeVarint(payload, ((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                writeString((String) element);
+            }
+        } else {
+            // rarely used, keep whatever the rule put into the context.
+            payload.write(VALUE_SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(value);
+            }
+            writeVarint(payload, bytes.size());
+            bytes.writeTo(payload);
+        }
+    }
+
+    private static boolean allStrings(Collection<?> collection) {
+        for (Object element : collection) {
+            if (!(element instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeStrings(List<String> strings) throws IOException {
+        writeVarint(payload, strings == null ? 0 : strings.size() + 1);
+        if (strings != null) {
+            for (String s : strings) {
+                writeString(s);
+            }
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        if (s == null) {
+            writeVarint(payload, STRING_NULL);
+            return;
+        }
+        Integer index = stringTable.get(s);
+        if (index != null) {
+            writeVarint(payload, STRING_REF_BASE + index);
+            return;
+        }
+        if (stringTable.size() < MAX_STRING_TABLE_SIZE) {
+            stringTable.put(s, internedStrings.size());
+            internedStrings.add(s);
+            writeVarint(payload, STRING_NEW);
+        } else {
+            writeVarint(payload, STRING_LITERAL);
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(payload, bytes.length);
+        payload.write(bytes, 0, bytes.length);
+    }
+
+    private void writeSignedVarint(int value) throws IOException {
+        writeVarint(payload, (value << 1) ^ (value >> 31));
+    }
+
+    static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static class Payload extends ByteArrayOutputStream {
+        Payload() {
+            super(512);
+        }
+
+        void update(Checksum checksum) {
+            checksum.update(buf, 0, count);
+        }
+    }
+}
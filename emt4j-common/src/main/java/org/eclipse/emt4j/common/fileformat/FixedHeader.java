@@ -22,7 +22,21 @@ import java.io.Serializable;
 
 public class FixedHeader implements Serializable {
     public static final int MAGIC = 0x68686868;
-    public static final int VERSION = 0x01;
+
+    /**
+     * The header and records are written with Java serialization.
+     */
+    public static final int VERSION_SERIALIZED = 0x01;
+
+    /**
+     * The header and records are written with the length-prefixed compact encoding, see {@link CompactRecordEncoder}.
+     */
+    public static final int VERSION_COMPACT = 0x02;
+
+    /**
+     * The version that written by default.
+     */
+    public static final int VERSION = VERSION_COMPACT;
 
     private int magic;
     private int version;
@@ -0,0 +1,349 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.fileformat;
+
+import org.eclipse.emt4j.common.Feature;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+
+/**
+ * A file of the compact format that memory-mapped instead of read into the heap.
+ * When opening, the file is scanned once to build an index that only contains the offset and the feature of each record,
+ * then the records can be iterated, fetched by position or iterated per feature,
+ * and each record is decoded only when it's requested.
+ * <p>
+ * A file that not closed normally by the writer is indexed until its last complete record, see {@link #isComplete()}.
+ * <p>
+ * The index is immutable after opening, so different threads can read by different cursors, but a cursor is not thread-safe.
+ * The files that written with Java serialization cannot be indexed, they can only be read by {@link RecordReader}.
+ */
+public class IndexedRecordFile implements Closeable, Iterable<BodyRecord> {
+    /**
+     * A mapped buffer cannot be larger than 2G, so a larger file is mapped as several segments,
+     * a segment always begins with a frame.
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private static final int FIXED_HEADER_SIZE = 8;
+    private static final Feature[] FEATURES = Feature.values();
+
+    private final FileChannel channel;
+    private final long[] segmentStarts;
+    private final ByteBuffer[] segments;
+    private final VariableHeader variableHeader;
+    private final List<String> stringTable;
+    private final int size;
+    private final long[] offsets;
+    /**
+     * The ordinal of the feature plus one, zero means the record has no feature.
+     */
+    private final byte[] features;
+    private final boolean complete;
+    private final int[][] featureIndexes = new int[FEATURES.length][];
+
+    private IndexedRecordFile(FileChannel channel, long[] segmentStarts, ByteBuffer[] segments, VariableHeader variableHeader,
+                              List<String> stringTable, int size, long[] offsets, byte[] features, boolean complete) {
+        this.channel = channel;
+        this.segmentStarts = segmentStarts;
+        this.segments = segments;
+        this.variableHeader = variableHeader;
+        this.stringTable = stringTable;
+        this.size = size;
+        this.offsets = offsets;
+        this.features = features;
+        this.complete = complete;
+    }
+
+    /**
+     * @return true if the file is written with the compact format, so it can be opened by {@link #open(File)}.
+     */
+    public static boolean isIndexable(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return CompactRecordDecoder.readFixedHeader(in) == FixedHeader.VERSION_COMPACT;
+        }
+    }
+
+    /**
+     * Map the file and build the index.
+     *
+     * @throws StreamCorruptedException if it's not a file of the compact format.
+     */
+    public static IndexedRecordFile open(File file) throws IOException {
+        return open(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    static IndexedRecordFile open(File file, int segmentSize) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            List<Long> segmentStarts = new ArrayList<>();
+            List<ByteBuffer> segments = new ArrayList<>();
+            long segmentStart = 0;
+            ByteBuffer segment = map(channel, segmentStart, fileSize, segmentSize);
+            segmentStarts.add(segmentStart);
+            segments.add(segment);
+            if (fileSize < FIXED_HEADER_SIZE || segment.getInt(0) != FixedHeader.MAGIC || segment.getInt(4) != FixedHeader.VERSION_COMPACT) {
+                throw new StreamCorruptedException("Not a file of the compact format: " + file);
+            }
+
+            CompactRecordDecoder decoder = new CompactRecordDecoder();
+            CRC32 checksum = new CRC32();
+            VariableHeader variableHeader = null;
+            boolean complete = false;
+            int size = 0;
+            long[] offsets = new long[1024];
+            byte[] features = new byte[1024];
+            long offset = FIXED_HEADER_SIZE;
+            while (offset < fileSize) {
+                ByteBuffer frame = segment.duplicate();
+                // Call position(int) and limit(int) of Buffer, since the overrides of ByteBuffer don't exist in Java 8.
+                ((Buffer) frame).position((int) (offset - segmentStart));
+                int length = readFrameLength(frame);
+                boolean lastSegment = segmentStart + segment.limit() == fileSize;
+                if (length == CompactRecordEncoder.TRAILER_MARKER && (lastSegment || segmentStart == offset)) {
+                    // The trailer is the rest of the file, if it's too large to be mapped, it's not a valid trailer.
+                    complete = lastSegment && variableHeader != null
+                            && CompactRecordDecoder.checkTrailer(frame, size, checksum.getValue());
+                    break;
+                }
+                if (length == -1 || length == CompactRecordEncoder.TRAILER_MARKER || frame.remaining() < length) {
+                    if (lastSegment) {
+                        // Truncated, the records before it are still readable.
+                        break;
+                    }
+                    if (segmentStart == offset) {
+                        throw new StreamCorruptedException("Frame at offset " + offset + " is larger than " + segmentSize + " bytes");
+                    }
+                    segmentStart = offset;
+                    segment = map(channel, segmentStart, fileSize, segmentSize);
+                    segmentStarts.add(segmentStart);
+                    segments.add(segment);
+                    continue;
+                }
+                ((Buffer) frame).limit(frame.position() + length);
+                checksum.update(frame.duplicate());
+                if (variableHeader == null) {
+                    variableHeader = decoder.decodeVariableHeader(frame);
+                } else {
+                    // Skip the record but grow the string table, only the feature is kept.
+                    Feature feature = decoder.skipRecord(frame);
+                    if (size == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, size * 2);
+                        features = Arrays.copyOf(features, size * 2);
+                    }
+                    offsets[size] = offset;
+                    features[size] = (byte) (feature == null ? 0 : feature.ordinal() + 1);
+                    size++;
+                }
+                offset = segmentStart + frame.limit();
+            }
+            if (variableHeader == null) {
+                throw new EOFException("No variable header in " + file);
+            }
+            return new IndexedRecordFile(channel, segmentStarts.stream().mapToLong(Long::longValue).toArray(),
+                    segments.toArray(new ByteBuffer[0]), variableHeader, decoder.getStringTable(), size, offsets, features, complete);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public VariableHeader getVariableHeader() {
+        return variableHeader;
+    }
+
+    /**
+     * @return true if the file ends with a trailer that matches the records,
+     * false if the writer was not closed normally, then only the complete records before the end are indexed.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the number of records in the file.
+     */
+    public int size() {
+        return size;
+    }
+
+    public Feature getFeature(int index) {
+        checkIndex(index);
+        return features[index] == 0 ? null : FEATURES[features[index] - 1];
+    }
+
+    public BodyRecord get(int index) throws IOException {
+        checkIndex(index);
+        return decode(new CompactRecordDecoder(stringTable), index);
+    }
+
+    /**
+     * @return a cursor over all records in the order they are written.
+     */
+    public Cursor cursor() {
+        return new Cursor(null, size);
+    }
+
+    /**
+     * @return a cursor over the records of the given feature in the order they are written.
+     */
+    public Cursor cursor(Feature feature) {
+        int[] indexes = indexesOf(feature);
+        return new Cursor(indexes, indexes.length);
+    }
+
+    @Override
+    public Iterator<BodyRecord> iterator() {
+        return cursor();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private synchronized int[] indexesOf(Feature feature) {
+        int[] indexes = featureIndexes[feature.ordinal()];
+        if (indexes == null) {
+            byte value = (byte) (feature.ordinal() + 1);
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (features[i] == value) {
+                    count++;
+                }
+            }
+            indexes = new int[count];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (features[i] == value) {
+                    indexes[j++] = i;
+                }
+            }
+            featureIndexes[feature.ordinal()] = indexes;
+        }
+        return indexes;
+    }
+
+    private BodyRecord decode(CompactRecordDecoder decoder, int index) throws IOException {
+        long offset = offsets[index];
+        int segment = Arrays.binarySearch(segmentStarts, offset);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+        ByteBuffer frame = segments[segment].duplicate();
+        ((Buffer) frame).position((int) (offset - segmentStarts[segment]));
+        int length = readFrameLength(frame);
+        ((Buffer) frame).limit(frame.position() + length);
+        return decoder.decodeRecord(frame);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long start, long fileSize, int segmentSize) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(fileSize - start, segmentSize));
+    }
+
+    /**
+     * @return the length of the frame, or -1 if the length itself exceeds the buffer.
+     */
+    private static int readFrameLength(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        while (buffer.hasRemaining()) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+        return -1;
+    }
+
+    /**
+     * Decode the records one by one, the decoded records are not retained.
+     */
+    public class Cursor implements Iterator<BodyRecord> {
+        private final int[] indexes;
+        private final int end;
+        private final CompactRecordDecoder decoder = new CompactRecordDecoder(stringTable);
+        private int position;
+
+        Cursor(int[] indexes, int end) {
+            this.indexes = indexes;
+            this.end = end;
+        }
+
+        /**
+         * @return the number of records that not read yet.
+         */
+        public int remaining() {
+            return end - position;
+        }
+
+        /**
+         * @return the next record, or null if there is no more record.
+         */
+        public BodyRecord read() throws IOException {
+            if (position == end) {
+                return null;
+            }
+            int index = indexes == null ? position : indexes[position];
+            position++;
+            return decode(decoder, index);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public BodyRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.fileformat;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamConstants;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * Read the header and records of a file that written by {@link RecordWriter} of any version,
+ * or by the previous versions of the analysis and agent.
+ */
+public abstract class RecordReader implements Closeable {
+    private static final int SERIALIZATION_MAGIC = (ObjectStreamConstants.STREAM_MAGIC << 16) | ObjectStreamConstants.STREAM_VERSION;
+
+    protected FixedHeader fixedHeader;
+    protected VariableHeader variableHeader;
+
+    /**
+     * Detect the format of the file, then read the headers.
+     *
+     * @throws StreamCorruptedException if it's not a file written by the analysis or agent.
+     */
+    public static RecordReader open(InputStream in) throws IOException, ClassNotFoundException {
+        BufferedInputStream bin = new BufferedInputStream(in);
+        bin.mark(4);
+        int magic = new DataInputStream(bin).readInt();
+        bin.reset();
+        if (magic == SERIALIZATION_MAGIC) {
+            return new SerializedRecordReader(bin);
+        }
+        int version = CompactRecordDecoder.readFixedHeader(bin);
+        if (version == FixedHeader.VERSION_COMPACT) {
+            return new CompactRecordReader(bin);
+        }
+        throw new StreamCorruptedException("Unknown file format, magic: " + Integer.toHexString(magic) + ", version: " + version);
+    }
+
+    public FixedHeader getFixedHeader() {
+        return fixedHeader;
+    }
+
+    public VariableHeader getVariableHeader() {
+        return variableHeader;
+    }
+
+    /**
+     * @return the next record, or null if there is no more record.
+     */
+    public abstract BodyRecord read() throws IOException, ClassNotFoundException;
+
+    /**
+     * A file that not closed normally by the writer, such as the process was killed, is read until its last complete record.
+     * It's only known after {@link #read()} returned null.
+     * The files written with Java serialization have no trailer, so they are always regarded as complete.
+     *
+     * @return true if all records are read and they match the trailer.
+     */
+    public boolean isComplete() {
+        return true;
+    }
+
+    private static class SerializedRecordReader extends RecordReader {
+        private final ObjectInputStream in;
+
+        SerializedRecordReader(InputStream in) throws IOException, ClassNotFoundException {
+            this.in = new ObjectInputStream(in);
+            this.fixedHeader = (FixedHeader) this.in.readObject();
+            if (fixedHeader.getMagic() != FixedHeader.MAGIC || fixedHeader.getVersion() != FixedHeader.VERSION_SERIALIZED) {
+                throw new StreamCorruptedException("Unknown file format, magic: " + Integer.toHexString(fixedHeader.getMagic())
+                        + ", version: " + fixedHeader.getVersion());
+            }
+            this.variableHeader = (VariableHeader) this.in.readObject();
+        }
+
+        @Override
+        public BodyRecord read() throws IOException, ClassNotFoundException {
+            try {
+                return (BodyRecord) in.readObject();
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static class CompactRecordReader extends RecordReader {
+        private final DataInputStream in;
+        private final CompactRecordDecoder decoder = new CompactRecordDecoder();
+        private final CRC32 checksum = new CRC32();
+        private byte[] buffer = new byte[512];
+        private long records;
+        private boolean end;
+        private boolean complete;
+
+        CompactRecordReader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            this.fixedHeader = new FixedHeader();
+            fixedHeader.setMagic(FixedHeader.MAGIC);
+            fixedHeader.setVersion(FixedHeader.VERSION_COMPACT);
+            ByteBuffer frame = readFrame();
+            if (frame == null) {
+                throw new EOFException("No variable header");
+            }
+            this.variableHeader = decoder.decodeVariableHeader(frame);
+        }
+
+        @Override
+        public BodyRecord read() throws IOException {
+            ByteBuffer frame = readFrame();
+            if (frame == null) {
+                return null;
+            }
+            BodyRecord record = decoder.decodeRecord(frame);
+            records++;
+            return record;
+        }
+
+        @Override
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * @return the next frame, or null at the trailer or the end of the file, a truncated frame is also regarded as the end.
+         */
+        private ByteBuffer readFrame() throws IOException {
+            if (end) {
+                return null;
+            }
+            int length;
+            try {
+                length = CompactRecordDecoder.readFrameLength(in);
+                if (length == -1) {
+                    end = true;
+                    return null;
+                }
+                if (length == CompactRecordEncoder.TRAILER_MARKER) {
+                    end = true;
+                    complete = CompactRecordDecoder.checkTrailer(readTrailer(), records, checksum.getValue());
+                    return null;
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+            } catch (EOFException e) {
+                end = true;
+                return null;
+            }
+            checksum.update(buffer, 0, length);
+            return ByteBuffer.wrap(buffer, 0, length);
+        }
+
+        /**
+         * Read the rest of the file, a valid trailer is at most 14 bytes, so reading more means something follows it.
+         */
+        private ByteBuffer readTrailer() throws IOException {
+            byte[] trailer = new byte[16];
+            int n = 0;
+            int read;
+            while (n < trailer.length && (read = in.read(trailer, n, trailer.length - n)) != -1) {
+                n += read;
+            }
+            return ByteBuffer.wrap(trailer, 0, n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
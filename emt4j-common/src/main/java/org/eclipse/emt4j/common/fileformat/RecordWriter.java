@@ -0,0 +1,140 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.fileformat;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Write the header and records of a file, the format is selected by the version of {@link FixedHeader}.
+ * The writes are buffered, call {@link #flush()} if the records need to be visible before closing.
+ * Closing writes the trailer of the compact format, so the reader knows the file is complete.
+ * A writer is not thread-safe.
+ */
+public abstract class RecordWriter implements Closeable, Flushable {
+
+    public static RecordWriter create(OutputStream out) throws IOException {
+        return create(out, FixedHeader.VERSION);
+    }
+
+    public static RecordWriter create(OutputStream out, int version) throws IOException {
+        switch (version) {
+            case FixedHeader.VERSION_SERIALIZED:
+                return new SerializedRecordWriter(out);
+            case FixedHeader.VERSION_COMPACT:
+                return new CompactRecordWriter(out);
+            default:
+                throw new IllegalArgumentException("Unsupported file format version: " + version);
+        }
+    }
+
+    /**
+     * Write the fixed header and the variable header, it must be called before writing any record.
+     */
+    public abstract void writeHeader(VariableHeader vh) throws IOException;
+
+    public abstract void write(BodyRecord record) throws IOException;
+
+    private static class SerializedRecordWriter extends RecordWriter {
+        /**
+         * The stream keeps a reference to each written object until reset.
+         */
+        private static final int RESET_INTERVAL = 1024;
+
+        private final ObjectOutputStream out;
+        private int written;
+
+        SerializedRecordWriter(OutputStream out) throws IOException {
+            this.out = new ObjectOutputStream(new BufferedOutputStream(out));
+        }
+
+        @Override
+        public void writeHeader(VariableHeader vh) throws IOException {
+            FixedHeader fh = new FixedHeader();
+            fh.setMagic(FixedHeader.MAGIC);
+            fh.setVersion(FixedHeader.VERSION_SERIALIZED);
+            out.writeObject(fh);
+            out.writeObject(vh);
+        }
+
+        @Override
+        public void write(BodyRecord record) throws IOException {
+            out.writeObject(record);
+            if (++written % RESET_INTERVAL == 0) {
+                out.reset();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class CompactRecordWriter extends RecordWriter {
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final OutputStream out;
+        private final CompactRecordEncoder encoder = new CompactRecordEncoder();
+        private boolean closed;
+
+        CompactRecordWriter(OutputStream out) {
+            this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public void writeHeader(VariableHeader vh) throws IOException {
+            encoder.writeFixedHeader(out);
+            encoder.writeVariableHeader(out, vh);
+        }
+
+        @Override
+        public void write(BodyRecord record) throws IOException {
+            encoder.writeRecord(out, record);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                encoder.writeTrailer(out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
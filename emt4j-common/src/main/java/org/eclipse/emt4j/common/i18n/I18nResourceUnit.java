@@ -20,7 +20,7 @@ package org.eclipse.emt4j.common.i18n;
 
 import org.eclipse.emt4j.common.util.CheckResultGroupUtil;
 import org.eclipse.emt4j.common.*;
-import org.mvel2.templates.TemplateRuntime;
+import org.eclipse.emt4j.common.rule.MvelTemplateCache;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -94,6 +94,10 @@ public class I18nResourceUnit {
                 IssueContext issueContext = new IssueContext();
                 issueContextList.add(issueContext);
                 issueContext.getContextDesc().addAll(issueContextSet);
+                int occurrences = checkResultGroup.getCheckResultContextList().stream().mapToInt(CheckResultContext::getOccurrences).sum();
+                if (occurrences > checkResultGroup.getCheckResultContextList().size()) {
+                    issueContext.getContextDesc().add(String.format(reportResourceAccessor.getCommonResourceBundle(i18nBase).getString("issue.context.occurrences"), occurrences));
+                }
                 //try to merge similar call stack into a single one if there only one difference.
                 if (checkResultGroup.getStackTrace() != null && !checkResultGroup.getStackTrace().isEmpty()) {
                     for (int i = 0; i < checkResultGroup.getStackTrace().size(); i++) {
@@ -128,7 +132,7 @@ public class I18nResourceUnit {
         for (CheckResultContext checkResult : checkResultContextList) {
             //if context is not null,mean it's a dynamic solution,so need mvel2 interpret it.
             if (checkResult.getReportCheckResult().getContext() != null) {
-                String result = ((String) TemplateRuntime.eval(solution, checkResult.getReportCheckResult().getContext())).trim();
+                String result = ((String) MvelTemplateCache.eval(solution, checkResult.getReportCheckResult().getContext())).trim();
                 for (String s : result.split("\\\\newline")) {
                     if (null == s || "".equals(s.trim())) {
                         continue;
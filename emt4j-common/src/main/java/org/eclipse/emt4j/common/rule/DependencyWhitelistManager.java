@@ -152,7 +152,7 @@ public class DependencyWhitelistManager {
         String configPath = String.format(WHITELIST_CONFIG_PATH_TEMPLATE, feature.getId());
 
         // Try to load from classpath first
-        InputStream is = DependencyWhitelistManager.class.getClassLoader().getResourceAsStream(configPath);
+        InputStream is = DependencyWhitelistManager.class.getResourceAsStream("/" + configPath);
         if (is == null) {
             // Try to load from file system
             try {
@@ -18,16 +18,18 @@
  ********************************************************************************/
 package org.eclipse.emt4j.common.rule;
 
+import org.eclipse.emt4j.common.DependType;
 import org.eclipse.emt4j.common.Dependency;
 import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
-import org.mvel2.templates.TemplateRuntime;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * <code>ExecutableRule</code> is the core of jdk migration tool.
@@ -79,6 +81,7 @@ public abstract class ExecutableRule {
             reportCheckResult.setResultCode(evalIfNeed(confRuleItem.getResultCode(), checkResult.getContext()));
             reportCheckResult.setSubResultCode(evalIfNeed(confRuleItem.getSubResultCode(), checkResult.getContext()));
             reportCheckResult.setPropagated(checkResult.getPropagated());
+            reportCheckResult.setDeferredFailure(checkResult.getDeferredFailure());
             return reportCheckResult;
         }
     }
@@ -95,7 +98,7 @@ public abstract class ExecutableRule {
         if (null == maybeMvel2Expr || "".equals(maybeMvel2Expr) || null == context || context.isEmpty()) {
             return maybeMvel2Expr;
         } else {
-            return (String) TemplateRuntime.eval(maybeMvel2Expr, context);
+            return (String) MvelTemplateCache.eval(maybeMvel2Expr, context);
         }
     }
 
@@ -103,6 +106,27 @@ public abstract class ExecutableRule {
 
     protected abstract boolean accept(Dependency dependency);
 
+    /**
+     * The dependency types that this rule may accept.
+     * It's used to dispatch a dependency only to the rules that care about its type,
+     * so it should be consistent with <code>accept</code>.
+     *
+     * @return null if the rule may accept any type.
+     */
+    public Set<DependType> getAcceptTypes() {
+        return null;
+    }
+
+    /**
+     * For a class or method dependency, the check can fail only if the class name of the target starts
+     * with one of these prefixes, so the other dependencies needn't be dispatched to this rule.
+     *
+     * @return null if the rule is not restricted by the class name.
+     */
+    public Collection<String> getTargetClassPrefixes() {
+        return null;
+    }
+
     public ConfRuleItem getConfRuleItem() {
         return confRuleItem;
     }
@@ -18,6 +18,7 @@
  ********************************************************************************/
 package org.eclipse.emt4j.common.rule;
 
+import org.eclipse.emt4j.common.Dependency;
 import org.eclipse.emt4j.common.Feature;
 import org.eclipse.emt4j.common.JdkMigrationException;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
@@ -41,6 +42,7 @@ import static org.eclipse.emt4j.common.IssuePriority.toIntPriority;
 public class InstanceRuleManager {
     private static volatile boolean hasInit = false;
     private static List<ExecutableRule> ruleInstanceList = null;
+    private static RuleDispatchIndex ruleDispatchIndex = null;
 
     /**
      * load rule, then create rule instance.
@@ -101,12 +103,20 @@ public class InstanceRuleManager {
                 }
             }
             ruleInstanceList = Collections.unmodifiableList(instanceList);
+            ruleDispatchIndex = new RuleDispatchIndex(ruleInstanceList);
             hasInit = true;
         } catch (Exception e) {
             throw new JdkMigrationException("InstanceRuleManager init exception!", e);
         }
     }
 
+    /**
+     * Let the next call of init load the rules again, the current rules are kept until then.
+     */
+    public synchronized static void reset() {
+        hasInit = false;
+    }
+
     private static void setValue(ExecutableRule executableRule, String attrName, String attrValue) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
         Method m = executableRule.getClass().getMethod(getSetMethodName(attrName), String.class);
         m.setAccessible(true);
@@ -145,4 +155,15 @@ public class InstanceRuleManager {
         return ruleInstanceList;
     }
 
+    /**
+     * Get the rules that may accept the dependency, in the same order as <code>getRuleInstanceList()</code>.
+     * Each of them still needs to be checked with <code>shouldAccept</code>.
+     *
+     * @param dependency
+     * @return
+     */
+    public static List<ExecutableRule> getCandidateRuleList(Dependency dependency) {
+        return ruleDispatchIndex.getCandidateRules(dependency);
+    }
+
 }
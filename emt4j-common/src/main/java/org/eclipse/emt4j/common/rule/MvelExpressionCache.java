@@ -0,0 +1,75 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.rule;
+
+import org.mvel2.MVEL;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The MVEL expressions of rules are evaluated for each class or jar, so compile each expression only once,
+ * then execute the compiled expression.
+ * It's shared by all rules and can be called by multiple threads concurrently.
+ */
+public class MvelExpressionCache {
+    private static final ConcurrentMap<String, Serializable> compiledExpressions = new ConcurrentHashMap<>();
+    private static final LongAdder hitCount = new LongAdder();
+    private static final LongAdder missCount = new LongAdder();
+
+    /**
+     * Evaluate the expression with the given variables.
+     *
+     * @param expression MVEL expression
+     * @param vars       variables that used in the expression
+     * @return result of the expression
+     */
+    public static Object eval(String expression, Map<String, Object> vars) {
+        return MVEL.executeExpression(getCompiled(expression), vars);
+    }
+
+    private static Serializable getCompiled(String expression) {
+        Serializable compiled = compiledExpressions.get(expression);
+        if (compiled != null) {
+            hitCount.increment();
+            return compiled;
+        }
+        missCount.increment();
+        return compiledExpressions.computeIfAbsent(expression, MVEL::compileExpression);
+    }
+
+    public static long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public static long getMissCount() {
+        return missCount.sum();
+    }
+
+    public static int size() {
+        return compiledExpressions.size();
+    }
+
+    public static String getStatistics() {
+        return "MVEL expression cache: size=" + size() + ", hit=" + getHitCount() + ", miss=" + getMissCount();
+    }
+}
@@ -0,0 +1,70 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.rule;
+
+import org.mvel2.templates.CompiledTemplate;
+import org.mvel2.templates.TemplateCompiler;
+import org.mvel2.templates.TemplateRuntime;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The result code of rules and the i18n solutions are MVEL templates, they are rendered for each issue.
+ * Compile each template only once, then execute the compiled template.
+ * The templates come from the rule and i18n resources, but the size is still bounded in case of
+ * too many different templates.
+ */
+public class MvelTemplateCache {
+    static final int MAX_SIZE = 1024;
+
+    private static final ConcurrentMap<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Render the template with the given variables.
+     *
+     * @param template MVEL template
+     * @param vars     variables that used in the template
+     * @return result of the template
+     */
+    public static Object eval(String template, Map<String, Object> vars) {
+        return TemplateRuntime.execute(getCompiled(template), vars);
+    }
+
+    private static CompiledTemplate getCompiled(String template) {
+        CompiledTemplate compiled = compiledTemplates.get(template);
+        if (compiled != null) {
+            return compiled;
+        }
+        if (compiledTemplates.size() >= MAX_SIZE) {
+            Iterator<String> it = compiledTemplates.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        return compiledTemplates.computeIfAbsent(template, TemplateCompiler::compileTemplate);
+    }
+
+    static int size() {
+        return compiledTemplates.size();
+    }
+}
@@ -0,0 +1,201 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.rule;
+
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+
+import java.util.*;
+
+/**
+ * Index the rules by the dependency type and the class name of the target,
+ * so a dependency only need to be checked by the rules that can possibly match.
+ * <p>
+ * The class name prefixes that a rule declared are put in a trie of package segments, a rule is attached to the node
+ * of the whole segments of each prefix, e.g. <code>java.util.concurrent.</code> and <code>java.util.concurrent.Executors</code>
+ * are both attached to <code>java.util.concurrent</code>.
+ * A dependency walks down the trie by the packages of its class, and gets the rules attached to the nodes on the path
+ * and the rules that not restricted by prefixes, so the candidates are always a superset of the rules that would fail the check.
+ * The candidates of each node are computed when building, and they keep the same order as the given rule list.
+ */
+public class RuleDispatchIndex {
+
+    private final Map<DependType, TypeIndex> typeIndexMap = new EnumMap<>(DependType.class);
+
+    public RuleDispatchIndex(List<ExecutableRule> ruleList) {
+        for (DependType dependType : DependType.values()) {
+            List<ExecutableRule> rules = new ArrayList<>();
+            for (ExecutableRule rule : ruleList) {
+                Set<DependType> acceptTypes = rule.getAcceptTypes();
+                if (acceptTypes == null || acceptTypes.contains(dependType)) {
+                    rules.add(rule);
+                }
+            }
+            typeIndexMap.put(dependType, new TypeIndex(rules, hasTargetClass(dependType)));
+        }
+    }
+
+    /**
+     * Get the rules that may accept the dependency.
+     *
+     * @param dependency
+     * @return
+     */
+    public List<ExecutableRule> getCandidateRules(Dependency dependency) {
+        DependType dependType = dependency.getDependType();
+        if (dependType == null) {
+            return Collections.emptyList();
+        }
+        TypeIndex typeIndex = typeIndexMap.get(dependType);
+        if (typeIndex.root == null) {
+            return typeIndex.allRules;
+        }
+        String className = targetClassName(dependency);
+        if (className == null) {
+            return typeIndex.allRules;
+        }
+        Node node = typeIndex.root;
+        int start = 0;
+        int dot;
+        while ((dot = className.indexOf('.', start)) != -1) {
+            Node child = node.children.get(className.substring(start, dot));
+            if (child == null) {
+                break;
+            }
+            node = child;
+            start = dot + 1;
+        }
+        return node.candidates;
+    }
+
+    private static boolean hasTargetClass(DependType dependType) {
+        return dependType == DependType.CLASS || dependType == DependType.METHOD
+                || dependType == DependType.METHOD_TO_CLASS_DEEP_REFLECTION;
+    }
+
+    private static String targetClassName(Dependency dependency) {
+        if (dependency.getTarget() == null) {
+            return null;
+        }
+        if (dependency.getDependType() == DependType.METHOD) {
+            return dependency.getTarget().asMethod().getClassName();
+        } else {
+            return dependency.getTarget().asClass().getClassName();
+        }
+    }
+
+    /**
+     * Get the whole package segments of a prefix, the part after the last dot is not a whole segment.
+     *
+     * @return the segments, it's empty if the prefix not contains a whole segment.
+     */
+    private static List<String> prefixSegments(String prefix) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int dot;
+        while ((dot = prefix.indexOf('.', start)) != -1) {
+            segments.add(prefix.substring(start, dot));
+            start = dot + 1;
+        }
+        return segments;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+
+        /**
+         * the indexes of the rules whose prefixes end at this node.
+         */
+        private final BitSet attached = new BitSet();
+
+        private List<ExecutableRule> candidates;
+    }
+
+    private static class TypeIndex {
+        private final List<ExecutableRule> allRules;
+
+        /**
+         * null if none of the rules can be filtered by the class name.
+         * The candidates of the root are the rules that not restricted by prefixes.
+         */
+        private final Node root;
+
+        TypeIndex(List<ExecutableRule> rules, boolean hasTargetClass) {
+            this.allRules = Collections.unmodifiableList(rules);
+            if (!hasTargetClass) {
+                this.root = null;
+                return;
+            }
+
+            Node root = new Node();
+            BitSet unrestricted = new BitSet();
+            for (int i = 0; i < rules.size(); i++) {
+                List<List<String>> paths = pathsOf(rules.get(i).getTargetClassPrefixes());
+                if (paths == null) {
+                    unrestricted.set(i);
+                    continue;
+                }
+                for (List<String> path : paths) {
+                    Node node = root;
+                    for (String segment : path) {
+                        node = node.children.computeIfAbsent(segment, (k) -> new Node());
+                    }
+                    node.attached.set(i);
+                }
+            }
+            if (unrestricted.cardinality() == rules.size()) {
+                this.root = null;
+                return;
+            }
+            computeCandidates(root, unrestricted, rules);
+            this.root = root;
+        }
+
+        private static void computeCandidates(Node node, BitSet inherited, List<ExecutableRule> rules) {
+            BitSet ruleSet = (BitSet) inherited.clone();
+            ruleSet.or(node.attached);
+            List<ExecutableRule> candidates = new ArrayList<>(ruleSet.cardinality());
+            for (int i = ruleSet.nextSetBit(0); i >= 0; i = ruleSet.nextSetBit(i + 1)) {
+                candidates.add(rules.get(i));
+            }
+            node.candidates = Collections.unmodifiableList(candidates);
+            for (Node child : node.children.values()) {
+                computeCandidates(child, ruleSet, rules);
+            }
+        }
+
+        /**
+         * @return null if any prefix not contains a whole segment, then the rule is treated as unrestricted.
+         */
+        private static List<List<String>> pathsOf(Collection<String> prefixes) {
+            if (prefixes == null) {
+                return null;
+            }
+            List<List<String>> paths = new ArrayList<>(prefixes.size());
+            for (String prefix : prefixes) {
+                List<String> segments = prefix == null ? Collections.emptyList() : prefixSegments(prefix);
+                if (segments.isEmpty()) {
+                    return null;
+                }
+                paths.add(segments);
+            }
+            return paths;
+        }
+    }
+}
@@ -135,6 +135,11 @@ public class AddExportsRule extends ExecutableRule {
         return DependType.WHOLE_CLASS== dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.WHOLE_CLASS);
+    }
+
     private String[] matchModule(String packageName) {
         String currPackage = packageName;
         String module = exportPackageToModule.get(packageName);
@@ -11,6 +11,7 @@ import org.eclipse.emt4j.common.rule.model.ConfRules;
 import org.eclipse.emt4j.common.util.ClassURL;
 import org.eclipse.emt4j.common.util.FileUtil;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -59,6 +60,11 @@ public class DeprecatedAPIRule extends ExecutableRule {
         return DependType.WHOLE_CLASS == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.WHOLE_CLASS);
+    }
+
     public void setClassListFile(String classListFile) {
         this.classListFile = classListFile;
     }
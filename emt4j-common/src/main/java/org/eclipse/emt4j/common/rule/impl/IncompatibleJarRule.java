@@ -23,14 +23,16 @@ import org.eclipse.emt4j.common.Dependency;
 import org.eclipse.emt4j.common.JdkMigrationException;
 import org.eclipse.emt4j.common.RuleImpl;
 import org.eclipse.emt4j.common.rule.ExecutableRule;
+import org.eclipse.emt4j.common.rule.MvelExpressionCache;
 import org.eclipse.emt4j.common.rule.model.*;
 import org.eclipse.emt4j.common.util.FileUtil;
 import org.eclipse.emt4j.common.util.JarFileInfoUtil;
-import org.mvel2.MVEL;
 
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.eclipse.emt4j.common.util.StringUtils.readableRule;
 import static org.eclipse.emt4j.common.util.StringUtils.stripDoubleQuote;
@@ -68,7 +70,7 @@ public class IncompatibleJarRule extends ExecutableRule {
             mvelMap.put("$jar", new JarFileName(jarFileInfo.get().getJarFileName()));
             mvelMap.put("$groupId", groupId != null ? groupId : "");
             mvelMap.put("$artifactId", artifactId != null ? artifactId : "");
-            Object result = MVEL.eval(jarRule.getRule(), mvelMap);
+            Object result = MvelExpressionCache.eval(jarRule.getRule(), mvelMap);
             if (result instanceof Boolean) {
                 if ((Boolean) result) {
                     return CheckResult.PASS;
@@ -104,6 +106,11 @@ public class IncompatibleJarRule extends ExecutableRule {
         return DependType.CODE_SOURCE == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.CODE_SOURCE);
+    }
+
     public String getJarRuleFile() {
         return jarRuleFile;
     }
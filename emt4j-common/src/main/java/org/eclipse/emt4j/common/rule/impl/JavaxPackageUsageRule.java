@@ -1,5 +1,6 @@
 package org.eclipse.emt4j.common.rule.impl;
 
+import org.eclipse.emt4j.common.ClassSymbol;
 import org.eclipse.emt4j.common.DependType;
 import org.eclipse.emt4j.common.Dependency;
 import org.eclipse.emt4j.common.RuleImpl;
@@ -10,6 +11,7 @@ import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 import org.eclipse.emt4j.common.util.FileUtil;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -35,7 +37,11 @@ public class JavaxPackageUsageRule extends ExecutableRule {
         if (packageUsageScanner == null) {
             return CheckResult.PASS;
         }
-        return packageUsageScanner.containsAny(dependency.getCurrClassBytecode()) ? CheckResult.FAIL : CheckResult.PASS;
+        ClassSymbol classSymbol = dependency.getClassSymbol();
+        boolean used = classSymbol != null && classSymbol.getInternalNameSet() != null
+                ? packageUsageScanner.containsAny(classSymbol)
+                : packageUsageScanner.containsAny(dependency.getCurrClassBytecode());
+        return used ? CheckResult.FAIL : CheckResult.PASS;
     }
 
     @Override
@@ -43,6 +49,11 @@ public class JavaxPackageUsageRule extends ExecutableRule {
         return DependType.WHOLE_CLASS == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.WHOLE_CLASS);
+    }
+
     public void setPackageListFile(String packageListFile) {
         this.packageListFile = packageListFile;
     }
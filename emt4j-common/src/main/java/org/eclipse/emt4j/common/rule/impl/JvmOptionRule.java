@@ -30,9 +30,11 @@ import org.eclipse.emt4j.common.util.FileUtil;
 import org.eclipse.emt4j.common.DependType;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -118,6 +120,11 @@ public class JvmOptionRule extends ExecutableRule {
         return DependType.VM_OPTION == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.VM_OPTION);
+    }
+
 
     public boolean betweenInVersion(int currentVersion) {
         return currentVersion >= confRules.getFromVersion() && currentVersion <= confRules.getToVersion();
@@ -116,6 +116,26 @@ public class ReferenceClassRule extends ExecutableRule {
                 || DependType.METHOD_TO_CLASS_DEEP_REFLECTION == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.CLASS, DependType.METHOD_TO_CLASS_DEEP_REFLECTION);
+    }
+
+    @Override
+    public Collection<String> getTargetClassPrefixes() {
+        if ("by-package".equals(matchType)) {
+            Set<String> prefixes = new HashSet<>();
+            for (String packageName : classPackageSet) {
+                prefixes.add(packageName + ".");
+            }
+            return prefixes;
+        } else if ("by-class".equals(matchType)) {
+            return classPackageSet;
+        } else {
+            return null;
+        }
+    }
+
     public void setClassPackageFile(String classPackageFile) {
         this.classPackageFile = classPackageFile;
     }
@@ -7,15 +7,22 @@ import org.eclipse.emt4j.common.rule.ExecutableRule;
 import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
+import org.eclipse.emt4j.common.util.JarFilePool;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -59,6 +66,11 @@ public class SpringFactoriesEnableAutoConfigurationRule extends ExecutableRule {
         return DependType.CODE_SOURCE == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.CODE_SOURCE);
+    }
+
     private boolean containsSpringFactoriesInDirectory(File dir) {
         File f = new File(dir, SPRING_FACTORIES_PATH.replace('/', File.separatorChar));
         if (!f.exists() || !f.isFile()) {
@@ -72,21 +84,47 @@ public class SpringFactoriesEnableAutoConfigurationRule extends ExecutableRule {
         }
     }
 
-    private boolean containsSpringFactoriesInJarFile(File jarFile) throws IOException {
-        try (InputStream in = new FileInputStream(jarFile)) {
-            byte[] jarBytes = readAllBytes(in);
-            return containsSpringFactoriesInJarBytes(jarBytes, 0);
+    private boolean containsSpringFactoriesInJarFile(File file) throws IOException {
+        try (JarFile jarFile = JarFilePool.open(file)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String name = entry.getName();
+                if (SPRING_FACTORIES_PATH.equals(name) || "spring.factories".equals(name)) {
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        if (containsEnableAutoConfigurationKey(readAllBytes(in))) {
+                            return true;
+                        }
+                    }
+                    continue;
+                }
+                if (name.endsWith(".jar")) {
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        if (containsSpringFactoriesInNestedJar(in, 1)) {
+                            return true;
+                        }
+                    }
+                }
+            }
         }
+        return false;
     }
 
-    private boolean containsSpringFactoriesInJarBytes(byte[] jarBytes, int depth) throws IOException {
-        if (jarBytes == null || jarBytes.length == 0) {
-            return false;
-        }
+    /**
+     * Read a nested jar from the stream of its entry, the stream is not closed.
+     */
+    private boolean containsSpringFactoriesInNestedJar(InputStream jarInput, int depth) throws IOException {
         if (depth > MAX_NESTED_JAR_DEPTH) {
             return false;
         }
-        try (ZipInputStream zis = new ZipInputStream(new java.io.ByteArrayInputStream(jarBytes))) {
+        try (ZipInputStream zis = new ZipInputStream(new FilterInputStream(jarInput) {
+            @Override
+            public void close() {
+            }
+        })) {
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
                 if (entry.isDirectory()) {
@@ -101,8 +139,7 @@ public class SpringFactoriesEnableAutoConfigurationRule extends ExecutableRule {
                     continue;
                 }
                 if (name.endsWith(".jar")) {
-                    byte[] nested = readAllBytes(zis);
-                    if (containsSpringFactoriesInJarBytes(nested, depth + 1)) {
+                    if (containsSpringFactoriesInNestedJar(zis, depth + 1)) {
                         return true;
                     }
                 }
@@ -26,7 +26,11 @@ import org.eclipse.emt4j.common.rule.model.ConfRules;
 import org.eclipse.emt4j.common.util.FileUtil;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 
 /**
@@ -76,4 +80,14 @@ public class TouchedMethodRule extends ExecutableRule {
     public boolean accept(Dependency dependency) {
         return DependType.METHOD == dependency.getDependType();
     }
+
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.METHOD);
+    }
+
+    @Override
+    public Collection<String> getTargetClassPrefixes() {
+        return callMethods.stream().map(MethodDesc::getClassName).collect(Collectors.toSet());
+    }
 }
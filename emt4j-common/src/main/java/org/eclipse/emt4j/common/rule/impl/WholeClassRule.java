@@ -20,14 +20,15 @@ package org.eclipse.emt4j.common.rule.impl;
 
 import org.eclipse.emt4j.common.*;
 import org.eclipse.emt4j.common.rule.ExecutableRule;
+import org.eclipse.emt4j.common.rule.MvelExpressionCache;
 import org.eclipse.emt4j.common.rule.model.CheckResult;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
 import org.eclipse.emt4j.common.staticanalysis.StaticAnalysisEntry;
 import org.eclipse.emt4j.common.util.FileUtil;
-import org.mvel2.MVEL;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -59,13 +60,25 @@ public class WholeClassRule extends ExecutableRule {
         mvelMap.put("typeSet", dependency.getClassSymbol().getTypeSet());
         mvelMap.put("methodSet", toMethodIdentifierSet(dependency.getClassSymbol().getCallMethodSet()));
         mvelMap.put("cpSet", dependency.getClassSymbol().getConstantPoolSet());
-        Object result = MVEL.eval(mvel2Rule, mvelMap);
+        Object result = MvelExpressionCache.eval(mvel2Rule, mvelMap);
         if (result instanceof Boolean) {
             if (staticAnalysisRule == null) {
                 return ((Boolean) result) ? CheckResult.FAIL : CheckResult.PASS;
             } else {
                 if ((Boolean) result) {
-                    boolean found = StaticAnalysisEntry.analyze(staticAnalysisRule, dependency.getTarget().asClass().getClassName(), dependency.getCurrClassBytecode());
+                    if (StaticAnalysisEntry.isBatchMode()) {
+                        return CheckResult.deferred(StaticAnalysisEntry.submit(staticAnalysisRule,
+                                dependency.getTarget().asClass().getClassName(), dependency.getCurrClassBytecode()));
+                    }
+                    boolean found;
+                    try {
+                        found = StaticAnalysisEntry.analyze(staticAnalysisRule, dependency.getTarget().asClass().getClassName(), dependency.getCurrClassBytecode());
+                    } catch (Throwable t) {
+                        // the static analysis only rules out the false positives of the mvel rule, so a failed one keeps the finding
+                        System.err.println("Failed to analyze " + dependency.getTarget().asClass().getClassName() + " with rule " + staticAnalysisRule);
+                        t.printStackTrace();
+                        found = true;
+                    }
                     return found ? CheckResult.FAIL : CheckResult.PASS;
                 }
                 return CheckResult.PASS;
@@ -88,6 +101,11 @@ public class WholeClassRule extends ExecutableRule {
         return DependType.WHOLE_CLASS == dependency.getDependType();
     }
 
+    @Override
+    public Set<DependType> getAcceptTypes() {
+        return EnumSet.of(DependType.WHOLE_CLASS);
+    }
+
     public void setMvel2RuleFile(String mvel2RuleFile) {
         this.mvel2RuleFile = mvel2RuleFile;
     }
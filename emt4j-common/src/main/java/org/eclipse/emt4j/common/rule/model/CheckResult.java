@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 public class CheckResult implements Serializable {
     private boolean pass;
@@ -33,6 +34,11 @@ public class CheckResult implements Serializable {
     public static final CheckResult FAIL = new CheckResult(false);
     public transient List<Dependency> propagated = new ArrayList<>();
 
+    /**
+     * If not null, the check is not decided yet. It fails only if the future is completed with true.
+     */
+    private transient Future<Boolean> deferredFailure;
+
     public CheckResult(boolean pass, Map<String, Object> context) {
         this.pass = pass;
         this.context = context;
@@ -89,6 +95,26 @@ public class CheckResult implements Serializable {
         return new CheckResult(false, context);
     }
 
+    /**
+     * The check is decided later, e.g. by a static analysis that analyzes many classes together.
+     *
+     * @param failure completed with true if the check fails.
+     * @return
+     */
+    public static CheckResult deferred(Future<Boolean> failure) {
+        CheckResult checkResult = new CheckResult(false);
+        checkResult.deferredFailure = failure;
+        return checkResult;
+    }
+
+    public Future<Boolean> getDeferredFailure() {
+        return deferredFailure;
+    }
+
+    public void setDeferredFailure(Future<Boolean> deferredFailure) {
+        this.deferredFailure = deferredFailure;
+    }
+
     public List<Dependency> getPropagated() {
         return propagated;
     }
@@ -21,4 +21,12 @@ package org.eclipse.emt4j.common.staticanalysis;
 
 public interface Invoker {
     boolean invoke(String rule, String className, byte[] bytecodes);
+
+    /**
+     * Analyze all classes in one session, the i-th class is analyzed with the i-th rule.
+     * The same class can be given more than once with different rules.
+     *
+     * @return whether each class is found by its rule
+     */
+    boolean[] invoke(String[] rules, String[] classNames, byte[][] bytecodes);
 }
@@ -34,8 +34,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 class InvokerImpl implements Invoker {
@@ -100,15 +102,26 @@ class InvokerImpl implements Invoker {
         }
     }
 
-    @Override
-    public boolean invoke(String rule, String className, byte[] bytecodes) {
+    /**
+     * @return null if the class needn't be analyzed.
+     */
+    private static String normalize(String className) {
         if (className.endsWith("module-info") || className.endsWith("package-info")) {
-            return false;
+            return null;
         }
 
         if (className.endsWith(".class")) {
             className = className.substring(0, className.length() - ".class".length());
         }
+        return className;
+    }
+
+    @Override
+    public boolean invoke(String rule, String className, byte[] bytecodes) {
+        className = normalize(className);
+        if (className == null) {
+            return false;
+        }
 
         reset();
 
@@ -125,4 +138,47 @@ class InvokerImpl implements Invoker {
         }
     }
 
+    @Override
+    public boolean[] invoke(String[] rules, String[] classNames, byte[][] bytecodes) {
+        boolean[] found = new boolean[classNames.length];
+        reset();
+
+        Map<String, SootClass> classMap = new HashMap<>();
+        List<Path> paths = new ArrayList<>();
+        try {
+            for (int i = 0; i < classNames.length; i++) {
+                String className = normalize(classNames[i]);
+                if (className != null && !classMap.containsKey(className)) {
+                    paths.add(writeTo(className, bytecodes[i]));
+                    classMap.put(className, null);
+                }
+            }
+            for (String className : classMap.keySet()) {
+                SootClass clazz = Scene.v().loadClassAndSupport(className);
+                clazz.setApplicationClass();
+                classMap.put(className, clazz);
+            }
+            Scene.v().loadNecessaryClasses();
+
+            for (int i = 0; i < classNames.length; i++) {
+                String className = normalize(classNames[i]);
+                if (className == null) {
+                    continue;
+                }
+                try {
+                    found[i] = analyzerMap.get(rules[i]).analyze(classMap.get(className));
+                } catch (Throwable t) {
+                    // the class is kept as found, as the other rules it matched without the static analysis
+                    System.err.println("Failed to analyze " + className + " with rule " + rules[i]);
+                    t.printStackTrace();
+                    found[i] = true;
+                }
+            }
+            return found;
+        } finally {
+            for (Path path : paths) {
+                path.toFile().delete();
+            }
+        }
+    }
 }
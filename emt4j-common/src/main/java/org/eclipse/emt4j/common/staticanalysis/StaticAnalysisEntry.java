@@ -25,6 +25,8 @@ import java.io.File;
 import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class StaticAnalysisEntry {
 
@@ -71,7 +73,132 @@ public class StaticAnalysisEntry {
         }
     });
 
+    /**
+     * Classes that submitted but not analyzed yet.
+     */
+    private static final Object BATCH_LOCK = new Object();
+    private static List<PendingClass> pendingClasses = new ArrayList<>();
+    private static volatile int batchSize = 1;
+
     public static boolean analyze(String rule, String className, byte[] bytecodes) {
+        if (!StaticAnalysisPreFilter.mayFind(rule, bytecodes)) {
+            return false;
+        }
+        return analyzeBySoot(rule, className, bytecodes);
+    }
+
+    static boolean analyzeBySoot(String rule, String className, byte[] bytecodes) {
         return INVOKER.get().invoke(rule, className, bytecodes);
     }
+
+    /**
+     * Setting up a Soot scene is the most expensive part of the analysis, so in batch mode
+     * the classes are collected and then loaded into a single scene.
+     *
+     * @param size how many classes are analyzed in a scene, 1 means no batch.
+     */
+    public static void setBatchSize(int size) {
+        batchSize = Math.max(1, size);
+    }
+
+    public static boolean isBatchMode() {
+        return batchSize > 1;
+    }
+
+    /**
+     * Add the class to the current batch unless the pre-filter rules it out. The batch is analyzed when it's full or flushed.
+     *
+     * @return completed with true if the class is found by the rule.
+     */
+    public static CompletableFuture<Boolean> submit(String rule, String className, byte[] bytecodes) {
+        if (!StaticAnalysisPreFilter.mayFind(rule, bytecodes)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        PendingClass pendingClass = new PendingClass(rule, className, bytecodes);
+        List<PendingClass> fullBatch = null;
+        synchronized (BATCH_LOCK) {
+            pendingClasses.add(pendingClass);
+            if (pendingClasses.size() >= batchSize) {
+                fullBatch = pendingClasses;
+                pendingClasses = new ArrayList<>();
+            }
+        }
+        if (fullBatch != null) {
+            analyzeBatch(fullBatch);
+        }
+        return pendingClass.result;
+    }
+
+    /**
+     * Analyze the classes that submitted but not analyzed yet.
+     */
+    public static void flush() {
+        List<PendingClass> batch;
+        synchronized (BATCH_LOCK) {
+            batch = pendingClasses;
+            pendingClasses = new ArrayList<>();
+        }
+        if (!batch.isEmpty()) {
+            analyzeBatch(batch);
+        }
+    }
+
+    private static void analyzeBatch(List<PendingClass> batch) {
+        // classes from different jars may have the same name, but a scene can only have one of them.
+        List<PendingClass> session = new ArrayList<>();
+        Map<String, byte[]> sessionClasses = new HashMap<>();
+        for (PendingClass pendingClass : batch) {
+            byte[] loaded = sessionClasses.putIfAbsent(pendingClass.className, pendingClass.bytecodes);
+            if (loaded != null && !Arrays.equals(loaded, pendingClass.bytecodes)) {
+                analyzeSession(session);
+                session = new ArrayList<>();
+                sessionClasses.clear();
+                sessionClasses.put(pendingClass.className, pendingClass.bytecodes);
+            }
+            session.add(pendingClass);
+        }
+        analyzeSession(session);
+    }
+
+    /**
+     * A class that cannot be loaded fails the whole scene, so a failed session is analyzed again one class per scene,
+     * then only the result of the failed class is completed exceptionally.
+     */
+    private static void analyzeSession(List<PendingClass> session) {
+        String[] rules = new String[session.size()];
+        String[] classNames = new String[session.size()];
+        byte[][] bytecodes = new byte[session.size()][];
+        for (int i = 0; i < session.size(); i++) {
+            rules[i] = session.get(i).rule;
+            classNames[i] = session.get(i).className;
+            bytecodes[i] = session.get(i).bytecodes;
+        }
+        try {
+            boolean[] found = INVOKER.get().invoke(rules, classNames, bytecodes);
+            for (int i = 0; i < session.size(); i++) {
+                session.get(i).result.complete(found[i]);
+            }
+        } catch (Throwable t) {
+            if (session.size() == 1) {
+                session.get(0).result.completeExceptionally(t);
+                return;
+            }
+            for (PendingClass pendingClass : session) {
+                analyzeSession(Collections.singletonList(pendingClass));
+            }
+        }
+    }
+
+    private static class PendingClass {
+        private final String rule;
+        private final String className;
+        private final byte[] bytecodes;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        PendingClass(String rule, String className, byte[] bytecodes) {
+            this.rule = rule;
+            this.className = className;
+            this.bytecodes = bytecodes;
+        }
+    }
 }
@@ -0,0 +1,371 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.staticanalysis;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Loading a class into a Soot scene is expensive, while most classes that reach the static analysis use the
+ * checked API in an obviously safe way, or don't use it at all.
+ * <p>
+ * This pre-filter resolves the def-use chains of the values that each analyzer checks with the ASM
+ * {@link SourceInterpreter}, looking through locals, casts and <code>dup</code> like the analyzers do.
+ * It's conservative: a class is ruled out only if the analyzer can't find anything in it,
+ * otherwise the class is escalated to Soot, which makes the final decision.
+ */
+public class StaticAnalysisPreFilter {
+
+    private static final int ALL_PATTERN_FLAGS = 0x1FF;
+
+    private static final Map<String, MethodFilter> FILTERS = new HashMap<>();
+
+    private static final LongAdder filteredCount = new LongAdder();
+    private static final LongAdder escalatedCount = new LongAdder();
+
+    static {
+        FILTERS.put("pattern-compile", StaticAnalysisPreFilter::mayFindPatternCompile);
+        FILTERS.put("cast-arrays-as-list-to-array", StaticAnalysisPreFilter::mayFindCastArraysAsListToArray);
+        FILTERS.put("cast-system-classloader-to-url-classloader", StaticAnalysisPreFilter::mayFindCastSystemClassLoader);
+        FILTERS.put("cldr-date-format", StaticAnalysisPreFilter::mayFindDateFormat);
+        FILTERS.put("cldr-number-format", StaticAnalysisPreFilter::mayFindNumberFormat);
+        FILTERS.put("cldr-calendar-getfirstdayofweek", StaticAnalysisPreFilter::mayFindCalendarFirstDayOfWeek);
+    }
+
+    /**
+     * @param rule      name of the static analysis rule
+     * @param bytecodes content of the class file
+     * @return false if the analyzer of the rule can't find anything in the class, true if the class
+     * should be escalated to Soot.
+     */
+    public static boolean mayFind(String rule, byte[] bytecodes) {
+        boolean mayFind = doMayFind(rule, bytecodes);
+        if (mayFind) {
+            escalatedCount.increment();
+        } else {
+            filteredCount.increment();
+        }
+        return mayFind;
+    }
+
+    private static boolean doMayFind(String rule, byte[] bytecodes) {
+        MethodFilter filter = FILTERS.get(rule);
+        if (filter == null) {
+            return true;
+        }
+        try {
+            ClassNode classNode = new ClassNode();
+            new ClassReader(bytecodes).accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            for (MethodNode method : classNode.methods) {
+                if ((method.access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) != 0
+                    || method.instructions.size() == 0) {
+                    continue;
+                }
+                if (filter.mayFind(new MethodContext(classNode.name, method))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            // let Soot decide if the pre-filter can't handle the class
+            return true;
+        }
+    }
+
+    public static long getFilteredCount() {
+        return filteredCount.sum();
+    }
+
+    public static long getEscalatedCount() {
+        return escalatedCount.sum();
+    }
+
+    public static String getStatistics() {
+        return "Static analysis pre-filter: filtered=" + getFilteredCount() + ", escalated=" + getEscalatedCount();
+    }
+
+    /**
+     * See <code>PatternCompileAnalyzer</code>, only the flags that resolved to an int constant are checked.
+     */
+    private static boolean mayFindPatternCompile(MethodContext context) throws AnalyzerException {
+        for (AbstractInsnNode insn : context.method.instructions) {
+            if (!isMethodInsn(insn, Opcodes.INVOKESTATIC, "compile")
+                || !"java/util/regex/Pattern".equals(((MethodInsnNode) insn).owner)
+                || !"(Ljava/lang/String;I)Ljava/util/regex/Pattern;".equals(((MethodInsnNode) insn).desc)) {
+                continue;
+            }
+            Set<AbstractInsnNode> defs = context.getOperandDefs(insn, 0);
+            if (defs == null) {
+                return true;
+            }
+            for (AbstractInsnNode def : defs) {
+                Integer flags = getIntConstant(def);
+                if (flags == null || (flags & ~ALL_PATTERN_FLAGS) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * See <code>CastArraysAsListToArrayAnalyzer</code>.
+     */
+    private static boolean mayFindCastArraysAsListToArray(MethodContext context) throws AnalyzerException {
+        for (AbstractInsnNode insn : context.method.instructions) {
+            if (insn.getOpcode() != Opcodes.CHECKCAST) {
+                continue;
+            }
+            Type castType = Type.getObjectType(((TypeInsnNode) insn).desc);
+            if (castType.getSort() != Type.ARRAY || "java.lang.Object".equals(castType.getElementType().getClassName())) {
+                continue;
+            }
+            Set<AbstractInsnNode> defs = context.getOperandDefs(insn, 0);
+            if (defs == null) {
+                return true;
+            }
+            for (AbstractInsnNode def : defs) {
+                if (def.getOpcode() == Opcodes.GETSTATIC) {
+                    return true;
+                }
+                if (isMethodInsn(def, Opcodes.INVOKEINTERFACE, "toArray")
+                    && "()[Ljava/lang/Object;".equals(((MethodInsnNode) def).desc)) {
+                    Set<AbstractInsnNode> receiverDefs = context.getOperandDefs(def, 0);
+                    if (receiverDefs == null
+                        || containsAny(receiverDefs, d -> d.getOpcode() == Opcodes.GETSTATIC
+                                                          || isMethodInsn(d, Opcodes.INVOKESTATIC, "asList"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * See <code>CastSystemClassLoaderToURLClassLoaderAnalyzer</code>.
+     */
+    private static boolean mayFindCastSystemClassLoader(MethodContext context) throws AnalyzerException {
+        for (AbstractInsnNode insn : context.method.instructions) {
+            if (insn.getOpcode() != Opcodes.CHECKCAST || !"java/net/URLClassLoader".equals(((TypeInsnNode) insn).desc)) {
+                continue;
+            }
+            Set<AbstractInsnNode> defs = context.getOperandDefs(insn, 0);
+            if (defs == null
+                || containsAny(defs, d -> d.getOpcode() == Opcodes.GETSTATIC
+                                          || d.getOpcode() == Opcodes.ACONST_NULL
+                                          || isMethodInsn(d, Opcodes.INVOKESTATIC, "getSystemClassLoader"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * See <code>CLDRDateFormatAnalyzer</code>. The receiver of the format call is checked, and the owner
+     * of the call may be a subclass of <code>DateFormat</code> which is only known to Soot.
+     */
+    private static boolean mayFindDateFormat(MethodContext context) throws AnalyzerException {
+        for (AbstractInsnNode insn : context.method.instructions) {
+            if (insn.getOpcode() != Opcodes.INVOKEVIRTUAL) {
+                continue;
+            }
+            MethodInsnNode methodInsn = (MethodInsnNode) insn;
+            int argCount = Type.getArgumentTypes(methodInsn.desc).length;
+            if (argCount == 0
+                || !("format".equals(methodInsn.name) || "parse".equals(context.method.name))
+                || !(isMaybeSubclass(methodInsn.owner)
+                     || "java/text/SimpleDateFormat".equals(methodInsn.owner)
+                     || "java/text/DateFormat".equals(methodInsn.owner))) {
+                continue;
+            }
+            Set<AbstractInsnNode> receiverDefs = context.getOperandDefs(insn, argCount);
+            if (receiverDefs == null
+                || containsAny(receiverDefs, d -> d.getOpcode() == Opcodes.GETSTATIC
+                                                  || isMethodInsn(d, Opcodes.INVOKESTATIC, "getDateTimeInstance")
+                                                  || isMethodInsn(d, Opcodes.INVOKESTATIC, "getInstance"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * See <code>CLDRNumberFormatAnalyzer</code>. It needs both a format call and a <code>setCurrency</code>
+     * call in the same method.
+     */
+    private static boolean mayFindNumberFormat(MethodContext context) {
+        boolean format = false;
+        boolean setCurrency = false;
+        for (AbstractInsnNode insn : context.method.instructions) {
+            if (insn.getOpcode() != Opcodes.INVOKEVIRTUAL) {
+                continue;
+            }
+            MethodInsnNode methodInsn = (MethodInsnNode) insn;
+            if (Type.getArgumentTypes(methodInsn.desc).length == 0) {
+                continue;
+            }
+            if ("setCurrency".equals(methodInsn.name)) {
+                setCurrency = true;
+            } else if (("format".equals(methodInsn.name) || "parse".equals(methodInsn.name))
+                       && (isMaybeSubclass(methodInsn.owner) || methodInsn.owner.startsWith("java/text/"))) {
+                format = true;
+            }
+        }
+        return format && setCurrency;
+    }
+
+    /**
+     * See <code>CLDRCalendarFirstDayOfWeekAnalyzer</code>.
+     */
+    private static boolean mayFindCalendarFirstDayOfWeek(MethodContext context) {
+        for (AbstractInsnNode insn : context.method.instructions) {
+            if (isMethodInsn(insn, Opcodes.INVOKEVIRTUAL, "getFirstDayOfWeek")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isMethodInsn(AbstractInsnNode insn, int opcode, String name) {
+        return insn.getOpcode() == opcode && name.equals(((MethodInsnNode) insn).name);
+    }
+
+    /**
+     * Soot resolves the declaring class of a call from its owner, a class out of the JDK may extend the checked class.
+     */
+    private static boolean isMaybeSubclass(String owner) {
+        return !owner.startsWith("java/");
+    }
+
+    private static boolean containsAny(Set<AbstractInsnNode> defs, Predicate<AbstractInsnNode> predicate) {
+        for (AbstractInsnNode def : defs) {
+            if (predicate.test(def)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Integer getIntConstant(AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        if (opcode >= Opcodes.ICONST_M1 && opcode <= Opcodes.ICONST_5) {
+            return opcode - Opcodes.ICONST_0;
+        } else if (opcode == Opcodes.BIPUSH || opcode == Opcodes.SIPUSH) {
+            return ((IntInsnNode) insn).operand;
+        } else if (opcode == Opcodes.LDC && ((LdcInsnNode) insn).cst instanceof Integer) {
+            return (Integer) ((LdcInsnNode) insn).cst;
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface MethodFilter {
+        boolean mayFind(MethodContext context) throws AnalyzerException;
+    }
+
+    private static class MethodContext {
+        private final String owner;
+        private final MethodNode method;
+        private Frame<SourceValue>[] frames;
+
+        MethodContext(String owner, MethodNode method) {
+            this.owner = owner;
+            this.method = method;
+        }
+
+        /**
+         * Get the instructions that define an operand of the instruction.
+         *
+         * @param insn  the instruction that uses the operand
+         * @param depth position of the operand from the top of the stack
+         * @return the defining instructions, or null if they can't be resolved.
+         */
+        Set<AbstractInsnNode> getOperandDefs(AbstractInsnNode insn, int depth) throws AnalyzerException {
+            Frame<SourceValue> frame = getFrame(insn);
+            if (frame == null) {
+                return null;
+            }
+            Set<AbstractInsnNode> defs = new HashSet<>();
+            if (!collectDefs(frame.getStack(frame.getStackSize() - 1 - depth), defs, new HashSet<>())) {
+                return null;
+            }
+            return defs;
+        }
+
+        private boolean collectDefs(SourceValue value, Set<AbstractInsnNode> defs, Set<AbstractInsnNode> visited)
+                throws AnalyzerException {
+            for (AbstractInsnNode insn : value.insns) {
+                if (!visited.add(insn)) {
+                    continue;
+                }
+                int opcode = insn.getOpcode();
+                if (opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD) {
+                    // the sources of a local are the store instructions, a parameter has no source.
+                    Frame<SourceValue> frame = getFrame(insn);
+                    if (frame == null
+                        || !collectDefs(frame.getLocal(((VarInsnNode) insn).var), defs, visited)) {
+                        return false;
+                    }
+                } else if ((opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE)
+                           || opcode == Opcodes.CHECKCAST || opcode == Opcodes.DUP) {
+                    Frame<SourceValue> frame = getFrame(insn);
+                    if (frame == null
+                        || !collectDefs(frame.getStack(frame.getStackSize() - 1), defs, visited)) {
+                        return false;
+                    }
+                } else if ((opcode >= Opcodes.DUP_X1 && opcode <= Opcodes.SWAP) || opcode == -1) {
+                    return false;
+                } else {
+                    defs.add(insn);
+                }
+            }
+            return true;
+        }
+
+        private Frame<SourceValue> getFrame(AbstractInsnNode insn) throws AnalyzerException {
+            if (frames == null) {
+                frames = new Analyzer<>(new SourceInterpreter()).analyze(owner, method);
+            }
+            return frames[method.instructions.indexOf(insn)];
+        }
+    }
+}
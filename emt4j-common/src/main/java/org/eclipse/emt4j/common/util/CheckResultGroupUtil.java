@@ -22,76 +22,175 @@ import org.eclipse.emt4j.common.CheckResultContext;
 import org.eclipse.emt4j.common.CheckResultGroup;
 
 import java.util.*;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * Use merge many stack traces into a single stack trace if there is only a little difference.
+ * <p>
+ * A stack trace is merged into the earliest group whose stack trace has the same depth and differs at most in one frame.
+ * Instead of comparing each stack trace with all groups, the frames are interned as integers, and each group is indexed
+ * by its stack trace with one frame replaced by a wildcard. Such a key is the pair of the trie node of the frames before
+ * the wildcard and the trie node of the frames after it, so finding the group of a stack trace costs O(depth).
  */
 public class CheckResultGroupUtil {
 
     public static List<CheckResultGroup> group(List<CheckResultContext> checkResultContextList) {
+        Grouping grouping = new Grouping();
+        for (CheckResultContext checkResultContext : checkResultContextList) {
+            grouping.add(checkResultContext);
+        }
+        return grouping.getGroups();
+    }
 
-        LinkedList<CheckResultContext> workset = new LinkedList<>(checkResultContextList);
-        List<CheckResultGroup> groups = new ArrayList<>();
-        while (!workset.isEmpty()) {
-            CheckResultContext first = workset.removeFirst();
-            List<String> baseStackTrace = stackTraceToArray(first);
-            CheckResultGroup group = CheckResultGroup.createBase(first, baseStackTrace);
-            groups.add(group);
-            if (!baseStackTrace.isEmpty() && !workset.isEmpty()) {
-                Iterator<CheckResultContext> iter = workset.iterator();
-                while (iter.hasNext()) {
-                    CheckResultContext toCompare = iter.next();
-                    List<String> nowStackTrace = stackTraceToArray(toCompare);
-                    //when no stack trace,there no need to merge into group
-                    if (nowStackTrace.isEmpty()) {
-                        groups.add(CheckResultGroup.createBase(toCompare, stackTraceToArray(toCompare)));
-                        iter.remove();
-                    } else {
-                        if (baseStackTrace.size() == nowStackTrace.size()) {
-                            findDiff(baseStackTrace, nowStackTrace, (diffPos) -> {
-                                iter.remove();
-                                if (diffPos != -1) {
-                                    group.appendStackTraceDifference(toCompare, diffPos, nowStackTrace.get(diffPos));
-                                }
-                            });
-                        }
+    private static List<String> stackTraceToArray(CheckResultContext checkResultContext) {
+        StackTraceElement[] stacktrace = checkResultContext.getDependency().getStacktrace();
+        if (stacktrace != null) {
+            List<String> frames = new ArrayList<>(stacktrace.length);
+            for (StackTraceElement element : stacktrace) {
+                frames.add(element.toString());
+            }
+            return frames;
+        } else {
+            return Collections.emptyList();
+        }
+    }
+
+    private static final class Grouping {
+        private static final int PREFIX_ROOT = 0;
+        private static final int SUFFIX_ROOT = 1;
+
+        private final List<CheckResultGroup> groups = new ArrayList<>();
+
+        /**
+         * Contexts without stack trace after the first group that has a stack trace, they follow that group.
+         */
+        private final List<CheckResultGroup> lateNoStackTraceGroups = new ArrayList<>();
+        private int firstStackTraceGroup = -1;
+
+        private final Map<String, Integer> frameIds = new HashMap<>();
+
+        /**
+         * The children of the prefix trie and the suffix trie, the key is the parent node and the frame id.
+         */
+        private final Map<Long, Integer> children = new HashMap<>();
+        private int nodeCount = 2;
+
+        /**
+         * The key is the prefix node and the suffix node around the wildcard, the value is the earliest base.
+         */
+        private final Map<Long, Integer> wildcardIndex = new HashMap<>();
+        private final List<Base> bases = new ArrayList<>();
+
+        void add(CheckResultContext checkResultContext) {
+            List<String> stackTrace = stackTraceToArray(checkResultContext);
+            //when no stack trace,there no need to merge into group
+            if (stackTrace.isEmpty()) {
+                CheckResultGroup group = CheckResultGroup.createBase(checkResultContext, stackTrace);
+                if (firstStackTraceGroup == -1) {
+                    groups.add(group);
+                } else {
+                    lateNoStackTraceGroups.add(group);
+                }
+                return;
+            }
+
+            int depth = stackTrace.size();
+            int[] frames = new int[depth];
+            for (int i = 0; i < depth; i++) {
+                Integer id = frameIds.get(stackTrace.get(i));
+                if (id == null) {
+                    id = frameIds.size();
+                    frameIds.put(stackTrace.get(i), id);
+                }
+                frames[i] = id;
+            }
+
+            int[] prefix = new int[depth + 1];
+            prefix[0] = PREFIX_ROOT;
+            for (int i = 0; i < depth; i++) {
+                prefix[i + 1] = prefix[i] == -1 ? -1 : child(prefix[i], frames[i], false);
+            }
+            int[] suffix = new int[depth + 1];
+            suffix[depth] = SUFFIX_ROOT;
+            for (int i = depth - 1; i >= 0; i--) {
+                suffix[i] = suffix[i + 1] == -1 ? -1 : child(suffix[i + 1], frames[i], false);
+            }
+
+            int baseIndex = -1;
+            int wildcard = -1;
+            for (int i = 0; i < depth; i++) {
+                if (prefix[i] != -1 && suffix[i + 1] != -1) {
+                    Integer index = wildcardIndex.get(key(prefix[i], suffix[i + 1]));
+                    if (index != null && (baseIndex == -1 || index < baseIndex)) {
+                        baseIndex = index;
+                        wildcard = i;
                     }
                 }
             }
+
+            if (baseIndex != -1) {
+                Base base = bases.get(baseIndex);
+                //an identical stack trace adds nothing to the group
+                if (base.frames[wildcard] != frames[wildcard]) {
+                    base.group.appendStackTraceDifference(checkResultContext, wildcard, stackTrace.get(wildcard));
+                }
+            } else {
+                newBase(checkResultContext, stackTrace, frames, prefix, suffix);
+            }
         }
 
-        return groups;
-    }
+        private void newBase(CheckResultContext checkResultContext, List<String> stackTrace, int[] frames, int[] prefix, int[] suffix) {
+            int depth = frames.length;
+            for (int i = 0; i < depth; i++) {
+                prefix[i + 1] = child(prefix[i], frames[i], true);
+            }
+            for (int i = depth - 1; i >= 0; i--) {
+                suffix[i] = child(suffix[i + 1], frames[i], true);
+            }
+            int baseIndex = bases.size();
+            for (int i = 0; i < depth; i++) {
+                wildcardIndex.putIfAbsent(key(prefix[i], suffix[i + 1]), baseIndex);
+            }
 
-    private static void findDiff(List<String> baseStackTrace, List<String> nowStackTrace, Consumer<Integer> diffConsumer) {
-        int lastDiffPos = -1;
-        int diffNum = 0;
-        for (int i = 0; i < baseStackTrace.size(); i++) {
-            if (!baseStackTrace.get(i).equals(nowStackTrace.get(i))) {
-                lastDiffPos = i;
-                diffNum++;
-                //we only accept once difference.so if there more than 1.
-                // we no need compare more.
-                if (diffNum > 1) {
-                    break;
+            CheckResultGroup group = CheckResultGroup.createBase(checkResultContext, stackTrace);
+            bases.add(new Base(group, frames));
+            if (firstStackTraceGroup == -1) {
+                firstStackTraceGroup = groups.size();
+            }
+            groups.add(group);
+        }
+
+        private int child(int node, int frame, boolean create) {
+            long key = key(node, frame);
+            Integer child = children.get(key);
+            if (child == null) {
+                if (!create) {
+                    return -1;
                 }
+                child = nodeCount++;
+                children.put(key, child);
+            }
+            return child;
+        }
+
+        List<CheckResultGroup> getGroups() {
+            if (!lateNoStackTraceGroups.isEmpty()) {
+                groups.addAll(firstStackTraceGroup + 1, lateNoStackTraceGroups);
             }
+            return groups;
         }
 
-        if (diffNum == 0 || diffNum == 1) {
-            //remove from workset,and merge to exist group
-            diffConsumer.accept(lastDiffPos);
+        private static long key(int high, int low) {
+            return ((long) high << 32) | (low & 0xFFFFFFFFL);
         }
     }
 
+    private static final class Base {
+        final CheckResultGroup group;
+        final int[] frames;
 
-    private static List<String> stackTraceToArray(CheckResultContext checkResultContext) {
-        if (checkResultContext.getDependency().getStacktrace() != null) {
-            return Arrays.stream(checkResultContext.getDependency().getStacktrace()).map((s) -> s.toString()).collect(Collectors.toList());
-        } else {
-            return Collections.emptyList();
+        Base(CheckResultGroup group, int[] frames) {
+            this.group = group;
+            this.frames = frames;
         }
     }
 }
@@ -0,0 +1,118 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.jar.JarFile;
+
+/**
+ * Bound how many archives are open at the same time.
+ * An open <code>JarFile</code> holds a file descriptor and the native memory of its inflaters until it's closed,
+ * so all archives should be opened with {@link #open(File)} in a try-with-resources statement.
+ * <p>
+ * A thread that already holds an archive can open another one without waiting, so a rule that reads an archive
+ * while the archive that contains the dependency is still being scanned can't deadlock.
+ */
+public class JarFilePool {
+    public static final int DEFAULT_MAX_OPEN = 32;
+
+    private static volatile Semaphore permits = new Semaphore(DEFAULT_MAX_OPEN);
+    private static volatile int maxOpen = DEFAULT_MAX_OPEN;
+    private static final ThreadLocal<MutableInteger> HELD = ThreadLocal.withInitial(MutableInteger::new);
+
+    /**
+     * Should be called before any archive is opened.
+     *
+     * @param max the maximum number of archives that open at the same time.
+     */
+    public static void setMaxOpen(int max) {
+        max = Math.max(1, max);
+        if (max != maxOpen) {
+            maxOpen = max;
+            permits = new Semaphore(max);
+        }
+    }
+
+    public static int getMaxOpen() {
+        return maxOpen;
+    }
+
+    /**
+     * Open the archive, wait if there are too many archives opened by other threads.
+     *
+     * @return the opened archive, the caller must close it.
+     */
+    public static PooledJarFile open(File file) throws IOException {
+        MutableInteger held = HELD.get();
+        Semaphore semaphore = null;
+        if (held.getValue() == 0) {
+            semaphore = permits;
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted when waiting to open " + file);
+            }
+        }
+        try {
+            PooledJarFile jarFile = new PooledJarFile(file, semaphore, held);
+            held.inc();
+            return jarFile;
+        } catch (IOException | RuntimeException e) {
+            if (semaphore != null) {
+                semaphore.release();
+            }
+            throw e;
+        }
+    }
+
+    public static class PooledJarFile extends JarFile {
+        private final Semaphore semaphore;
+        private final MutableInteger held;
+        private boolean closed;
+
+        private PooledJarFile(File file, Semaphore semaphore, MutableInteger held) throws IOException {
+            super(file);
+            this.semaphore = semaphore;
+            this.held = held;
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            try {
+                super.close();
+            } finally {
+                held.dec();
+                if (semaphore != null) {
+                    semaphore.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.fileformat;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.SourceInformation;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TestRecordFormat {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCompactRoundTrip() throws Exception {
+        roundTrip(FixedHeader.VERSION_COMPACT);
+    }
+
+    @Test
+    public void testSerializedRoundTrip() throws Exception {
+        roundTrip(FixedHeader.VERSION_SERIALIZED);
+    }
+
+    @Test
+    public void testCompactIsSmaller() throws Exception {
+        List<BodyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            records.add(record(i));
+        }
+        int compact = write(FixedHeader.VERSION_COMPACT, records).length;
+        int serialized = write(FixedHeader.VERSION_SERIALIZED, records).length;
+        assertTrue("compact: " + compact + ", serialized: " + serialized, compact * 2 < serialized);
+    }
+
+    @Test
+    public void testStringTableOverflow() throws Exception {
+        List<BodyRecord> records = new ArrayList<>();
+        for (int i = 0; i < CompactRecordEncoder.MAX_STRING_TABLE_SIZE / 4 + 10; i++) {
+            records.add(record(i));
+        }
+        List<BodyRecord> read = read(write(FixedHeader.VERSION_COMPACT, records));
+        assertEquals(records.size(), read.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertRecordEquals(records.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    public void testFailedRecordIsDropped() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BodyRecord bad = record(2);
+        bad.getCheckResult().getContext().put("bad", new Object());
+        try (RecordWriter writer = RecordWriter.create(bytes, FixedHeader.VERSION_COMPACT)) {
+            writer.writeHeader(header());
+            writer.write(record(1));
+            try {
+                writer.write(bad);
+                fail("Object is not serializable");
+            } catch (IOException expected) {
+            }
+            writer.write(record(2));
+        }
+        List<BodyRecord> read = read(bytes.toByteArray());
+        assertEquals(2, read.size());
+        assertRecordEquals(record(1), read.get(0));
+        assertRecordEquals(record(2), read.get(1));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void testInvalidFile() throws Exception {
+        RecordReader.open(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    @Test
+    public void testIndexedRead() throws Exception {
+        List<BodyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            BodyRecord record = record(i);
+            if (i % 3 == 0) {
+                record.setFeature(Feature.JDK_ONLY);
+            } else if (i % 7 == 0) {
+                record.setFeature(null);
+            }
+            records.add(record);
+        }
+        File file = folder.newFile();
+        Files.write(file.toPath(), write(FixedHeader.VERSION_COMPACT, records));
+        assertTrue(IndexedRecordFile.isIndexable(file));
+
+        // A small segment size makes the frames spread over many segments.
+        for (int segmentSize : new int[]{IndexedRecordFile.DEFAULT_SEGMENT_SIZE, 4096}) {
+            try (IndexedRecordFile indexed = IndexedRecordFile.open(file, segmentSize)) {
+                assertEquals(header().getFeatures(), indexed.getVariableHeader().getFeatures());
+                assertEquals(records.size(), indexed.size());
+                assertTrue(indexed.isComplete());
+                int i = 0;
+                for (BodyRecord record : indexed) {
+                    assertRecordEquals(records.get(i++), record);
+                }
+                assertEquals(records.size(), i);
+                for (int j = records.size() - 1; j >= 0; j -= 13) {
+                    assertEquals(records.get(j).getFeature(), indexed.getFeature(j));
+                    assertRecordEquals(records.get(j), indexed.get(j));
+                }
+                for (Feature feature : Feature.values()) {
+                    IndexedRecordFile.Cursor cursor = indexed.cursor(feature);
+                    for (BodyRecord expected : records) {
+                        if (expected.getFeature() == feature) {
+                            assertRecordEquals(expected, cursor.read());
+                        }
+                    }
+                    assertEquals(0, cursor.remaining());
+                    assertNull(cursor.read());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIndexSkipsSerializedValues() throws Exception {
+        List<BodyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            BodyRecord record = record(i);
+            record.getCheckResult().getContext().put("counted", new CountedValue(i));
+            records.add(record);
+        }
+        records.add(agentMetricsRecord());
+        File file = folder.newFile();
+        Files.write(file.toPath(), write(FixedHeader.VERSION_COMPACT, records));
+
+        CountedValue.deserialized = 0;
+        try (IndexedRecordFile indexed = IndexedRecordFile.open(file)) {
+            assertEquals(0, CountedValue.deserialized);
+            assertEquals(records.size(), indexed.size());
+            // The string table built by skipping is the same as the one built by decoding.
+            for (int i = records.size() - 1; i >= 0; i--) {
+                assertRecordEquals(records.get(i), indexed.get(i));
+            }
+            assertEquals(records.size() - 1, CountedValue.deserialized);
+        }
+    }
+
+    @Test
+    public void testSerializedIsNotIndexable() throws Exception {
+        File file = folder.newFile();
+        Files.write(file.toPath(), write(FixedHeader.VERSION_SERIALIZED, Arrays.asList(record(1))));
+        assertFalse(IndexedRecordFile.isIndexable(file));
+        try {
+            IndexedRecordFile.open(file).close();
+            fail("Serialized file cannot be indexed");
+        } catch (StreamCorruptedException expected) {
+        }
+    }
+
+    @Test
+    public void testTruncatedFileIsRecovered() throws Exception {
+        List<BodyRecord> records = Arrays.asList(record(1), record(2), record(3));
+        byte[] bytes = write(FixedHeader.VERSION_COMPACT, records);
+        int lastRecordEnd = bytes.length - 6;
+        // Cut the trailer, then the last record at every byte, the complete records before the cut are still readable.
+        for (int length = bytes.length - 1; length >= lastRecordEnd - 20; length--) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            int expected = length >= lastRecordEnd ? 3 : 2;
+            try (RecordReader reader = RecordReader.open(new ByteArrayInputStream(truncated))) {
+                for (int i = 0; i < expected; i++) {
+                    assertRecordEquals(records.get(i), reader.read());
+                }
+                assertNull(reader.read());
+                assertFalse(reader.isComplete());
+            }
+            File file = folder.newFile();
+            Files.write(file.toPath(), truncated);
+            try (IndexedRecordFile indexed = IndexedRecordFile.open(file)) {
+                assertEquals(expected, indexed.size());
+                assertRecordEquals(records.get(expected - 1), indexed.get(expected - 1));
+                assertFalse(indexed.isComplete());
+            }
+        }
+    }
+
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        byte[] bytes = write(FixedHeader.VERSION_COMPACT, Arrays.asList(record(1), record(2)));
+        bytes[bytes.length - 1] ^= 1;
+        try (RecordReader reader = RecordReader.open(new ByteArrayInputStream(bytes))) {
+            assertNotNull(reader.read());
+            assertNotNull(reader.read());
+            assertNull(reader.read());
+            assertFalse(reader.isComplete());
+        }
+        File file = folder.newFile();
+        Files.write(file.toPath(), bytes);
+        try (IndexedRecordFile indexed = IndexedRecordFile.open(file)) {
+            assertEquals(2, indexed.size());
+            assertFalse(indexed.isComplete());
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testIndexTruncatedHeader() throws Exception {
+        byte[] bytes = write(FixedHeader.VERSION_COMPACT, Arrays.asList(record(1)));
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.copyOf(bytes, 10));
+        IndexedRecordFile.open(file).close();
+    }
+
+    private void roundTrip(int version) throws Exception {
+        List<BodyRecord> records = Arrays.asList(record(1), record(2), record(1), new BodyRecord(), agentMetricsRecord());
+        byte[] bytes = write(version, records);
+        try (RecordReader reader = RecordReader.open(new ByteArrayInputStream(bytes))) {
+            assertEquals(FixedHeader.MAGIC, reader.getFixedHeader().getMagic());
+            assertEquals(version, reader.getFixedHeader().getVersion());
+            VariableHeader expected = header();
+            VariableHeader vh = reader.getVariableHeader();
+            assertEquals(expected.getFromVersion(), vh.getFromVersion());
+            assertEquals(expected.getToVersion(), vh.getToVersion());
+            assertEquals(expected.getVmOption(), vh.getVmOption());
+            assertEquals(expected.getDate(), vh.getDate());
+            assertEquals(expected.getFeatures(), vh.getFeatures());
+            for (BodyRecord record : records) {
+                assertRecordEquals(record, reader.read());
+            }
+            assertNull(reader.read());
+            assertTrue(reader.isComplete());
+        }
+    }
+
+    private static byte[] write(int version, List<BodyRecord> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (RecordWriter writer = RecordWriter.create(bytes, version)) {
+            writer.writeHeader(header());
+            for (BodyRecord record : records) {
+                writer.write(record);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<BodyRecord> read(byte[] bytes) throws Exception {
+        List<BodyRecord> records = new ArrayList<>();
+        try (RecordReader reader = RecordReader.open(new ByteArrayInputStream(bytes))) {
+            BodyRecord record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    private static VariableHeader header() {
+        VariableHeader vh = new VariableHeader();
+        vh.setFromVersion(8);
+        vh.setToVersion(17);
+        vh.setVmOption("-Xmx1g");
+        vh.setDate(new Date(1700000000000L));
+        vh.setFeatures(Arrays.asList("default"));
+        return vh;
+    }
+
+    private static BodyRecord record(int i) throws IOException {
+        Dependency dependency = new Dependency(new URL("file:/tmp/lib/foo-" + i + ".jar"),
+                new DependTarget.Method("com.foo.Bar" + i, "run", "()V", DependType.METHOD),
+                new StackTraceElement[]{new StackTraceElement("com.foo.Bar" + i, "main", "Bar.java", i),
+                        new StackTraceElement("com.foo.Native", "call", null, -2)},
+                "/tmp/lib/foo-" + i + ".jar");
+        dependency.setCallerMethod("caller" + i);
+        dependency.setLines(Arrays.asList(i, i + 1));
+        SourceInformation sourceInformation = new SourceInformation();
+        sourceInformation.setIdentifier("foo");
+        sourceInformation.setDependency(true);
+        sourceInformation.setExtras(new String[]{"com.foo:foo:" + i});
+        dependency.setSourceInformation(sourceInformation);
+
+        ReportCheckResult checkResult = new ReportCheckResult(false);
+        checkResult.setResultCode("CODE_" + (i % 3));
+        checkResult.setPriority("p1");
+        Map<String, Object> context = new HashMap<>();
+        context.put("jar", "foo-" + i + ".jar");
+        context.put("shouldExports", new HashSet<>(Arrays.asList("java.base/sun.nio.ch")));
+        context.put("lines", Arrays.asList("a", "b"));
+        context.put("count", i);
+        checkResult.setContext(context);
+
+        BodyRecord record = new BodyRecord();
+        record.setDependency(dependency);
+        record.setCheckResult(checkResult);
+        record.setFeature(Feature.DEFAULT);
+        return record;
+    }
+
+    private static BodyRecord agentMetricsRecord() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("transform.count", 42L);
+        metrics.put("transform.totalNanos", 123456789012L);
+        metrics.put("dropped", 0L);
+        BodyRecord record = new BodyRecord();
+        record.setDependency(new Dependency(null, new DependTarget.AgentMetrics(metrics), null, null));
+        return record;
+    }
+
+    static class CountedValue implements Serializable {
+        static int deserialized;
+        private final int value;
+
+        CountedValue(int value) {
+            this.value = value;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            deserialized++;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CountedValue && ((CountedValue) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+
+    private static void assertRecordEquals(BodyRecord expected, BodyRecord actual) {
+        assertEquals(expected.getFeature(), actual.getFeature());
+        if (expected.getDependency() == null) {
+            assertNull(actual.getDependency());
+        } else {
+            assertEquals(expected.getDependency(), actual.getDependency());
+            assertEquals(expected.getDependency().getDependType(), actual.getDependency().getDependType());
+        }
+        if (expected.getCheckResult() == null) {
+            assertNull(actual.getCheckResult());
+        } else {
+            assertEquals(expected.getCheckResult().isPass(), actual.getCheckResult().isPass());
+            assertEquals(expected.getCheckResult().getResultCode(), actual.getCheckResult().getResultCode());
+            assertEquals(expected.getCheckResult().getSubResultCode(), actual.getCheckResult().getSubResultCode());
+            assertEquals(expected.getCheckResult().getPriority(), actual.getCheckResult().getPriority());
+            assertEquals(expected.getCheckResult().getContext(), actual.getCheckResult().getContext());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.eclipse.emt4j.common.rule;
 import org.eclipse.emt4j.common.DependTarget;
 import org.eclipse.emt4j.common.DependType;
 import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.classanalyze.ClassInspectorInstance;
 import org.eclipse.emt4j.common.rule.impl.JavaxPackageUsageRule;
 import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
 import org.eclipse.emt4j.common.rule.model.ConfRules;
@@ -53,6 +54,24 @@ public class TestJavaxPackageUsageRule {
         org.junit.Assert.assertFalse(rule.execute(dependency).isPass());
     }
 
+    @Test
+    public void testMatchWithClassSymbol() {
+        JavaxPackageUsageRule rule = new JavaxPackageUsageRule(ruleItem(), rules());
+        rule.setPackageListFile("javax_packages.cfg");
+        rule.init();
+
+        byte[] bytecode = createClassWithField("t/HasJavaxSignature", "Ljava/util/List;",
+                "Ljava/util/List<Ljavax/servlet/Servlet;>;", null);
+        Dependency dependency = new Dependency(null, new DependTarget.Class("t.HasJavaxSignature", DependType.WHOLE_CLASS), null, "dummy");
+        dependency.setClassSymbol(ClassInspectorInstance.getInstance().getSymbolInClass(bytecode));
+        org.junit.Assert.assertFalse(rule.execute(dependency).isPass());
+
+        bytecode = createClassWithField("t/NoJavax", "Ljava/util/List;", null, "java.util.List");
+        dependency = new Dependency(null, new DependTarget.Class("t.NoJavax", DependType.WHOLE_CLASS), null, "dummy");
+        dependency.setClassSymbol(ClassInspectorInstance.getInstance().getSymbolInClass(bytecode));
+        org.junit.Assert.assertTrue(rule.execute(dependency).isPass());
+    }
+
     private ConfRuleItem ruleItem() {
         ConfRuleItem ruleItem = new ConfRuleItem();
         ruleItem.setType("javax-package-usage");
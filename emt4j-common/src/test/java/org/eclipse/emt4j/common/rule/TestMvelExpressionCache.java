@@ -0,0 +1,56 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.rule;
+
+import org.eclipse.emt4j.common.rule.model.Version;
+import org.junit.Test;
+import org.mvel2.MVEL;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestMvelExpressionCache {
+
+    @Test
+    public void testSameResultAsEval() {
+        String expression = "$version.ge('1.18.20')";
+        long missCount = MvelExpressionCache.getMissCount();
+        long hitCount = MvelExpressionCache.getHitCount();
+        for (String version : new String[]{"1.18.4", "1.18.20", "1.18.22", "2.0"}) {
+            Map<String, Object> vars = new HashMap<>();
+            vars.put("$version", new Version(version));
+            assertEquals(MVEL.eval(expression, new HashMap<>(vars)), MvelExpressionCache.eval(expression, vars));
+        }
+        assertEquals(missCount + 1, MvelExpressionCache.getMissCount());
+        assertEquals(hitCount + 3, MvelExpressionCache.getHitCount());
+    }
+
+    @Test
+    public void testConcurrentEval() {
+        String expression = "typeSet.contains('java.util.List') && !cpSet.isEmpty()";
+        IntStream.range(0, 1000).parallel().forEach(i -> {
+            Map<String, Object> vars = new HashMap<>();
+            vars.put("typeSet", i % 2 == 0 ? Collections.singleton("java.util.List") : Collections.emptySet());
+            vars.put("cpSet", Collections.singleton("a"));
+            assertEquals(i % 2 == 0, MvelExpressionCache.eval(expression, vars));
+        });
+    }
+}
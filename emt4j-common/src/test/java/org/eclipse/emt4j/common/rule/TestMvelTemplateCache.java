@@ -0,0 +1,52 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.rule;
+
+import org.junit.Test;
+import org.mvel2.templates.TemplateRuntime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestMvelTemplateCache {
+
+    @Test
+    public void testSameResultAsEval() {
+        String template = "Upgrade @{artifact} to @{rule}";
+        for (String artifact : new String[]{"LOMBOK", "ASPECTJ"}) {
+            Map<String, Object> vars = new HashMap<>();
+            vars.put("artifact", artifact);
+            vars.put("rule", "1.0");
+            assertEquals(TemplateRuntime.eval(template, vars), MvelTemplateCache.eval(template, vars));
+        }
+    }
+
+    @Test
+    public void testBounded() {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("i", 1);
+        for (int i = 0; i < MvelTemplateCache.MAX_SIZE * 2; i++) {
+            assertEquals(i + "-1", MvelTemplateCache.eval(i + "-@{i}", vars));
+        }
+        assertTrue(MvelTemplateCache.size() <= MvelTemplateCache.MAX_SIZE);
+    }
+}
@@ -0,0 +1,280 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.rule;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.rule.model.CheckResult;
+import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
+import org.eclipse.emt4j.common.rule.model.ConfRules;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestRuleDispatchIndex {
+
+    @Test
+    public void testSameResultAsAllRules() {
+        List<ExecutableRule> rules = createRules(50);
+        RuleDispatchIndex index = new RuleDispatchIndex(rules);
+        for (Dependency dependency : createDependencies(2000)) {
+            assertEquals(dependency.getTarget().desc(), failedRules(rules, dependency),
+                    failedRules(index.getCandidateRules(dependency), dependency));
+        }
+    }
+
+    @Test
+    public void testUnrestrictedRulesKeepOrder() {
+        ExecutableRule anyType = new PrefixRule(null, null);
+        ExecutableRule javaMethod = new PrefixRule(EnumSet.of(DependType.METHOD), Collections.singleton("java.util."));
+        ExecutableRule anyMethod = new PrefixRule(EnumSet.of(DependType.METHOD), null);
+        ExecutableRule noSegment = new PrefixRule(EnumSet.of(DependType.METHOD), Collections.singleton("jav"));
+        RuleDispatchIndex index = new RuleDispatchIndex(Arrays.asList(anyType, javaMethod, anyMethod, noSegment));
+
+        assertEquals(Arrays.asList(anyType, javaMethod, anyMethod, noSegment), index.getCandidateRules(method("java.util.List")));
+        assertEquals(Arrays.asList(anyType, anyMethod, noSegment), index.getCandidateRules(method("javax.naming.Context")));
+        assertEquals(Collections.singletonList(anyType), index.getCandidateRules(new Dependency(null,
+                new DependTarget.VMOption("-Xmx1g"), null, null)));
+    }
+
+    @Test
+    public void testDeeperPrefixesArePruned() {
+        ExecutableRule lang = new PrefixRule(EnumSet.of(DependType.METHOD), Collections.singleton("java.lang.Thread"));
+        ExecutableRule util = new PrefixRule(EnumSet.of(DependType.METHOD), Collections.singleton("java.util."));
+        ExecutableRule concurrent = new PrefixRule(EnumSet.of(DependType.METHOD), Collections.singleton("java.util.concurrent.ForkJoinPool"));
+        ExecutableRule java = new PrefixRule(EnumSet.of(DependType.METHOD), Collections.singleton("java.Foo"));
+        RuleDispatchIndex index = new RuleDispatchIndex(Arrays.asList(lang, util, concurrent, java));
+
+        assertEquals(Arrays.asList(lang, java), index.getCandidateRules(method("java.lang.Thread")));
+        assertEquals(Arrays.asList(util, java), index.getCandidateRules(method("java.util.List")));
+        assertEquals(Arrays.asList(util, concurrent, java), index.getCandidateRules(method("java.util.concurrent.ForkJoinPool")));
+        assertEquals(Collections.singletonList(java), index.getCandidateRules(method("java.io.File")));
+        assertEquals(Collections.emptyList(), index.getCandidateRules(method("javax.naming.Context")));
+    }
+
+    /**
+     * The candidates of a dependency only depend on the rules of its package,
+     * so adding rules of other packages should not add rules to check.
+     */
+    @Test
+    public void testScaleWithRuleCount() {
+        List<Dependency> dependencies = createDependencies(20000);
+        for (int ruleCount : new int[]{10, 100, 1000}) {
+            List<ExecutableRule> rules = createRules(ruleCount);
+            RuleDispatchIndex index = new RuleDispatchIndex(rules);
+
+            int allFailed = 0;
+            for (Dependency dependency : dependencies) {
+                allFailed += failedRules(rules, dependency).size();
+            }
+
+            int indexFailed = 0;
+            long checked = 0;
+            for (Dependency dependency : dependencies) {
+                List<ExecutableRule> candidateRules = index.getCandidateRules(dependency);
+                checked += candidateRules.size();
+                indexFailed += failedRules(candidateRules, dependency).size();
+            }
+
+            assertEquals(allFailed, indexFailed);
+            if (ruleCount >= 100) {
+                assertTrue("rules: " + ruleCount + ", checked: " + checked, checked * 5 < (long) ruleCount * dependencies.size());
+            }
+        }
+    }
+
+    /**
+     * The shipped rules mostly check the classes of java, javax and sun, the index should still tell their packages apart.
+     */
+    @Test
+    public void testShippedRules() throws Exception {
+        List<ExecutableRule> rules = loadShippedRules();
+        RuleDispatchIndex index = new RuleDispatchIndex(rules);
+        String[] classNames = {"java.lang.Thread", "java.lang.reflect.Method", "java.util.ArrayList", "java.util.concurrent.ForkJoinPool",
+                "java.io.File", "java.net.URL", "javax.xml.bind.JAXBContext", "sun.misc.Unsafe", "sun.reflect.ReflectionFactory",
+                "com.sun.xml.internal.ws.api.WSService", "org.omg.CORBA.ORB", "com.foo.Bar"};
+        int indexed = 0;
+        int firstSegment = 0;
+        for (String className : classNames) {
+            for (Dependency dependency : Arrays.asList(method(className),
+                    new Dependency(null, new DependTarget.Class(className, DependType.CLASS), null, null))) {
+                List<ExecutableRule> candidates = index.getCandidateRules(dependency);
+                for (ExecutableRule rule : rules) {
+                    if (rule.shouldAccept(dependency) && matchesPrefix(rule, className)) {
+                        assertTrue(className + " should be checked by " + rule.getConfRuleItem().getResultCode(), candidates.contains(rule));
+                    }
+                }
+                indexed += candidates.size();
+                firstSegment += firstSegmentCandidates(rules, dependency, className);
+            }
+        }
+        assertTrue("indexed: " + indexed + ", first segment: " + firstSegment, indexed < firstSegment);
+    }
+
+    private static boolean matchesPrefix(ExecutableRule rule, String className) {
+        Collection<String> prefixes = rule.getTargetClassPrefixes();
+        return prefixes == null || prefixes.stream().anyMatch(className::startsWith);
+    }
+
+    /**
+     * The number of candidates if the rules were grouped by the first package segment only.
+     */
+    private static int firstSegmentCandidates(List<ExecutableRule> rules, Dependency dependency, String className) {
+        String segment = className.substring(0, className.indexOf('.') + 1);
+        int count = 0;
+        for (ExecutableRule rule : rules) {
+            Set<DependType> acceptTypes = rule.getAcceptTypes();
+            Collection<String> prefixes = rule.getTargetClassPrefixes();
+            if ((acceptTypes == null || acceptTypes.contains(dependency.getDependType()))
+                    && (prefixes == null || prefixes.stream().anyMatch((p) -> p.startsWith(segment)))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<ExecutableRule> loadShippedRules() throws Exception {
+        Map<String, Class> ruleMap = RuleSelector.select(new String[]{
+                "org.eclipse.emt4j.common.rule.impl.ReferenceClassRule",
+                "org.eclipse.emt4j.common.rule.impl.TouchedMethodRule"});
+        List<ExecutableRule> rules = new ArrayList<>();
+        for (ConfRules confRules : ConfRuleFacade.load(new Feature[]{Feature.DEFAULT}, new String[]{"agent", "class"}, 8, 21)) {
+            for (ConfRuleItem ruleItem : confRules.getRuleItems()) {
+                Class c = ruleMap.get(ruleItem.getType());
+                if (c == null) {
+                    continue;
+                }
+                ExecutableRule rule = (ExecutableRule) c.getConstructor(ConfRuleItem.class, ConfRules.class).newInstance(ruleItem, confRules);
+                if (ruleItem.getUserDefineAttrs() != null) {
+                    for (String[] nameValue : ruleItem.getUserDefineAttrs()) {
+                        rule.getClass().getMethod(toSetter(nameValue[0]), String.class).invoke(rule, nameValue[1]);
+                    }
+                }
+                rule.init();
+                rules.add(rule);
+            }
+        }
+        assertTrue(rules.size() > 10);
+        return rules;
+    }
+
+    private static String toSetter(String attrName) {
+        StringBuilder setter = new StringBuilder("set");
+        boolean upper = true;
+        for (char c : attrName.toCharArray()) {
+            if (c == '-') {
+                upper = true;
+            } else {
+                setter.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return setter.toString();
+    }
+
+    private static List<ExecutableRule> failedRules(List<ExecutableRule> rules, Dependency dependency) {
+        List<ExecutableRule> failed = new ArrayList<>();
+        for (ExecutableRule rule : rules) {
+            if (rule.shouldAccept(dependency) && !rule.execute(dependency).isPass()) {
+                failed.add(rule);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Each rule checks the classes of its own top level package, a few rules check all classes.
+     */
+    private static List<ExecutableRule> createRules(int count) {
+        List<ExecutableRule> rules = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 20 == 0) {
+                rules.add(new PrefixRule(EnumSet.of(DependType.METHOD, DependType.CLASS), null));
+            } else if (i % 3 == 0) {
+                rules.add(new PrefixRule(EnumSet.of(DependType.CLASS), Collections.singleton("p" + i + ".a.")));
+            } else {
+                rules.add(new PrefixRule(EnumSet.of(DependType.METHOD), Arrays.asList("p" + i + ".a.C", "p" + i + ".b.")));
+            }
+        }
+        return rules;
+    }
+
+    private static List<Dependency> createDependencies(int count) {
+        Random random = new Random(count);
+        List<Dependency> dependencies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String className = "p" + random.nextInt(60) + (random.nextBoolean() ? ".a.C" : ".b.D") + random.nextInt(3);
+            if (random.nextBoolean()) {
+                dependencies.add(method(className));
+            } else {
+                dependencies.add(new Dependency(null, new DependTarget.Class(className, DependType.CLASS), null, null));
+            }
+        }
+        return dependencies;
+    }
+
+    private static Dependency method(String className) {
+        return new Dependency(null, new DependTarget.Method(className, "m", "()V", DependType.METHOD), null, null);
+    }
+
+    private static class PrefixRule extends ExecutableRule {
+        private final Set<DependType> acceptTypes;
+        private final Collection<String> prefixes;
+
+        PrefixRule(Set<DependType> acceptTypes, Collection<String> prefixes) {
+            super(new ConfRuleItem(), new ConfRules());
+            this.acceptTypes = acceptTypes;
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        protected CheckResult check(Dependency dependency) {
+            if (prefixes == null) {
+                return CheckResult.FAIL;
+            }
+            String className = dependency.getDependType() == DependType.METHOD
+                    ? dependency.getTarget().asMethod().getClassName() : dependency.getTarget().asClass().getClassName();
+            return prefixes.stream().anyMatch(className::startsWith) ? CheckResult.FAIL : CheckResult.PASS;
+        }
+
+        @Override
+        protected boolean accept(Dependency dependency) {
+            return acceptTypes == null || acceptTypes.contains(dependency.getDependType());
+        }
+
+        @Override
+        public Set<DependType> getAcceptTypes() {
+            return acceptTypes;
+        }
+
+        @Override
+        public Collection<String> getTargetClassPrefixes() {
+            return prefixes;
+        }
+    }
+}
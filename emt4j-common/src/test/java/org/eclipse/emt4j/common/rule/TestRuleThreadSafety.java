@@ -0,0 +1,204 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.rule;
+
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.classanalyze.ClassInspectorInstance;
+import org.eclipse.emt4j.common.rule.model.ConfRuleItem;
+import org.eclipse.emt4j.common.rule.model.ConfRules;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.eclipse.emt4j.common.util.FileUtil;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The agent's rule threads and the analysis scan threads share the same rule instances,
+ * so the shipped rules must give the same results when they are executed concurrently.
+ */
+public class TestRuleThreadSafety {
+
+    private static final String[] RULE_CLASSES = {
+            "org.eclipse.emt4j.common.rule.impl.AddExportsRule",
+            "org.eclipse.emt4j.common.rule.impl.IncompatibleJarRule",
+            "org.eclipse.emt4j.common.rule.impl.JvmOptionRule",
+            "org.eclipse.emt4j.common.rule.impl.JavaxPackageUsageRule",
+            "org.eclipse.emt4j.common.rule.impl.ReferenceClassRule",
+            "org.eclipse.emt4j.common.rule.impl.SpringFactoriesEnableAutoConfigurationRule",
+            "org.eclipse.emt4j.common.rule.impl.TouchedMethodRule",
+            "org.eclipse.emt4j.common.rule.impl.DeprecatedAPIRule"};
+
+    private static final int THREADS = 8;
+
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void testConcurrentExecution() throws Exception {
+        List<ExecutableRule> rules = loadShippedRules();
+        List<Supplier<Dependency>> dependencies = createDependencies();
+        List<String> expected = new ArrayList<>();
+        for (Supplier<Dependency> dependency : dependencies) {
+            expected.add(execute(rules, dependency.get()));
+        }
+        assertTrue(expected.stream().anyMatch((s) -> s.contains("FAIL")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Random random = new Random(t);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<Integer> order = new ArrayList<>();
+                    for (int i = 0; i < dependencies.size(); i++) {
+                        order.add(i);
+                    }
+                    for (int round = 0; round < ROUNDS; round++) {
+                        Collections.shuffle(order, random);
+                        for (int i : order) {
+                            assertEquals(expected.get(i), execute(rules, dependencies.get(i).get()));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the result of each rule that accepts the dependency.
+     */
+    private static String execute(List<ExecutableRule> rules, Dependency dependency) {
+        StringBuilder result = new StringBuilder(dependency.getTarget().desc());
+        for (ExecutableRule rule : rules) {
+            if (rule.shouldAccept(dependency)) {
+                ReportCheckResult checkResult = rule.execute(dependency);
+                result.append(';').append(rule.getConfRuleItem().getResultCode()).append('=')
+                        .append(checkResult.isPass() ? "PASS" : "FAIL").append(checkResult.getPropagated().size());
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Each dependency is checked by a single thread, so a supplier creates a new one for each execution.
+     */
+    private static List<Supplier<Dependency>> createDependencies() throws IOException {
+        List<Supplier<Dependency>> dependencies = new ArrayList<>();
+        for (String version : new String[]{"8to11", "11to17", "17to21"}) {
+            List<String> methods = FileUtil.readPlainTextFromResource("/default/rule/" + version + "/data/remove_methods.cfg", false);
+            for (String method : methods.subList(0, Math.min(20, methods.size()))) {
+                int dot = method.lastIndexOf('.', method.indexOf('('));
+                String className = method.substring(0, dot).replace('/', '.');
+                String methodName = method.substring(dot + 1, method.indexOf('('));
+                String desc = method.substring(method.indexOf('('));
+                dependencies.add(() -> new Dependency(null, new DependTarget.Method(className, methodName, desc, DependType.METHOD), null, null));
+            }
+        }
+        for (String className : new String[]{"java.lang.Thread", "java.util.ArrayList", "sun.misc.Unsafe", "sun.misc.BASE64Encoder",
+                "sun.reflect.ReflectionFactory", "com.sun.xml.internal.ws.api.WSService", "org.omg.CORBA.ORB", "java.applet.Applet",
+                "jdk.nashorn.api.scripting.NashornScriptEngine", "java.rmi.activation.Activatable", "com.foo.Bar"}) {
+            dependencies.add(() -> new Dependency(null, new DependTarget.Class(className, DependType.CLASS), null, null));
+            dependencies.add(() -> new Dependency(null, new DependTarget.Method(className, "m", "()V", DependType.METHOD), null, null));
+        }
+        for (String option : new String[]{"-XX:+UseConcMarkSweepGC", "-XX:MaxPermSize=256m", "-XX:+AggressiveOpts", "-Xmx1g"}) {
+            dependencies.add(() -> new Dependency(null, new DependTarget.VMOption(option), null, null));
+        }
+        for (Class<?> c : new Class<?>[]{TestRuleThreadSafety.class, TestRuleDispatchIndex.class, ExecutableRule.class,
+                ClassInspectorInstance.class, FileUtil.class}) {
+            byte[] bytecode = readClass(c);
+            dependencies.add(() -> {
+                Dependency dependency = new Dependency(null, new DependTarget.Class(c.getName(), DependType.WHOLE_CLASS), null, "dummy");
+                dependency.setCurrClassBytecode(bytecode);
+                dependency.setClassSymbol(ClassInspectorInstance.getInstance().getSymbolInClass(bytecode));
+                return dependency;
+            });
+        }
+        String codeSource = Test.class.getProtectionDomain().getCodeSource().getLocation().toExternalForm();
+        dependencies.add(() -> new Dependency(null, new DependTarget.Location(codeSource, DependType.CODE_SOURCE), null, null));
+        return dependencies;
+    }
+
+    private static byte[] readClass(Class<?> c) throws IOException {
+        try (InputStream in = c.getResourceAsStream("/" + c.getName().replace('.', '/') + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static List<ExecutableRule> loadShippedRules() throws Exception {
+        Map<String, Class> ruleMap = RuleSelector.select(RULE_CLASSES);
+        List<ExecutableRule> rules = new ArrayList<>();
+        for (ConfRules confRules : ConfRuleFacade.load(new Feature[]{Feature.DEFAULT}, new String[]{"agent", "class"}, 8, 21)) {
+            for (ConfRuleItem ruleItem : confRules.getRuleItems()) {
+                Class c = ruleMap.get(ruleItem.getType());
+                if (c == null) {
+                    continue;
+                }
+                ExecutableRule rule = (ExecutableRule) c.getConstructor(ConfRuleItem.class, ConfRules.class).newInstance(ruleItem, confRules);
+                if (ruleItem.getUserDefineAttrs() != null) {
+                    for (String[] nameValue : ruleItem.getUserDefineAttrs()) {
+                        rule.getClass().getMethod(toSetter(nameValue[0]), String.class).invoke(rule, nameValue[1]);
+                    }
+                }
+                rule.init();
+                rules.add(rule);
+            }
+        }
+        assertTrue(rules.size() > 10);
+        return rules;
+    }
+
+    private static String toSetter(String attrName) {
+        StringBuilder setter = new StringBuilder("set");
+        boolean upper = true;
+        for (char c : attrName.toCharArray()) {
+            if (c == '-') {
+                upper = true;
+            } else {
+                setter.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return setter.toString();
+    }
+}
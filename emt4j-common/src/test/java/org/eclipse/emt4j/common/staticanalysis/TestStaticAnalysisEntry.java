@@ -0,0 +1,107 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.staticanalysis;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestStaticAnalysisEntry {
+    private static final String RULE = "cldr-calendar-getfirstdayofweek";
+
+    @After
+    public void tearDown() {
+        StaticAnalysisEntry.setBatchSize(1);
+    }
+
+    @Test
+    public void testBatchSameAsSingle() throws Exception {
+        Class<?>[] classes = new Class[]{UseFirstDayOfWeek.class, NotUseFirstDayOfWeek.class, UseFirstDayOfWeek.class};
+        boolean[] expected = new boolean[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            expected[i] = StaticAnalysisEntry.analyze(RULE, classes[i].getName(), read(classes[i]));
+        }
+        assertTrue(expected[0]);
+
+        StaticAnalysisEntry.setBatchSize(2);
+        assertTrue(StaticAnalysisEntry.isBatchMode());
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (Class<?> c : classes) {
+            results.add(StaticAnalysisEntry.submit(RULE, c.getName(), read(c)));
+        }
+        assertTrue(results.get(0).isDone());
+        StaticAnalysisEntry.flush();
+        for (int i = 0; i < classes.length; i++) {
+            assertEquals(expected[i], results.get(i).get());
+        }
+    }
+
+    @Test
+    public void testBrokenClassNotFailOthersInBatch() throws Exception {
+        boolean use = StaticAnalysisEntry.analyze(RULE, UseFirstDayOfWeek.class.getName(), read(UseFirstDayOfWeek.class));
+        boolean notUse = StaticAnalysisEntry.analyze(RULE, NotUseFirstDayOfWeek.class.getName(), read(NotUseFirstDayOfWeek.class));
+
+        StaticAnalysisEntry.setBatchSize(3);
+        CompletableFuture<Boolean> useResult = StaticAnalysisEntry.submit(RULE, UseFirstDayOfWeek.class.getName(), read(UseFirstDayOfWeek.class));
+        CompletableFuture<Boolean> brokenResult = StaticAnalysisEntry.submit(RULE, "com.bad.Broken", new byte[]{(byte) 0xCA, (byte) 0xFE, 1, 2, 3});
+        CompletableFuture<Boolean> notUseResult = StaticAnalysisEntry.submit(RULE, NotUseFirstDayOfWeek.class.getName(), read(NotUseFirstDayOfWeek.class));
+        StaticAnalysisEntry.flush();
+
+        assertEquals(use, useResult.get());
+        assertEquals(notUse, notUseResult.get());
+        assertTrue(brokenResult.isDone());
+        // a broken class is either kept as found or failed, which keeps the finding too
+        assertTrue(brokenResult.isCompletedExceptionally() || brokenResult.get());
+    }
+
+    private static byte[] read(Class<?> c) throws IOException {
+        String name = c.getName();
+        try (InputStream in = c.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                bos.write(buffer, 0, len);
+            }
+            return bos.toByteArray();
+        }
+    }
+
+    static class UseFirstDayOfWeek {
+        int firstDay() {
+            return Calendar.getInstance().getFirstDayOfWeek();
+        }
+    }
+
+    static class NotUseFirstDayOfWeek {
+        int year() {
+            return Calendar.getInstance().get(Calendar.YEAR);
+        }
+    }
+}
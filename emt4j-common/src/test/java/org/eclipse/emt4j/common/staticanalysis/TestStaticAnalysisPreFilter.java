@@ -0,0 +1,198 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.staticanalysis;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLClassLoader;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Currency;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestStaticAnalysisPreFilter {
+
+    @Test
+    public void testPatternCompile() throws Exception {
+        check("pattern-compile", PatternInvalidFlags.class, true);
+        check("pattern-compile", PatternInvalidFlagsInLocal.class, true);
+        check("pattern-compile", PatternValidFlags.class, false);
+        check("pattern-compile", PatternNoFlags.class, false);
+    }
+
+    @Test
+    public void testCastArraysAsListToArray() throws Exception {
+        check("cast-arrays-as-list-to-array", CastArraysAsList.class, true);
+        check("cast-arrays-as-list-to-array", CastOtherList.class, false);
+        check("cast-arrays-as-list-to-array", NoCastArraysAsList.class, false);
+    }
+
+    @Test
+    public void testCastSystemClassLoader() throws Exception {
+        check("cast-system-classloader-to-url-classloader", CastSystemClassLoader.class, true);
+        check("cast-system-classloader-to-url-classloader", CastOtherClassLoader.class, false);
+    }
+
+    @Test
+    public void testCLDR() throws Exception {
+        check("cldr-date-format", DateTimeInstanceFormat.class, true);
+        check("cldr-date-format", SimpleDateFormatFormat.class, false);
+        check("cldr-number-format", NumberFormatWithCurrency.class, true);
+        check("cldr-number-format", NumberFormatWithoutCurrency.class, false);
+        check("cldr-calendar-getfirstdayofweek", CalendarFirstDayOfWeek.class, true);
+        check("cldr-calendar-getfirstdayofweek", PatternValidFlags.class, false);
+    }
+
+    @Test
+    public void testUnknownRule() throws Exception {
+        assertTrue(StaticAnalysisPreFilter.mayFind("unknown-rule", read(PatternValidFlags.class)));
+    }
+
+    /**
+     * The pre-filter must not miss anything that Soot finds, and should rule out the safe classes.
+     */
+    private static void check(String rule, Class<?> c, boolean found) throws IOException {
+        byte[] bytecodes = read(c);
+        assertEquals(c.getSimpleName(), found, StaticAnalysisEntry.analyzeBySoot(rule, c.getName(), bytecodes));
+        if (found) {
+            assertTrue(c.getSimpleName(), StaticAnalysisPreFilter.mayFind(rule, bytecodes));
+        } else {
+            assertFalse(c.getSimpleName(), StaticAnalysisPreFilter.mayFind(rule, bytecodes));
+        }
+    }
+
+    private static byte[] read(Class<?> c) throws IOException {
+        String name = c.getName();
+        try (InputStream in = c.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                bos.write(buffer, 0, len);
+            }
+            return bos.toByteArray();
+        }
+    }
+
+    static class PatternInvalidFlags {
+        Pattern compile() {
+            return Pattern.compile("a", 0x200);
+        }
+    }
+
+    static class PatternInvalidFlagsInLocal {
+        Pattern compile() {
+            int flags = 0x400;
+            return Pattern.compile("a", flags);
+        }
+    }
+
+    static class PatternValidFlags {
+        Pattern compile(boolean ignoreCase) {
+            int flags = Pattern.MULTILINE;
+            if (ignoreCase) {
+                flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            }
+            return Pattern.compile("a", flags);
+        }
+    }
+
+    static class PatternNoFlags {
+        Pattern compile() {
+            return Pattern.compile("a");
+        }
+    }
+
+    static class CastArraysAsList {
+        String[] toArray() {
+            return (String[]) Arrays.asList("a", "b").toArray();
+        }
+    }
+
+    static class CastOtherList {
+        String[] toArray(List<String> list) {
+            Object[] array = list.toArray();
+            return (String[]) array;
+        }
+    }
+
+    static class NoCastArraysAsList {
+        Object[] toArray() {
+            return Arrays.asList("a", "b").toArray();
+        }
+    }
+
+    static class CastSystemClassLoader {
+        URLClassLoader get() {
+            return (URLClassLoader) ClassLoader.getSystemClassLoader();
+        }
+    }
+
+    static class CastOtherClassLoader {
+        URLClassLoader get() {
+            return (URLClassLoader) getClass().getClassLoader();
+        }
+    }
+
+    static class DateTimeInstanceFormat {
+        String format(Date date) {
+            DateFormat dateFormat = DateFormat.getDateTimeInstance();
+            return dateFormat.format(date);
+        }
+    }
+
+    static class SimpleDateFormatFormat {
+        String format(Date date) {
+            return new SimpleDateFormat("yyyy-MM-dd").format(date);
+        }
+    }
+
+    static class NumberFormatWithCurrency {
+        String format(double value) {
+            NumberFormat numberFormat = NumberFormat.getCurrencyInstance();
+            numberFormat.setCurrency(Currency.getInstance("USD"));
+            return numberFormat.format(value);
+        }
+    }
+
+    static class NumberFormatWithoutCurrency {
+        String format(double value) {
+            return NumberFormat.getInstance().format(value);
+        }
+    }
+
+    static class CalendarFirstDayOfWeek {
+        int firstDay() {
+            return Calendar.getInstance().getFirstDayOfWeek();
+        }
+    }
+}
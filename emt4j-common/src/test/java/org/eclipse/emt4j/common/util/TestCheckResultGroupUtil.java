@@ -0,0 +1,228 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.common.util;
+
+import org.eclipse.emt4j.common.CallFrame;
+import org.eclipse.emt4j.common.CheckResultContext;
+import org.eclipse.emt4j.common.CheckResultGroup;
+import org.eclipse.emt4j.common.DependTarget;
+import org.eclipse.emt4j.common.DependType;
+import org.eclipse.emt4j.common.Dependency;
+import org.eclipse.emt4j.common.Feature;
+import org.eclipse.emt4j.common.rule.model.ReportCheckResult;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestCheckResultGroupUtil {
+
+    @Test
+    public void testSameAsPairwise() {
+        for (long seed = 0; seed < 20; seed++) {
+            List<CheckResultContext> corpus = corpus(new Random(seed), 2000);
+            assertSameGroups(pairwise(corpus), CheckResultGroupUtil.group(corpus));
+        }
+    }
+
+    @Test
+    public void testRecordedStackTraces() throws IOException {
+        List<CheckResultContext> recorded = recorded();
+        List<CheckResultGroup> expected = pairwise(recorded);
+        assertSameGroups(expected, CheckResultGroupUtil.group(recorded));
+        // the recorded stack traces are merged, and some groups have differences
+        assertTrue(expected.size() < recorded.size());
+        assertTrue(expected.stream().anyMatch((g) -> !g.getDiffStackTraceFrame().isEmpty()));
+    }
+
+    @Test
+    public void testMergeOneDifference() {
+        CheckResultContext base = context("a", "b", "c");
+        CheckResultContext noStackTrace = context();
+        CheckResultContext oneDiff = context("a", "x", "c");
+        CheckResultContext twoDiff = context("a", "x", "y");
+        CheckResultContext sameAsTwoDiff = context("a", "x", "y");
+        CheckResultContext otherDepth = context("a", "b");
+        List<CheckResultGroup> groups = CheckResultGroupUtil.group(Arrays.asList(base, noStackTrace, oneDiff, twoDiff, sameAsTwoDiff, otherDepth));
+        assertEquals(4, groups.size());
+        assertEquals(Arrays.asList(base, oneDiff), groups.get(0).getCheckResultContextList());
+        assertEquals(1, groups.get(0).getDiffStackTraceFrame().size());
+        assertEquals(1, groups.get(0).getDiffStackTraceFrame().get(0).getPos());
+        assertSame(noStackTrace, groups.get(1).getCheckResultContextList().get(0));
+        assertEquals(Collections.singletonList(twoDiff), groups.get(2).getCheckResultContextList());
+        assertEquals(Collections.singletonList(otherDepth), groups.get(3).getCheckResultContextList());
+    }
+
+    /**
+     * Stack traces like the ones recorded by the agent: a few call paths that mostly differ by one or two frames,
+     * with repeated traces and contexts without stack trace.
+     */
+    private static List<CheckResultContext> corpus(Random random, int size) {
+        List<String[]> paths = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            String[] path = new String[1 + random.nextInt(12)];
+            for (int j = 0; j < path.length; j++) {
+                path[j] = "m" + random.nextInt(20);
+            }
+            paths.add(path);
+        }
+        List<CheckResultContext> contexts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int kind = random.nextInt(10);
+            if (kind == 0) {
+                contexts.add(random.nextBoolean() ? context() : new CheckResultContext(Feature.DEFAULT, new ReportCheckResult(false),
+                        new Dependency(null, new DependTarget.Class("C", DependType.CLASS), null, null)));
+            } else {
+                String[] path = paths.get(random.nextInt(paths.size())).clone();
+                int changes = kind < 4 ? 0 : kind < 8 ? 1 : 2;
+                for (int j = 0; j < changes; j++) {
+                    path[random.nextInt(path.length)] = "m" + random.nextInt(20);
+                }
+                contexts.add(context(path));
+            }
+        }
+        return contexts;
+    }
+
+    /**
+     * The stack traces in agent-stacktraces.testfile, the frames are listed first and then each stack trace refers to them by number.
+     */
+    private static List<CheckResultContext> recorded() throws IOException {
+        List<StackTraceElement> frames = new ArrayList<>();
+        List<CheckResultContext> contexts = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                TestCheckResultGroupUtil.class.getResourceAsStream("/agent-stacktraces.testfile"), StandardCharsets.UTF_8))) {
+            boolean stackTraces = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("# stack traces")) {
+                    stackTraces = true;
+                } else if (line.startsWith("#")) {
+                    continue;
+                } else if (!stackTraces) {
+                    String[] parts = line.split("\\|", -1);
+                    frames.add(new StackTraceElement(parts[0], parts[1], parts[2].isEmpty() ? null : parts[2], Integer.parseInt(parts[3])));
+                } else if (line.equals("-")) {
+                    contexts.add(new CheckResultContext(Feature.DEFAULT, new ReportCheckResult(false),
+                            new Dependency(null, new DependTarget.Class("C", DependType.CLASS), null, null)));
+                } else {
+                    String[] ids = line.split(",");
+                    StackTraceElement[] stacktrace = new StackTraceElement[ids.length];
+                    for (int i = 0; i < ids.length; i++) {
+                        stacktrace[i] = frames.get(Integer.parseInt(ids[i]));
+                    }
+                    contexts.add(new CheckResultContext(Feature.DEFAULT, new ReportCheckResult(false),
+                            new Dependency(null, new DependTarget.Class("C", DependType.CLASS), stacktrace, null)));
+                }
+            }
+        }
+        return contexts;
+    }
+
+    private static CheckResultContext context(String... methods) {
+        StackTraceElement[] stacktrace = new StackTraceElement[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            stacktrace[i] = new StackTraceElement("com.app.Service", methods[i], "Service.java", 10 + i);
+        }
+        return new CheckResultContext(Feature.DEFAULT, new ReportCheckResult(false),
+                new Dependency(null, new DependTarget.Class("C", DependType.CLASS), stacktrace, null));
+    }
+
+    private static void assertSameGroups(List<CheckResultGroup> expected, List<CheckResultGroup> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            CheckResultGroup e = expected.get(i);
+            CheckResultGroup a = actual.get(i);
+            assertEquals(e.getStackTrace(), a.getStackTrace());
+            assertEquals(e.getCheckResultContextList().size(), a.getCheckResultContextList().size());
+            for (int j = 0; j < e.getCheckResultContextList().size(); j++) {
+                assertSame(e.getCheckResultContextList().get(j), a.getCheckResultContextList().get(j));
+            }
+            assertEquals(frames(e.getDiffStackTraceFrame()), frames(a.getDiffStackTraceFrame()));
+        }
+    }
+
+    private static List<String> frames(List<CallFrame> callFrames) {
+        return callFrames.stream().map((f) -> f.getPos() + ":" + f.getFrameContent()).collect(Collectors.toList());
+    }
+
+    /**
+     * The previous grouping that compares each stack trace with all the remaining ones.
+     */
+    private static List<CheckResultGroup> pairwise(List<CheckResultContext> checkResultContextList) {
+        LinkedList<CheckResultContext> workset = new LinkedList<>(checkResultContextList);
+        List<CheckResultGroup> groups = new ArrayList<>();
+        while (!workset.isEmpty()) {
+            CheckResultContext first = workset.removeFirst();
+            List<String> baseStackTrace = stackTraceToArray(first);
+            CheckResultGroup group = CheckResultGroup.createBase(first, baseStackTrace);
+            groups.add(group);
+            if (!baseStackTrace.isEmpty() && !workset.isEmpty()) {
+                Iterator<CheckResultContext> iter = workset.iterator();
+                while (iter.hasNext()) {
+                    CheckResultContext toCompare = iter.next();
+                    List<String> nowStackTrace = stackTraceToArray(toCompare);
+                    if (nowStackTrace.isEmpty()) {
+                        groups.add(CheckResultGroup.createBase(toCompare, stackTraceToArray(toCompare)));
+                        iter.remove();
+                    } else if (baseStackTrace.size() == nowStackTrace.size()) {
+                        findDiff(baseStackTrace, nowStackTrace, (diffPos) -> {
+                            iter.remove();
+                            if (diffPos != -1) {
+                                group.appendStackTraceDifference(toCompare, diffPos, nowStackTrace.get(diffPos));
+                            }
+                        });
+                    }
+                }
+            }
+        }
+        return groups;
+    }
+
+    private static void findDiff(List<String> baseStackTrace, List<String> nowStackTrace, Consumer<Integer> diffConsumer) {
+        int lastDiffPos = -1;
+        int diffNum = 0;
+        for (int i = 0; i < baseStackTrace.size() && diffNum <= 1; i++) {
+            if (!baseStackTrace.get(i).equals(nowStackTrace.get(i))) {
+                lastDiffPos = i;
+                diffNum++;
+            }
+        }
+        if (diffNum <= 1) {
+            diffConsumer.accept(lastDiffPos);
+        }
+    }
+
+    private static List<String> stackTraceToArray(CheckResultContext checkResultContext) {
+        if (checkResultContext.getDependency().getStacktrace() != null) {
+            return Arrays.stream(checkResultContext.getDependency().getStacktrace()).map((s) -> s.toString()).collect(Collectors.toList());
+        } else {
+            return Collections.emptyList();
+        }
+    }
+}
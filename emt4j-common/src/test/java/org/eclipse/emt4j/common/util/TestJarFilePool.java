@@ -0,0 +1,105 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+
+package org.eclipse.emt4j.common.util;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class TestJarFilePool {
+    private static File jar;
+
+    @BeforeClass
+    public static void createJar() throws IOException {
+        jar = File.createTempFile("test-jar-file-pool", ".jar");
+        jar.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("a.txt"));
+            out.write(1);
+            out.closeEntry();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        JarFilePool.setMaxOpen(JarFilePool.DEFAULT_MAX_OPEN);
+    }
+
+    @Test
+    public void testBoundOpenArchives() throws Exception {
+        JarFilePool.setMaxOpen(1);
+        CompletableFuture<Void> other;
+        try (JarFile jarFile = JarFilePool.open(jar)) {
+            assertNotNull(jarFile.getEntry("a.txt"));
+            // the same thread can open another archive
+            try (JarFile nested = JarFilePool.open(jar)) {
+                assertNotNull(nested.getEntry("a.txt"));
+            }
+            // other threads must wait until the archive is closed
+            other = CompletableFuture.runAsync(() -> {
+                try (JarFile jarFile2 = JarFilePool.open(jar)) {
+                    assertNotNull(jarFile2.getEntry("a.txt"));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try {
+                other.get(200, TimeUnit.MILLISECONDS);
+                fail("should wait for the opened archive");
+            } catch (TimeoutException expected) {
+                assertFalse(other.isDone());
+            }
+        }
+        other.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testCloseTwice() throws Exception {
+        JarFilePool.setMaxOpen(1);
+        JarFile jarFile = JarFilePool.open(jar);
+        jarFile.close();
+        jarFile.close();
+        try (JarFile again = JarFilePool.open(jar)) {
+            assertEquals(1, again.size());
+        }
+        CompletableFuture.runAsync(() -> {
+            try (JarFile other = JarFilePool.open(jar)) {
+                assertEquals(1, other.size());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -80,6 +80,24 @@ abstract class BaseCheckMojo extends BaseMojo {
     @Parameter(property = "externalTools")
     protected List<String> externalTools;
 
+    /**
+     * Indicate how many threads are used to parse and check the classes of a single jar.
+     */
+    @Parameter(property = "scanThreads", defaultValue = "1")
+    protected int scanThreads;
+
+    /**
+     * Indicate how many classes are analyzed together in one static analysis session.
+     */
+    @Parameter(property = "staticAnalysisBatchSize", defaultValue = "1")
+    protected int staticAnalysisBatchSize;
+
+    /**
+     * Indicate how many jar files can be opened at the same time.
+     */
+    @Parameter(property = "maxOpenArchives", defaultValue = "32")
+    protected int maxOpenArchives;
+
     @Override
     void doExecute() throws MojoExecutionException {
         try {
@@ -212,6 +230,15 @@ abstract class BaseCheckMojo extends BaseMojo {
         if (scenario != null) {
             param(args, "-scenario", scenario);
         }
+        if (scanThreads > 1) {
+            param(args, "-scan-threads", String.valueOf(scanThreads));
+        }
+        if (staticAnalysisBatchSize > 1) {
+            param(args, "-static-analysis-batch", String.valueOf(staticAnalysisBatchSize));
+        }
+        if (maxOpenArchives > 0 && maxOpenArchives != 32) {
+            param(args, "-max-open-archives", String.valueOf(maxOpenArchives));
+        }
         args.addAll(getCheckTargets());
         return args.toArray(new String[0]);
     }
@@ -59,6 +59,14 @@ public class RunJavaUtil {
         }
     }
 
+    /**
+     * Start a process that shares the IO of the current process, without waiting for it.
+     */
+    public static Process startProcess(List<String> arguments) throws IOException {
+        System.out.println("start process: " + String.join(" ", arguments));
+        return new ProcessBuilder(arguments).inheritIO().start();
+    }
+
     public static boolean checkCommandSuccess(String command) {
         try {
             runProcess(Arrays.asList(command.split(" +")));
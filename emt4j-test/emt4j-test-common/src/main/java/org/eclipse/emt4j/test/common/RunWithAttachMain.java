@@ -0,0 +1,68 @@
+/********************************************************************************
+ * Copyright (c) 2024 Contributors to the Eclipse Foundation
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Apache License, Version 2.0 which is available at
+ * https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ ********************************************************************************/
+package org.eclipse.emt4j.test.common;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Test attaching emt4j-agent to a running java process.
+ * The java process writes its pid to a file, waits until the agent is attached,
+ * then calls the run method of the testcase.
+ */
+public class RunWithAttachMain {
+
+    public static final String PID_FILE = "pid";
+
+    public static final String ATTACHED_FILE = "attached";
+
+    private static final long WAIT_ATTACH_MILLIS = 60_000;
+
+    public static void main(String[] args) throws Exception {
+        File workDir = new File(args[1]);
+        String pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+        File pidFile = new File(workDir, PID_FILE);
+        File tmpFile = new File(workDir, PID_FILE + ".tmp");
+        Files.write(tmpFile.toPath(), pid.getBytes(StandardCharsets.UTF_8));
+        if (!tmpFile.renameTo(pidFile)) {
+            throw new RuntimeException("Cannot create " + pidFile);
+        }
+
+        File attachedFile = new File(workDir, ATTACHED_FILE);
+        long deadline = System.currentTimeMillis() + WAIT_ATTACH_MILLIS;
+        while (!attachedFile.exists()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("The agent is not attached in " + WAIT_ATTACH_MILLIS + "ms");
+            }
+            Thread.sleep(100);
+        }
+
+        Class testClass = Class.forName(args[0]);
+        Method runMethod = testClass.getDeclaredMethod("run");
+        Object o = testClass.newInstance();
+        runMethod.invoke(o);
+
+        //There a background thread in emt4j-agent that write the found problems to file. If not wait a while
+        //,it may lose some data.
+        Thread.sleep(3000);
+    }
+}
@@ -68,6 +68,9 @@ class TestCaseSuite {
                         case AGENT:
                             runWithAgent(testParam, testCase, testcasePlayground);
                             break;
+                        case ATTACH:
+                            runWithAttach(testParam, testCase, testcasePlayground);
+                            break;
                         case CLASS:
                             runWithClass(testParam, testCase, testcasePlayground, unzipJarDir);
                             break;
@@ -205,6 +208,64 @@ class TestCaseSuite {
         runProcess(buildCheckParam(testParam, testCase, reportOutput));
     }
 
+    private void runWithAttach(RunningTestParam testParam, TestCase testCase, File testcasePlayground) throws IOException, InterruptedException {
+        File agentOutput = new File(testcasePlayground, "agent-output.dat");
+        File reportOutput = new File(testcasePlayground, "agent-report.json");
+        Process target = startProcess(buildRunWithAttachParam(testParam, testCase, testcasePlayground));
+        try {
+            String pid = waitPid(target, new File(testcasePlayground, RunWithAttachMain.PID_FILE));
+            runProcess(buildAttachParam(testParam, testCase, pid, agentOutput));
+            if (!new File(testcasePlayground, RunWithAttachMain.ATTACHED_FILE).createNewFile()) {
+                throw new RuntimeException("Cannot notify the attached process");
+            }
+            int ret = target.waitFor();
+            if (ret != 0) {
+                throw new RuntimeException("Return code: [" + ret + "] with the attached process");
+            }
+        } finally {
+            target.destroy();
+        }
+        runProcess(buildAnalysisParamForAgent(testParam, testCase, agentOutput, reportOutput));
+        runProcess(buildCheckParam(testParam, testCase, reportOutput));
+    }
+
+    private String waitPid(Process target, File pidFile) throws IOException, InterruptedException {
+        while (!pidFile.exists()) {
+            if (!target.isAlive()) {
+                throw new RuntimeException("The process to attach exit with code: " + target.exitValue());
+            }
+            Thread.sleep(100);
+        }
+        return FileUtils.readFileToString(pidFile, "utf-8").trim();
+    }
+
+    private List<String> buildRunWithAttachParam(RunningTestParam testParam, TestCase testCase, File workDir) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add(getJavaExePath(testParam, testCase.from.getValue()));
+        //class path
+        arguments.add("-cp");
+        arguments.add(testParam.testCommonClassPath + File.pathSeparator + testcaseJar + File.pathSeparator + testParam.analysisLibDir + File.separator + "*");
+        if (StringUtils.isNotEmpty(testCase.option)) {
+            arguments.add(testCase.option);
+        }
+        //main class
+        arguments.add("org.eclipse.emt4j.test.common.RunWithAttachMain");
+        //to run class
+        arguments.add(testCase.className);
+        arguments.add(workDir.getAbsolutePath());
+        return arguments;
+    }
+
+    private List<String> buildAttachParam(RunningTestParam testParam, TestCase testCase, String pid, File agentOutput) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add(getJavaExePath(testParam, testCase.from.getValue()));
+        arguments.add("-jar");
+        arguments.add(getAgentJar(testParam, testCase));
+        arguments.add(pid);
+        arguments.add("file=" + agentOutput.getAbsolutePath() + ",to=" + testCase.to.getValue());
+        return arguments;
+    }
+
     private List<String> buildCheckParam(RunningTestParam testParam, TestCase testCase, File analysisOutput) {
         List<String> arguments = new ArrayList<>();
         arguments.add(getJavaExePath(testParam, testCase.from.getValue()));
@@ -297,11 +358,15 @@ class TestCaseSuite {
 
     private String buildJavaAgentParam(RunningTestParam testParam, TestCase testCase, File agentOutput) {
         StringBuilder sb = new StringBuilder(256);
-        sb.append("-javaagent:").append(testParam.agentLibDir + File.separator + "emt4j-agent-jdk" + testCase.from.getValue() + "-" + testParam.projectVersion + ".jar");
+        sb.append("-javaagent:").append(getAgentJar(testParam, testCase));
         sb.append('=');
         sb.append("file=").append(agentOutput.getAbsolutePath());
         sb.append(',').append("to=").append(testCase.to.getValue());
         return sb.toString();
     }
 
+    private String getAgentJar(RunningTestParam testParam, TestCase testCase) {
+        return testParam.agentLibDir + File.separator + "emt4j-agent-jdk" + testCase.from.getValue() + "-" + testParam.projectVersion + ".jar";
+    }
+
 }
@@ -38,7 +38,7 @@ public @interface TestConf {
     String option() default "";
 
     enum ModeEnum {
-        AGENT, CLASS, DYNAMIC, MAVEN_PLUGIN
+        AGENT, ATTACH, CLASS, DYNAMIC, MAVEN_PLUGIN
     }
 
     enum RELEASE {
@@ -30,7 +30,7 @@ import java.lang.reflect.Method;
 import static org.eclipse.emt4j.test.common.TestConf.ModeEnum;
 import static org.eclipse.emt4j.test.common.TestConf.RELEASE;
 
-@TestConf(mode = ModeEnum.AGENT, from = RELEASE.JDK11, to = RELEASE.JDK17)
+@TestConf(mode = {ModeEnum.AGENT, ModeEnum.ATTACH}, from = RELEASE.JDK11, to = RELEASE.JDK17)
 public class SecurityClassesGetDeclareFieldTest extends SITBaseCase {
     public void run() {
         try {
@@ -25,7 +25,7 @@ import org.eclipse.emt4j.test.common.TestConf;
 import java.lang.Compiler;
 
 
-@TestConf(mode = {TestConf.ModeEnum.AGENT, TestConf.ModeEnum.CLASS}, from = TestConf.RELEASE.JDK17, to = TestConf.RELEASE.JDK21)
+@TestConf(mode = {TestConf.ModeEnum.AGENT, TestConf.ModeEnum.ATTACH, TestConf.ModeEnum.CLASS}, from = TestConf.RELEASE.JDK17, to = TestConf.RELEASE.JDK21)
 public class RemovedClassTest extends SITBaseCase {
     public void run() {
         Compiler.compileClasses(null);
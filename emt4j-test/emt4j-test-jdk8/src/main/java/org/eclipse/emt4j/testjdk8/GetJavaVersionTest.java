@@ -22,7 +22,7 @@ import org.eclipse.emt4j.common.JsonReport;
 import org.eclipse.emt4j.test.common.SITBaseCase;
 import org.eclipse.emt4j.test.common.TestConf;
 
-@TestConf(mode = {TestConf.ModeEnum.AGENT, TestConf.ModeEnum.CLASS}, from = TestConf.RELEASE.JDK8, to = TestConf.RELEASE.JDK11)
+@TestConf(mode = {TestConf.ModeEnum.AGENT, TestConf.ModeEnum.ATTACH, TestConf.ModeEnum.CLASS}, from = TestConf.RELEASE.JDK8, to = TestConf.RELEASE.JDK11)
 public class GetJavaVersionTest extends SITBaseCase {
 
     public void run() {
@@ -25,7 +25,7 @@ import sun.misc.Unsafe;
 
 import java.lang.reflect.Field;
 
-@TestConf(mode = TestConf.ModeEnum.AGENT, from = TestConf.RELEASE.JDK8, to = TestConf.RELEASE.JDK11)
+@TestConf(mode = {TestConf.ModeEnum.AGENT, TestConf.ModeEnum.ATTACH}, from = TestConf.RELEASE.JDK8, to = TestConf.RELEASE.JDK11)
 public class ReflectionUseJdkInternalTest extends SITBaseCase {
 
     public void run() {